@@ -0,0 +1,434 @@
+package com.spotspread.backtest;
+
+import com.spotspread.config.ArbitrageConfig.ProfitMode;
+import com.spotspread.config.BacktestConfig;
+import com.spotspread.config.RollingStatsConfig;
+import com.spotspread.config.StageLatencyConfig;
+import com.spotspread.event.InfluxDbMessagePublisher;
+import com.spotspread.recorder.FrameLogReader;
+import com.spotspread.recorder.FrameRecorder;
+import com.spotspread.repository.SpreadArbitrageStatsRepository.PairAggregateRow;
+import com.spotspread.repository.SpreadArbitrageStatsRepository.PairFilter;
+import com.spotspread.repository.SpreadArbitrageStatsRepository.SpreadPairStatRow;
+import com.spotspread.service.ExchangePriceService;
+import com.spotspread.service.OrderBookCacheService;
+import com.spotspread.service.PairStatsService;
+import com.spotspread.sink.Opportunity;
+import com.spotspread.stats.RollingStatsService;
+import com.spotspread.stats.StageLatencyService;
+import com.spotspread.task.SpreadEngine;
+import com.spotspread.websocket.ManagedWebSocket;
+import com.spotspread.websocket.VenueHandlers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * 基于录制帧的回测，分两阶段：
+ * <ol>
+ *   <li>解码：每个交易所一个任务，按录制顺序把该交易所的帧交给线上同一套 handler（每条录制连接一个实例），
+ *       写入模拟时钟下的行情缓存（含冗余连接仲裁），缓存的每次写入按币种录成 {@link TickTape}，再按时间归并；</li>
+ *   <li>求值：币种 × 利润率模式 × 阈值的每个组合在 ForkJoinPool 上独立重放该币种的行情，
+ *       各自持有缓存、滚动统计、模拟时钟与 {@link SpreadEngine}，按评估间隔调用价差计算。</li>
+ * </ol>
+ * 达到阈值的结果按组合累加成与 MySQL 汇总相同的结构（利润率先按入库精度舍入），可直接与线上入库结果对比。
+ * 区间内没有解码出任何行情的交易所列在结果里，对比时这些交易所的组合缺失不代表线上没有机会。
+ */
+@Service
+public class BacktestService {
+
+    private static final Logger log = LoggerFactory.getLogger(BacktestService.class);
+    /** 与 spread_arbitrage_snapshots 的 DECIMAL(10,4) 一致 */
+    private static final int COLUMN_SCALE = 4;
+
+    private final BacktestConfig config;
+    private final FrameRecorder recorder;
+    private final RollingStatsConfig rollingStatsConfig;
+    private final PairStatsService pairStats;
+    private final LongAdder framesRead = new LongAdder();
+    private final LongAdder ticksDecoded = new LongAdder();
+    /** 按 SpreadEngine.EXCHANGES 下标统计区间内解码出的行情数 */
+    private final AtomicLongArray venueTicks = new AtomicLongArray(SpreadEngine.EXCHANGES.size());
+    private final AtomicLong cellsDone = new AtomicLong();
+    private volatile Thread worker;
+    private volatile boolean cancelled;
+    private volatile BacktestStatus status = BacktestStatus.idle();
+
+    public BacktestService(BacktestConfig config, FrameRecorder recorder, RollingStatsConfig rollingStatsConfig,
+                           PairStatsService pairStats) {
+        this.config = config;
+        this.recorder = recorder;
+        this.rollingStatsConfig = rollingStatsConfig;
+        this.pairStats = pairStats;
+    }
+
+    /**
+     * @param thresholds 入库阈值（利润率 %）网格
+     * @throws IllegalStateException    已有回测在运行
+     * @throws IllegalArgumentException 窗口或参数网格不合法
+     */
+    public synchronized BacktestStatus start(LocalDateTime from, LocalDateTime to, List<ProfitMode> modes,
+                                             List<BigDecimal> thresholds, boolean compareWithMysql) {
+        if (worker != null && worker.isAlive()) throw new IllegalStateException("backtest already running");
+        if (!from.isBefore(to)) throw new IllegalArgumentException("from must be before to");
+        if (modes.isEmpty() || thresholds.isEmpty()) throw new IllegalArgumentException("modes and thresholds must not be empty");
+        if (modes.size() * thresholds.size() > config.getMaxGridCells()) {
+            throw new IllegalArgumentException("grid too large, max cells: " + config.getMaxGridCells());
+        }
+        cancelled = false;
+        framesRead.reset();
+        ticksDecoded.reset();
+        for (int i = 0; i < venueTicks.length(); i++) venueTicks.set(i, 0);
+        cellsDone.set(0);
+        BacktestRequest request = new BacktestRequest(from, to, List.copyOf(modes), List.copyOf(thresholds), compareWithMysql);
+        status = new BacktestStatus("RUNNING", request, 0, 0, 0, 0, null, null);
+        Thread t = new Thread(() -> execute(request), "backtest");
+        t.setDaemon(true);
+        worker = t;
+        t.start();
+        return status;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /** 运行中时附带实时进度 */
+    public BacktestStatus status() {
+        BacktestStatus s = status;
+        if (!"RUNNING".equals(s.state())) return s;
+        return new BacktestStatus(s.state(), s.request(), framesRead.sum(), ticksDecoded.sum(), cellsDone.get(),
+                s.cellsTotal(), null, null);
+    }
+
+    private void execute(BacktestRequest request) {
+        long started = System.nanoTime();
+        int parallelism = config.getParallelism() > 0 ? config.getParallelism() : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            long fromMs = toEpochMs(request.from());
+            long toMs = toEpochMs(request.to());
+            Map<String, TickTape> tapes = decode(pool, fromMs, toMs);
+            long decodeNanos = System.nanoTime() - started;
+            if (cancelled) {
+                status = new BacktestStatus("CANCELLED", request, framesRead.sum(), ticksDecoded.sum(), 0, 0, null, null);
+                return;
+            }
+            int cellsTotal = tapes.size() * request.modes().size() * request.thresholds().size();
+            status = new BacktestStatus("RUNNING", request, framesRead.sum(), ticksDecoded.sum(), 0, cellsTotal, null, null);
+            long evalStart = System.nanoTime();
+            List<CellResult> cells = evaluateGrid(pool, tapes, request, fromMs, toMs);
+            long evalNanos = System.nanoTime() - evalStart;
+            if (cancelled) {
+                status = new BacktestStatus("CANCELLED", request, framesRead.sum(), ticksDecoded.sum(), cellsDone.get(), cellsTotal, null, null);
+                return;
+            }
+            List<Comparison> comparisons = request.compareWithMysql() ? compare(cells, request) : List.of();
+            List<String> venuesWithoutTicks = new ArrayList<>();
+            for (int i = 0; i < venueTicks.length(); i++) {
+                if (venueTicks.get(i) == 0) venuesWithoutTicks.add(SpreadEngine.EXCHANGES.get(i));
+            }
+            if (!venuesWithoutTicks.isEmpty()) {
+                log.warn("[Backtest] {} ~ {} 内以下交易所没有解码出行情，相关组合不参与对比: {}",
+                        request.from(), request.to(), venuesWithoutTicks);
+            }
+            BacktestResult result = new BacktestResult(decodeNanos / 1_000_000, evalNanos / 1_000_000,
+                    toMs - fromMs, cells, comparisons, venuesWithoutTicks);
+            status = new BacktestStatus("DONE", request, framesRead.sum(), ticksDecoded.sum(), cellsDone.get(), cellsTotal, result, null);
+            log.info("[Backtest] 完成 {} ~ {}：{} 帧，{} 条行情，{} 个组合，解码 {}ms，求值 {}ms", request.from(), request.to(),
+                    framesRead.sum(), ticksDecoded.sum(), cellsTotal, result.decodeMs(), result.evaluateMs());
+        } catch (Exception e) {
+            String error = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+            log.warn("[Backtest] 回测失败: {}", error);
+            status = new BacktestStatus("FAILED", request, framesRead.sum(), ticksDecoded.sum(), cellsDone.get(), 0, null, error);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * 第一阶段：录制帧 → handler → 行情缓存 → 按币种的行情序列。
+     * 仲裁状态按 交易所:币种 划分，各交易所互不影响，因此每个交易所一个任务独立回放，最后按币种归并。
+     * 每个任务都要读一遍分段（压缩分段要各自解压），单线程时改为一次读完全部交易所。
+     */
+    private Map<String, TickTape> decode(ForkJoinPool pool, long fromMs, long toMs) {
+        List<ForkJoinTask<Map<String, TickTape>>> tasks = new ArrayList<>();
+        if (pool.getParallelism() == 1) {
+            tasks.add(ForkJoinTask.adapt(() -> decodeExchange(null, fromMs, toMs)));
+        } else {
+            for (String exchange : SpreadEngine.EXCHANGES) {
+                tasks.add(ForkJoinTask.adapt(() -> decodeExchange(exchange, fromMs, toMs)));
+            }
+        }
+        pool.submit(() -> ForkJoinTask.invokeAll(tasks)).join();
+        Map<String, List<TickTape>> bySymbol = new LinkedHashMap<>();
+        for (ForkJoinTask<Map<String, TickTape>> task : tasks) {
+            task.join().forEach((symbol, tape) -> bySymbol.computeIfAbsent(symbol, k -> new ArrayList<>()).add(tape));
+        }
+        Map<String, TickTape> tapes = new LinkedHashMap<>();
+        bySymbol.forEach((symbol, parts) -> tapes.put(symbol, TickTape.merge(symbol, parts)));
+        return tapes;
+    }
+
+    /**
+     * 回放一个交易所（null 表示全部）的所有录制连接，共用一个模拟时钟与缓存。
+     * 先回放区间起点之前 warmup-minutes 内的帧（不计帧数、不录行情），遇到连接建立标记就为该连接换一个新的 handler，
+     * 使每条连接从最近一次建立处起重放，区间开始时已有订阅确认等连接级状态。
+     */
+    private Map<String, TickTape> decodeExchange(String exchange, long fromMs, long toMs) throws IOException {
+        long warmupFromMs = fromMs - TimeUnit.MINUTES.toMillis(config.getWarmupMinutes());
+        SimulatedClock clock = new SimulatedClock(warmupFromMs);
+        StageLatencyService latency = quietLatency();
+        OrderBookCacheService cache = new OrderBookCacheService(latency, clock);
+        Map<String, TickTape> tapes = new LinkedHashMap<>();
+        cache.setQuoteListener((ex, symbol, bid1, ask1, updatedAt) -> {
+            int index = SpreadEngine.EXCHANGES.indexOf(ex);
+            if (index < 0 || updatedAt < fromMs) return;
+            if (!ExchangePriceService.SYMBOLS.contains(baseSymbol(symbol))) return;
+            TickTape tape = tapes.computeIfAbsent(symbol, TickTape::new);
+            if (tape.add(updatedAt, index, bid1, ask1)) {
+                ticksDecoded.increment();
+                venueTicks.incrementAndGet(index);
+            }
+        });
+        Map<String, BiFunction<OrderBookCacheService.FeedWriter, List<String>, ManagedWebSocket>> factories =
+                VenueHandlers.factories(new InfluxDbMessagePublisher(event -> {}), latency);
+        List<String> symbols = ExchangePriceService.SYMBOLS.stream().map(s -> s + "USDT").toList();
+        Map<String, ManagedWebSocket> clients = new HashMap<>();
+        if (warmupFromMs < fromMs) {
+            FrameLogReader.read(recorder.getDir(), warmupFromMs, fromMs, exchange, frame -> {
+                if (cancelled) return false;
+                replayFrame(frame, clients, factories, cache, symbols, clock);
+                return true;
+            });
+        }
+        FrameLogReader.read(recorder.getDir(), fromMs, toMs, exchange, frame -> {
+            if (cancelled) return false;
+            if (replayFrame(frame, clients, factories, cache, symbols, clock)) framesRead.increment();
+            return true;
+        });
+        return tapes;
+    }
+
+    /** @return 是否交给了 handler（连接建立标记与未知交易所的帧不算） */
+    private static boolean replayFrame(FrameLogReader.RecordedFrame frame, Map<String, ManagedWebSocket> clients,
+                                       Map<String, BiFunction<OrderBookCacheService.FeedWriter, List<String>, ManagedWebSocket>> factories,
+                                       OrderBookCacheService cache, List<String> symbols, SimulatedClock clock) {
+        if (frame.exchange() == null || frame.connection() == null) return false;
+        var factory = factories.get(frame.exchange());
+        if (factory == null) return false;
+        ManagedWebSocket client = clients.get(frame.connection());
+        if (client == null || frame.connect()) {
+            // 新连接的 handler 不带上一条连接的状态（如 Bitfinex 的 chanId 映射）
+            client = factory.apply(cache.feed(frame.exchange(), frame.connection()), symbols);
+            client.setName(frame.connection());
+            clients.put(frame.connection(), client);
+        }
+        clock.advanceTo(frame.epochNanos() / 1_000_000);
+        if (frame.connect()) return false;
+        if (frame.binary()) {
+            client.onBinaryMessage(frame.payload());
+        } else {
+            client.onMessage(frame.text());
+        }
+        return true;
+    }
+
+    /** 第二阶段：币种 × 模式 × 阈值并行求值，再按 (模式, 阈值) 合并各币种 */
+    private List<CellResult> evaluateGrid(ForkJoinPool pool, Map<String, TickTape> tapes, BacktestRequest request, long fromMs, long toMs) {
+        List<ForkJoinTask<SymbolCell>> tasks = new ArrayList<>();
+        for (ProfitMode mode : request.modes()) {
+            for (BigDecimal threshold : request.thresholds()) {
+                for (TickTape tape : tapes.values()) {
+                    tasks.add(ForkJoinTask.adapt(() -> replay(tape, mode, threshold, fromMs, toMs)));
+                }
+            }
+        }
+        pool.submit(() -> ForkJoinTask.invokeAll(tasks)).join();
+        Map<String, CellAccumulator> merged = new LinkedHashMap<>();
+        for (ForkJoinTask<SymbolCell> task : tasks) {
+            SymbolCell c = task.join();
+            merged.computeIfAbsent(c.mode().name() + "|" + c.threshold().toPlainString(),
+                    k -> new CellAccumulator(c.mode(), c.threshold())).add(c);
+        }
+        List<CellResult> results = new ArrayList<>();
+        for (CellAccumulator acc : merged.values()) results.add(acc.toResult());
+        return results;
+    }
+
+    /** 单个币种在一组参数下按模拟时钟重放：每到评估时刻调用一次价差计算，其间把行情写入缓存 */
+    private SymbolCell replay(TickTape tape, ProfitMode mode, BigDecimal threshold, long fromMs, long toMs) {
+        SimulatedClock clock = new SimulatedClock(fromMs);
+        OrderBookCacheService cache = new OrderBookCacheService(quietLatency(), clock);
+        SpreadEngine engine = new SpreadEngine(cache, new RollingStatsService(rollingStatsConfig), clock, threshold);
+        String base = baseSymbol(tape.symbol);
+        long interval = Math.max(1, config.getEvaluateIntervalMs());
+        Map<String, long[]> counts = new HashMap<>();
+        Map<String, BigDecimal[]> sums = new HashMap<>();
+        List<Opportunity> out = new ArrayList<>();
+        long evaluations = 0;
+        long above = 0;
+        long next = fromMs;
+        int n = tape.size();
+        long end = n == 0 ? fromMs : Math.min(toMs, tape.time(n - 1) + SpreadEngine.STALE_MS);
+        int i = 0;
+        while (next < end && !cancelled) {
+            // 评估时刻之前（含同一毫秒）的行情先入缓存，与线上“收包先于定时任务”的常态一致
+            for (; i < n && tape.time(i) <= next; i++) {
+                clock.advanceTo(tape.time(i));
+                cache.updateBidAsk(SpreadEngine.EXCHANGES.get(tape.exchange(i)), tape.symbol, tape.bid(i), tape.ask(i));
+            }
+            clock.advanceTo(next);
+            out.clear();
+            engine.collect(base, mode, out);
+            evaluations += out.size();
+            for (Opportunity o : out) {
+                if (!o.aboveThreshold()) continue;
+                above++;
+                String key = o.exchangeBuy() + "|" + o.exchangeSell();
+                long[] c = counts.computeIfAbsent(key, k -> new long[3]);
+                BigDecimal[] s = sums.computeIfAbsent(key, k -> new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO});
+                c[0]++;
+                s[0] = s[0].add(o.profitPct().setScale(COLUMN_SCALE, RoundingMode.HALF_UP));
+                if (o.feeBuyPct() != null) {
+                    c[1]++;
+                    s[1] = s[1].add(o.feeBuyPct().setScale(COLUMN_SCALE, RoundingMode.HALF_UP));
+                }
+                if (o.feeSellPct() != null) {
+                    c[2]++;
+                    s[2] = s[2].add(o.feeSellPct().setScale(COLUMN_SCALE, RoundingMode.HALF_UP));
+                }
+            }
+            next += interval;
+        }
+        List<PairAggregateRow> rows = new ArrayList<>(counts.size());
+        counts.forEach((key, c) -> {
+            BigDecimal[] s = sums.get(key);
+            int sep = key.indexOf('|');
+            rows.add(new PairAggregateRow(base, key.substring(0, sep), key.substring(sep + 1), mode.name(),
+                    c[0], s[0], s[1], c[1], s[2], c[2]));
+        });
+        cellsDone.incrementAndGet();
+        return new SymbolCell(mode, threshold, evaluations, above, rows);
+    }
+
+    /** 阈值等于线上入库阈值的组合，与 MySQL 同一窗口、同一模式的入库结果逐组合对比 */
+    private List<Comparison> compare(List<CellResult> cells, BacktestRequest request) {
+        List<Comparison> list = new ArrayList<>();
+        for (CellResult cell : cells) {
+            if (cell.thresholdPct().compareTo(SpreadEngine.DEFAULT_THRESHOLD_PCT) != 0) continue;
+            try {
+                List<SpreadPairStatRow> live = pairStats.findPairStats(request.from(), request.to(),
+                        new PairFilter(null, null, cell.profitMode().name()));
+                Map<String, SpreadPairStatRow> liveByPair = new LinkedHashMap<>();
+                for (SpreadPairStatRow r : live) liveByPair.put(r.symbol() + "|" + r.exchangeBuy() + "|" + r.exchangeSell(), r);
+                for (SpreadPairStatRow r : cell.pairs()) {
+                    SpreadPairStatRow l = liveByPair.remove(r.symbol() + "|" + r.exchangeBuy() + "|" + r.exchangeSell());
+                    list.add(new Comparison(cell.profitMode(), r.symbol(), r.exchangeBuy(), r.exchangeSell(),
+                            r.spreadCount(), l != null ? l.spreadCount() : 0,
+                            r.avgProfitMarginPct(), l != null ? l.avgProfitMarginPct() : null));
+                }
+                for (SpreadPairStatRow l : liveByPair.values()) {
+                    list.add(new Comparison(cell.profitMode(), l.symbol(), l.exchangeBuy(), l.exchangeSell(),
+                            0, l.spreadCount(), null, l.avgProfitMarginPct()));
+                }
+            } catch (Exception e) {
+                log.warn("[Backtest] 读取 MySQL 入库结果失败，跳过对比: {}", e.getMessage());
+                return list;
+            }
+        }
+        return list;
+    }
+
+    /** BTCUSDT → BTC，与价差计算、入库使用的币种名一致 */
+    private static String baseSymbol(String symbol) {
+        String s = symbol.toUpperCase();
+        return s.endsWith("USDT") ? s.substring(0, s.length() - 4) : s;
+    }
+
+    private static StageLatencyService quietLatency() {
+        StageLatencyConfig c = new StageLatencyConfig();
+        c.setEnabled(false);
+        return new StageLatencyService(c);
+    }
+
+    private static long toEpochMs(LocalDateTime t) {
+        return t.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /** 同一 (模式, 阈值) 下各币种结果的合并 */
+    private static final class CellAccumulator {
+        final ProfitMode mode;
+        final BigDecimal threshold;
+        long evaluations;
+        long above;
+        final List<PairAggregateRow> rows = new ArrayList<>();
+
+        CellAccumulator(ProfitMode mode, BigDecimal threshold) {
+            this.mode = mode;
+            this.threshold = threshold;
+        }
+
+        void add(SymbolCell c) {
+            evaluations += c.evaluations();
+            above += c.aboveThreshold();
+            rows.addAll(c.rows());
+        }
+
+        CellResult toResult() {
+            return new CellResult(mode, threshold, evaluations, above, PairStatsService.mergeOrdered(rows));
+        }
+    }
+
+    private record SymbolCell(ProfitMode mode, BigDecimal threshold, long evaluations, long aboveThreshold,
+                              List<PairAggregateRow> rows) {}
+
+    public record BacktestRequest(LocalDateTime from, LocalDateTime to, List<ProfitMode> modes,
+                                  List<BigDecimal> thresholds, boolean compareWithMysql) {}
+
+    /**
+     * @param state IDLE / RUNNING / DONE / CANCELLED / FAILED
+     */
+    public record BacktestStatus(String state, BacktestRequest request, long framesRead, long ticksDecoded,
+                                 long cellsDone, long cellsTotal, BacktestResult result, String error) {
+        static BacktestStatus idle() {
+            return new BacktestStatus("IDLE", null, 0, 0, 0, 0, null, null);
+        }
+    }
+
+    /**
+     * @param simulatedMs        回放覆盖的模拟时长，与 decodeMs + evaluateMs 之比即加速倍数
+     * @param venuesWithoutTicks 区间内没有解码出任何行情的交易所（未录制，或连接建立早于 warmup-minutes 而缺少订阅状态）
+     */
+    public record BacktestResult(long decodeMs, long evaluateMs, long simulatedMs, List<CellResult> cells,
+                                 List<Comparison> comparisons, List<String> venuesWithoutTicks) {}
+
+    /**
+     * @param evaluations    评估的方向数（每个评估时刻每个有效组合两个方向）
+     * @param aboveThreshold 达到阈值（线上会入库）的次数
+     * @param pairs          与 /api/spread-stats 相同结构、相同排序
+     */
+    public record CellResult(ProfitMode profitMode, BigDecimal thresholdPct, long evaluations, long aboveThreshold,
+                             List<SpreadPairStatRow> pairs) {}
+
+    public record Comparison(ProfitMode profitMode, String symbol, String exchangeBuy, String exchangeSell,
+                             long backtestCount, long liveCount, BigDecimal backtestAvgProfitPct, BigDecimal liveAvgProfitPct) {}
+}
@@ -0,0 +1,42 @@
+package com.spotspread.backtest;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * 回测时钟：时间只由回放推进，不随墙钟走。只会前进，录制时并发写入造成的少量乱序不会让时间倒退。
+ */
+public final class SimulatedClock extends Clock {
+
+    private volatile long millis;
+
+    public SimulatedClock(long startMillis) {
+        this.millis = startMillis;
+    }
+
+    public void advanceTo(long epochMillis) {
+        if (epochMillis > millis) millis = epochMillis;
+    }
+
+    @Override
+    public long millis() {
+        return millis;
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return this;
+    }
+}
@@ -0,0 +1,91 @@
+package com.spotspread.backtest;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 单个币种解析后的行情序列（按回放顺序），列式存储：价格存为 unscaled long + scale，还原后与解析结果完全相等，
+ * 几天的数据也不必为每条行情保留两个 BigDecimal 对象。
+ */
+final class TickTape {
+
+    final String symbol;
+    private int size;
+    private long[] time = new long[1024];
+    private byte[] exchange = new byte[1024];
+    private long[] bid = new long[1024];
+    private long[] ask = new long[1024];
+    private byte[] bidScale = new byte[1024];
+    private byte[] askScale = new byte[1024];
+
+    TickTape(String symbol) {
+        this.symbol = symbol;
+    }
+
+    /** @return false 表示价格精度超出 long 可表示范围，未记录 */
+    boolean add(long updatedAt, int exchangeIndex, BigDecimal bid1, BigDecimal ask1) {
+        BigDecimal b = compact(bid1);
+        BigDecimal a = compact(ask1);
+        if (b == null || a == null) return false;
+        if (size == time.length) grow();
+        time[size] = updatedAt;
+        exchange[size] = (byte) exchangeIndex;
+        bid[size] = b.unscaledValue().longValue();
+        bidScale[size] = (byte) b.scale();
+        ask[size] = a.unscaledValue().longValue();
+        askScale[size] = (byte) a.scale();
+        size++;
+        return true;
+    }
+
+    /**
+     * 把同一币种按交易所分别解码出的序列按时间归并，同一毫秒按列表顺序（即交易所顺序）排列。
+     * 各交易所的缓存键互不相同，评估时刻之前的行情都会先入缓存，同一毫秒内的先后不影响结果。
+     */
+    static TickTape merge(String symbol, List<TickTape> parts) {
+        if (parts.size() == 1) return parts.get(0);
+        TickTape out = new TickTape(symbol);
+        int[] cursor = new int[parts.size()];
+        while (true) {
+            int pick = -1;
+            for (int k = 0; k < parts.size(); k++) {
+                TickTape t = parts.get(k);
+                if (cursor[k] < t.size && (pick < 0 || t.time[cursor[k]] < parts.get(pick).time[cursor[pick]])) pick = k;
+            }
+            if (pick < 0) return out;
+            TickTape t = parts.get(pick);
+            int i = cursor[pick]++;
+            if (out.size == out.time.length) out.grow();
+            out.time[out.size] = t.time[i];
+            out.exchange[out.size] = t.exchange[i];
+            out.bid[out.size] = t.bid[i];
+            out.bidScale[out.size] = t.bidScale[i];
+            out.ask[out.size] = t.ask[i];
+            out.askScale[out.size] = t.askScale[i];
+            out.size++;
+        }
+    }
+
+    private static BigDecimal compact(BigDecimal v) {
+        if (v.unscaledValue().bitLength() < 64 && v.scale() >= Byte.MIN_VALUE && v.scale() <= Byte.MAX_VALUE) return v;
+        BigDecimal s = v.stripTrailingZeros();
+        return s.unscaledValue().bitLength() < 64 && s.scale() >= Byte.MIN_VALUE && s.scale() <= Byte.MAX_VALUE ? s : null;
+    }
+
+    private void grow() {
+        int n = time.length * 2;
+        time = Arrays.copyOf(time, n);
+        exchange = Arrays.copyOf(exchange, n);
+        bid = Arrays.copyOf(bid, n);
+        ask = Arrays.copyOf(ask, n);
+        bidScale = Arrays.copyOf(bidScale, n);
+        askScale = Arrays.copyOf(askScale, n);
+    }
+
+    int size() { return size; }
+    long time(int i) { return time[i]; }
+    int exchange(int i) { return exchange[i]; }
+    BigDecimal bid(int i) { return BigDecimal.valueOf(bid[i], bidScale[i]); }
+    BigDecimal ask(int i) { return BigDecimal.valueOf(ask[i], askScale[i]); }
+}
@@ -0,0 +1,34 @@
+package com.spotspread.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 回测：读取 frame-recorder 录制的原始帧，经线上同一套 handler、行情缓存与价差计算在模拟时钟下重放。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "backtest")
+public class BacktestConfig {
+
+    /** 参数网格求值的并行度，0 为 CPU 核数 */
+    private int parallelism = 0;
+    /** 模拟时钟下的评估间隔，与 SpreadArbitrageStatsTask 的调度周期一致 */
+    private long evaluateIntervalMs = 1000;
+    /**
+     * 区间起点之前回放的时长：帧交给 handler 但不计时、不录行情，每条连接从其最近一次建立处起恢复连接级状态
+     * （如 Bitfinex 的 chanId 只在连接时的 subscribed 事件里出现）；须覆盖录制连接的存活时长，
+     * 否则该连接在区间内可能解码不出行情
+     */
+    private long warmupMinutes = 60;
+    /** 单次回测最多的参数组合数（模式 × 阈值） */
+    private int maxGridCells = 64;
+
+    public int getParallelism() { return parallelism; }
+    public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+    public long getEvaluateIntervalMs() { return evaluateIntervalMs; }
+    public void setEvaluateIntervalMs(long evaluateIntervalMs) { this.evaluateIntervalMs = evaluateIntervalMs; }
+    public long getWarmupMinutes() { return warmupMinutes; }
+    public void setWarmupMinutes(long warmupMinutes) { this.warmupMinutes = warmupMinutes; }
+    public int getMaxGridCells() { return maxGridCells; }
+    public void setMaxGridCells(int maxGridCells) { this.maxGridCells = maxGridCells; }
+}
@@ -0,0 +1,18 @@
+package com.spotspread.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+/**
+ * 行情缓存与价差计算使用的时钟。线上为系统时钟，回测时各组件改用模拟时钟，按录制的收包时刻推进。
+ */
+@Configuration
+public class ClockConfig {
+
+    @Bean
+    public Clock clock() {
+        return Clock.systemUTC();
+    }
+}
@@ -0,0 +1,32 @@
+package com.spotspread.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 看板推送流（/api/stream）配置。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "dashboard-stream")
+public class DashboardStreamConfig {
+
+    /** 价格帧间隔，期间的多次行情变化合并为一帧 */
+    private long frameIntervalMs = 250;
+    /** 组合统计帧间隔 */
+    private long statsIntervalMs = 1000;
+    /** 单个客户端待发送帧上限，超过即视为慢消费者并断开；不小于订阅时的全量首帧数加一轮推送 */
+    private int clientQueueFrames = 64;
+    private long heartbeatSeconds = 15;
+    private int maxClients = 500;
+
+    public long getFrameIntervalMs() { return frameIntervalMs; }
+    public void setFrameIntervalMs(long frameIntervalMs) { this.frameIntervalMs = frameIntervalMs; }
+    public long getStatsIntervalMs() { return statsIntervalMs; }
+    public void setStatsIntervalMs(long statsIntervalMs) { this.statsIntervalMs = statsIntervalMs; }
+    public int getClientQueueFrames() { return clientQueueFrames; }
+    public void setClientQueueFrames(int clientQueueFrames) { this.clientQueueFrames = clientQueueFrames; }
+    public long getHeartbeatSeconds() { return heartbeatSeconds; }
+    public void setHeartbeatSeconds(long heartbeatSeconds) { this.heartbeatSeconds = heartbeatSeconds; }
+    public int getMaxClients() { return maxClients; }
+    public void setMaxClients(int maxClients) { this.maxClients = maxClients; }
+}
@@ -0,0 +1,42 @@
+package com.spotspread.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 原始帧录制：所有连接收到的每一帧按到达顺序追加到内存映射的分段文件，供事后回放。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "frame-recorder")
+public class FrameRecorderConfig {
+
+    public enum Compression { NONE, DEFLATE }
+
+    private boolean enabled = false;
+    private String dir = "./frames";
+    /** 单个分段文件大小，写满后切换到预先建好的下一个分段 */
+    private int segmentSizeMb = 128;
+    /** 目录总大小上限，超出后删除最旧的分段 */
+    private long maxTotalMb = 10_240;
+    /** 封存后的分段按块压缩（后台线程执行，不影响收包线程） */
+    private Compression compression = Compression.NONE;
+    /** 时间索引与压缩块的粒度 */
+    private int indexIntervalKb = 64;
+    /** 超过此大小的单帧不录制，只计入丢弃数 */
+    private int maxFrameKb = 1024;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public String getDir() { return dir; }
+    public void setDir(String dir) { this.dir = dir; }
+    public int getSegmentSizeMb() { return segmentSizeMb; }
+    public void setSegmentSizeMb(int segmentSizeMb) { this.segmentSizeMb = segmentSizeMb; }
+    public long getMaxTotalMb() { return maxTotalMb; }
+    public void setMaxTotalMb(long maxTotalMb) { this.maxTotalMb = maxTotalMb; }
+    public Compression getCompression() { return compression; }
+    public void setCompression(Compression compression) { this.compression = compression; }
+    public int getIndexIntervalKb() { return indexIntervalKb; }
+    public void setIndexIntervalKb(int indexIntervalKb) { this.indexIntervalKb = indexIntervalKb; }
+    public int getMaxFrameKb() { return maxFrameKb; }
+    public void setMaxFrameKb(int maxFrameKb) { this.maxFrameKb = maxFrameKb; }
+}
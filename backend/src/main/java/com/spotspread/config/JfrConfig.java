@@ -0,0 +1,25 @@
+package com.spotspread.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 按需 JFR 录制：通过 /api/jfr 启停，录制期间实时汇总 GC 停顿与各阶段的分配速率，停止时落盘为 .jfr 文件。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "jfr")
+public class JfrConfig {
+
+    /** 默认录制配置：spotspread 为随包的 jfr/spotspread.jfc，也可用 JDK 自带的 default / profile */
+    private String settings = "spotspread";
+    private String dumpDir = "./jfr";
+    /** 录制数据在磁盘仓库中的最长保留时间，限制长时间录制的占用 */
+    private long maxAgeMinutes = 30;
+
+    public String getSettings() { return settings; }
+    public void setSettings(String settings) { this.settings = settings; }
+    public String getDumpDir() { return dumpDir; }
+    public void setDumpDir(String dumpDir) { this.dumpDir = dumpDir; }
+    public long getMaxAgeMinutes() { return maxAgeMinutes; }
+    public void setMaxAgeMinutes(long maxAgeMinutes) { this.maxAgeMinutes = maxAgeMinutes; }
+}
@@ -0,0 +1,47 @@
+package com.spotspread.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 启动预热：建立行情连接之前，把报文语料循环喂给各交易所 handler、独立的行情缓存与价差计算，
+ * 直到热点方法完成 C2 编译或用完时间预算，再打开线上连接。预热不写线上缓存、InfluxDB 与 MySQL。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "jit-warmup")
+public class JitWarmupConfig {
+
+    public enum Source { BUNDLED, RECORDED }
+
+    private boolean enabled = true;
+    /** bundled 为随包语料；recorded 为 frame-recorder 目录中最近 recorded-minutes 分钟的帧，没有时退回随包语料 */
+    private Source source = Source.BUNDLED;
+    private int recordedMinutes = 5;
+    /** recorded 最多载入的帧数 */
+    private int maxRecordedFrames = 200_000;
+    /** 时间预算，到期即结束预热 */
+    private long maxDurationMs = 15_000;
+    /** 至少预热的时长 */
+    private long minDurationMs = 2_000;
+    /** 关键方法都已 C2 编译后，连续这么久没有新的 C2 编译即视为完成 */
+    private long quietMs = 1_000;
+    /** 每喂多少帧做一轮全部币种的价差评估 */
+    private int framesPerSweep = 500;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public Source getSource() { return source; }
+    public void setSource(Source source) { this.source = source; }
+    public int getRecordedMinutes() { return recordedMinutes; }
+    public void setRecordedMinutes(int recordedMinutes) { this.recordedMinutes = recordedMinutes; }
+    public int getMaxRecordedFrames() { return maxRecordedFrames; }
+    public void setMaxRecordedFrames(int maxRecordedFrames) { this.maxRecordedFrames = maxRecordedFrames; }
+    public long getMaxDurationMs() { return maxDurationMs; }
+    public void setMaxDurationMs(long maxDurationMs) { this.maxDurationMs = maxDurationMs; }
+    public long getMinDurationMs() { return minDurationMs; }
+    public void setMinDurationMs(long minDurationMs) { this.minDurationMs = minDurationMs; }
+    public long getQuietMs() { return quietMs; }
+    public void setQuietMs(long quietMs) { this.quietMs = quietMs; }
+    public int getFramesPerSweep() { return framesPerSweep; }
+    public void setFramesPerSweep(int framesPerSweep) { this.framesPerSweep = framesPerSweep; }
+}
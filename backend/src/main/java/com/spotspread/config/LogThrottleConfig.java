@@ -0,0 +1,30 @@
+package com.spotspread.config;
+
+import com.spotspread.logging.ThrottledLogger;
+import jakarta.annotation.PostConstruct;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 热路径日志限流：每条日志模板每个窗口最多输出 permits-per-window 条，其余在窗口结束时汇总为一条。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "log-throttle")
+public class LogThrottleConfig {
+
+    private boolean enabled = true;
+    private long windowMs = 10_000;
+    private int permitsPerWindow = 5;
+
+    @PostConstruct
+    public void apply() {
+        ThrottledLogger.configure(enabled, windowMs, permitsPerWindow);
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public long getWindowMs() { return windowMs; }
+    public void setWindowMs(long windowMs) { this.windowMs = windowMs; }
+    public int getPermitsPerWindow() { return permitsPerWindow; }
+    public void setPermitsPerWindow(int permitsPerWindow) { this.permitsPerWindow = permitsPerWindow; }
+}
@@ -0,0 +1,114 @@
+package com.spotspread.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 套利机会下游（sink）配置：每个 sink 独立的队列容量、批量策略与队列满时的处理方式。
+ * 未在此配置的自定义 sink 使用 {@link SinkSettings} 默认值。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "opportunity-sinks")
+public class OpportunitySinkConfig {
+
+    /** 队列满时的处理方式；入队在价差任务的调度线程上进行，两种方式都不阻塞 */
+    public enum Overflow {
+        /** 丢弃新到的机会 */
+        DROP_NEWEST,
+        /** 丢弃队列中最旧的机会 */
+        DROP_OLDEST
+    }
+
+    private SinkSettings mysql = new SinkSettings();
+    private SinkSettings influx = new SinkSettings();
+    private JournalSettings journal = new JournalSettings();
+    private WebhookSettings webhook = new WebhookSettings();
+    /** 其它进程内 sink（如策略）的设置，key 为 sink 名称 */
+    private Map<String, SinkSettings> custom = new LinkedHashMap<>();
+
+    public SinkSettings settingsFor(String name) {
+        return switch (name) {
+            case "mysql" -> mysql;
+            case "influx" -> influx;
+            case "journal" -> journal;
+            case "webhook" -> webhook;
+            default -> custom.getOrDefault(name, new SinkSettings());
+        };
+    }
+
+    public SinkSettings getMysql() { return mysql; }
+    public void setMysql(SinkSettings mysql) { this.mysql = mysql; }
+    public SinkSettings getInflux() { return influx; }
+    public void setInflux(SinkSettings influx) { this.influx = influx; }
+    public JournalSettings getJournal() { return journal; }
+    public void setJournal(JournalSettings journal) { this.journal = journal; }
+    public WebhookSettings getWebhook() { return webhook; }
+    public void setWebhook(WebhookSettings webhook) { this.webhook = webhook; }
+    public Map<String, SinkSettings> getCustom() { return custom; }
+    public void setCustom(Map<String, SinkSettings> custom) { this.custom = custom; }
+
+    public static class SinkSettings {
+        private boolean enabled;
+        private int queueCapacity;
+        /** 单批最大条数 */
+        private int batchSize;
+        /** 凑批最长等待时间 */
+        private long lingerMs;
+        private Overflow overflow = Overflow.DROP_OLDEST;
+
+        public SinkSettings() {
+            this(true, 10_000, 500, 200);
+        }
+
+        /** 子类给出各自的默认值 */
+        protected SinkSettings(boolean enabled, int queueCapacity, int batchSize, long lingerMs) {
+            this.enabled = enabled;
+            this.queueCapacity = queueCapacity;
+            this.batchSize = batchSize;
+            this.lingerMs = lingerMs;
+        }
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+        public long getLingerMs() { return lingerMs; }
+        public void setLingerMs(long lingerMs) { this.lingerMs = lingerMs; }
+        public Overflow getOverflow() { return overflow; }
+        public void setOverflow(Overflow overflow) { this.overflow = overflow; }
+    }
+
+    public static class JournalSettings extends SinkSettings {
+        private String dir = "./journal";
+        /** 是否记录未达阈值的机会 */
+        private boolean includeBelowThreshold = false;
+
+        public JournalSettings() {
+            super(false, 10_000, 500, 200);
+        }
+
+        public String getDir() { return dir; }
+        public void setDir(String dir) { this.dir = dir; }
+        public boolean isIncludeBelowThreshold() { return includeBelowThreshold; }
+        public void setIncludeBelowThreshold(boolean includeBelowThreshold) { this.includeBelowThreshold = includeBelowThreshold; }
+    }
+
+    public static class WebhookSettings extends SinkSettings {
+        private String url = "";
+        private long timeoutMs = 3000;
+
+        public WebhookSettings() {
+            super(false, 2000, 100, 1000);
+        }
+
+        public String getUrl() { return url; }
+        public void setUrl(String url) { this.url = url; }
+        public long getTimeoutMs() { return timeoutMs; }
+        public void setTimeoutMs(long timeoutMs) { this.timeoutMs = timeoutMs; }
+    }
+}
@@ -0,0 +1,18 @@
+package com.spotspread.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 价格快照预序列化配置。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "price-snapshot")
+public class PriceSnapshotConfig {
+
+    /** 两次重建的最小间隔，行情更新再频繁也不超过该速率 */
+    private long minIntervalMs = 100;
+
+    public long getMinIntervalMs() { return minIntervalMs; }
+    public void setMinIntervalMs(long minIntervalMs) { this.minIntervalMs = minIntervalMs; }
+}
@@ -0,0 +1,56 @@
+package com.spotspread.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 每个交易方向利润率的滚动统计（EWMA、滑动窗口最值、分位数草图）及自适应阈值配置。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "rolling-stats")
+public class RollingStatsConfig {
+
+    /** EWMA 半衰期（秒） */
+    private double halfLifeSeconds = 300;
+    /** 最值与分位数的滑动窗口（秒） */
+    private long windowSeconds = 900;
+    /** 分位数草图覆盖的利润率区间（%），区间外的样本计入两端 */
+    private double sketchMinPct = -5;
+    private double sketchMaxPct = 5;
+    private double sketchBucketPct = 0.01;
+    private Adaptive adaptive = new Adaptive();
+
+    public double getHalfLifeSeconds() { return halfLifeSeconds; }
+    public void setHalfLifeSeconds(double halfLifeSeconds) { this.halfLifeSeconds = halfLifeSeconds; }
+    public long getWindowSeconds() { return windowSeconds; }
+    public void setWindowSeconds(long windowSeconds) { this.windowSeconds = windowSeconds; }
+    public double getSketchMinPct() { return sketchMinPct; }
+    public void setSketchMinPct(double sketchMinPct) { this.sketchMinPct = sketchMinPct; }
+    public double getSketchMaxPct() { return sketchMaxPct; }
+    public void setSketchMaxPct(double sketchMaxPct) { this.sketchMaxPct = sketchMaxPct; }
+    public double getSketchBucketPct() { return sketchBucketPct; }
+    public void setSketchBucketPct(double sketchBucketPct) { this.sketchBucketPct = sketchBucketPct; }
+    public Adaptive getAdaptive() { return adaptive; }
+    public void setAdaptive(Adaptive adaptive) { this.adaptive = adaptive; }
+
+    /**
+     * 自适应阈值：开启后，除达到固定阈值外，还需 z-score 或分位数足够靠前才视为机会（入库）。
+     * 样本数不足 minSamples 时只看固定阈值。
+     */
+    public static class Adaptive {
+        private boolean enabled = false;
+        private double minZScore = 2.5;
+        /** 0~1，与 minZScore 满足其一即可 */
+        private double minPercentile = 0.99;
+        private long minSamples = 300;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public double getMinZScore() { return minZScore; }
+        public void setMinZScore(double minZScore) { this.minZScore = minZScore; }
+        public double getMinPercentile() { return minPercentile; }
+        public void setMinPercentile(double minPercentile) { this.minPercentile = minPercentile; }
+        public long getMinSamples() { return minSamples; }
+        public void setMinSamples(long minSamples) { this.minSamples = minSamples; }
+    }
+}
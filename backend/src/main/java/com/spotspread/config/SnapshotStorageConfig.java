@@ -0,0 +1,83 @@
+package com.spotspread.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 快照存储配置：原始表按天分区、汇总层滚动、过期分区归档与删除。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "snapshot-storage")
+public class SnapshotStorageConfig {
+
+    /** 原始快照分区保留天数，超过后先归档再 DROP PARTITION */
+    private int rawRetentionDays = 7;
+    /** 1 分钟汇总保留天数，1 小时汇总永久保留 */
+    private int minuteRollupRetentionDays = 30;
+    /** 提前创建的未来分区天数 */
+    private int partitionsAhead = 3;
+    /** 滚动汇总相对当前时间的延迟（秒），等待异步写库完成，避免汇总后又有同一分钟的数据落库 */
+    private int rollupLagSeconds = 30;
+    /** 单次最多汇总的分钟数，避免长时间停机后一次性扫描过多数据 */
+    private int maxMinutesPerRollup = 360;
+    /** 删除分区前是否导出到本地压缩文件 */
+    private boolean archiveEnabled = true;
+    /** 归档文件目录 */
+    private String archiveDir = "./archive";
+
+    public int getRawRetentionDays() {
+        return rawRetentionDays;
+    }
+
+    public void setRawRetentionDays(int rawRetentionDays) {
+        this.rawRetentionDays = rawRetentionDays;
+    }
+
+    public int getMinuteRollupRetentionDays() {
+        return minuteRollupRetentionDays;
+    }
+
+    public void setMinuteRollupRetentionDays(int minuteRollupRetentionDays) {
+        this.minuteRollupRetentionDays = minuteRollupRetentionDays;
+    }
+
+    public int getPartitionsAhead() {
+        return partitionsAhead;
+    }
+
+    public void setPartitionsAhead(int partitionsAhead) {
+        this.partitionsAhead = partitionsAhead;
+    }
+
+    public int getRollupLagSeconds() {
+        return rollupLagSeconds;
+    }
+
+    public void setRollupLagSeconds(int rollupLagSeconds) {
+        this.rollupLagSeconds = rollupLagSeconds;
+    }
+
+    public int getMaxMinutesPerRollup() {
+        return maxMinutesPerRollup;
+    }
+
+    public void setMaxMinutesPerRollup(int maxMinutesPerRollup) {
+        this.maxMinutesPerRollup = maxMinutesPerRollup;
+    }
+
+    public boolean isArchiveEnabled() {
+        return archiveEnabled;
+    }
+
+    public void setArchiveEnabled(boolean archiveEnabled) {
+        this.archiveEnabled = archiveEnabled;
+    }
+
+    public String getArchiveDir() {
+        return archiveDir;
+    }
+
+    public void setArchiveDir(String archiveDir) {
+        this.archiveDir = archiveDir;
+    }
+}
@@ -0,0 +1,25 @@
+package com.spotspread.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 价差历史环形缓冲配置。每个（币种, 买入所, 卖出所）序列占 retentionSeconds × 4 字节堆外内存，首次出现时才分配。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "spread-history")
+public class SpreadHistoryConfig {
+
+    private boolean enabled = true;
+    /** 保留时长（秒），分辨率 1 秒 */
+    private int retentionSeconds = 86_400;
+    /** 单次查询返回点数上限 */
+    private int maxPoints = 5_000;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public int getRetentionSeconds() { return retentionSeconds; }
+    public void setRetentionSeconds(int retentionSeconds) { this.retentionSeconds = retentionSeconds; }
+    public int getMaxPoints() { return maxPoints; }
+    public void setMaxPoints(int maxPoints) { this.maxPoints = maxPoints; }
+}
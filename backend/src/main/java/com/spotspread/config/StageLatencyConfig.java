@@ -0,0 +1,29 @@
+package com.spotspread.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 分阶段延迟直方图：从收帧到落库每个阶段的耗时，按交易所、币种记录。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "stage-latency")
+public class StageLatencyConfig {
+
+    private boolean enabled = true;
+    /** 区间直方图的滚动周期，接口返回最近一个完整区间和累计值 */
+    private long intervalMs = 10_000;
+    /** 可记录的最大耗时，超出按最大值计 */
+    private long maxTrackableMs = 60_000;
+    /** HdrHistogram 有效数字位数（1~5），越大越精确、占用内存越多 */
+    private int significantDigits = 2;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public long getIntervalMs() { return intervalMs; }
+    public void setIntervalMs(long intervalMs) { this.intervalMs = intervalMs; }
+    public long getMaxTrackableMs() { return maxTrackableMs; }
+    public void setMaxTrackableMs(long maxTrackableMs) { this.maxTrackableMs = maxTrackableMs; }
+    public int getSignificantDigits() { return significantDigits; }
+    public void setSignificantDigits(int significantDigits) { this.significantDigits = significantDigits; }
+}
@@ -0,0 +1,43 @@
+package com.spotspread.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.math.BigDecimal;
+
+/**
+ * 行情飞行记录器：每个币种一个定长环形缓冲，记录各交易所写入行情缓存的最近报价；
+ * 某方向利润率越过触发线时，把触发前后的窗口冻结写盘，便于事后查看是哪几条报价、哪一腿过期或异常。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "tick-flight-recorder")
+public class TickFlightRecorderConfig {
+
+    private boolean enabled = false;
+    private String dir = "./tick-dumps";
+    /** 每个币种的环形缓冲条数，取不小于它的 2 的幂；须容得下 window-seconds + post-trigger-ms 内全部交易所的报价 */
+    private int capacityPerSymbol = 32_768;
+    /** 触发时刻之前保留的秒数 */
+    private int windowSeconds = 10;
+    /** 触发后再等待的毫秒数，窗口包含触发之后的报价 */
+    private long postTriggerMs = 2_000;
+    /** 利润率（%）达到此值视为触发；同一方向回落到此值以下之前只转储一次 */
+    private BigDecimal triggerProfitPct = new BigDecimal("1.0");
+    /** 目录内保留的转储文件数，超出后删除最旧的 */
+    private int maxFiles = 500;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public String getDir() { return dir; }
+    public void setDir(String dir) { this.dir = dir; }
+    public int getCapacityPerSymbol() { return capacityPerSymbol; }
+    public void setCapacityPerSymbol(int capacityPerSymbol) { this.capacityPerSymbol = capacityPerSymbol; }
+    public int getWindowSeconds() { return windowSeconds; }
+    public void setWindowSeconds(int windowSeconds) { this.windowSeconds = windowSeconds; }
+    public long getPostTriggerMs() { return postTriggerMs; }
+    public void setPostTriggerMs(long postTriggerMs) { this.postTriggerMs = postTriggerMs; }
+    public BigDecimal getTriggerProfitPct() { return triggerProfitPct; }
+    public void setTriggerProfitPct(BigDecimal triggerProfitPct) { this.triggerProfitPct = triggerProfitPct; }
+    public int getMaxFiles() { return maxFiles; }
+    public void setMaxFiles(int maxFiles) { this.maxFiles = maxFiles; }
+}
@@ -0,0 +1,34 @@
+package com.spotspread.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 覆盖 handler 内置的交易所地址，用于把行情连接指向本地模拟器或代理。
+ * 按交易所配置的地址优先；否则 base-url 非空时连 {base-url}/{交易所}；都没有则用 handler 默认地址。
+ * websocket.redundancy 为副本单独配置的 endpoints 优先于这里。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "websocket.endpoints")
+public class WebSocketEndpointConfig {
+
+    private String baseUrl = "";
+    private Map<String, String> exchanges = new HashMap<>();
+
+    /** @return null 表示不覆盖 */
+    public URI resolve(String exchange) {
+        String url = exchanges.get(exchange);
+        if (url != null && !url.isBlank()) return URI.create(url);
+        if (baseUrl == null || baseUrl.isBlank()) return null;
+        return URI.create(baseUrl.endsWith("/") ? baseUrl + exchange : baseUrl + "/" + exchange);
+    }
+
+    public String getBaseUrl() { return baseUrl; }
+    public void setBaseUrl(String baseUrl) { this.baseUrl = baseUrl; }
+    public Map<String, String> getExchanges() { return exchanges; }
+    public void setExchanges(Map<String, String> exchanges) { this.exchanges = exchanges; }
+}
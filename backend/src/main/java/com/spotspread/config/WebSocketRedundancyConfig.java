@@ -0,0 +1,38 @@
+package com.spotspread.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 冗余行情连接（hot-hot）：每个分片同时开 copies 条独立连接，由 OrderBookCacheService 按先到先用仲裁去重。
+ * endpoints 非空时各副本轮流使用其中的地址（如 Binance 的 443 / 9443 端口），否则都连 handler 的默认地址。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "websocket.redundancy")
+public class WebSocketRedundancyConfig {
+
+    private Map<String, Venue> exchanges = new HashMap<>();
+
+    public Venue venue(String exchange) {
+        Venue v = exchanges.get(exchange);
+        return v != null ? v : new Venue();
+    }
+
+    public Map<String, Venue> getExchanges() { return exchanges; }
+    public void setExchanges(Map<String, Venue> exchanges) { this.exchanges = exchanges; }
+
+    public static class Venue {
+        private int copies = 1;
+        private List<String> endpoints = new ArrayList<>();
+
+        public int getCopies() { return copies; }
+        public void setCopies(int copies) { this.copies = copies; }
+        public List<String> getEndpoints() { return endpoints; }
+        public void setEndpoints(List<String> endpoints) { this.endpoints = endpoints; }
+    }
+}
@@ -0,0 +1,52 @@
+package com.spotspread.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 连接轮换（make-before-break）：在交易所强制断开之前、或连接质量变差时，先建好新连接并确认已在出数，再关闭旧连接。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "websocket.rotation")
+public class WebSocketRotationConfig {
+
+    private boolean enabled = true;
+    private long checkIntervalMs = 1_000;
+    /** 按交易所设置连接最长存活（分钟），到期前主动轮换，如 Binance 24 小时强制断开 */
+    private Map<String, Long> maxLifetimeMinutes = new HashMap<>();
+    /** 收包间隔超过该值视为连接变差，0 表示不检测；须小于看门狗的 stale-timeout-ms */
+    private long degradedGapMs = 15_000;
+    /** 协议层 ping RTT 超过该值视为连接变差，0 表示不检测（仅 connectionLostTimeout>0 的交易所有 RTT） */
+    private long maxPingRttMs = 1_000;
+    /** 新连接收到至少这么多条行情更新才切换 */
+    private int handoverMinUpdates = 3;
+    /** 新连接在该时间内未出数则放弃本次轮换，保留旧连接 */
+    private long handoverTimeoutMs = 15_000;
+    /** 两次轮换的最小间隔，避免行情清淡时反复轮换 */
+    private long cooldownMs = 300_000;
+
+    public long maxLifetimeMs(String exchange) {
+        Long minutes = maxLifetimeMinutes.get(exchange);
+        return minutes != null ? minutes * 60_000 : 0;
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public long getCheckIntervalMs() { return checkIntervalMs; }
+    public void setCheckIntervalMs(long checkIntervalMs) { this.checkIntervalMs = checkIntervalMs; }
+    public Map<String, Long> getMaxLifetimeMinutes() { return maxLifetimeMinutes; }
+    public void setMaxLifetimeMinutes(Map<String, Long> maxLifetimeMinutes) { this.maxLifetimeMinutes = maxLifetimeMinutes; }
+    public long getDegradedGapMs() { return degradedGapMs; }
+    public void setDegradedGapMs(long degradedGapMs) { this.degradedGapMs = degradedGapMs; }
+    public long getMaxPingRttMs() { return maxPingRttMs; }
+    public void setMaxPingRttMs(long maxPingRttMs) { this.maxPingRttMs = maxPingRttMs; }
+    public int getHandoverMinUpdates() { return handoverMinUpdates; }
+    public void setHandoverMinUpdates(int handoverMinUpdates) { this.handoverMinUpdates = handoverMinUpdates; }
+    public long getHandoverTimeoutMs() { return handoverTimeoutMs; }
+    public void setHandoverTimeoutMs(long handoverTimeoutMs) { this.handoverTimeoutMs = handoverTimeoutMs; }
+    public long getCooldownMs() { return cooldownMs; }
+    public void setCooldownMs(long cooldownMs) { this.cooldownMs = cooldownMs; }
+}
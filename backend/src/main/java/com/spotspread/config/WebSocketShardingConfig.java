@@ -0,0 +1,30 @@
+package com.spotspread.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 交易所订阅分片：每条连接最多承载的币种数。单连接断线只影响本分片的币种，且不超过交易所的单连接订阅上限。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "websocket.sharding")
+public class WebSocketShardingConfig {
+
+    /** 默认每连接币种数，0 表示不分片 */
+    private int symbolsPerConnection = 0;
+    /** 按交易所覆盖 */
+    private Map<String, Integer> exchanges = new HashMap<>();
+
+    public int symbolsPerConnection(String exchange) {
+        Integer n = exchanges.get(exchange);
+        return n != null ? n : symbolsPerConnection;
+    }
+
+    public int getSymbolsPerConnection() { return symbolsPerConnection; }
+    public void setSymbolsPerConnection(int symbolsPerConnection) { this.symbolsPerConnection = symbolsPerConnection; }
+    public Map<String, Integer> getExchanges() { return exchanges; }
+    public void setExchanges(Map<String, Integer> exchanges) { this.exchanges = exchanges; }
+}
@@ -0,0 +1,36 @@
+package com.spotspread.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 单币种静默检测：按每个 (交易所, 币种) 学到的平均更新间隔判断断流，
+ * 超过 间隔 × multiplier（限制在 [minSilenceMs, maxSilenceMs]）先重新订阅该币种，再超一倍仍无数据则轮换连接。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "websocket.silence")
+public class WebSocketSilenceConfig {
+
+    private boolean enabled = true;
+    /** 静默阈值为平均更新间隔的倍数 */
+    private double multiplier = 20;
+    private long minSilenceMs = 2_000;
+    private long maxSilenceMs = 30_000;
+    /** 学到至少这么多个间隔样本后才开始判断，冷门币种样本不足时不检测 */
+    private int minSamples = 100;
+
+    public long thresholdMs(double cadenceMs) {
+        return Math.min(maxSilenceMs, Math.max(minSilenceMs, (long) (cadenceMs * multiplier)));
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public double getMultiplier() { return multiplier; }
+    public void setMultiplier(double multiplier) { this.multiplier = multiplier; }
+    public long getMinSilenceMs() { return minSilenceMs; }
+    public void setMinSilenceMs(long minSilenceMs) { this.minSilenceMs = minSilenceMs; }
+    public long getMaxSilenceMs() { return maxSilenceMs; }
+    public void setMaxSilenceMs(long maxSilenceMs) { this.maxSilenceMs = maxSilenceMs; }
+    public int getMinSamples() { return minSamples; }
+    public void setMinSamples(int minSamples) { this.minSamples = minSamples; }
+}
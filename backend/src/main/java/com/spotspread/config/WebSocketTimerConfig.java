@@ -0,0 +1,33 @@
+package com.spotspread.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 所有交易所连接共用的时间轮配置：重连退避、心跳、延迟订阅与收包看门狗。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "websocket.timer")
+public class WebSocketTimerConfig {
+
+    /** 时间轮精度（毫秒） */
+    private long tickMs = 50;
+    /** 槽位数，一圈覆盖 tickMs × wheelSize，更长的超时按圈数计 */
+    private int wheelSize = 512;
+    /** 重连退避抖动比例：实际延迟在 [delay × (1 - jitter), delay] 内均匀分布，避免多连接同时重连 */
+    private double reconnectJitter = 0.5;
+    /** 连接上超过该时长未收到任何消息即主动断开重连，0 表示关闭 */
+    private long staleTimeoutMs = 60_000;
+    private long watchdogIntervalMs = 5_000;
+
+    public long getTickMs() { return tickMs; }
+    public void setTickMs(long tickMs) { this.tickMs = tickMs; }
+    public int getWheelSize() { return wheelSize; }
+    public void setWheelSize(int wheelSize) { this.wheelSize = wheelSize; }
+    public double getReconnectJitter() { return reconnectJitter; }
+    public void setReconnectJitter(double reconnectJitter) { this.reconnectJitter = reconnectJitter; }
+    public long getStaleTimeoutMs() { return staleTimeoutMs; }
+    public void setStaleTimeoutMs(long staleTimeoutMs) { this.staleTimeoutMs = staleTimeoutMs; }
+    public long getWatchdogIntervalMs() { return watchdogIntervalMs; }
+    public void setWatchdogIntervalMs(long watchdogIntervalMs) { this.watchdogIntervalMs = watchdogIntervalMs; }
+}
@@ -0,0 +1,37 @@
+package com.spotspread.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 交易所 WebSocket 传输层配置。
+ * java-websocket：每条连接各占读、写两个平台线程；jdk：共用一个 java.net.http.HttpClient（单个选择器线程 + 虚拟线程回调）。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "websocket.transport")
+public class WebSocketTransportConfig {
+
+    public enum TransportType { JAVA_WEBSOCKET, JDK }
+
+    private TransportType type = TransportType.JAVA_WEBSOCKET;
+    /** 按交易所覆盖 type，便于同一进程内两种传输并行对比 */
+    private Map<String, TransportType> exchanges = new HashMap<>();
+    private int connectTimeoutMs = 10_000;
+    /** 共享 SSLContext 客户端会话缓存条数，重连时复用会话跳过完整握手 */
+    private int tlsSessionCacheSize = 256;
+    private int tlsSessionTimeoutSeconds = 86_400;
+
+    public TransportType getType() { return type; }
+    public void setType(TransportType type) { this.type = type; }
+    public Map<String, TransportType> getExchanges() { return exchanges; }
+    public void setExchanges(Map<String, TransportType> exchanges) { this.exchanges = exchanges; }
+    public int getConnectTimeoutMs() { return connectTimeoutMs; }
+    public void setConnectTimeoutMs(int connectTimeoutMs) { this.connectTimeoutMs = connectTimeoutMs; }
+    public int getTlsSessionCacheSize() { return tlsSessionCacheSize; }
+    public void setTlsSessionCacheSize(int tlsSessionCacheSize) { this.tlsSessionCacheSize = tlsSessionCacheSize; }
+    public int getTlsSessionTimeoutSeconds() { return tlsSessionTimeoutSeconds; }
+    public void setTlsSessionTimeoutSeconds(int tlsSessionTimeoutSeconds) { this.tlsSessionTimeoutSeconds = tlsSessionTimeoutSeconds; }
+}
@@ -0,0 +1,20 @@
+package com.spotspread.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 连接收发统计：可选按固定间隔把各连接的累计计数写入 InfluxDB（measurement ws_wire）。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "websocket.wire-stats")
+public class WebSocketWireStatsConfig {
+
+    private boolean influxEnabled = false;
+    private long influxIntervalMs = 10_000;
+
+    public boolean isInfluxEnabled() { return influxEnabled; }
+    public void setInfluxEnabled(boolean influxEnabled) { this.influxEnabled = influxEnabled; }
+    public long getInfluxIntervalMs() { return influxIntervalMs; }
+    public void setInfluxIntervalMs(long influxIntervalMs) { this.influxIntervalMs = influxIntervalMs; }
+}
@@ -0,0 +1,95 @@
+package com.spotspread.controller;
+
+import com.spotspread.backtest.BacktestService;
+import com.spotspread.backtest.BacktestService.BacktestStatus;
+import com.spotspread.config.ArbitrageConfig.ProfitMode;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 回测：对 frame-recorder 录制的一段时间按参数网格重放，后台执行，完成后通过 GET 取结果。
+ */
+@RestController
+@RequestMapping("/api/backtest")
+public class BacktestController {
+
+    private final BacktestService backtest;
+
+    public BacktestController(BacktestService backtest) {
+        this.backtest = backtest;
+    }
+
+    /**
+     * @param from       窗口起点（ISO 本地时间，含）
+     * @param to         窗口终点（ISO 本地时间，不含）
+     * @param modes      逗号分隔，如 taker-taker,max-profit，缺省为全部模式
+     * @param thresholds 逗号分隔的入库阈值（利润率 %），缺省为线上阈值 0.5
+     * @param compare    是否与 MySQL 同窗口的入库结果对比（只对比阈值 0.5 的组合）
+     */
+    @PostMapping("/start")
+    public BacktestStatus start(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String modes,
+            @RequestParam(defaultValue = "0.5") String thresholds,
+            @RequestParam(defaultValue = "true") boolean compare) {
+        try {
+            return backtest.start(from, to, parseModes(modes), parseThresholds(thresholds), compare);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @PostMapping("/cancel")
+    public BacktestStatus cancel() {
+        backtest.cancel();
+        return backtest.status();
+    }
+
+    @GetMapping
+    public BacktestStatus status() {
+        return backtest.status();
+    }
+
+    private static List<ProfitMode> parseModes(String modes) {
+        if (modes == null || modes.isBlank()) return Arrays.asList(ProfitMode.values());
+        List<ProfitMode> list = new ArrayList<>();
+        for (String m : modes.split(",")) {
+            if (m.isBlank()) continue;
+            try {
+                ProfitMode mode = ProfitMode.valueOf(m.trim().replace('-', '_').toUpperCase());
+                if (!list.contains(mode)) list.add(mode);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("unknown mode: " + m);
+            }
+        }
+        return list;
+    }
+
+    private static List<BigDecimal> parseThresholds(String thresholds) {
+        List<BigDecimal> list = new ArrayList<>();
+        for (String t : thresholds.split(",")) {
+            if (t.isBlank()) continue;
+            try {
+                list.add(new BigDecimal(t.trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("invalid threshold: " + t);
+            }
+        }
+        return list;
+    }
+}
@@ -0,0 +1,47 @@
+package com.spotspread.controller;
+
+import com.spotspread.service.DashboardStreamService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 看板推送流：事件 prices / stats，首帧为全量（full=true），之后只推送变化部分。
+ */
+@RestController
+@RequestMapping("/api")
+public class DashboardStreamController {
+
+    private final DashboardStreamService streamService;
+
+    public DashboardStreamController(DashboardStreamService streamService) {
+        this.streamService = streamService;
+    }
+
+    /**
+     * @param symbols 逗号分隔的币种，如 BTC,ETH；不传则推送全部币种
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(required = false) String symbols) {
+        if (streamService.isFull()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "too many stream clients");
+        }
+        Set<String> set = new HashSet<>();
+        if (symbols != null) {
+            for (String s : symbols.split(",")) {
+                String sym = s.trim().toUpperCase();
+                if (sym.endsWith("USDT") && sym.length() > 4) sym = sym.substring(0, sym.length() - 4);
+                if (!sym.isEmpty()) set.add(sym);
+            }
+        }
+        return streamService.subscribe(set);
+    }
+}
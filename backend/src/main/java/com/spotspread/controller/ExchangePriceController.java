@@ -1,59 +1,106 @@
 package com.spotspread.controller;
 
-import com.spotspread.config.ExchangeFeeRates;
-import com.spotspread.service.OrderBookCacheService;
+import com.spotspread.service.ExchangePriceService;
+import com.spotspread.service.PriceSnapshotService;
+import com.spotspread.service.PriceSnapshotService.PriceSnapshot;
+import com.spotspread.service.PriceSnapshotService.SymbolPrices;
+import com.spotspread.service.WireFormatService;
+import com.spotspread.service.WireFormatService.WireFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
+/**
+ * 交易所价格，优先返回预序列化快照（支持 If-None-Match / 304），不在快照范围内的币种现算。
+ * 按 Accept 可返回 JSON、CBOR、Smile 或定长二进制（application/x-spot-prices）。
+ */
 @RestController
 @RequestMapping("/api")
 public class ExchangePriceController {
 
-    private static final List<String> EXCHANGES = List.of(
-            "binance", "bitfinex", "coinex", "okx", "bybit", "gateio", "bitget", "lbank", "whitebit",
-            "bitunix", "cryptocom"
-    );
-    private static final String DEFAULT_SYMBOL = "BTCUSDT";
+    private final ExchangePriceService priceService;
+    private final PriceSnapshotService snapshotService;
+    private final WireFormatService wireFormats;
 
-    private final OrderBookCacheService cache;
-
-    public ExchangePriceController(OrderBookCacheService cache) {
-        this.cache = cache;
+    public ExchangePriceController(ExchangePriceService priceService, PriceSnapshotService snapshotService,
+                                   WireFormatService wireFormats) {
+        this.priceService = priceService;
+        this.snapshotService = snapshotService;
+        this.wireFormats = wireFormats;
     }
 
     @GetMapping("/exchange-prices")
-    public ResponseEntity<Map<String, Object>> getExchangePrices(
-            @RequestParam(defaultValue = "BTC") String symbol) {
-        String sym = symbol.toUpperCase() + "USDT";
-        List<ExchangePriceDto> exchanges = new ArrayList<>();
-        for (String ex : EXCHANGES) {
-            var bidAsk = cache.getBidAsk(ex, sym);
-            BigDecimal makerPct = ExchangeFeeRates.getSpotMakerFeePct(ex);
-            BigDecimal takerPct = ExchangeFeeRates.getSpotTakerFeePct(ex);
-            if (makerPct == null || takerPct == null) continue;
-            BigDecimal bid1 = null;
-            BigDecimal ask1 = null;
-            BigDecimal spotPrice = null;
-            if (bidAsk != null && bidAsk.bid1() != null && bidAsk.ask1() != null) {
-                bid1 = bidAsk.bid1();
-                ask1 = bidAsk.ask1();
-                spotPrice = bid1.add(ask1).divide(BigDecimal.valueOf(2), 8, RoundingMode.HALF_UP);
-            }
-            exchanges.add(new ExchangePriceDto(ex, spotPrice, bid1, ask1,
-                    takerPct.doubleValue(), makerPct.doubleValue()));
+    public ResponseEntity<byte[]> getExchangePrices(
+            @RequestParam(defaultValue = "BTC") String symbol,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest request) {
+        WireFormat format = negotiate(accept);
+        String sym = symbol.toUpperCase();
+        PriceSnapshot snapshot = snapshotService.get(sym);
+        if (snapshot == null) {
+            SymbolPrices body = new SymbolPrices(priceService.getPrices(sym), sym);
+            byte[] bytes = wireFormats.encode("exchange-prices", format, format == WireFormat.PRICE_BINARY ? List.of(body) : body);
+            return ResponseEntity.ok().contentType(format.mediaType()).varyBy(HttpHeaders.ACCEPT).body(bytes);
+        }
+        return respond(snapshot, format, request);
+    }
+
+    /**
+     * 多币种价格 {"symbols":{"BTC":{...},"ETH":{...}}}，不传 symbols 返回全部币种。
+     */
+    @GetMapping("/exchange-prices/multi")
+    public ResponseEntity<byte[]> getMultiExchangePrices(
+            @RequestParam(required = false) String symbols,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest request) {
+        WireFormat format = negotiate(accept);
+        if (symbols == null || symbols.isBlank()) {
+            PriceSnapshot all = snapshotService.getAll();
+            if (all == null) throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "snapshot not ready");
+            return respond(all, format, request);
+        }
+        Set<String> wanted = new LinkedHashSet<>();
+        for (String s : symbols.split(",")) {
+            if (!s.isBlank()) wanted.add(s.trim().toUpperCase());
         }
-        return ResponseEntity.ok(Map.of("exchanges", exchanges, "symbol", symbol));
+        List<PriceSnapshot> parts = new ArrayList<>();
+        for (String sym : wanted) {
+            PriceSnapshot p = snapshotService.get(sym);
+            if (p == null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unknown symbol: " + sym);
+            parts.add(p);
+        }
+        return respond(snapshotService.compose(parts), format, request);
+    }
+
+    private WireFormat negotiate(String accept) {
+        WireFormat format = wireFormats.negotiate(accept, true);
+        if (format == null) throw new ResponseStatusException(HttpStatus.NOT_ACCEPTABLE, "unsupported Accept: " + accept);
+        return format;
     }
 
-    public record ExchangePriceDto(String exchange, BigDecimal spotPrice, BigDecimal bid1, BigDecimal ask1,
-                                   double takerFeePct, double makerFeePct) {}
+    private ResponseEntity<byte[]> respond(PriceSnapshot snapshot, WireFormat format, WebRequest request) {
+        String etag = snapshot.etag(format);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(format.mediaType())
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .cacheControl(CacheControl.noCache())
+                .body(snapshot.bytes(format, wireFormats));
+    }
 }
@@ -0,0 +1,29 @@
+package com.spotspread.controller;
+
+import com.spotspread.service.OrderBookCacheService;
+import com.spotspread.service.OrderBookCacheService.FeedStats;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 冗余行情连接的仲裁统计：各连接被采用的比例，以及作为重复到达时落后的时长。
+ */
+@RestController
+@RequestMapping("/api")
+public class FeedArbitrationController {
+
+    private final OrderBookCacheService cache;
+
+    public FeedArbitrationController(OrderBookCacheService cache) {
+        this.cache = cache;
+    }
+
+    @GetMapping("/feed-arbitration")
+    public Map<String, List<FeedStats>> getFeedArbitration() {
+        return Map.of("feeds", cache.getFeedStats());
+    }
+}
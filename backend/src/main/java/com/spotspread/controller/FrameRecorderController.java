@@ -0,0 +1,36 @@
+package com.spotspread.controller;
+
+import com.spotspread.recorder.FrameLogReader;
+import com.spotspread.recorder.FrameLogReader.SegmentInfo;
+import com.spotspread.recorder.FrameRecorder;
+import com.spotspread.recorder.FrameRecorder.RecorderStats;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 原始帧录制状态：累计帧数、丢弃数、封存与压缩情况，以及目录下的分段列表。
+ */
+@RestController
+@RequestMapping("/api/frame-recorder")
+public class FrameRecorderController {
+
+    private final FrameRecorder recorder;
+
+    public FrameRecorderController(FrameRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @GetMapping
+    public RecorderStats stats() {
+        return recorder.stats();
+    }
+
+    @GetMapping("/segments")
+    public List<SegmentInfo> segments() throws IOException {
+        return FrameLogReader.segments(recorder.getDir());
+    }
+}
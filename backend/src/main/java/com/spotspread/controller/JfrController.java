@@ -0,0 +1,58 @@
+package com.spotspread.controller;
+
+import com.spotspread.jfr.JfrRecordingService;
+import com.spotspread.jfr.JfrRecordingService.JfrDump;
+import com.spotspread.jfr.JfrRecordingService.JfrSummary;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+
+/**
+ * 按需 JFR 录制：启动后实时汇总 GC 停顿、安全点与各线程角色的分配速率，停止时写出 .jfr 文件。
+ */
+@RestController
+@RequestMapping("/api/jfr")
+public class JfrController {
+
+    private final JfrRecordingService recordings;
+
+    public JfrController(JfrRecordingService recordings) {
+        this.recordings = recordings;
+    }
+
+    /**
+     * @param settings spotspread（默认，随包的低开销配置）、default 或 profile
+     */
+    @PostMapping("/start")
+    public JfrSummary start(@RequestParam(required = false) String settings) {
+        try {
+            return recordings.start(settings);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @PostMapping("/stop")
+    public JfrDump stop() throws IOException {
+        try {
+            return recordings.stop();
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    @GetMapping("/summary")
+    public JfrSummary summary() {
+        JfrSummary summary = recordings.summary();
+        if (summary == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "no recording yet");
+        return summary;
+    }
+}
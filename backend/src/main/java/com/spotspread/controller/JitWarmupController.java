@@ -0,0 +1,26 @@
+package com.spotspread.controller;
+
+import com.spotspread.warmup.JitWarmupService;
+import com.spotspread.warmup.JitWarmupService.WarmupStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 启动预热状态：进行中或已结束、结束原因、喂入帧数与评估轮数、C2 编译情况。
+ */
+@RestController
+@RequestMapping("/api/jit-warmup")
+public class JitWarmupController {
+
+    private final JitWarmupService warmup;
+
+    public JitWarmupController(JitWarmupService warmup) {
+        this.warmup = warmup;
+    }
+
+    @GetMapping
+    public WarmupStatus status() {
+        return warmup.status();
+    }
+}
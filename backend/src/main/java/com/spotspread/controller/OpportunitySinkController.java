@@ -0,0 +1,29 @@
+package com.spotspread.controller;
+
+import com.spotspread.sink.OpportunityDispatcher;
+import com.spotspread.sink.SinkStats;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 各 sink 的队列深度、丢弃数与延迟。
+ */
+@RestController
+@RequestMapping("/api")
+public class OpportunitySinkController {
+
+    private final OpportunityDispatcher dispatcher;
+
+    public OpportunitySinkController(OpportunityDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    @GetMapping("/sinks")
+    public Map<String, List<SinkStats>> getSinks() {
+        return Map.of("sinks", dispatcher.getStats());
+    }
+}
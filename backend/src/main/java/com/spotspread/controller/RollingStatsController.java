@@ -0,0 +1,34 @@
+package com.spotspread.controller;
+
+import com.spotspread.stats.RollingStatsService;
+import com.spotspread.stats.RollingStatsService.PairRollingStats;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 各交易方向利润率的滚动统计：EWMA 均值/标准差、窗口最值、分位数，以及最新值的 z-score 与分位。
+ */
+@RestController
+@RequestMapping("/api")
+public class RollingStatsController {
+
+    private final RollingStatsService rollingStatsService;
+
+    public RollingStatsController(RollingStatsService rollingStatsService) {
+        this.rollingStatsService = rollingStatsService;
+    }
+
+    @GetMapping("/rolling-stats")
+    public Map<String, List<PairRollingStats>> getRollingStats(@RequestParam(required = false) String symbol,
+                                                               @RequestParam(required = false) String venue) {
+        String sym = symbol != null && !symbol.isBlank() ? symbol.trim().toUpperCase() : null;
+        if (sym != null && sym.endsWith("USDT") && sym.length() > 4) sym = sym.substring(0, sym.length() - 4);
+        String ven = venue != null && !venue.isBlank() ? venue.trim().toLowerCase() : null;
+        return Map.of("rollingStats", rollingStatsService.list(sym, ven));
+    }
+}
@@ -0,0 +1,58 @@
+package com.spotspread.controller;
+
+import com.spotspread.repository.SpreadArbitrageStatsRepository.PairFilter;
+import com.spotspread.service.PairStatsService;
+import com.spotspread.service.PriceSnapshotService;
+import com.spotspread.service.PriceSnapshotService.PriceSnapshot;
+import com.spotspread.service.WireFormatService;
+import com.spotspread.service.WireFormatService.FormatComparison;
+import com.spotspread.service.WireFormatService.FormatStats;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 各响应格式的体积与序列化耗时：累计统计，以及对当前数据的即时对比。
+ */
+@RestController
+@RequestMapping("/api/serialization-stats")
+public class SerializationStatsController {
+
+    private static final int MAX_ITERATIONS = 1_000;
+
+    private final WireFormatService wireFormats;
+    private final PriceSnapshotService snapshotService;
+    private final PairStatsService pairStatsService;
+
+    public SerializationStatsController(WireFormatService wireFormats, PriceSnapshotService snapshotService,
+                                        PairStatsService pairStatsService) {
+        this.wireFormats = wireFormats;
+        this.snapshotService = snapshotService;
+        this.pairStatsService = pairStatsService;
+    }
+
+    @GetMapping
+    public Map<String, List<FormatStats>> getStats() {
+        return Map.of("formats", wireFormats.getStats());
+    }
+
+    /**
+     * 用当前全币种价格快照与组合统计，对比各格式编码后的体积与耗时中位数。
+     */
+    @GetMapping("/compare")
+    public Map<String, List<FormatComparison>> compare(@RequestParam(defaultValue = "50") int iterations) {
+        int n = Math.max(1, Math.min(iterations, MAX_ITERATIONS));
+        PriceSnapshot all = snapshotService.getAll();
+        if (all == null) throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "snapshot not ready");
+        Object stats = Map.of("pairStats", pairStatsService.findPairStats(null, null, PairFilter.NONE));
+        return Map.of(
+                "exchangePrices", wireFormats.compare(all.body(), all.prices(), n),
+                "spreadStats", wireFormats.compare(stats, null, n));
+    }
+}
@@ -0,0 +1,59 @@
+package com.spotspread.controller;
+
+import com.spotspread.history.SpreadHistoryService;
+import com.spotspread.history.SpreadHistoryService.HistorySeries;
+import com.spotspread.history.SpreadHistoryService.SeriesInfo;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 内存中的价差历史（最近 24 小时，1 秒分辨率），按请求点数 LTTB 降采样。
+ */
+@RestController
+@RequestMapping("/api/spread-history")
+public class SpreadHistoryController {
+
+    private final SpreadHistoryService historyService;
+
+    public SpreadHistoryController(SpreadHistoryService historyService) {
+        this.historyService = historyService;
+    }
+
+    /**
+     * @param from   起点（epoch 毫秒），缺省为 to - windowSeconds
+     * @param to     终点（epoch 毫秒），缺省为当前时间
+     * @param points 目标点数，至少 3（LTTB 少于 3 个点时不降采样），上限为配置的 maxPoints
+     */
+    @GetMapping
+    public HistorySeries getHistory(@RequestParam String symbol,
+                                    @RequestParam String buy,
+                                    @RequestParam String sell,
+                                    @RequestParam(required = false) Long from,
+                                    @RequestParam(required = false) Long to,
+                                    @RequestParam(defaultValue = "3600") long windowSeconds,
+                                    @RequestParam(defaultValue = "500") int points) {
+        if (points < 3) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "points must be at least 3");
+        if (windowSeconds < 0) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "windowSeconds must not be negative");
+        String sym = symbol.toUpperCase();
+        if (sym.endsWith("USDT") && sym.length() > 4) sym = sym.substring(0, sym.length() - 4);
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - windowSeconds * 1000L;
+        if (start > end) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from is after to");
+        HistorySeries series = historyService.query(sym, buy.toLowerCase(), sell.toLowerCase(), start, end, points);
+        if (series == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "no history for " + sym + " " + buy + "->" + sell);
+        return series;
+    }
+
+    @GetMapping("/series")
+    public Map<String, Object> listSeries() {
+        List<SeriesInfo> list = historyService.listSeries();
+        return Map.of("series", list, "offHeapBytes", historyService.getAllocatedBytes());
+    }
+}
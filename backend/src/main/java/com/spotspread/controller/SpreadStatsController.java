@@ -1,27 +1,234 @@
 package com.spotspread.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.spotspread.config.ArbitrageConfig.ProfitMode;
 import com.spotspread.repository.SpreadArbitrageStatsRepository;
+import com.spotspread.repository.SpreadArbitrageStatsRepository.PairFilter;
+import com.spotspread.repository.SpreadArbitrageStatsRepository.SpreadPairStatRow;
+import com.spotspread.service.PairStatsService;
+import com.spotspread.service.WireFormatService;
+import com.spotspread.service.WireFormatService.WireFormat;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
+/**
+ * 价差统计查询：支持时间窗口、币种/交易所/模式过滤与游标分页，结果用 JsonGenerator 流式写出。
+ * 不带任何参数时与原接口一致，返回全部组合的全局统计。按 Accept 可返回 JSON、CBOR 或 Smile，结构相同。
+ * <p>
+ * 分页只作用于内存中的聚合结果，不下推到 MySQL：结果按平均利润率排序，而平均值要把 1h/1m 汇总层与原始快照
+ * 合并后才能算出，SQL 里无法按 (symbol, exchange_buy, exchange_sell, profit_mode) 做 keyset。
+ * 无窗口时直接用 {@link PairStatsService} 增量维护的全局聚合；带窗口时每页都会重新做一次分层聚合查询，
+ * 结果行数上限为币种 × 交易所对 × 模式的组合数，与快照行数无关，再在内存中按游标切页。
+ */
 @RestController
 @RequestMapping("/api")
 public class SpreadStatsController {
 
+    private static final int MAX_LIMIT = 5_000;
+    private static final Duration MAX_EXPORT_WINDOW = Duration.ofDays(31);
+
+    private final PairStatsService pairStatsService;
     private final SpreadArbitrageStatsRepository repository;
+    private final WireFormatService wireFormats;
 
-    public SpreadStatsController(SpreadArbitrageStatsRepository repository) {
+    public SpreadStatsController(PairStatsService pairStatsService,
+                                 SpreadArbitrageStatsRepository repository,
+                                 WireFormatService wireFormats) {
+        this.pairStatsService = pairStatsService;
         this.repository = repository;
+        this.wireFormats = wireFormats;
     }
 
+    /**
+     * @param from   窗口起点（ISO 本地时间，含）
+     * @param to     窗口终点（ISO 本地时间，不含），缺省为当前时间
+     * @param window 相对窗口，如 15m、24h、30d，与 from 二选一
+     * @param venue  买入或卖出任一侧为该交易所
+     * @param mode   max-profit / taker-maker / taker-taker
+     * @param limit  每页条数，0 表示不分页
+     * @param cursor 上一页返回的 nextCursor，在本次聚合结果中定位，不减少数据库查询量
+     */
     @GetMapping("/spread-stats")
-    public ResponseEntity<Map<String, Object>> getSpreadStats() {
-        List<SpreadArbitrageStatsRepository.SpreadPairStatRow> pairStats = repository.findAllPairStatsOrdered();
-        return ResponseEntity.ok(Map.of("pairStats", pairStats));
+    public ResponseEntity<StreamingResponseBody> getSpreadStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String window,
+            @RequestParam(required = false) String symbol,
+            @RequestParam(required = false) String venue,
+            @RequestParam(required = false) String mode,
+            @RequestParam(defaultValue = "0") int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        WireFormat format = negotiate(accept);
+        if (window != null) {
+            to = to != null ? to : LocalDateTime.now();
+            from = to.minus(parseWindow(window));
+        }
+        PairFilter filter = parseFilter(symbol, venue, mode);
+        List<SpreadPairStatRow> rows = pairStatsService.findPairStats(from, to, filter);
+        int start = cursor != null ? positionAfter(rows, decodeCursor(cursor)) : 0;
+        int pageSize = limit > 0 ? Math.min(limit, MAX_LIMIT) : rows.size();
+        int end = Math.min(rows.size(), start + pageSize);
+        String nextCursor = end < rows.size() && end > start ? encodeCursor(rows.get(end - 1)) : null;
+        List<SpreadPairStatRow> page = rows.subList(start, end);
+        StreamingResponseBody body = out -> {
+            long startNanos = System.nanoTime();
+            CountingOutputStream counting = new CountingOutputStream(out);
+            try (JsonGenerator gen = wireFormats.factory(format).createGenerator(counting)) {
+                gen.writeStartObject();
+                gen.writeArrayFieldStart("pairStats");
+                for (SpreadPairStatRow row : page) gen.writeObject(row);
+                gen.writeEndArray();
+                gen.writeStringField("nextCursor", nextCursor);
+                gen.writeEndObject();
+            }
+            wireFormats.record("spread-stats", format, counting.count, System.nanoTime() - startNanos);
+        };
+        return ResponseEntity.ok().contentType(format.mediaType()).varyBy(HttpHeaders.ACCEPT).body(body);
+    }
+
+    /**
+     * 原始快照导出，流式游标逐行写出 JSON 数组，窗口最长 31 天。
+     */
+    @GetMapping("/spread-snapshots/export")
+    public ResponseEntity<StreamingResponseBody> exportSnapshots(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String window,
+            @RequestParam(required = false) String symbol,
+            @RequestParam(required = false) String venue,
+            @RequestParam(required = false) String mode,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        WireFormat format = negotiate(accept);
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = window != null ? end.minus(parseWindow(window)) : from;
+        if (start == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from or window is required");
+        }
+        if (Duration.between(start, end).compareTo(MAX_EXPORT_WINDOW) > 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "export window exceeds 31 days");
+        }
+        PairFilter filter = parseFilter(symbol, venue, mode);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator gen = wireFormats.factory(format).createGenerator(out)) {
+                gen.writeStartArray();
+                repository.streamSnapshots(start, end, filter, row -> {
+                    try {
+                        gen.writeObject(row);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                gen.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(format.mediaType()).varyBy(HttpHeaders.ACCEPT).body(body);
+    }
+
+    private WireFormat negotiate(String accept) {
+        WireFormat format = wireFormats.negotiate(accept, false);
+        if (format == null) throw new ResponseStatusException(HttpStatus.NOT_ACCEPTABLE, "unsupported Accept: " + accept);
+        return format;
+    }
+
+    private static PairFilter parseFilter(String symbol, String venue, String mode) {
+        String sym = blankToNull(symbol);
+        if (sym != null) {
+            sym = sym.toUpperCase();
+            if (sym.endsWith("USDT") && sym.length() > 4) sym = sym.substring(0, sym.length() - 4);
+        }
+        String ven = blankToNull(venue);
+        String profitMode = null;
+        if (blankToNull(mode) != null) {
+            try {
+                profitMode = ProfitMode.valueOf(mode.trim().replace('-', '_').toUpperCase()).name();
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unknown mode: " + mode);
+            }
+        }
+        return new PairFilter(sym, ven != null ? ven.toLowerCase() : null, profitMode);
+    }
+
+    private static Duration parseWindow(String window) {
+        String w = window.trim().toLowerCase();
+        try {
+            long n = Long.parseLong(w.substring(0, w.length() - 1));
+            return switch (w.charAt(w.length() - 1)) {
+                case 'm' -> Duration.ofMinutes(n);
+                case 'h' -> Duration.ofHours(n);
+                case 'd' -> Duration.ofDays(n);
+                default -> throw new IllegalArgumentException();
+            };
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid window: " + window);
+        }
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s.trim();
+    }
+
+    /** 游标为最后一行的排序键：avg|count|symbol|exchangeBuy|exchangeSell */
+    private static String encodeCursor(SpreadPairStatRow row) {
+        String raw = row.avgProfitMarginPct().toPlainString() + "|" + row.spreadCount() + "|" + row.symbol()
+                + "|" + row.exchangeBuy() + "|" + row.exchangeSell();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static SpreadPairStatRow decodeCursor(String cursor) {
+        try {
+            String[] p = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", -1);
+            return new SpreadPairStatRow(p[2], p[3], p[4], Integer.parseInt(p[1]), new BigDecimal(p[0]), null, null);
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid cursor");
+        }
+    }
+
+    /** rows 已按 SQL_ORDER 排序，二分查找第一条排在游标之后的行 */
+    private static int positionAfter(List<SpreadPairStatRow> rows, SpreadPairStatRow key) {
+        int idx = Collections.binarySearch(rows, key, PairStatsService.SQL_ORDER);
+        return idx >= 0 ? idx + 1 : -idx - 1;
+    }
+
+    /** 统计流式写出的字节数（含网络写入耗时，仅作体积对比） */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
     }
 }
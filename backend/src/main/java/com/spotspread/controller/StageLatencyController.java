@@ -0,0 +1,52 @@
+package com.spotspread.controller;
+
+import com.spotspread.stats.StageLatencyService;
+import com.spotspread.stats.StageLatencyService.Stage;
+import com.spotspread.stats.StageLatencyService.StageLatency;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 行情链路各阶段耗时分位数：最近一个区间与累计，可按阶段 / 交易所 / 币种过滤。
+ */
+@RestController
+@RequestMapping("/api")
+public class StageLatencyController {
+
+    private final StageLatencyService latency;
+
+    public StageLatencyController(StageLatencyService latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * @param stage    frame / decompress / parse / cache-write / spread-detect / sink-enqueue / flush
+     * @param exchange 交易所，落库阶段为 sink 名，不区分时为 *
+     * @param symbol   如 BTCUSDT，不区分时为 *
+     */
+    @GetMapping("/stage-latency")
+    public Map<String, List<StageLatency>> getStageLatency(@RequestParam(required = false) String stage,
+                                                           @RequestParam(required = false) String exchange,
+                                                           @RequestParam(required = false) String symbol) {
+        Stage s = null;
+        if (stage != null && !stage.isBlank()) {
+            try {
+                s = Stage.valueOf(stage.trim().replace('-', '_').toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unknown stage: " + stage);
+            }
+        }
+        return Map.of("stages", latency.list(s, blankToNull(exchange), blankToNull(symbol)));
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s.trim();
+    }
+}
@@ -0,0 +1,52 @@
+package com.spotspread.controller;
+
+import com.spotspread.recorder.TickDumpFile;
+import com.spotspread.recorder.TickDumpFile.DumpInfo;
+import com.spotspread.recorder.TickDumpFile.TickDump;
+import com.spotspread.recorder.TickFlightRecorder;
+import com.spotspread.recorder.TickFlightRecorder.FlightRecorderStats;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+
+/**
+ * 行情飞行记录器：记录与触发计数、转储文件列表，以及单个转储解码后的报价（含各交易所触发时刻的报价年龄）。
+ */
+@RestController
+@RequestMapping("/api/tick-flight-recorder")
+public class TickFlightRecorderController {
+
+    private final TickFlightRecorder recorder;
+
+    public TickFlightRecorderController(TickFlightRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @GetMapping
+    public FlightRecorderStats stats() {
+        return recorder.stats();
+    }
+
+    @GetMapping("/dumps")
+    public List<DumpInfo> dumps() throws IOException {
+        return TickDumpFile.list(recorder.getDir());
+    }
+
+    @GetMapping("/dumps/{name}")
+    public TickDump dump(@PathVariable String name) throws IOException {
+        try {
+            return TickDumpFile.read(recorder.getDir(), name);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (NoSuchFileException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "dump not found: " + name);
+        }
+    }
+}
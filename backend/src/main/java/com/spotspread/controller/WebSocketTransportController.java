@@ -0,0 +1,64 @@
+package com.spotspread.controller;
+
+import com.spotspread.websocket.FeedConnection.RotationStats;
+import com.spotspread.websocket.FeedSilenceTracker.SilenceStats;
+import com.spotspread.websocket.WebSocketRunner;
+import com.spotspread.websocket.WireStatsService;
+import com.spotspread.websocket.WireStatsService.WireSnapshot;
+import com.spotspread.websocket.timer.WebSocketTimer;
+import com.spotspread.websocket.timer.WebSocketTimer.TimerStats;
+import com.spotspread.websocket.transport.WebSocketTransportFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * WebSocket 传输对比：各传输的连接数、建连耗时与按名称归类的平台线程数（另附帧数与 handler 耗时，与传输无关）；
+ * 共享时间轮上各连接的定时任务统计，各连接槽位的轮换记录，按币种学到的更新节奏与静默事件，
+ * 以及各连接与交易所的收发字节、帧数、解析失败、重连与心跳往返统计。
+ */
+@RestController
+@RequestMapping("/api")
+public class WebSocketTransportController {
+
+    private final WebSocketTransportFactory transportFactory;
+    private final WebSocketTimer timer;
+    private final WebSocketRunner runner;
+    private final WireStatsService wireStats;
+
+    public WebSocketTransportController(WebSocketTransportFactory transportFactory, WebSocketTimer timer, WebSocketRunner runner,
+                                        WireStatsService wireStats) {
+        this.transportFactory = transportFactory;
+        this.timer = timer;
+        this.runner = runner;
+        this.wireStats = wireStats;
+    }
+
+    @GetMapping("/transport-stats")
+    public Map<String, Object> getTransportStats() {
+        return Map.of("transports", transportFactory.getStats(), "threads", transportFactory.getThreadStats());
+    }
+
+    @GetMapping("/ws-timers")
+    public TimerStats getTimers() {
+        return timer.getStats();
+    }
+
+    @GetMapping("/ws-rotations")
+    public Map<String, List<RotationStats>> getRotations() {
+        return Map.of("connections", runner.getRotationStats());
+    }
+
+    @GetMapping("/feed-silence")
+    public Map<String, List<SilenceStats>> getFeedSilence() {
+        return Map.of("connections", runner.getSilenceStats());
+    }
+
+    @GetMapping("/wire-stats")
+    public Map<String, List<WireSnapshot>> getWireStats() {
+        return Map.of("connections", wireStats.byConnection(), "exchanges", wireStats.byExchange());
+    }
+}
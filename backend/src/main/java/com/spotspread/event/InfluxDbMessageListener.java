@@ -1,6 +1,8 @@
 package com.spotspread.event;
 
 import com.spotspread.service.InfluxMetricsService;
+import com.spotspread.stats.StageLatencyService;
+import com.spotspread.stats.StageLatencyService.Stage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.event.EventListener;
@@ -9,7 +11,7 @@ import org.springframework.stereotype.Component;
 
 /**
  * InfluxDB 消息监听器。
- * 异步接收 WebSocket/套利任务发布的事件，并写入 InfluxDB。
+ * 异步接收 WebSocket 发布的价格延迟事件，并写入 InfluxDB。价差利润由 InfluxOpportunitySink 写入。
  */
 @Component
 public class InfluxDbMessageListener {
@@ -17,32 +19,22 @@ public class InfluxDbMessageListener {
     private static final Logger log = LoggerFactory.getLogger(InfluxDbMessageListener.class);
 
     private final InfluxMetricsService influx;
+    private final StageLatencyService latency;
 
-    public InfluxDbMessageListener(InfluxMetricsService influx) {
+    public InfluxDbMessageListener(InfluxMetricsService influx, StageLatencyService latency) {
         this.influx = influx;
+        this.latency = latency;
     }
 
     @Async
     @EventListener
     public void onPriceLatency(PriceLatencyEvent event) {
+        long start = System.nanoTime();
         try {
             influx.writePriceLatency(event.exchange(), event.symbol(), event.latencyMs());
+            latency.record(Stage.FLUSH, "price-latency", StageLatencyService.ALL, System.nanoTime() - start);
         } catch (Exception e) {
             log.debug("[InfluxDB] price latency listener error: {}", e.getMessage());
         }
     }
-
-    @Async
-    @EventListener
-    public void onSpreadProfit(SpreadProfitEvent event) {
-        try {
-            influx.writeSpreadProfit(
-                    event.exSell(), event.exBuy(), event.symbol(),
-                    event.spotSpread(), event.profitMarginPct(),
-                    event.bid(), event.ask()
-            );
-        } catch (Exception e) {
-            log.debug("[InfluxDB] spread profit listener error: {}", e.getMessage());
-        }
-    }
 }
@@ -0,0 +1,57 @@
+package com.spotspread.history;
+
+/**
+ * Largest-Triangle-Three-Buckets 降采样：保留首尾点，中间每个桶选出与前一选中点、下一桶均值构成三角形面积最大的点。
+ */
+public final class Lttb {
+
+    private Lttb() {
+    }
+
+    /**
+     * @param n         输入点数（x 递增）
+     * @param threshold 目标点数，n &lt;= threshold 或 threshold &lt; 3 时原样返回全部下标
+     * @return 选中点的下标（递增）
+     */
+    public static int[] downsample(long[] x, float[] y, int n, int threshold) {
+        if (threshold >= n || threshold < 3) {
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) all[i] = i;
+            return all;
+        }
+        int[] picked = new int[threshold];
+        int count = 0;
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        picked[count++] = a;
+        for (int i = 0; i < threshold - 2; i++) {
+            int avgStart = (int) Math.floor((i + 1) * every) + 1;
+            int avgEnd = Math.min((int) Math.floor((i + 2) * every) + 1, n);
+            double avgX = 0, avgY = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgX += x[j];
+                avgY += y[j];
+            }
+            int avgLen = avgEnd - avgStart;
+            avgX /= avgLen;
+            avgY /= avgLen;
+
+            int rangeStart = (int) Math.floor(i * every) + 1;
+            int rangeEnd = (int) Math.floor((i + 1) * every) + 1;
+            double ax = x[a], ay = y[a];
+            double maxArea = -1;
+            int next = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((ax - avgX) * (y[j] - ay) - (ax - x[j]) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            picked[count++] = next;
+            a = next;
+        }
+        picked[count] = n - 1;
+        return picked;
+    }
+}
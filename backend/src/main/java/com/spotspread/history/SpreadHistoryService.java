@@ -0,0 +1,91 @@
+package com.spotspread.history;
+
+import com.spotspread.config.SpreadHistoryConfig;
+import com.spotspread.sink.Opportunity;
+import com.spotspread.sink.OpportunitySink;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 最近 24 小时（可配置）每个（币种, 买入所, 卖出所）方向的利润率，1 秒分辨率，作为 sink 接收全部评估结果。
+ * 查询只读内存缓冲并用 LTTB 降采样，不访问 InfluxDB / MySQL。
+ */
+@Service
+public class SpreadHistoryService implements OpportunitySink {
+
+    private final SpreadHistoryConfig config;
+    private final ConcurrentHashMap<SeriesKey, SpreadRingBuffer> series = new ConcurrentHashMap<>();
+
+    public SpreadHistoryService(SpreadHistoryConfig config) {
+        this.config = config;
+    }
+
+    @Override
+    public String name() {
+        return "history";
+    }
+
+    @Override
+    public boolean accepts(Opportunity opportunity) {
+        return config.isEnabled();
+    }
+
+    @Override
+    public void publish(List<Opportunity> batch) {
+        for (Opportunity o : batch) {
+            SeriesKey key = new SeriesKey(o.symbol(), o.exchangeBuy(), o.exchangeSell());
+            SpreadRingBuffer buf = series.computeIfAbsent(key, k -> new SpreadRingBuffer(config.getRetentionSeconds()));
+            buf.record(Math.floorDiv(o.detectedAt(), 1000L), o.profitPct().floatValue());
+        }
+    }
+
+    /**
+     * 查询 [fromMs, toMs] 内的序列并降采样到最多 points 个点；序列不存在返回 null。
+     */
+    public HistorySeries query(String symbol, String exchangeBuy, String exchangeSell, long fromMs, long toMs, int points) {
+        SpreadRingBuffer buf = series.get(new SeriesKey(symbol, exchangeBuy, exchangeSell));
+        if (buf == null) return null;
+        long fromSecond = Math.floorDiv(fromMs, 1000L);
+        long toSecond = Math.floorDiv(toMs, 1000L);
+        int max = (int) Math.max(0, Math.min(buf.capacity(), toSecond - fromSecond + 1));
+        long[] seconds = new long[max];
+        float[] values = new float[max];
+        int n = buf.read(fromSecond, toSecond, seconds, values);
+        int[] idx = Lttb.downsample(seconds, values, n, Math.min(points, config.getMaxPoints()));
+        long[] t = new long[idx.length];
+        float[] v = new float[idx.length];
+        for (int i = 0; i < idx.length; i++) {
+            t[i] = seconds[idx[i]] * 1000L;
+            v[i] = values[idx[i]];
+        }
+        return new HistorySeries(symbol, exchangeBuy, exchangeSell, n, t, v);
+    }
+
+    public List<SeriesInfo> listSeries() {
+        List<SeriesInfo> list = new ArrayList<>(series.size());
+        series.forEach((k, buf) -> list.add(new SeriesInfo(k.symbol(), k.exchangeBuy(), k.exchangeSell(), buf.lastSecond() * 1000L)));
+        list.sort(Comparator.comparing(SeriesInfo::symbol).thenComparing(SeriesInfo::exchangeBuy).thenComparing(SeriesInfo::exchangeSell));
+        return list;
+    }
+
+    /** 已分配的堆外字节数 */
+    public long getAllocatedBytes() {
+        return (long) series.size() * config.getRetentionSeconds() * Float.BYTES;
+    }
+
+    private record SeriesKey(String symbol, String exchangeBuy, String exchangeSell) {}
+
+    public record SeriesInfo(String symbol, String exchangeBuy, String exchangeSell, long lastUpdateMs) {}
+
+    /**
+     * @param rawPoints 窗口内原始点数（降采样前）
+     * @param times     毫秒时间戳
+     * @param values    利润率（%）
+     */
+    public record HistorySeries(String symbol, String exchangeBuy, String exchangeSell, int rawPoints,
+                                long[] times, float[] values) {}
+}
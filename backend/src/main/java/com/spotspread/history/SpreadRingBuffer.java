@@ -0,0 +1,75 @@
+package com.spotspread.history;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * 单个序列的 1 秒分辨率环形缓冲，值为 float，存放在堆外。
+ * 槽位 = epochSecond % capacity；只记录最新写入的秒 lastSecond，跳过的秒写 NaN，
+ * 因此 (lastSecond - capacity, lastSecond] 内的槽位都有效，无需额外的时间戳数组。
+ * 同一秒多次写入保留最大值。读写均在实例锁内进行。
+ */
+final class SpreadRingBuffer {
+
+    private final int capacity;
+    private final FloatBuffer values;
+    private long lastSecond = Long.MIN_VALUE;
+
+    SpreadRingBuffer(int capacity) {
+        this.capacity = capacity;
+        this.values = ByteBuffer.allocateDirect(capacity * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    synchronized void record(long epochSecond, float value) {
+        if (lastSecond == Long.MIN_VALUE) {
+            fillNaN(0, capacity);
+            lastSecond = epochSecond - 1;
+        }
+        if (epochSecond <= lastSecond - capacity) return;
+        if (epochSecond <= lastSecond) {
+            int slot = slot(epochSecond);
+            float old = values.get(slot);
+            if (Float.isNaN(old) || value > old) values.put(slot, value);
+            return;
+        }
+        long gap = Math.min(epochSecond - lastSecond - 1, capacity);
+        for (long s = epochSecond - gap; s < epochSecond; s++) values.put(slot(s), Float.NaN);
+        values.put(slot(epochSecond), value);
+        lastSecond = epochSecond;
+    }
+
+    /**
+     * 读取 [fromSecond, toSecond] 内的非空点，返回写入 out 的点数。
+     */
+    synchronized int read(long fromSecond, long toSecond, long[] outSeconds, float[] outValues) {
+        if (lastSecond == Long.MIN_VALUE) return 0;
+        long from = Math.max(fromSecond, lastSecond - capacity + 1);
+        long to = Math.min(toSecond, lastSecond);
+        int n = 0;
+        for (long s = from; s <= to && n < outValues.length; s++) {
+            float v = values.get(slot(s));
+            if (Float.isNaN(v)) continue;
+            outSeconds[n] = s;
+            outValues[n] = v;
+            n++;
+        }
+        return n;
+    }
+
+    synchronized long lastSecond() {
+        return lastSecond;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    private int slot(long epochSecond) {
+        return (int) Math.floorMod(epochSecond, (long) capacity);
+    }
+
+    private void fillNaN(int from, int to) {
+        for (int i = from; i < to; i++) values.put(i, Float.NaN);
+    }
+}
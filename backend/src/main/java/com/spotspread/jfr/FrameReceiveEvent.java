@@ -0,0 +1,36 @@
+package com.spotspread.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 一帧 WebSocket 消息从交给 handler 到处理完毕（含解压、解析、写缓存）。
+ */
+@Name(FrameReceiveEvent.NAME)
+@Label("Frame Receive")
+@Category({"SpotSpread", "Feed"})
+@Description("WebSocket frame handled by an exchange handler")
+@StackTrace(false)
+public class FrameReceiveEvent extends Event {
+
+    public static final String NAME = "com.spotspread.FrameReceive";
+
+    @Label("Exchange")
+    public String exchange;
+
+    @Label("Connection")
+    public String connection;
+
+    /** 文本帧为字符数 */
+    @Label("Size")
+    @DataAmount
+    public int size;
+
+    @Label("Binary")
+    public boolean binary;
+}
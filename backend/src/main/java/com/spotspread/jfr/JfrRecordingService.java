@@ -0,0 +1,260 @@
+package com.spotspread.jfr;
+
+import com.spotspread.config.JfrConfig;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按需 JFR 录制：以 RecordingStream 录制，同时在流线程上实时汇总——
+ * GC 停顿、安全点，以及按线程角色（行情 / 价差 / 落库）归集的分配量与锁竞争。
+ * 线程角色由该线程上出现过的自定义事件决定（行情读线程出现 FrameReceive 等即为 feed）。
+ * 同一时刻只有一个录制；停止时 dump 为 .jfr 文件，可用 JMC 打开与 GC、锁事件对齐查看。
+ */
+@Service
+public class JfrRecordingService {
+
+    private static final Logger log = LoggerFactory.getLogger(JfrRecordingService.class);
+    private static final String PROFILE = "spotspread";
+    private static final String PROFILE_RESOURCE = "jfr/spotspread.jfc";
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    /** 虚拟线程每个任务一个线程 ID，超过后清空角色表，避免无限增长 */
+    private static final int MAX_TRACKED_THREADS = 10_000;
+
+    /** 自定义事件 → 阶段名 */
+    private static final Map<String, String> STAGES = new LinkedHashMap<>();
+    /** 阶段名 → 线程角色 */
+    private static final Map<String, String> ROLES = new LinkedHashMap<>();
+
+    static {
+        stage(FrameReceiveEvent.NAME, "frame", "feed");
+        stage(ParseEvent.NAME, "parse", "feed");
+        stage(QuoteUpdateEvent.NAME, "quote-update", "feed");
+        stage(SpreadEvaluationEvent.NAME, "spread-evaluation", "spread");
+        stage(OpportunityDetectedEvent.NAME, "opportunity", "spread");
+        stage(PersistenceFlushEvent.NAME, "persistence-flush", "persistence");
+    }
+
+    private static void stage(String event, String stage, String role) {
+        STAGES.put(event, stage);
+        ROLES.put(stage, role);
+    }
+
+    private final JfrConfig config;
+    private RecordingStream stream;
+    private LiveSummary summary;
+
+    public JfrRecordingService(JfrConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * @param settings 为空时用配置的默认录制配置
+     * @throws IllegalStateException    已有录制在进行
+     * @throws IllegalArgumentException 录制配置不存在或无法解析
+     */
+    public synchronized JfrSummary start(String settings) {
+        if (stream != null) throw new IllegalStateException("recording already running");
+        String name = settings != null && !settings.isBlank() ? settings.trim() : config.getSettings();
+        RecordingStream rs = new RecordingStream(configuration(name));
+        rs.setMaxAge(Duration.ofMinutes(Math.max(1, config.getMaxAgeMinutes())));
+        LiveSummary live = new LiveSummary(name, System.currentTimeMillis());
+        STAGES.forEach((event, stage) -> rs.onEvent(event, e -> live.onStage(stage, e)));
+        rs.onEvent("jdk.GarbageCollection", live::onGc);
+        rs.onEvent("jdk.ObjectAllocationSample", live::onAllocation);
+        rs.onEvent("jdk.JavaMonitorEnter", live::onMonitorEnter);
+        rs.onEvent("jdk.SafepointBegin", live::onSafepoint);
+        rs.onError(t -> log.warn("[JFR] 事件流异常: {}", t.getMessage()));
+        rs.startAsync();
+        stream = rs;
+        summary = live;
+        log.info("[JFR] 开始录制 settings={}", name);
+        return live.snapshot(true);
+    }
+
+    /**
+     * 停止录制并写出 .jfr 文件。
+     * @throws IllegalStateException 当前没有录制
+     */
+    public synchronized JfrDump stop() throws IOException {
+        RecordingStream rs = stream;
+        if (rs == null) throw new IllegalStateException("no recording running");
+        Path dir = Paths.get(config.getDumpDir());
+        Files.createDirectories(dir);
+        Path file = dir.resolve("spotspread-" + LocalDateTime.now().format(FILE_TIME) + ".jfr");
+        try {
+            rs.dump(file);
+        } finally {
+            rs.close();
+            stream = null;
+        }
+        log.info("[JFR] 录制已停止 -> {}", file);
+        return new JfrDump(file.toAbsolutePath().toString(), Files.size(file), summary.snapshot(false));
+    }
+
+    /** 当前录制或最近一次录制的汇总，从未录制返回 null */
+    public synchronized JfrSummary summary() {
+        return summary != null ? summary.snapshot(stream != null) : null;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    private static Configuration configuration(String name) {
+        try {
+            if (PROFILE.equals(name)) {
+                try (Reader r = new InputStreamReader(new ClassPathResource(PROFILE_RESOURCE).getInputStream(), StandardCharsets.UTF_8)) {
+                    return Configuration.create(r);
+                }
+            }
+            return Configuration.getConfiguration(name);
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("unknown JFR settings: " + name, e);
+        }
+    }
+
+    /** 流线程写入、接口线程读取，均在 this 上同步 */
+    private static final class LiveSummary {
+        final String settings;
+        final long startedAt;
+        long endedAt;
+        final Map<String, StageAgg> stages = new LinkedHashMap<>();
+        final Map<String, RoleAgg> roles = new LinkedHashMap<>();
+        final Map<Long, String> threadRoles = new HashMap<>();
+        long gcCount;
+        long gcPauseNanos;
+        long gcMaxPauseNanos;
+        long safepoints;
+        long safepointNanos;
+        long allocatedBytes;
+
+        LiveSummary(String settings, long startedAt) {
+            this.settings = settings;
+            this.startedAt = startedAt;
+            for (String stage : STAGES.values()) stages.put(stage, new StageAgg());
+            for (String role : ROLES.values()) roles.putIfAbsent(role, new RoleAgg());
+            roles.put("other", new RoleAgg());
+        }
+
+        synchronized void onStage(String stage, RecordedEvent e) {
+            StageAgg agg = stages.get(stage);
+            long nanos = ParseEvent.NAME.equals(e.getEventType().getName())
+                    ? e.getLong("parseTime") : e.getDuration().toNanos();
+            agg.events++;
+            agg.totalNanos += nanos;
+            agg.maxNanos = Math.max(agg.maxNanos, nanos);
+            RecordedThread t = e.getThread();
+            if (t != null) {
+                if (threadRoles.size() >= MAX_TRACKED_THREADS) threadRoles.clear();
+                threadRoles.put(t.getJavaThreadId(), ROLES.get(stage));
+            }
+        }
+
+        synchronized void onGc(RecordedEvent e) {
+            long pause = e.getDuration("sumOfPauses").toNanos();
+            gcCount++;
+            gcPauseNanos += pause;
+            gcMaxPauseNanos = Math.max(gcMaxPauseNanos, e.getDuration("longestPause").toNanos());
+        }
+
+        synchronized void onAllocation(RecordedEvent e) {
+            long weight = e.getLong("weight");
+            allocatedBytes += weight;
+            RoleAgg agg = role(e.getThread());
+            agg.allocatedBytes += weight;
+        }
+
+        synchronized void onMonitorEnter(RecordedEvent e) {
+            RoleAgg agg = role(e.getThread());
+            agg.monitorContended++;
+            agg.monitorWaitNanos += e.getDuration().toNanos();
+        }
+
+        synchronized void onSafepoint(RecordedEvent e) {
+            safepoints++;
+            safepointNanos += e.getDuration().toNanos();
+        }
+
+        private RoleAgg role(RecordedThread t) {
+            String role = t != null ? threadRoles.get(t.getJavaThreadId()) : null;
+            RoleAgg agg = roles.get(role != null ? role : "other");
+            if (t != null && agg.threads.size() < MAX_TRACKED_THREADS) agg.threads.add(t.getJavaThreadId());
+            return agg;
+        }
+
+        synchronized JfrSummary snapshot(boolean recording) {
+            if (!recording && endedAt == 0) endedAt = System.currentTimeMillis();
+            long end = recording ? System.currentTimeMillis() : endedAt;
+            double seconds = Math.max(0.001, (end - startedAt) / 1000.0);
+            List<StageSummary> stageList = new ArrayList<>();
+            stages.forEach((stage, agg) -> stageList.add(new StageSummary(stage, ROLES.get(stage), agg.events,
+                    agg.totalNanos / 1e6, agg.maxNanos / 1e6)));
+            List<RoleSummary> roleList = new ArrayList<>();
+            roles.forEach((role, agg) -> roleList.add(new RoleSummary(role, agg.threads.size(),
+                    agg.allocatedBytes / 1e6, agg.allocatedBytes / 1e6 / seconds, agg.monitorContended, agg.monitorWaitNanos / 1e6)));
+            return new JfrSummary(recording, settings, startedAt, seconds, gcCount, gcPauseNanos / 1e6, gcMaxPauseNanos / 1e6,
+                    safepoints, safepointNanos / 1e6, allocatedBytes / 1e6 / seconds, stageList, roleList);
+        }
+    }
+
+    private static final class StageAgg {
+        long events;
+        long totalNanos;
+        long maxNanos;
+    }
+
+    private static final class RoleAgg {
+        final Set<Long> threads = new HashSet<>();
+        long allocatedBytes;
+        long monitorContended;
+        long monitorWaitNanos;
+    }
+
+    /**
+     * 仅统计已提交的事件：带阈值的事件（如 FrameReceive 1ms）只含超过阈值的慢事件。
+     */
+    public record StageSummary(String stage, String role, long events, double totalMs, double maxMs) {}
+
+    /**
+     * @param allocatedMb 分配采样估算的分配量（jdk.ObjectAllocationSample 的 weight 之和）
+     */
+    public record RoleSummary(String role, int threads, double allocatedMb, double allocationRateMbPerSec,
+                              long monitorContended, double monitorWaitMs) {}
+
+    public record JfrSummary(boolean recording, String settings, long startedAt, double elapsedSeconds,
+                             long gcCount, double gcPauseTotalMs, double gcPauseMaxMs,
+                             long safepoints, double safepointTotalMs, double allocationRateMbPerSec,
+                             List<StageSummary> stages, List<RoleSummary> roles) {}
+
+    public record JfrDump(String file, long sizeBytes, JfrSummary summary) {}
+}
@@ -0,0 +1,39 @@
+package com.spotspread.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 一个方向的利润率达到入库阈值。
+ */
+@Name(OpportunityDetectedEvent.NAME)
+@Label("Opportunity Detected")
+@Category({"SpotSpread", "Spread"})
+@Description("A direction whose profit margin passed the threshold")
+@StackTrace(false)
+public class OpportunityDetectedEvent extends Event {
+
+    public static final String NAME = "com.spotspread.OpportunityDetected";
+
+    @Label("Symbol")
+    public String symbol;
+
+    @Label("Buy Exchange")
+    public String exchangeBuy;
+
+    @Label("Sell Exchange")
+    public String exchangeSell;
+
+    @Label("Profit Mode")
+    public String profitMode;
+
+    @Label("Profit Pct")
+    public double profitPct;
+
+    @Label("Z-Score")
+    public double zScore;
+}
@@ -0,0 +1,32 @@
+package com.spotspread.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * 一条行情更新从收帧到解析出买一/卖一的耗时；在写缓存时提交，事件本身为瞬时事件。
+ */
+@Name(ParseEvent.NAME)
+@Label("Parse")
+@Category({"SpotSpread", "Feed"})
+@Description("Time from frame arrival to a parsed best bid/ask")
+@StackTrace(false)
+public class ParseEvent extends Event {
+
+    public static final String NAME = "com.spotspread.Parse";
+
+    @Label("Exchange")
+    public String exchange;
+
+    @Label("Symbol")
+    public String symbol;
+
+    @Label("Parse Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long parseTime;
+}
@@ -0,0 +1,30 @@
+package com.spotspread.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 一个 sink 写出一批机会（MySQL / Influx / 日志 / webhook）。
+ */
+@Name(PersistenceFlushEvent.NAME)
+@Label("Persistence Flush")
+@Category({"SpotSpread", "Persistence"})
+@Description("One batch published by an opportunity sink")
+@StackTrace(false)
+public class PersistenceFlushEvent extends Event {
+
+    public static final String NAME = "com.spotspread.PersistenceFlush";
+
+    @Label("Sink")
+    public String sink;
+
+    @Label("Batch Size")
+    public int batchSize;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,43 @@
+package com.spotspread.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 一条买一/卖一更新经冗余仲裁写入行情缓存。
+ */
+@Name(QuoteUpdateEvent.NAME)
+@Label("Quote Update")
+@Category({"SpotSpread", "Feed"})
+@Description("Best bid/ask arbitrated and written to the quote cache")
+@StackTrace(false)
+public class QuoteUpdateEvent extends Event {
+
+    public static final String NAME = "com.spotspread.QuoteUpdate";
+
+    @Label("Exchange")
+    public String exchange;
+
+    @Label("Feed")
+    public String feed;
+
+    @Label("Symbol")
+    public String symbol;
+
+    @Label("Bid")
+    public double bid;
+
+    @Label("Ask")
+    public double ask;
+
+    @Label("Sequence")
+    public long seq;
+
+    /** false 表示被判为其他连接的重复或过期更新 */
+    @Label("Applied")
+    public boolean applied;
+}
@@ -0,0 +1,33 @@
+package com.spotspread.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 一轮全币种、全交易所组合的价差评估。
+ */
+@Name(SpreadEvaluationEvent.NAME)
+@Label("Spread Evaluation Batch")
+@Category({"SpotSpread", "Spread"})
+@Description("One pass over all symbols and exchange pairs")
+@StackTrace(false)
+public class SpreadEvaluationEvent extends Event {
+
+    public static final String NAME = "com.spotspread.SpreadEvaluation";
+
+    @Label("Profit Mode")
+    public String profitMode;
+
+    @Label("Symbols")
+    public int symbols;
+
+    @Label("Evaluations")
+    public int evaluations;
+
+    @Label("Above Threshold")
+    public int aboveThreshold;
+}
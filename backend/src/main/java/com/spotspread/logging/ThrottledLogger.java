@@ -0,0 +1,158 @@
+package com.spotspread.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+import org.slf4j.helpers.MessageFormatter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热路径日志的限流与去重：以日志模板（format）为键，每个键在一个窗口内最多输出 permitsPerWindow 条，
+ * 其余只计数；窗口结束时输出一条汇总（省略条数 + 最后一条的内容）。
+ * 用于行情解析异常这类可能每帧一条的日志，异常行情风暴时不会把读线程拖在日志 IO 上。
+ * 汇总由一个守护线程按窗口周期输出，风暴结束后也能看到最后一个窗口的省略条数。
+ */
+public final class ThrottledLogger {
+
+    /** 单个 logger 的键数上限，超出后新键共用一个溢出键 */
+    private static final int MAX_KEYS = 256;
+    private static final String OVERFLOW_KEY = "*";
+
+    private static final List<ThrottledLogger> LOGGERS = new CopyOnWriteArrayList<>();
+    private static volatile boolean enabled = true;
+    private static volatile long windowMs = 10_000;
+    private static volatile int permitsPerWindow = 5;
+    private static volatile ScheduledExecutorService flusher;
+
+    private final Logger log;
+    private final Map<String, Key> keys = new ConcurrentHashMap<>();
+
+    private ThrottledLogger(Logger log) {
+        this.log = log;
+    }
+
+    /** 通常作为 static final 字段，与同类的普通 Logger 并存 */
+    public static ThrottledLogger of(Logger log) {
+        ThrottledLogger t = new ThrottledLogger(log);
+        LOGGERS.add(t);
+        startFlusher();
+        return t;
+    }
+
+    /** 由 LogThrottleConfig 在启动时调用 */
+    public static void configure(boolean enabled, long windowMs, int permitsPerWindow) {
+        ThrottledLogger.enabled = enabled;
+        ThrottledLogger.windowMs = Math.max(100, windowMs);
+        ThrottledLogger.permitsPerWindow = Math.max(1, permitsPerWindow);
+    }
+
+    public void warn(String format, Object... args) {
+        log(Level.WARN, format, args);
+    }
+
+    public void info(String format, Object... args) {
+        log(Level.INFO, format, args);
+    }
+
+    public void error(String format, Object... args) {
+        log(Level.ERROR, format, args);
+    }
+
+    private void log(Level level, String format, Object[] args) {
+        if (!log.isEnabledForLevel(level)) return;
+        if (!enabled) {
+            log.atLevel(level).log(format, args);
+            return;
+        }
+        Key k = keys.get(format);
+        if (k == null) {
+            String name = keys.size() < MAX_KEYS ? format : OVERFLOW_KEY;
+            k = keys.computeIfAbsent(name, n -> new Key(level));
+        }
+        long now = System.currentTimeMillis();
+        Summary summary;
+        boolean permitted;
+        synchronized (k) {
+            summary = k.rollIfDue(now);
+            permitted = k.permits < permitsPerWindow;
+            if (permitted) {
+                k.permits++;
+            } else {
+                k.suppressed++;
+                k.lastFormat = format;
+                k.lastArgs = args;
+            }
+        }
+        if (summary != null) emit(summary);
+        if (permitted) log.atLevel(level).log(format, args);
+    }
+
+    private void flush(long now) {
+        for (Key k : keys.values()) {
+            Summary summary;
+            synchronized (k) {
+                summary = k.rollIfDue(now);
+            }
+            if (summary != null) emit(summary);
+        }
+    }
+
+    private void emit(Summary s) {
+        String last = MessageFormatter.arrayFormat(s.format, s.args).getMessage();
+        log.atLevel(s.level).log("最近 {}s 内另有 {} 条同类日志被省略，最后一条: {}", s.windowMs / 1000, s.suppressed, last);
+    }
+
+    private static synchronized void startFlusher() {
+        if (flusher != null) return;
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "log-throttle-flush");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(() -> {
+            long now = System.currentTimeMillis();
+            for (ThrottledLogger t : LOGGERS) {
+                try {
+                    t.flush(now);
+                } catch (RuntimeException e) {
+                    // 汇总失败不影响下一轮
+                }
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /** 单个键的当前窗口，在自身上同步 */
+    private static final class Key {
+        final Level level;
+        long windowStart;
+        int permits;
+        long suppressed;
+        String lastFormat;
+        Object[] lastArgs;
+
+        Key(Level level) {
+            this.level = level;
+        }
+
+        /** 窗口到期则开新窗口，有省略时返回上一窗口的汇总 */
+        Summary rollIfDue(long now) {
+            long window = windowMs;
+            if (now - windowStart < window) return null;
+            Summary s = suppressed > 0 ? new Summary(level, lastFormat, lastArgs, suppressed, window) : null;
+            windowStart = now;
+            permits = 0;
+            suppressed = 0;
+            lastFormat = null;
+            lastArgs = null;
+            return s;
+        }
+    }
+
+    private record Summary(Level level, String format, Object[] args, long suppressed, long windowMs) {}
+}
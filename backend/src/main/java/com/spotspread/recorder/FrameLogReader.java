@@ -0,0 +1,284 @@
+package com.spotspread.recorder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 读取 {@link FrameRecorder} 写出的分段，按时间区间顺序回放帧。
+ * 已封存的分段用 .idx 定位起点（压缩分段只解压命中的块），未封存的（正在写或异常退出遗留的）从头扫描。
+ * 多个收包线程并发写入，分段内的时间戳只是大致有序，读到区间终点后再多读 1 秒才停止。
+ */
+public final class FrameLogReader {
+
+    /** 区间终点之后继续读取的宽限，容纳并发写入造成的少量乱序 */
+    private static final long DISORDER_NANOS = 1_000_000_000L;
+
+    /**
+     * 一帧原始数据；recvNanos 为收包时的 nanoTime，epochNanos 为按分段锚点换算的墙钟时间。
+     * connect 为连接建立标记（payload 为空），此后该连接的帧属于一次新连接。
+     */
+    public record RecordedFrame(String exchange, String connection, long recvNanos, long epochNanos,
+                                boolean connect, boolean binary, byte[] payload) {
+        public String text() {
+            return new String(payload, StandardCharsets.UTF_8);
+        }
+    }
+
+    @FunctionalInterface
+    public interface FrameVisitor {
+        /** @return false 停止回放 */
+        boolean visit(RecordedFrame frame);
+    }
+
+    public record SegmentInfo(Path path, long seq, long startEpochMs, boolean compressed, boolean indexed, long sizeBytes) {}
+
+    private FrameLogReader() {}
+
+    /** 目录下的分段，按启用时刻排序（预建分段的序号可能早于切换时临时新建的分段）；未启用过的预建分段不列出 */
+    public static List<SegmentInfo> segments(Path dir) throws IOException {
+        List<SegmentInfo> list = new ArrayList<>();
+        if (!Files.isDirectory(dir)) return list;
+        List<Path> files;
+        try (Stream<Path> s = Files.list(dir)) {
+            files = s.filter(p -> FrameRecorder.seqOf(p) >= 0).toList();
+        }
+        for (Path p : files) {
+            String name = p.getFileName().toString();
+            boolean compressed = name.endsWith(FrameRecorder.COMPRESSED_SUFFIX);
+            if (!compressed && !name.endsWith(FrameRecorder.SEGMENT_SUFFIX)) continue;
+            Path idx = FrameRecorder.sibling(p, FrameRecorder.INDEX_SUFFIX);
+            boolean indexed = Files.exists(idx);
+            // 压缩完成但原分段尚未删除时只列压缩分段
+            if (!compressed && indexed && Files.exists(FrameRecorder.sibling(p, FrameRecorder.COMPRESSED_SUFFIX))) continue;
+            long startEpochMs = readHeader(p).getLong(8);
+            if (startEpochMs == 0) continue;
+            list.add(new SegmentInfo(p, FrameRecorder.seqOf(p), startEpochMs, compressed, indexed, Files.size(p)));
+        }
+        list.sort(Comparator.comparingLong(SegmentInfo::startEpochMs).thenComparingLong(SegmentInfo::seq));
+        return list;
+    }
+
+    /**
+     * 回放 [fromEpochMs, toEpochMs) 内的帧，按分段顺序、分段内按写入顺序。
+     *
+     * @return 回放的帧数
+     */
+    public static long read(Path dir, long fromEpochMs, long toEpochMs, FrameVisitor visitor) throws IOException {
+        return read(dir, fromEpochMs, toEpochMs, null, visitor);
+    }
+
+    /**
+     * 只回放某个交易所的帧，其余帧不拷贝 payload，供按交易所并行回放。
+     *
+     * @param exchange 交易所名，null 表示不过滤
+     */
+    public static long read(Path dir, long fromEpochMs, long toEpochMs, String exchange, FrameVisitor visitor) throws IOException {
+        List<SegmentInfo> segments = segments(dir);
+        long fromNanos = fromEpochMs * 1_000_000L;
+        long toNanos = toEpochMs * 1_000_000L;
+        long count = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            SegmentInfo seg = segments.get(i);
+            if (seg.startEpochMs() >= toEpochMs + DISORDER_NANOS / 1_000_000L) break;
+            // 下一分段在区间起点之前开始，本分段整体早于区间
+            if (i + 1 < segments.size() && segments.get(i + 1).startEpochMs() < fromEpochMs) continue;
+            long n = readSegment(seg, fromNanos, toNanos, exchange, visitor);
+            if (n < 0) return count - n - 1;
+            count += n;
+        }
+        return count;
+    }
+
+    /** @return 回放的帧数；访问者要求停止时返回 -(帧数 + 1) */
+    private static long readSegment(SegmentInfo seg, long fromNanos, long toNanos, String exchange, FrameVisitor visitor) throws IOException {
+        Index index = seg.indexed() ? Index.load(FrameRecorder.sibling(seg.path(), FrameRecorder.INDEX_SUFFIX)) : null;
+        Cursor cursor = new Cursor(readHeader(seg.path()), exchange);
+        if (index != null) cursor.loadDictionary(index.dictionary);
+        long startNanos = cursor.anchorNanos + (fromNanos - cursor.anchorEpochMs * 1_000_000L);
+        int from = index == null ? 0 : index.floor(startNanos);
+
+        if (!seg.compressed()) {
+            try (FileChannel ch = FileChannel.open(seg.path(), StandardOpenOption.READ)) {
+                ByteBuffer b = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()).order(ByteOrder.LITTLE_ENDIAN);
+                int pos = index == null || index.entries == 0 ? FrameSegment.HEADER_BYTES : (int) index.rawOffset(from);
+                int limit = index == null ? b.capacity() : (int) Math.min(index.rawLength, b.capacity());
+                return cursor.scan(b, pos, limit, fromNanos, toNanos, visitor);
+            }
+        }
+        long count = 0;
+        try (FileChannel ch = FileChannel.open(seg.path(), StandardOpenOption.READ)) {
+            long offset = index == null || index.entries == 0 ? FrameSegment.HEADER_BYTES : index.fileOffset(from);
+            Inflater inflater = new Inflater(true);
+            try {
+                ByteBuffer head = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+                while (offset + 8 <= ch.size()) {
+                    head.clear();
+                    ch.read(head, offset);
+                    int rawLen = head.getInt(0);
+                    int compLen = head.getInt(4);
+                    ByteBuffer comp = ByteBuffer.allocate(compLen);
+                    ch.read(comp, offset + 8);
+                    byte[] raw = new byte[rawLen];
+                    inflater.reset();
+                    inflater.setInput(comp.array());
+                    inflater.inflate(raw);
+                    offset += 8 + compLen;
+                    long n = cursor.scan(ByteBuffer.wrap(raw).order(ByteOrder.LITTLE_ENDIAN), 0, rawLen, fromNanos, toNanos, visitor);
+                    if (n < 0) return -(count - n - 1) - 1;
+                    count += n;
+                    if (cursor.pastEnd) break;
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("分段 " + seg.path().getFileName() + " 解压失败: " + e.getMessage(), e);
+            } finally {
+                inflater.end();
+            }
+        }
+        return count;
+    }
+
+    private static ByteBuffer readHeader(Path p) throws IOException {
+        try (FileChannel ch = FileChannel.open(p, StandardOpenOption.READ)) {
+            ByteBuffer b = ByteBuffer.allocate(FrameSegment.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            ch.read(b, 0);
+            if (b.getInt(0) != FrameSegment.MAGIC) throw new IOException("不是帧录制分段: " + p.getFileName());
+            return b;
+        }
+    }
+
+    /** 逐条解析记录，维护 ID → 名称字典 */
+    private static final class Cursor {
+        final long anchorEpochMs;
+        final long anchorNanos;
+        final String exchangeFilter;
+        final Map<Short, String> exchanges = new HashMap<>();
+        final Map<Short, String> connections = new HashMap<>();
+        final Map<Short, Short> connectionExchange = new HashMap<>();
+        boolean pastEnd;
+
+        Cursor(ByteBuffer header, String exchangeFilter) {
+            this.anchorEpochMs = header.getLong(8);
+            this.anchorNanos = header.getLong(16);
+            this.exchangeFilter = exchangeFilter;
+        }
+
+        void loadDictionary(byte[] dict) {
+            ByteBuffer b = ByteBuffer.wrap(dict).order(ByteOrder.LITTLE_ENDIAN);
+            int pos = 0;
+            while (pos + FrameSegment.RECORD_HEADER_BYTES <= dict.length) {
+                int len = b.getInt(pos);
+                if (len < FrameSegment.RECORD_HEADER_BYTES) break;
+                dictionary(b, pos, len);
+                pos += FrameSegment.align(len);
+            }
+        }
+
+        private void dictionary(ByteBuffer b, int pos, int len) {
+            byte[] name = new byte[len - FrameSegment.RECORD_HEADER_BYTES];
+            b.get(pos + FrameSegment.RECORD_HEADER_BYTES, name);
+            short exchangeId = b.getShort(pos + 6);
+            if (b.get(pos + 4) == FrameSegment.DICT_EXCHANGE) {
+                exchanges.put(exchangeId, new String(name, StandardCharsets.UTF_8));
+            } else {
+                short connectionId = b.getShort(pos + 8);
+                connections.put(connectionId, new String(name, StandardCharsets.UTF_8));
+                connectionExchange.put(connectionId, exchangeId);
+            }
+        }
+
+        /** @return 回放的帧数；访问者要求停止时返回 -(帧数 + 1) */
+        long scan(ByteBuffer b, int pos, int limit, long fromNanos, long toNanos, FrameVisitor visitor) {
+            long count = 0;
+            long stopNanos = toNanos + DISORDER_NANOS;
+            while (pos + FrameSegment.RECORD_HEADER_BYTES <= limit) {
+                int len = b.getInt(pos);
+                if (len < FrameSegment.RECORD_HEADER_BYTES || pos + len > limit) break;
+                byte type = b.get(pos + 4);
+                if (type == FrameSegment.DICT_EXCHANGE || type == FrameSegment.DICT_CONNECTION) {
+                    dictionary(b, pos, len);
+                } else {
+                    long recvNanos = b.getLong(pos + 10);
+                    long epochNanos = anchorEpochMs * 1_000_000L + (recvNanos - anchorNanos);
+                    if (epochNanos >= stopNanos) {
+                        pastEnd = true;
+                        break;
+                    }
+                    String exchange = exchanges.get(b.getShort(pos + 6));
+                    if (epochNanos >= fromNanos && epochNanos < toNanos
+                            && (exchangeFilter == null || exchangeFilter.equals(exchange))) {
+                        byte[] payload = new byte[len - FrameSegment.RECORD_HEADER_BYTES];
+                        b.get(pos + FrameSegment.RECORD_HEADER_BYTES, payload);
+                        RecordedFrame frame = new RecordedFrame(exchange, connections.get(b.getShort(pos + 8)),
+                                recvNanos, epochNanos, type == FrameSegment.CONNECT, type == FrameSegment.BINARY, payload);
+                        count++;
+                        if (!visitor.visit(frame)) return -count - 1;
+                    }
+                }
+                pos += FrameSegment.align(len);
+            }
+            return count;
+        }
+    }
+
+    /** .idx 文件内容，格式见 {@link SegmentSealer} */
+    private static final class Index {
+        long rawLength;
+        int entries;
+        byte[] dictionary;
+        long[] data;
+
+        static Index load(Path p) throws IOException {
+            ByteBuffer b = ByteBuffer.wrap(Files.readAllBytes(p)).order(ByteOrder.LITTLE_ENDIAN);
+            if (b.getInt(0) != SegmentSealer.INDEX_MAGIC) throw new IOException("索引文件格式不符: " + p.getFileName());
+            Index index = new Index();
+            index.rawLength = b.getLong(24);
+            int dictBytes = b.getInt(32);
+            index.entries = b.getInt(36);
+            index.dictionary = new byte[dictBytes];
+            b.get(SegmentSealer.INDEX_HEADER_BYTES, index.dictionary);
+            index.data = new long[index.entries * 3];
+            int base = SegmentSealer.INDEX_HEADER_BYTES + dictBytes;
+            for (int i = 0; i < index.data.length; i++) index.data[i] = b.getLong(base + i * 8);
+            return index;
+        }
+
+        /** 首帧时间不晚于 nanos 的最后一个条目；再往前退一个，容纳条目间的乱序 */
+        int floor(long nanos) {
+            int lo = 0;
+            int hi = entries - 1;
+            int found = 0;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (data[mid * 3] <= nanos) {
+                    found = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return Math.max(found - 1, 0);
+        }
+
+        long rawOffset(int i) {
+            return data[i * 3 + 1];
+        }
+
+        long fileOffset(int i) {
+            return data[i * 3 + 2];
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package com.spotspread.recorder;
+
+import com.spotspread.config.FrameRecorderConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * 原始帧录制器：各连接收到的每一帧（含交易所 ID、连接 ID、收包 nanoTime）追加到当前内存映射分段。
+ * 收包线程上只有一次原子分配与一次内存拷贝；分段写满时切换到后台预先建好的下一个分段，
+ * 旧分段的索引、压缩、截断与过期删除都在 "frame-recorder" 线程上完成。回放见 {@link FrameLogReader}。
+ */
+@Service
+public class FrameRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(FrameRecorder.class);
+    private static final byte[] EMPTY = new byte[0];
+
+    static final String SEGMENT_SUFFIX = ".seg";
+    static final String COMPRESSED_SUFFIX = ".segz";
+    static final String INDEX_SUFFIX = ".idx";
+    static final String FILE_PREFIX = "frames-";
+
+    private final FrameRecorderConfig config;
+    private final Path dir;
+    private final int segmentBytes;
+    private final int maxFrameBytes;
+    private final Map<String, Short> exchangeIds = new HashMap<>();
+    private final Map<String, Channel> channels = new HashMap<>();
+    /** 每个新分段开头都重写一遍字典，单个分段可独立解析 */
+    private final List<byte[]> dictionary = new CopyOnWriteArrayList<>();
+    private final Object rollLock = new Object();
+    private final AtomicLong nextSeq = new AtomicLong();
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder payloadBytes = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong segmentsSealed = new AtomicLong();
+    private final AtomicLong sealedRawBytes = new AtomicLong();
+    private final AtomicLong sealedStoredBytes = new AtomicLong();
+    private volatile FrameSegment current;
+    private FrameSegment spare;
+    private ExecutorService worker;
+
+    public FrameRecorder(FrameRecorderConfig config) {
+        this.config = config;
+        this.dir = Paths.get(config.getDir());
+        this.segmentBytes = (int) Math.min(Math.max(config.getSegmentSizeMb(), 1) * 1024L * 1024L, Integer.MAX_VALUE - 8);
+        this.maxFrameBytes = Math.min(FrameSegment.recordLength(Math.max(config.getMaxFrameKb(), 1) * 1024), segmentBytes / 2);
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) return;
+        try {
+            Files.createDirectories(dir);
+            recover();
+            worker = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "frame-recorder");
+                t.setDaemon(true);
+                return t;
+            });
+            synchronized (rollLock) {
+                FrameSegment first = FrameSegment.create(segmentPath(nextSeq.getAndIncrement()), nextSeq.get() - 1, segmentBytes);
+                first.preTouch();
+                first.activate(System.currentTimeMillis(), System.nanoTime());
+                current = first;
+            }
+            worker.execute(this::prepareSpare);
+            log.info("[FrameRecorder] 已启用，目录 {}，分段 {}MB，压缩 {}", dir.toAbsolutePath(), segmentBytes >> 20, config.getCompression());
+        } catch (IOException e) {
+            current = null;
+            log.error("[FrameRecorder] 启动失败，本次不录制: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        FrameSegment last;
+        int end;
+        synchronized (rollLock) {
+            last = current;
+            current = null;
+            // 让之后的分配全部越界，end 之前的记录由封存等待写完
+            end = last == null ? 0 : (int) Math.min(last.claim(last.capacity + 1), last.capacity);
+        }
+        if (worker == null) return;
+        worker.shutdown();
+        try {
+            worker.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (last != null) seal(last, end, true);
+        synchronized (rollLock) {
+            if (spare != null) {
+                spare.unmap();
+                deleteQuietly(spare.path);
+                spare = null;
+            }
+        }
+    }
+
+    /**
+     * 为一个连接登记录制通道；同名连接返回同一通道（重连、轮换后的新连接沿用原 ID）。
+     */
+    public synchronized Channel channel(String exchange, String connection) {
+        Channel existing = channels.get(connection);
+        if (existing != null) return existing;
+        Short exchangeId = exchangeIds.get(exchange);
+        if (exchangeId == null) {
+            exchangeId = (short) exchangeIds.size();
+            exchangeIds.put(exchange, exchangeId);
+            addDictionary(FrameSegment.DICT_EXCHANGE, exchangeId, (short) 0, exchange);
+        }
+        Channel channel = new Channel(exchangeId, (short) channels.size());
+        channels.put(connection, channel);
+        addDictionary(FrameSegment.DICT_CONNECTION, exchangeId, channel.connectionId, connection);
+        return channel;
+    }
+
+    private void addDictionary(byte type, short exchangeId, short connectionId, String name) {
+        byte[] payload = name.getBytes(StandardCharsets.UTF_8);
+        byte[] record = new byte[FrameSegment.recordLength(payload.length)];
+        ByteBuffer.wrap(record).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(record.length).put(type).put((byte) 0).putShort(exchangeId).putShort(connectionId).putLong(0L).put(payload);
+        // 先登记再写入：与切换并发时最多在新分段里重复一条字典记录
+        dictionary.add(record);
+        append(type, exchangeId, connectionId, 0L, payload);
+    }
+
+    /** 一个连接的录制入口，收包线程直接调用 */
+    public final class Channel {
+        private final short exchangeId;
+        private final short connectionId;
+
+        private Channel(short exchangeId, short connectionId) {
+            this.exchangeId = exchangeId;
+            this.connectionId = connectionId;
+        }
+
+        public void text(String message, long recvNanos) {
+            append(FrameSegment.TEXT, exchangeId, connectionId, recvNanos, message.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public void binary(byte[] data, long recvNanos) {
+            append(FrameSegment.BINARY, exchangeId, connectionId, recvNanos, data);
+        }
+
+        /** 连接握手完成时调用，其后的帧即新连接的订阅确认与行情 */
+        public void connected(long nanos) {
+            append(FrameSegment.CONNECT, exchangeId, connectionId, nanos, EMPTY);
+        }
+    }
+
+    private void append(byte type, short exchangeId, short connectionId, long nanos, byte[] payload) {
+        int length = FrameSegment.recordLength(payload.length);
+        if (length > maxFrameBytes) {
+            dropped.increment();
+            return;
+        }
+        int aligned = FrameSegment.align(length);
+        while (true) {
+            FrameSegment s = current;
+            if (s == null) {
+                dropped.increment();
+                return;
+            }
+            long pos = s.claim(aligned);
+            if (pos + aligned <= s.capacity) {
+                s.write((int) pos, length, type, exchangeId, connectionId, nanos, payload);
+                frames.increment();
+                payloadBytes.add(payload.length);
+                return;
+            }
+            if (pos <= s.capacity) {
+                // 只有跨过容量的那一次分配负责切换，其余越界的写入等新分段发布后重试
+                roll(s, (int) pos);
+            } else {
+                while (current == s) Thread.onSpinWait();
+            }
+        }
+    }
+
+    private void roll(FrameSegment full, int end) {
+        synchronized (rollLock) {
+            if (current != full) return;
+            full.markEnd(end);
+            try {
+                FrameSegment next = spare;
+                spare = null;
+                if (next == null) next = FrameSegment.create(segmentPath(nextSeq.get()), nextSeq.getAndIncrement(), segmentBytes);
+                next.activate(System.currentTimeMillis(), System.nanoTime());
+                for (byte[] record : dictionary) {
+                    next.copy((int) next.claim(FrameSegment.align(record.length)), record);
+                }
+                current = next;
+            } catch (IOException e) {
+                current = null;
+                log.error("[FrameRecorder] 切换分段失败，停止录制: {}", e.getMessage());
+            }
+            // 在锁内提交，stop() 关闭线程池前的切换都能封存
+            worker.execute(() -> {
+                seal(full, end, true);
+                prepareSpare();
+                enforceRetention();
+            });
+        }
+    }
+
+    /** 建好下一个分段并预先触发缺页，建文件与逐页写都不持锁 */
+    private void prepareSpare() {
+        long seq;
+        synchronized (rollLock) {
+            if (spare != null || current == null) return;
+            seq = nextSeq.getAndIncrement();
+        }
+        try {
+            FrameSegment next = FrameSegment.create(segmentPath(seq), seq, segmentBytes);
+            next.preTouch();
+            synchronized (rollLock) {
+                if (current == null) {
+                    next.unmap();
+                    deleteQuietly(next.path);
+                    return;
+                }
+                spare = next;
+            }
+        } catch (IOException e) {
+            log.warn("[FrameRecorder] 预建分段失败，切换时再创建: {}", e.getMessage());
+        }
+    }
+
+    private void seal(FrameSegment s, int end, boolean waitWriters) {
+        try {
+            SegmentSealer.Sealed sealed = SegmentSealer.seal(s, end, waitWriters, config.getCompression(),
+                    Math.max(config.getIndexIntervalKb(), 1) * 1024);
+            segmentsSealed.incrementAndGet();
+            sealedRawBytes.addAndGet(sealed.rawBytes());
+            sealedStoredBytes.addAndGet(sealed.storedBytes());
+        } catch (IOException e) {
+            log.warn("[FrameRecorder] 封存分段 {} 失败: {}", s.path.getFileName(), e.getMessage());
+        }
+    }
+
+    /** 上次未正常关闭留下的分段：有锚点的补封存，从未启用过的预建分段直接删除 */
+    private void recover() throws IOException {
+        long maxSeq = -1;
+        for (Path p : list()) {
+            String name = p.getFileName().toString();
+            long seq = seqOf(p);
+            maxSeq = Math.max(maxSeq, seq);
+            if (name.endsWith(".tmp")) {
+                deleteQuietly(p);
+            } else if (name.endsWith(SEGMENT_SUFFIX)) {
+                if (Files.exists(sibling(p, INDEX_SUFFIX))) {
+                    if (Files.exists(sibling(p, COMPRESSED_SUFFIX))) deleteQuietly(p);
+                    continue;
+                }
+                FrameSegment s = FrameSegment.open(p, seq);
+                if (!s.hasValidHeader() || s.anchorEpochMs() == 0) {
+                    s.unmap();
+                    deleteQuietly(p);
+                    continue;
+                }
+                seal(s, s.capacity, false);
+                log.info("[FrameRecorder] 已封存上次遗留的分段 {}", p.getFileName());
+            }
+        }
+        nextSeq.set(maxSeq + 1);
+    }
+
+    /** 目录总大小超过上限时按序号从旧到新删除已封存的分段；未封存的（当前、预建或封存失败的分段）跳过 */
+    private void enforceRetention() {
+        long limit = config.getMaxTotalMb() * 1024L * 1024L;
+        try {
+            TreeMap<Long, List<Path>> bySeq = new TreeMap<>();
+            long total = 0;
+            for (Path p : list()) {
+                total += Files.size(p);
+                bySeq.computeIfAbsent(seqOf(p), k -> new ArrayList<>()).add(p);
+            }
+            while (total > limit && !bySeq.isEmpty()) {
+                Map.Entry<Long, List<Path>> oldest = bySeq.pollFirstEntry();
+                boolean sealed = oldest.getValue().stream().anyMatch(p -> p.getFileName().toString().endsWith(INDEX_SUFFIX));
+                if (!sealed) continue;
+                for (Path p : oldest.getValue()) {
+                    total -= Files.size(p);
+                    deleteQuietly(p);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("[FrameRecorder] 清理过期分段失败: {}", e.getMessage());
+        }
+    }
+
+    public RecorderStats stats() {
+        FrameSegment s = current;
+        int channelCount;
+        synchronized (this) {
+            channelCount = channels.size();
+        }
+        return new RecorderStats(config.isEnabled(), dir.toAbsolutePath().toString(), config.getCompression().name(),
+                frames.sum(), payloadBytes.sum(), dropped.sum(),
+                segmentsSealed.get(), sealedRawBytes.get(), sealedStoredBytes.get(), channelCount,
+                s == null ? null : s.path.getFileName().toString(),
+                s == null ? 0 : Math.min(s.used(), s.capacity));
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+
+    private List<Path> list() throws IOException {
+        if (!Files.isDirectory(dir)) return List.of();
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().startsWith(FILE_PREFIX) && seqOf(p) >= 0).sorted().toList();
+        }
+    }
+
+    private Path segmentPath(long seq) {
+        return dir.resolve(String.format("%s%08d%s", FILE_PREFIX, seq, SEGMENT_SUFFIX));
+    }
+
+    /** frames-00000012.seg → frames-00000012.idx 等 */
+    static Path sibling(Path path, String suffix) {
+        String name = path.getFileName().toString();
+        int dot = name.indexOf('.');
+        return path.resolveSibling((dot < 0 ? name : name.substring(0, dot)) + suffix);
+    }
+
+    /** 非分段文件名返回 -1 */
+    static long seqOf(Path path) {
+        String name = path.getFileName().toString();
+        int dot = name.indexOf('.');
+        if (!name.startsWith(FILE_PREFIX) || dot <= FILE_PREFIX.length()) return -1;
+        try {
+            return Long.parseLong(name.substring(FILE_PREFIX.length(), dot));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void deleteQuietly(Path p) {
+        try {
+            Files.deleteIfExists(p);
+        } catch (IOException e) {
+            log.warn("[FrameRecorder] 删除 {} 失败: {}", p.getFileName(), e.getMessage());
+        }
+    }
+
+    public record RecorderStats(boolean enabled, String dir, String compression,
+                                long frames, long payloadBytes, long dropped,
+                                long segmentsSealed, long sealedRawBytes, long sealedStoredBytes,
+                                int channels, String currentSegment, long currentUsedBytes) {}
+}
@@ -0,0 +1,187 @@
+package com.spotspread.recorder;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 一个内存映射的分段文件，多个收包线程并发追加。
+ * <pre>
+ * 文件头（64 字节）：int magic | short version | short 保留 | long 启用时刻 epoch 毫秒 | long 同一时刻 System.nanoTime
+ * 记录：int len | byte type | byte 保留 | short exchangeId | short connectionId | long 收包 nanoTime | payload
+ * </pre>
+ * len 为记录头加 payload 的字节数，下一条记录从 len 向上按 4 字节对齐处开始；len 最后以 release 写入，
+ * 读到 0 表示该位置尚未写完（或从未写入），{@value #END} 表示分段到此结束。小端序。
+ * 写入位置由 tail 原子累加分配，互不重叠；分配越过容量的那一次负责切换分段。
+ */
+final class FrameSegment {
+
+    static final int MAGIC = 0x52465353; // "SSFR"
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int RECORD_HEADER_BYTES = 18;
+    static final int END = -1;
+
+    static final byte TEXT = 1;
+    static final byte BINARY = 2;
+    /** exchangeId → 交易所名 */
+    static final byte DICT_EXCHANGE = 3;
+    /** connectionId → 连接名，exchangeId 为所属交易所 */
+    static final byte DICT_CONNECTION = 4;
+    /** 连接建立（握手完成）标记，无 payload；回测从连接最近一次建立处起重放，恢复订阅确认等连接级状态 */
+    static final byte CONNECT = 5;
+
+    private static final VarHandle LENGTH = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle TAIL;
+    /** sun.misc.Unsafe.invokeCleaner(ByteBuffer)，取不到时为 null，映射留给 GC 释放 */
+    private static final MethodHandle INVOKE_CLEANER = invokeCleaner();
+
+    static {
+        try {
+            TAIL = MethodHandles.lookup().findVarHandle(FrameSegment.class, "tail", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    final Path path;
+    final long seq;
+    final int capacity;
+    private final MappedByteBuffer buf;
+    @SuppressWarnings("unused")
+    private volatile long tail = HEADER_BYTES;
+
+    private FrameSegment(Path path, long seq, MappedByteBuffer buf, int capacity) {
+        this.path = path;
+        this.seq = seq;
+        this.buf = buf;
+        this.capacity = capacity;
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /** 新建并映射分段文件；经 preTouch 逐页写过后按容量占用磁盘，封存时截断到实际长度或压缩后删除 */
+    static FrameSegment create(Path path, long seq, int capacity) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            FrameSegment s = new FrameSegment(path, seq, ch.map(FileChannel.MapMode.READ_WRITE, 0, capacity), capacity);
+            s.buf.putInt(0, MAGIC);
+            s.buf.putShort(4, VERSION);
+            return s;
+        }
+    }
+
+    /** 映射已有的分段文件，用于封存上次未正常关闭留下的分段 */
+    static FrameSegment open(Path path, long seq) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int size = (int) Math.min(ch.size(), Integer.MAX_VALUE);
+            return new FrameSegment(path, seq, ch.map(FileChannel.MapMode.READ_WRITE, 0, size), size);
+        }
+    }
+
+    /** 逐页写一次，把缺页中断留在后台线程而不是收包线程上；只能在分段发布为当前分段之前调用 */
+    void preTouch() {
+        for (int pos = HEADER_BYTES; pos < capacity; pos += 4096) buf.put(pos, (byte) 0);
+    }
+
+    static int recordLength(int payloadBytes) {
+        return RECORD_HEADER_BYTES + payloadBytes;
+    }
+
+    static int align(int length) {
+        return (length + 3) & ~3;
+    }
+
+    /** 切换为当前分段时写入时间锚点，文件内的 nanoTime 以此换算为墙钟时间 */
+    void activate(long epochMs, long nanos) {
+        buf.putLong(8, epochMs);
+        buf.putLong(16, nanos);
+    }
+
+    long anchorEpochMs() {
+        return buf.getLong(8);
+    }
+
+    long anchorNanos() {
+        return buf.getLong(16);
+    }
+
+    boolean hasValidHeader() {
+        return capacity >= HEADER_BYTES && buf.getInt(0) == MAGIC;
+    }
+
+    /** @return 分配到的起始位置；起始位置加长度超过 capacity 表示本分段已满 */
+    long claim(int alignedLength) {
+        return (long) TAIL.getAndAdd(this, (long) alignedLength);
+    }
+
+    void write(int pos, int length, byte type, short exchangeId, short connectionId, long nanos, byte[] payload) {
+        buf.put(pos + 4, type);
+        buf.putShort(pos + 6, exchangeId);
+        buf.putShort(pos + 8, connectionId);
+        buf.putLong(pos + 10, nanos);
+        buf.put(pos + RECORD_HEADER_BYTES, payload);
+        LENGTH.setRelease(buf, pos, length);
+    }
+
+    /** 整条记录原样写入（新分段开头重写字典用），len 同样最后写 */
+    void copy(int pos, byte[] record) {
+        buf.put(pos + 4, record, 4, record.length - 4);
+        LENGTH.setRelease(buf, pos, record.length);
+    }
+
+    /** 已分配的字节数（含文件头），写满后可能超过 capacity */
+    long used() {
+        return tail;
+    }
+
+    void markEnd(int pos) {
+        if (pos + 4 <= capacity) LENGTH.setRelease(buf, pos, END);
+    }
+
+    int lengthAt(int pos) {
+        return pos + 4 <= capacity ? (int) LENGTH.getAcquire(buf, pos) : END;
+    }
+
+    /** 只读视图，供封存时扫描与拷贝 */
+    ByteBuffer view() {
+        return buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    void force() {
+        buf.force();
+    }
+
+    /**
+     * 立即解除映射，之后不得再访问本分段（包括 view 返回的视图），否则 JVM 可能崩溃；
+     * 只能在确认没有写入方、封存已读完数据之后调用。
+     */
+    void unmap() {
+        if (INVOKE_CLEANER == null) return;
+        try {
+            INVOKE_CLEANER.invokeExact((ByteBuffer) buf);
+        } catch (Throwable ignored) {
+            // 解除失败时映射留给 GC 释放
+        }
+    }
+
+    private static MethodHandle invokeCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
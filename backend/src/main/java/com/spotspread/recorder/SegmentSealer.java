@@ -0,0 +1,159 @@
+package com.spotspread.recorder;
+
+import com.spotspread.config.FrameRecorderConfig.Compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * 封存已切换出去的分段：等待在途写入完成，生成时间索引（.idx），按配置块压缩（.segz）或截断到实际长度。
+ * 数据读完后先解除映射再截断或删除 .seg；等待在途写入超时的分段仍可能被写入，不解除映射（留给 GC 释放）也不截断。
+ * 只在录制器的后台线程上执行。
+ * <pre>
+ * .idx：int magic | short version | byte compressed | byte 保留 | long 锚点 epoch 毫秒 | long 锚点 nanoTime
+ *       | long 原始数据长度 | int 字典字节数 | int 条目数 | 字典记录（与分段内格式相同） | 条目 × (long 首帧 nanoTime, long 原始偏移, long 文件偏移)
+ * .segz：64 字节文件头（同 .seg） | 块 × (int 原始长度 | int 压缩长度 | raw deflate 数据)，每个索引条目对应一个块的起点
+ * </pre>
+ */
+final class SegmentSealer {
+
+    static final int INDEX_MAGIC = 0x49465353; // "SSFI"
+    static final short INDEX_VERSION = 1;
+    static final int INDEX_HEADER_BYTES = 40;
+    static final int INDEX_ENTRY_BYTES = 24;
+    /** 等待在途写入的上限，超时则数据在未写完处结束（索引只覆盖到此处，文件不截断） */
+    private static final long WRITER_WAIT_MS = 1_000;
+
+    record Sealed(long rawBytes, long storedBytes, int indexEntries) {}
+
+    private SegmentSealer() {}
+
+    /**
+     * @param end         数据末尾上界：切换时为越界那次分配的起点，恢复上次遗留分段时为文件大小
+     * @param waitWriters end 之前遇到未写完的记录时是否等待（恢复时写入方已不存在，不等待）
+     */
+    static Sealed seal(FrameSegment s, int end, boolean waitWriters, Compression compression, int indexInterval) throws IOException {
+        ByteBuffer b = s.view();
+        ByteArrayOutputStream dict = new ByteArrayOutputStream();
+        List<long[]> entries = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + WRITER_WAIT_MS;
+        int pos = FrameSegment.HEADER_BYTES;
+        int nextIndex = pos;
+        int pendingEntry = -1;
+        while (pos < end) {
+            int len = s.lengthAt(pos);
+            if (len == 0 && waitWriters && System.currentTimeMillis() < deadline) {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (len < FrameSegment.RECORD_HEADER_BYTES || pos + len > s.capacity) break;
+            if (pos >= nextIndex && pendingEntry < 0) {
+                pendingEntry = pos;
+                nextIndex = pos + indexInterval;
+            }
+            byte type = b.get(pos + 4);
+            if (type == FrameSegment.DICT_EXCHANGE || type == FrameSegment.DICT_CONNECTION) {
+                byte[] record = new byte[len];
+                b.get(pos, record);
+                dict.write(record);
+                dict.write(new byte[FrameSegment.align(len) - len]);
+            } else if (pendingEntry >= 0) {
+                entries.add(new long[]{b.getLong(pos + 10), pendingEntry, pendingEntry});
+                pendingEntry = -1;
+            }
+            pos += FrameSegment.align(len);
+        }
+        int dataEnd = Math.min(pos, end);
+        // 只有扫到 end 且途中每条记录都已写完才能确定没有写入方：停在某条未写完的记录时，
+        // 它之后到 end 之间已分配的位置可能仍在拷贝，即使这条记录恰好在此刻写完
+        boolean writersDone = !waitWriters || pos >= end;
+        long anchorEpochMs = s.anchorEpochMs();
+        long anchorNanos = s.anchorNanos();
+        s.force();
+
+        long stored;
+        boolean compressed = compression == Compression.DEFLATE;
+        try {
+            stored = compressed ? compress(s, b, dataEnd, entries) : dataEnd;
+        } finally {
+            if (writersDone) s.unmap();
+        }
+        // 仍可能有写入方时不截断，截掉的页再被写入会触发 SIGBUS
+        if (!compressed && writersDone) {
+            try (FileChannel ch = FileChannel.open(s.path, StandardOpenOption.WRITE)) {
+                ch.truncate(dataEnd);
+            }
+        }
+        writeIndex(s.path, anchorEpochMs, anchorNanos, dataEnd, compressed, dict.toByteArray(), entries);
+        if (compressed) Files.deleteIfExists(s.path);
+        return new Sealed(dataEnd, stored, entries.size());
+    }
+
+    /** 按索引条目切块压缩，回填各条目的文件偏移 */
+    private static long compress(FrameSegment s, ByteBuffer b, int dataEnd, List<long[]> entries) throws IOException {
+        Path target = FrameRecorder.sibling(s.path, FrameRecorder.COMPRESSED_SUFFIX);
+        Path tmp = FrameRecorder.sibling(s.path, FrameRecorder.COMPRESSED_SUFFIX + ".tmp");
+        int[] starts = new int[entries.size() + 1];
+        starts[0] = FrameSegment.HEADER_BYTES;
+        int n = 1;
+        for (long[] e : entries) if (e[1] > starts[n - 1]) starts[n++] = (int) e[1];
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        long fileOffset;
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            byte[] header = new byte[FrameSegment.HEADER_BYTES];
+            b.get(0, header);
+            out.write(ByteBuffer.wrap(header));
+            fileOffset = header.length;
+            byte[] buf = new byte[64 * 1024];
+            int entry = 0;
+            for (int i = 0; i < n; i++) {
+                int from = starts[i];
+                int to = i + 1 < n ? starts[i + 1] : dataEnd;
+                if (to <= from) continue;
+                while (entry < entries.size() && entries.get(entry)[1] <= from) entries.get(entry++)[2] = fileOffset;
+                byte[] raw = new byte[to - from];
+                b.get(from, raw);
+                deflater.reset();
+                deflater.setInput(raw);
+                deflater.finish();
+                ByteArrayOutputStream block = new ByteArrayOutputStream(raw.length / 4 + 16);
+                while (!deflater.finished()) block.write(buf, 0, deflater.deflate(buf));
+                ByteBuffer head = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putInt(raw.length).putInt(block.size()).flip();
+                out.write(head);
+                out.write(ByteBuffer.wrap(block.toByteArray()));
+                fileOffset += 8 + block.size();
+            }
+            out.force(true);
+        } finally {
+            deflater.end();
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return fileOffset;
+    }
+
+    private static void writeIndex(Path segment, long anchorEpochMs, long anchorNanos, int dataEnd, boolean compressed,
+                                   byte[] dict, List<long[]> entries) throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(INDEX_HEADER_BYTES + dict.length + entries.size() * INDEX_ENTRY_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(INDEX_MAGIC).putShort(INDEX_VERSION).put((byte) (compressed ? 1 : 0)).put((byte) 0)
+                .putLong(anchorEpochMs).putLong(anchorNanos).putLong(dataEnd)
+                .putInt(dict.length).putInt(entries.size())
+                .put(dict);
+        for (long[] e : entries) out.putLong(e[0]).putLong(e[1]).putLong(e[2]);
+        Path target = FrameRecorder.sibling(segment, FrameRecorder.INDEX_SUFFIX);
+        Path tmp = FrameRecorder.sibling(segment, FrameRecorder.INDEX_SUFFIX + ".tmp");
+        Files.write(tmp, Arrays.copyOf(out.array(), out.position()));
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
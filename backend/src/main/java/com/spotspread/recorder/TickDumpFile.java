@@ -0,0 +1,191 @@
+package com.spotspread.recorder;
+
+import com.spotspread.sink.Opportunity;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * {@link TickFlightRecorder} 的转储文件，一次触发一个文件，文件名即触发 ID：
+ * {symbol}-{买方交易所}-{卖方交易所}-{profitMode}-{detectedAt}.tdump，与 opportunity 日志、MySQL 快照按这几个字段对应。
+ * <pre>
+ * 文件头：int magic | short version | short 交易所数 | 交易所名*
+ *        symbol | exchangeBuy | exchangeSell | profitMode | long detectedAt | profitPct | priceBuy | priceSell
+ *        long fromMs | long toMs | int 报价条数
+ * 报价：int 相对 fromMs 的毫秒 | byte 交易所下标 | long 买一未缩放值 | byte 买一小数位 | long 卖一未缩放值 | byte 卖一小数位
+ * </pre>
+ * 字符串为 short 长度 + UTF-8，价格与利润率按 toPlainString 保存；小端序。
+ */
+public final class TickDumpFile {
+
+    static final int MAGIC = 0x44545353; // "SSTD"
+    static final short VERSION = 1;
+    static final String SUFFIX = ".tdump";
+    private static final int TICK_BYTES = 23;
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_]+(-[A-Za-z0-9_]+)*\\" + SUFFIX);
+
+    /** 一条报价；time 为写入行情缓存的时刻（epoch 毫秒） */
+    public record Tick(long time, String exchange, BigDecimal bid1, BigDecimal ask1) {}
+
+    /**
+     * 单个交易所在窗口内的概况
+     *
+     * @param ageMs 触发时刻该交易所最近一条报价的年龄，触发前没有报价时为 -1
+     * @param bid1  触发时刻生效的买一，没有时为 null
+     */
+    public record VenueSummary(String exchange, int ticks, long ageMs, BigDecimal bid1, BigDecimal ask1) {}
+
+    public record TickDump(String name, String symbol, String exchangeBuy, String exchangeSell, String profitMode,
+                           long detectedAt, BigDecimal profitPct, BigDecimal priceBuy, BigDecimal priceSell,
+                           long fromMs, long toMs, List<VenueSummary> venues, List<Tick> ticks) {}
+
+    public record DumpInfo(String name, long sizeBytes, long lastModified) {}
+
+    private TickDumpFile() {}
+
+    static String name(Opportunity o) {
+        return o.symbol() + "-" + o.exchangeBuy() + "-" + o.exchangeSell() + "-" + o.profitMode() + "-" + o.detectedAt() + SUFFIX;
+    }
+
+    /** 先写临时文件再改名，列表与读取不会看到写了一半的文件 */
+    static void write(Path file, Opportunity o, long fromMs, long toMs, List<String> exchanges, TickRing.Ticks ticks) throws IOException {
+        List<byte[]> strings = new ArrayList<>();
+        for (String e : exchanges) strings.add(utf8(e));
+        for (String s : new String[]{o.symbol(), o.exchangeBuy(), o.exchangeSell(), o.profitMode(),
+                o.profitPct().toPlainString(), o.priceBuy().toPlainString(), o.priceSell().toPlainString()}) {
+            strings.add(utf8(s));
+        }
+        int size = 8 + 8 + 8 + 8 + 4 + ticks.size * TICK_BYTES;
+        for (byte[] s : strings) size += 2 + s.length;
+        ByteBuffer buf = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(MAGIC).putShort(VERSION).putShort((short) exchanges.size());
+        int k = 0;
+        for (; k < exchanges.size() + 4; k++) putString(buf, strings.get(k));
+        buf.putLong(o.detectedAt());
+        for (; k < strings.size(); k++) putString(buf, strings.get(k));
+        buf.putLong(fromMs).putLong(toMs).putInt(ticks.size);
+        for (int i = 0; i < ticks.size; i++) {
+            buf.putInt((int) (ticks.times[i] - fromMs));
+            buf.put(ticks.exchanges[i]);
+            putPrice(buf, ticks.bids[i], ticks.bidScales[i]);
+            putPrice(buf, ticks.asks[i], ticks.askScales[i]);
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, buf.array());
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** 目录下的转储文件，新的在前 */
+    public static List<DumpInfo> list(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return List.of();
+        List<DumpInfo> list = new ArrayList<>();
+        try (Stream<Path> s = Files.list(dir)) {
+            for (Path p : s.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).toList()) {
+                list.add(new DumpInfo(p.getFileName().toString(), Files.size(p), Files.getLastModifiedTime(p).toMillis()));
+            }
+        }
+        list.sort(Comparator.comparingLong(DumpInfo::lastModified).reversed());
+        return list;
+    }
+
+    /**
+     * 读取并解码一个转储文件
+     *
+     * @param name 文件名（list 返回的 name），只允许字母、数字、下划线与连字符
+     */
+    public static TickDump read(Path dir, String name) throws IOException {
+        if (!NAME.matcher(name).matches()) throw new IllegalArgumentException("invalid dump name: " + name);
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(dir.resolve(name))).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (buf.getInt() != MAGIC) throw new IOException("not a tick dump: " + name);
+            short version = buf.getShort();
+            if (version != VERSION) throw new IOException("unsupported tick dump version " + version + ": " + name);
+            int exchangeCount = buf.getShort();
+            String[] exchanges = new String[exchangeCount];
+            for (int i = 0; i < exchangeCount; i++) exchanges[i] = getString(buf);
+            String symbol = getString(buf);
+            String exchangeBuy = getString(buf);
+            String exchangeSell = getString(buf);
+            String profitMode = getString(buf);
+            long detectedAt = buf.getLong();
+            BigDecimal profitPct = new BigDecimal(getString(buf));
+            BigDecimal priceBuy = new BigDecimal(getString(buf));
+            BigDecimal priceSell = new BigDecimal(getString(buf));
+            long fromMs = buf.getLong();
+            long toMs = buf.getLong();
+            int count = buf.getInt();
+            List<Tick> ticks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long time = fromMs + buf.getInt();
+                int exchange = buf.get() & 0xff;
+                BigDecimal bid1 = getPrice(buf);
+                BigDecimal ask1 = getPrice(buf);
+                ticks.add(new Tick(time, exchange < exchangeCount ? exchanges[exchange] : "#" + exchange, bid1, ask1));
+            }
+            return new TickDump(name, symbol, exchangeBuy, exchangeSell, profitMode, detectedAt, profitPct,
+                    priceBuy, priceSell, fromMs, toMs, summarize(ticks, detectedAt), ticks);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("truncated tick dump: " + name);
+        }
+    }
+
+    /** 按交易所汇总条数与触发时刻生效的报价；多线程写入的报价只是大致按时间有序，取时刻不晚于触发的最大者 */
+    private static List<VenueSummary> summarize(List<Tick> ticks, long detectedAt) {
+        Map<String, int[]> counts = new LinkedHashMap<>();
+        Map<String, Tick> atTrigger = new LinkedHashMap<>();
+        for (Tick t : ticks) {
+            counts.computeIfAbsent(t.exchange(), e -> new int[1])[0]++;
+            if (t.time() > detectedAt) continue;
+            Tick last = atTrigger.get(t.exchange());
+            if (last == null || t.time() >= last.time()) atTrigger.put(t.exchange(), t);
+        }
+        List<VenueSummary> list = new ArrayList<>();
+        for (Map.Entry<String, int[]> e : counts.entrySet()) {
+            Tick t = atTrigger.get(e.getKey());
+            list.add(t == null
+                    ? new VenueSummary(e.getKey(), e.getValue()[0], -1, null, null)
+                    : new VenueSummary(e.getKey(), e.getValue()[0], detectedAt - t.time(), t.bid1(), t.ask1()));
+        }
+        return list;
+    }
+
+    private static void putPrice(ByteBuffer buf, double value, byte scale) {
+        buf.putLong(BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValue());
+        buf.put(scale);
+    }
+
+    private static BigDecimal getPrice(ByteBuffer buf) {
+        long unscaled = buf.getLong();
+        return new BigDecimal(BigInteger.valueOf(unscaled), buf.get());
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putString(ByteBuffer buf, byte[] s) {
+        buf.putShort((short) s.length).put(s);
+    }
+
+    private static String getString(ByteBuffer buf) {
+        byte[] b = new byte[buf.getShort() & 0xffff];
+        buf.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
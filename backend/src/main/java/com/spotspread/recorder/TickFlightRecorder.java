@@ -0,0 +1,179 @@
+package com.spotspread.recorder;
+
+import com.spotspread.config.TickFlightRecorderConfig;
+import com.spotspread.recorder.TickDumpFile.DumpInfo;
+import com.spotspread.service.ExchangePriceService;
+import com.spotspread.service.OrderBookCacheService;
+import com.spotspread.sink.Opportunity;
+import com.spotspread.task.SpreadEngine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 行情飞行记录器：挂在线上行情缓存的报价回调上，每条写入缓存的报价追加到该币种的 {@link TickRing}（不分配对象）。
+ * 价差任务每轮评估后调用 {@link #onEvaluated}：某方向（币种、买卖交易所、模式）利润率从触发线以下升到触发线及以上时
+ * 记为一次触发，等待 post-trigger-ms 后在 "tick-flight-dump" 线程上把 [detectedAt - window, detectedAt + post]
+ * 内全部交易所的报价写成一个 {@link TickDumpFile}；该方向回落到触发线以下之前不再重复转储。
+ */
+@Service
+public class TickFlightRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(TickFlightRecorder.class);
+
+    private final TickFlightRecorderConfig config;
+    private final OrderBookCacheService cache;
+    private final Path dir;
+    /** BTCUSDT 形式的缓存币种 → 环形缓冲，启用时建好，之后只读 */
+    private final Map<String, TickRing> rings = new HashMap<>();
+    private final Map<String, Integer> exchangeIndex = new HashMap<>();
+    /** 当前处于触发线以上的方向 */
+    private final Set<String> active = ConcurrentHashMap.newKeySet();
+    private final LongAdder ignored = new LongAdder();
+    private final AtomicLong triggers = new AtomicLong();
+    private final AtomicLong dumps = new AtomicLong();
+    private final AtomicLong dumpErrors = new AtomicLong();
+    private volatile String lastDump;
+    private ScheduledExecutorService dumper;
+
+    public TickFlightRecorder(TickFlightRecorderConfig config, OrderBookCacheService cache) {
+        this.config = config;
+        this.cache = cache;
+        this.dir = Paths.get(config.getDir());
+        for (int i = 0; i < SpreadEngine.EXCHANGES.size(); i++) exchangeIndex.put(SpreadEngine.EXCHANGES.get(i), i);
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) return;
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            log.error("[TickFlightRecorder] 创建目录失败，本次不记录: {}", e.getMessage());
+            return;
+        }
+        for (String symbol : ExchangePriceService.SYMBOLS) rings.put(symbol + "USDT", new TickRing(config.getCapacityPerSymbol()));
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "tick-flight-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        cache.setQuoteListener(this::record);
+        log.info("[TickFlightRecorder] 已启用，目录 {}，每币种 {} 条，窗口 {}s + {}ms，触发利润率 {}%",
+                dir.toAbsolutePath(), rings.values().iterator().next().capacity, config.getWindowSeconds(),
+                config.getPostTriggerMs(), config.getTriggerProfitPct());
+    }
+
+    /** 已排队的转储（延迟任务）在关闭时照常执行 */
+    @PreDestroy
+    public void stop() {
+        if (dumper == null) return;
+        cache.setQuoteListener(null);
+        dumper.shutdown();
+        try {
+            dumper.awaitTermination(config.getPostTriggerMs() + 10_000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** 收包线程上调用 */
+    void record(String exchange, String symbol, BigDecimal bid1, BigDecimal ask1, long updatedAt) {
+        TickRing ring = rings.get(symbol);
+        Integer index = exchangeIndex.get(exchange);
+        if (ring == null || index == null) {
+            ignored.increment();
+            return;
+        }
+        ring.record(updatedAt, index, bid1, ask1);
+    }
+
+    /** 价差任务线程上调用，传入本轮全部方向的评估结果 */
+    public void onEvaluated(List<Opportunity> opportunities) {
+        if (dumper == null) return;
+        BigDecimal trigger = config.getTriggerProfitPct();
+        Set<String> seen = new HashSet<>();
+        for (Opportunity o : opportunities) {
+            String key = o.symbol() + "|" + o.exchangeBuy() + "|" + o.exchangeSell() + "|" + o.profitMode();
+            if (o.profitPct() == null || o.profitPct().compareTo(trigger) < 0) continue;
+            seen.add(key);
+            if (active.add(key)) {
+                triggers.incrementAndGet();
+                dumper.schedule(() -> dump(o), Math.max(0, config.getPostTriggerMs()), TimeUnit.MILLISECONDS);
+            }
+        }
+        // 本轮低于触发线或因行情过期未参与评估的方向，下次越线重新触发
+        active.retainAll(seen);
+    }
+
+    private void dump(Opportunity o) {
+        TickRing ring = rings.get(o.symbol() + "USDT");
+        if (ring == null) return;
+        long fromMs = o.detectedAt() - config.getWindowSeconds() * 1000L;
+        long toMs = o.detectedAt() + config.getPostTriggerMs();
+        String name = TickDumpFile.name(o);
+        try {
+            TickRing.Ticks ticks = ring.copy(fromMs, toMs);
+            TickDumpFile.write(dir.resolve(name), o, fromMs, toMs, SpreadEngine.EXCHANGES, ticks);
+            dumps.incrementAndGet();
+            lastDump = name;
+            if (ticks.size > 0 && ticks.times[0] > fromMs + 1000 && ring.written() > ring.capacity) {
+                log.warn("[TickFlightRecorder] {} 窗口前段已被覆盖，最早一条晚于窗口起点 {}ms，可调大 capacity-per-symbol",
+                        name, ticks.times[0] - fromMs);
+            }
+            log.info("[TickFlightRecorder] 已转储 {}，{} 条报价", name, ticks.size);
+            prune();
+        } catch (IOException | RuntimeException e) {
+            dumpErrors.incrementAndGet();
+            log.warn("[TickFlightRecorder] 转储失败 {}: {}", name, e.getMessage());
+        }
+    }
+
+    private void prune() throws IOException {
+        List<DumpInfo> files = TickDumpFile.list(dir);
+        for (int i = Math.max(config.getMaxFiles(), 1); i < files.size(); i++) {
+            Files.deleteIfExists(dir.resolve(files.get(i).name()));
+        }
+    }
+
+    public FlightRecorderStats stats() {
+        Map<String, Long> recorded = new TreeMap<>();
+        for (Map.Entry<String, TickRing> e : rings.entrySet()) recorded.put(e.getKey(), e.getValue().written());
+        return new FlightRecorderStats(config.isEnabled() && dumper != null, dir.toAbsolutePath().toString(),
+                config.getTriggerProfitPct(), recorded, ignored.sum(), triggers.get(), dumps.get(), dumpErrors.get(),
+                active.size(), lastDump);
+    }
+
+    /**
+     * @param recorded 各币种累计写入环形缓冲的报价数
+     * @param ignored  不在币种或交易所列表内而未记录的报价数
+     * @param active   当前处于触发线以上（已转储、等待回落）的方向数
+     */
+    public record FlightRecorderStats(boolean enabled, String dir, BigDecimal triggerProfitPct, Map<String, Long> recorded,
+                                      long ignored, long triggers, long dumps, long dumpErrors, int active,
+                                      String lastDump) {}
+}
@@ -0,0 +1,114 @@
+package com.spotspread.recorder;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个币种的报价环形缓冲，多个收包线程并发写入，写入路径不分配对象。
+ * 每个槽位按列存放：写入时刻、交易所下标、买一/卖一的 double 值与小数位数（转储时据此还原成原始 BigDecimal）。
+ * 写入位置由 next 原子递增分配；槽位序号先清零、写完字段后以 release 写入 序号+1，
+ * 读取时前后两次读到同一序号才算有效（seqlock），被覆盖或正在写的槽位跳过。
+ */
+final class TickRing {
+
+    private static final VarHandle SEQ = MethodHandles.arrayElementVarHandle(long[].class);
+
+    final int capacity;
+    private final int mask;
+    private final long[] seqs;
+    private final long[] times;
+    private final byte[] exchanges;
+    private final double[] bids;
+    private final double[] asks;
+    private final byte[] bidScales;
+    private final byte[] askScales;
+    private final AtomicLong next = new AtomicLong();
+
+    /** @param capacity 向上取 2 的幂 */
+    TickRing(int capacity) {
+        this.capacity = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.seqs = new long[this.capacity];
+        this.times = new long[this.capacity];
+        this.exchanges = new byte[this.capacity];
+        this.bids = new double[this.capacity];
+        this.asks = new double[this.capacity];
+        this.bidScales = new byte[this.capacity];
+        this.askScales = new byte[this.capacity];
+    }
+
+    /** 小数位数不超过 15 位有效数字的价格经 double 往返不失真；BigDecimal.doubleValue 对此类值走无分配的快路径 */
+    void record(long time, int exchange, BigDecimal bid1, BigDecimal ask1) {
+        long seq = next.getAndIncrement();
+        int i = (int) seq & mask;
+        SEQ.setOpaque(seqs, i, 0L);
+        VarHandle.storeStoreFence();
+        times[i] = time;
+        exchanges[i] = (byte) exchange;
+        bids[i] = bid1.doubleValue();
+        asks[i] = ask1.doubleValue();
+        bidScales[i] = (byte) bid1.scale();
+        askScales[i] = (byte) ask1.scale();
+        SEQ.setRelease(seqs, i, seq + 1);
+    }
+
+    /** 累计写入条数 */
+    long written() {
+        return next.get();
+    }
+
+    /** 复制时刻落在 [fromMs, toMs] 内的报价，按写入顺序 */
+    Ticks copy(long fromMs, long toMs) {
+        long head = next.get();
+        long start = Math.max(0, head - capacity);
+        Ticks out = new Ticks((int) (head - start));
+        for (long seq = start; seq < head; seq++) {
+            int i = (int) seq & mask;
+            long before = (long) SEQ.getAcquire(seqs, i);
+            if (before != seq + 1) continue;
+            long time = times[i];
+            byte exchange = exchanges[i];
+            double bid = bids[i];
+            double ask = asks[i];
+            byte bidScale = bidScales[i];
+            byte askScale = askScales[i];
+            VarHandle.loadLoadFence();
+            if ((long) SEQ.getOpaque(seqs, i) != before) continue;
+            if (time < fromMs || time > toMs) continue;
+            out.add(time, exchange, bid, bidScale, ask, askScale);
+        }
+        return out;
+    }
+
+    /** copy 的结果，按列存放 */
+    static final class Ticks {
+        int size;
+        final long[] times;
+        final byte[] exchanges;
+        final double[] bids;
+        final double[] asks;
+        final byte[] bidScales;
+        final byte[] askScales;
+
+        Ticks(int capacity) {
+            times = new long[capacity];
+            exchanges = new byte[capacity];
+            bids = new double[capacity];
+            asks = new double[capacity];
+            bidScales = new byte[capacity];
+            askScales = new byte[capacity];
+        }
+
+        void add(long time, byte exchange, double bid, byte bidScale, double ask, byte askScale) {
+            times[size] = time;
+            exchanges[size] = exchange;
+            bids[size] = bid;
+            asks[size] = ask;
+            bidScales[size] = bidScale;
+            askScales[size] = askScale;
+            size++;
+        }
+    }
+}
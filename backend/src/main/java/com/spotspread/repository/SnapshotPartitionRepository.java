@@ -0,0 +1,102 @@
+package com.spotspread.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * spread_arbitrage_snapshots 按天 RANGE COLUMNS 分区的维护。
+ * 分区名为 pYYYYMMDD，存放该日 [00:00, 次日 00:00) 的数据；pmax 兜底。
+ * 首次拆分时在最早的日分区之前加 p_hist，承接迁移前的历史数据，不让它们全部落进第一个日分区。
+ * 分区名均由本类生成（不接受外部输入），DDL 中直接拼接。
+ */
+@Repository
+public class SnapshotPartitionRepository {
+
+    public static final String TABLE = "spread_arbitrage_snapshots";
+    public static final String MAX_PARTITION = "pmax";
+    public static final String HISTORY_PARTITION = "p_hist";
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SnapshotPartitionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public static String partitionName(LocalDate day) {
+        return day.format(NAME_FORMAT);
+    }
+
+    /** 非日分区（如 pmax）返回 null */
+    public static LocalDate partitionDay(String name) {
+        try {
+            return LocalDate.parse(name, NAME_FORMAT);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    public boolean isPartitioned() {
+        Integer n = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.PARTITIONS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL",
+                Integer.class, TABLE);
+        return n != null && n > 0;
+    }
+
+    /** 按分区顺序返回分区名 */
+    public List<String> listPartitions() {
+        return jdbcTemplate.queryForList(
+                "SELECT PARTITION_NAME FROM information_schema.PARTITIONS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL ORDER BY PARTITION_ORDINAL_POSITION",
+                String.class, TABLE);
+    }
+
+    /**
+     * 从 pmax 中拆出若干日分区，days 需连续递增且紧接已有日分区。
+     *
+     * @param withHistory 首次拆分（尚无日分区）时为 true：先拆出 p_hist 容纳 days 第一天之前的全部数据
+     */
+    public void addDailyPartitions(List<LocalDate> days, boolean withHistory) {
+        if (days.isEmpty()) return;
+        StringBuilder sql = new StringBuilder("ALTER TABLE ").append(TABLE)
+                .append(" REORGANIZE PARTITION ").append(MAX_PARTITION).append(" INTO (");
+        if (withHistory) {
+            sql.append("PARTITION ").append(HISTORY_PARTITION)
+                    .append(" VALUES LESS THAN ('").append(days.get(0)).append(" 00:00:00'), ");
+        }
+        for (LocalDate day : days) {
+            sql.append("PARTITION ").append(partitionName(day))
+                    .append(" VALUES LESS THAN ('").append(day.plusDays(1)).append(" 00:00:00'), ");
+        }
+        sql.append("PARTITION ").append(MAX_PARTITION).append(" VALUES LESS THAN (MAXVALUE))");
+        jdbcTemplate.execute(sql.toString());
+    }
+
+    public long countRows(String partition) {
+        Long n = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + TABLE + " PARTITION (" + partition + ")", Long.class);
+        return n != null ? n : 0;
+    }
+
+    /**
+     * 以流式游标逐行读取分区（MySQL Connector/J 需 fetchSize=Integer.MIN_VALUE），不会把整个分区读入内存。
+     */
+    public void streamPartition(String partition, RowCallbackHandler handler) {
+        String sql = "SELECT id, symbol, exchange_buy, exchange_sell, spot_price_buy, spot_price_sell, spot_spread, profit_margin_pct, spot_fee_buy_pct, spot_fee_sell_pct, profit_mode, snapshot_time FROM "
+                + TABLE + " PARTITION (" + partition + ")";
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            return ps;
+        }, handler);
+    }
+
+    public void dropPartition(String partition) {
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP PARTITION " + partition);
+    }
+}
@@ -1,34 +1,86 @@
 package com.spotspread.repository;
 
+import com.spotspread.config.SnapshotStorageConfig;
+import com.spotspread.repository.SpreadRollupRepository.RollupTier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
+import jakarta.annotation.PostConstruct;
 import java.math.BigDecimal;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Repository
 public class SpreadArbitrageStatsRepository {
 
+    private static final Logger log = LoggerFactory.getLogger(SpreadArbitrageStatsRepository.class);
+
     private final JdbcTemplate jdbcTemplate;
+    private final SpreadRollupRepository rollupRepository;
+    private final SnapshotStorageConfig storageConfig;
+
+    /** 不限起止时间时使用的边界，均按小时对齐 */
+    private static final LocalDateTime UNBOUNDED_FROM = LocalDateTime.of(2000, 1, 1, 0, 0);
+    private static final LocalDateTime UNBOUNDED_TO = LocalDateTime.of(9999, 1, 1, 0, 0);
 
-    private static final RowMapper<SpreadPairStatRow> PAIR_ROW_MAPPER = (rs, i) -> new SpreadPairStatRow(
-            rs.getString(1), rs.getString(2), rs.getString(3), rs.getInt(4), rs.getBigDecimal(5),
-            rs.getBigDecimal(6), rs.getBigDecimal(7)
+    static final RowMapper<PairAggregateRow> AGGREGATE_ROW_MAPPER = (rs, i) -> new PairAggregateRow(
+            rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getLong(5), rs.getBigDecimal(6),
+            rs.getBigDecimal(7), rs.getLong(8), rs.getBigDecimal(9), rs.getLong(10)
     );
 
-    public SpreadArbitrageStatsRepository(JdbcTemplate jdbcTemplate) {
+    public SpreadArbitrageStatsRepository(JdbcTemplate jdbcTemplate, SpreadRollupRepository rollupRepository,
+                                          SnapshotStorageConfig storageConfig) {
         this.jdbcTemplate = jdbcTemplate;
+        this.rollupRepository = rollupRepository;
+        this.storageConfig = storageConfig;
+    }
+
+    /**
+     * 旧表缺少 profit_mode 列时补齐（MySQL 8 ADD COLUMN 带默认值为即时操作）；
+     * 汇总表同时把 profit_mode 加入主键，否则不同模式的同一组合会互相覆盖。
+     */
+    @PostConstruct
+    public void ensureSchema() {
+        addProfitMode("spread_arbitrage_snapshots", "ADD COLUMN profit_mode VARCHAR(16) NOT NULL DEFAULT '' AFTER spot_fee_sell_pct");
+        for (String table : List.of("spread_pair_rollup_1m", "spread_pair_rollup_1h")) {
+            addProfitMode(table, "ADD COLUMN profit_mode VARCHAR(16) NOT NULL DEFAULT '' AFTER exchange_sell, "
+                    + "DROP PRIMARY KEY, ADD PRIMARY KEY (bucket_start, symbol, exchange_buy, exchange_sell, profit_mode)");
+        }
+    }
+
+    private void addProfitMode(String table, String alter) {
+        try {
+            Integer exists = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?",
+                    Integer.class, table);
+            if (exists == null || exists == 0) return;
+            Integer n = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = 'profit_mode'",
+                    Integer.class, table);
+            if (n != null && n == 0) {
+                jdbcTemplate.execute("ALTER TABLE " + table + " " + alter);
+                log.info("[SpreadArbitrageStats] 已为 {} 补充 profit_mode 列", table);
+            }
+        } catch (Exception e) {
+            log.warn("[SpreadArbitrageStats] 检查 {} 表结构失败: {}", table, e.getMessage());
+        }
     }
 
     public void saveSnapshots(List<SnapshotRow> rows) {
         if (rows.isEmpty()) return;
         LocalDateTime now = LocalDateTime.now();
-        String sql = "INSERT INTO spread_arbitrage_snapshots (symbol, exchange_buy, exchange_sell, spot_price_buy, spot_price_sell, spot_spread, profit_margin_pct, spot_fee_buy_pct, spot_fee_sell_pct, snapshot_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        String sql = "INSERT INTO spread_arbitrage_snapshots (symbol, exchange_buy, exchange_sell, spot_price_buy, spot_price_sell, spot_spread, profit_margin_pct, spot_fee_buy_pct, spot_fee_sell_pct, profit_mode, snapshot_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
         jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
             @Override
             public void setValues(PreparedStatement ps, int i) throws SQLException {
@@ -42,7 +94,8 @@ public class SpreadArbitrageStatsRepository {
                 ps.setBigDecimal(7, row.profitMarginPct());
                 ps.setBigDecimal(8, row.spotFeeBuyPct());
                 ps.setBigDecimal(9, row.spotFeeSellPct());
-                ps.setObject(10, now);
+                ps.setString(10, row.profitMode() != null ? row.profitMode() : "");
+                ps.setObject(11, now);
             }
             @Override
             public int getBatchSize() { return rows.size(); }
@@ -50,13 +103,133 @@ public class SpreadArbitrageStatsRepository {
     }
 
     /**
-     * 全局聚合，按平均利润率降序、次数降序。
+     * [from, to) 内按组合与模式累加（SUM/COUNT），from/to 为 null 表示不限，filter 下推为 WHERE 条件。
+     * 按窗口自动选层：整小时部分读 1h 汇总，整分钟部分读 1m 汇总，其余及尚未汇总的部分读原始快照。
+     * 先读水位再按水位截断各层查询，汇总任务并发推进水位时也不会重复或遗漏。
+     * <p>
+     * 边缘落在某层保留期之前时（1m 汇总超过 minuteRollupRetentionDays、原始分区超过 rawRetentionDays 后被清理），
+     * 该边缘改用仍保留的最细一层，按所在的整桶计入：起点向下、终点向上取整到小时或分钟，
+     * 因此这类窗口最多向外多计入一个桶，而不是少计已清理的部分。
      */
-    public List<SpreadPairStatRow> findAllPairStatsOrdered() {
-        String sql = "SELECT symbol, exchange_buy, exchange_sell, COUNT(*) AS spread_count, AVG(profit_margin_pct) AS avg_profit_margin_pct, AVG(spot_fee_buy_pct) AS spot_fee_buy_pct, AVG(spot_fee_sell_pct) AS spot_fee_sell_pct FROM spread_arbitrage_snapshots GROUP BY symbol, exchange_buy, exchange_sell ORDER BY avg_profit_margin_pct DESC, spread_count DESC";
-        return jdbcTemplate.query(sql, PAIR_ROW_MAPPER);
+    public List<PairAggregateRow> findPairAggregates(LocalDateTime from, LocalDateTime to, PairFilter filter) {
+        LocalDateTime start = from != null ? from : UNBOUNDED_FROM;
+        LocalDateTime end = to != null ? to : UNBOUNDED_TO;
+        if (!start.isBefore(end)) return List.of();
+        LocalDateTime minuteMark = rollupRepository.getWatermark(RollupTier.MINUTE);
+        LocalDateTime hourMark = rollupRepository.getWatermark(RollupTier.HOUR);
+        // 与 SnapshotMaintenanceTask 的清理条件一致：1m 汇总只清理已被 1h 覆盖的部分，原始分区只删除两层都已覆盖的部分
+        LocalDateTime minuteKept = retainedFrom(storageConfig.getMinuteRollupRetentionDays(), hourMark);
+        LocalDateTime rawKept = retainedFrom(storageConfig.getRawRetentionDays(),
+                minuteMark != null && hourMark != null ? min(minuteMark, hourMark) : null);
+        List<PairAggregateRow> out = new ArrayList<>();
+        LocalDateTime hStart = start.isBefore(minuteKept) ? start.truncatedTo(ChronoUnit.HOURS) : ceil(start, ChronoUnit.HOURS);
+        LocalDateTime hEnd = hourMark != null
+                ? min(end.isBefore(minuteKept) ? ceil(end, ChronoUnit.HOURS) : end.truncatedTo(ChronoUnit.HOURS), hourMark)
+                : hStart;
+        if (hStart.isBefore(hEnd)) {
+            out.addAll(rollupRepository.aggregate(RollupTier.HOUR, hStart, hEnd, filter));
+            collectMinuteAndRaw(start, hStart, minuteMark, rawKept, filter, out);
+            collectMinuteAndRaw(hEnd, end, minuteMark, rawKept, filter, out);
+        } else {
+            collectMinuteAndRaw(start, end, minuteMark, rawKept, filter, out);
+        }
+        return out;
+    }
+
+    private void collectMinuteAndRaw(LocalDateTime from, LocalDateTime to, LocalDateTime minuteMark, LocalDateTime rawKept,
+                                     PairFilter filter, List<PairAggregateRow> out) {
+        if (!from.isBefore(to)) return;
+        LocalDateTime mStart = from.isBefore(rawKept) ? from.truncatedTo(ChronoUnit.MINUTES) : ceil(from, ChronoUnit.MINUTES);
+        LocalDateTime mEnd = minuteMark != null
+                ? min(to.isBefore(rawKept) ? ceil(to, ChronoUnit.MINUTES) : to.truncatedTo(ChronoUnit.MINUTES), minuteMark)
+                : mStart;
+        if (mStart.isBefore(mEnd)) {
+            out.addAll(rollupRepository.aggregate(RollupTier.MINUTE, mStart, mEnd, filter));
+            collectRaw(from, mStart, filter, out);
+            collectRaw(mEnd, to, filter, out);
+        } else {
+            collectRaw(from, to, filter, out);
+        }
+    }
+
+    /**
+     * 某层数据最早仍保留的时刻：保留天数之前的整天起点，且不晚于上一层汇总已覆盖到的位置；
+     * 上一层尚无水位时清理任务不会删除该层，视为全部保留。
+     */
+    private static LocalDateTime retainedFrom(int retentionDays, LocalDateTime coveredUntil) {
+        if (coveredUntil == null) return UNBOUNDED_FROM;
+        return min(LocalDate.now().minusDays(retentionDays).atStartOfDay(), coveredUntil);
+    }
+
+    private void collectRaw(LocalDateTime from, LocalDateTime to, PairFilter filter, List<PairAggregateRow> out) {
+        if (!from.isBefore(to)) return;
+        List<Object> args = new ArrayList<>(List.of(from, to));
+        String sql = "SELECT symbol, exchange_buy, exchange_sell, profit_mode, COUNT(*), SUM(profit_margin_pct), SUM(spot_fee_buy_pct), COUNT(spot_fee_buy_pct), SUM(spot_fee_sell_pct), COUNT(spot_fee_sell_pct) FROM spread_arbitrage_snapshots WHERE snapshot_time >= ? AND snapshot_time < ?"
+                + filter.toSql(args) + " GROUP BY symbol, exchange_buy, exchange_sell, profit_mode";
+        out.addAll(jdbcTemplate.query(sql, AGGREGATE_ROW_MAPPER, args.toArray()));
+    }
+
+    /**
+     * 以流式游标逐行读取 [from, to) 的原始快照（按时间升序），用于导出，不会把结果集读入内存。
+     */
+    public void streamSnapshots(LocalDateTime from, LocalDateTime to, PairFilter filter, Consumer<StoredSnapshotRow> consumer) {
+        List<Object> args = new ArrayList<>(List.of(from, to));
+        String sql = "SELECT id, symbol, exchange_buy, exchange_sell, spot_price_buy, spot_price_sell, spot_spread, profit_margin_pct, spot_fee_buy_pct, spot_fee_sell_pct, profit_mode, snapshot_time FROM spread_arbitrage_snapshots WHERE snapshot_time >= ? AND snapshot_time < ?"
+                + filter.toSql(args) + " ORDER BY snapshot_time";
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            for (int i = 0; i < args.size(); i++) ps.setObject(i + 1, args.get(i));
+            return ps;
+        }, rs -> {
+            consumer.accept(new StoredSnapshotRow(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                    rs.getBigDecimal(5), rs.getBigDecimal(6), rs.getBigDecimal(7), rs.getBigDecimal(8),
+                    rs.getBigDecimal(9), rs.getBigDecimal(10), rs.getString(11), rs.getTimestamp(12).toLocalDateTime()));
+        });
+    }
+
+    private static LocalDateTime ceil(LocalDateTime t, ChronoUnit unit) {
+        LocalDateTime floor = t.truncatedTo(unit);
+        return floor.equals(t) ? t : floor.plus(1, unit);
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    /**
+     * 统计/导出过滤条件，字段为 null 表示不过滤；venue 匹配买入或卖出任一侧。
+     */
+    public record PairFilter(String symbol, String venue, String profitMode) {
+        public static final PairFilter NONE = new PairFilter(null, null, null);
+
+        public boolean matches(String symbol, String exchangeBuy, String exchangeSell, String profitMode) {
+            return (this.symbol == null || this.symbol.equals(symbol))
+                    && (venue == null || venue.equals(exchangeBuy) || venue.equals(exchangeSell))
+                    && (this.profitMode == null || this.profitMode.equals(profitMode));
+        }
+
+        String toSql(List<Object> args) {
+            StringBuilder sb = new StringBuilder();
+            if (symbol != null) {
+                sb.append(" AND symbol = ?");
+                args.add(symbol);
+            }
+            if (venue != null) {
+                sb.append(" AND (exchange_buy = ? OR exchange_sell = ?)");
+                args.add(venue);
+                args.add(venue);
+            }
+            if (profitMode != null) {
+                sb.append(" AND profit_mode = ?");
+                args.add(profitMode);
+            }
+            return sb.toString();
+        }
     }
 
-    public record SnapshotRow(String symbol, String exchangeBuy, String exchangeSell, BigDecimal spotPriceBuy, BigDecimal spotPriceSell, BigDecimal spotSpread, BigDecimal profitMarginPct, BigDecimal spotFeeBuyPct, BigDecimal spotFeeSellPct) {}
+    public record SnapshotRow(String symbol, String exchangeBuy, String exchangeSell, BigDecimal spotPriceBuy, BigDecimal spotPriceSell, BigDecimal spotSpread, BigDecimal profitMarginPct, BigDecimal spotFeeBuyPct, BigDecimal spotFeeSellPct, String profitMode) {}
+    public record StoredSnapshotRow(long id, String symbol, String exchangeBuy, String exchangeSell, BigDecimal spotPriceBuy, BigDecimal spotPriceSell, BigDecimal spotSpread, BigDecimal profitMarginPct, BigDecimal spotFeeBuyPct, BigDecimal spotFeeSellPct, String profitMode, LocalDateTime snapshotTime) {}
     public record SpreadPairStatRow(String symbol, String exchangeBuy, String exchangeSell, int spreadCount, BigDecimal avgProfitMarginPct, BigDecimal spotFeeBuyPct, BigDecimal spotFeeSellPct) {}
+    public record PairAggregateRow(String symbol, String exchangeBuy, String exchangeSell, String profitMode, long spreadCount, BigDecimal profitSum, BigDecimal feeBuySum, long feeBuyCount, BigDecimal feeSellSum, long feeSellCount) {}
 }
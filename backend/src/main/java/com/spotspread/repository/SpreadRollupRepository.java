@@ -0,0 +1,111 @@
+package com.spotspread.repository;
+
+import com.spotspread.repository.SpreadArbitrageStatsRepository.PairAggregateRow;
+import com.spotspread.repository.SpreadArbitrageStatsRepository.PairFilter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 组合汇总表（1 分钟 / 1 小时）读写及滚动水位。
+ * 汇总按整桶重算并 ON DUPLICATE KEY UPDATE，重复执行结果不变。
+ */
+@Repository
+public class SpreadRollupRepository {
+
+    /** 汇总层级 */
+    public enum RollupTier {
+        MINUTE("1m", "spread_pair_rollup_1m"),
+        HOUR("1h", "spread_pair_rollup_1h");
+
+        private final String id;
+        private final String table;
+
+        RollupTier(String id, String table) {
+            this.id = id;
+            this.table = table;
+        }
+
+        public String id() { return id; }
+        public String table() { return table; }
+    }
+
+    private static final String UPSERT_SUFFIX = " ON DUPLICATE KEY UPDATE spread_count = VALUES(spread_count), profit_sum = VALUES(profit_sum), profit_min = VALUES(profit_min), profit_max = VALUES(profit_max), fee_buy_sum = VALUES(fee_buy_sum), fee_buy_count = VALUES(fee_buy_count), fee_sell_sum = VALUES(fee_sell_sum), fee_sell_count = VALUES(fee_sell_count)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SpreadRollupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** 该层已汇总到的时间点（不含），从未汇总返回 null */
+    public LocalDateTime getWatermark(RollupTier tier) {
+        List<Timestamp> list = jdbcTemplate.queryForList(
+                "SELECT rolled_until FROM spread_rollup_watermark WHERE tier = ?", Timestamp.class, tier.id());
+        return list.isEmpty() || list.get(0) == null ? null : list.get(0).toLocalDateTime();
+    }
+
+    /** 原始快照最早时间，空表返回 null */
+    public LocalDateTime findEarliestRawTime() {
+        Timestamp ts = jdbcTemplate.queryForObject("SELECT MIN(snapshot_time) FROM spread_arbitrage_snapshots", Timestamp.class);
+        return ts != null ? ts.toLocalDateTime() : null;
+    }
+
+    /** 1 分钟汇总最早的桶，空表返回 null */
+    public LocalDateTime findEarliestMinuteBucket() {
+        Timestamp ts = jdbcTemplate.queryForObject("SELECT MIN(bucket_start) FROM spread_pair_rollup_1m", Timestamp.class);
+        return ts != null ? ts.toLocalDateTime() : null;
+    }
+
+    /**
+     * 将 [from, to) 的原始快照按分钟汇总并推进 1m 水位，from/to 需按分钟对齐。
+     */
+    @Transactional
+    public int rollupMinutes(LocalDateTime from, LocalDateTime to) {
+        String sql = "INSERT INTO spread_pair_rollup_1m (bucket_start, symbol, exchange_buy, exchange_sell, profit_mode, spread_count, profit_sum, profit_min, profit_max, fee_buy_sum, fee_buy_count, fee_sell_sum, fee_sell_count) "
+                + "SELECT DATE_FORMAT(snapshot_time, '%Y-%m-%d %H:%i:00') AS minute_start, symbol, exchange_buy, exchange_sell, profit_mode, COUNT(*), SUM(profit_margin_pct), MIN(profit_margin_pct), MAX(profit_margin_pct), SUM(spot_fee_buy_pct), COUNT(spot_fee_buy_pct), SUM(spot_fee_sell_pct), COUNT(spot_fee_sell_pct) "
+                + "FROM spread_arbitrage_snapshots WHERE snapshot_time >= ? AND snapshot_time < ? "
+                + "GROUP BY minute_start, symbol, exchange_buy, exchange_sell, profit_mode" + UPSERT_SUFFIX;
+        int n = jdbcTemplate.update(sql, from, to);
+        setWatermark(RollupTier.MINUTE, to);
+        return n;
+    }
+
+    /**
+     * 将 [from, to) 的 1 分钟汇总按小时再汇总并推进 1h 水位，from/to 需按小时对齐。
+     */
+    @Transactional
+    public int rollupHours(LocalDateTime from, LocalDateTime to) {
+        String sql = "INSERT INTO spread_pair_rollup_1h (bucket_start, symbol, exchange_buy, exchange_sell, profit_mode, spread_count, profit_sum, profit_min, profit_max, fee_buy_sum, fee_buy_count, fee_sell_sum, fee_sell_count) "
+                + "SELECT DATE_FORMAT(bucket_start, '%Y-%m-%d %H:00:00') AS hour_start, symbol, exchange_buy, exchange_sell, profit_mode, SUM(spread_count), SUM(profit_sum), MIN(profit_min), MAX(profit_max), SUM(fee_buy_sum), SUM(fee_buy_count), SUM(fee_sell_sum), SUM(fee_sell_count) "
+                + "FROM spread_pair_rollup_1m WHERE bucket_start >= ? AND bucket_start < ? "
+                + "GROUP BY hour_start, symbol, exchange_buy, exchange_sell, profit_mode" + UPSERT_SUFFIX;
+        int n = jdbcTemplate.update(sql, from, to);
+        setWatermark(RollupTier.HOUR, to);
+        return n;
+    }
+
+    /** 分批删除过期的 1 分钟汇总，返回本批删除行数 */
+    public int deleteMinuteRollupsBefore(LocalDateTime before, int limit) {
+        return jdbcTemplate.update("DELETE FROM spread_pair_rollup_1m WHERE bucket_start < ? LIMIT ?", before, limit);
+    }
+
+    /** 汇总层 [from, to) 内按组合与模式累加 */
+    public List<PairAggregateRow> aggregate(RollupTier tier, LocalDateTime from, LocalDateTime to, PairFilter filter) {
+        List<Object> args = new ArrayList<>(List.of(from, to));
+        String sql = "SELECT symbol, exchange_buy, exchange_sell, profit_mode, SUM(spread_count), SUM(profit_sum), SUM(fee_buy_sum), SUM(fee_buy_count), SUM(fee_sell_sum), SUM(fee_sell_count) FROM "
+                + tier.table() + " WHERE bucket_start >= ? AND bucket_start < ?" + filter.toSql(args)
+                + " GROUP BY symbol, exchange_buy, exchange_sell, profit_mode";
+        return jdbcTemplate.query(sql, SpreadArbitrageStatsRepository.AGGREGATE_ROW_MAPPER, args.toArray());
+    }
+
+    private void setWatermark(RollupTier tier, LocalDateTime until) {
+        jdbcTemplate.update("INSERT INTO spread_rollup_watermark (tier, rolled_until) VALUES (?, ?) ON DUPLICATE KEY UPDATE rolled_until = VALUES(rolled_until)",
+                tier.id(), until);
+    }
+}
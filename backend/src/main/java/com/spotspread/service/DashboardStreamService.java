@@ -0,0 +1,311 @@
+package com.spotspread.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.spotspread.config.DashboardStreamConfig;
+import com.spotspread.repository.SpreadArbitrageStatsRepository.PairFilter;
+import com.spotspread.repository.SpreadArbitrageStatsRepository.SpreadPairStatRow;
+import com.spotspread.service.ExchangePriceService.ExchangePriceDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 看板 SSE 推送：每帧只计算一次各币种的价格与组合统计，与上一帧比较后只推送变化的字段，
+ * 每个币种的增量只序列化一次再分发给订阅了该币种的客户端。
+ * 每个客户端有独立的有界发送队列，由一个虚拟线程负责写出（慢客户端只阻塞自己的虚拟线程，不占平台线程），
+ * 队列满即断开（客户端 EventSource 会自动重连并收到全量）。
+ */
+@Service
+public class DashboardStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardStreamService.class);
+    private static final Frame HEARTBEAT = new Frame(null, null);
+
+    private final ExchangePriceService priceService;
+    private final PairStatsService pairStatsService;
+    private final ObjectMapper objectMapper;
+    private final DashboardStreamConfig config;
+
+    private final Set<StreamClient> clients = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("dashboard-stream-send-", 1).factory());
+    private ScheduledExecutorService scheduler;
+
+    /** 以下状态只在持有 lock 时访问：上一帧的数据与对应的全量 JSON（新客户端的首帧） */
+    private final Object lock = new Object();
+    private final Map<String, Map<String, ExchangePriceDto>> lastPrices = new HashMap<>();
+    private final Map<String, String> fullPrices = new HashMap<>();
+    private final Map<String, Map<String, SpreadPairStatRow>> lastStats = new HashMap<>();
+    private final Map<String, String> fullStats = new HashMap<>();
+    private long lastStatsAt;
+    private long lastHeartbeatAt;
+
+    public DashboardStreamService(ExchangePriceService priceService, PairStatsService pairStatsService,
+                                  ObjectMapper objectMapper, DashboardStreamConfig config) {
+        this.priceService = priceService;
+        this.pairStatsService = pairStatsService;
+        this.objectMapper = objectMapper;
+        this.config = config;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "dashboard-stream");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(20, config.getFrameIntervalMs());
+        scheduler.scheduleAtFixedRate(this::tick, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        for (StreamClient client : clients) client.close();
+        senders.shutdownNow();
+    }
+
+    public boolean isFull() {
+        return clients.size() >= config.getMaxClients();
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    /**
+     * @param symbols 订阅的币种（不带 USDT），为空表示全部
+     */
+    public SseEmitter subscribe(Set<String> symbols) {
+        SseEmitter emitter = new SseEmitter(0L);
+        StreamClient client = new StreamClient(emitter, symbols, queueCapacity(symbols));
+        emitter.onCompletion(() -> remove(client));
+        emitter.onTimeout(() -> remove(client));
+        emitter.onError(e -> remove(client));
+        synchronized (lock) {
+            for (String symbol : ExchangePriceService.SYMBOLS) {
+                if (!client.wants(symbol)) continue;
+                String prices = fullPrices.get(symbol);
+                if (prices != null) client.offer(new Frame("prices", prices));
+                String stats = fullStats.get(symbol);
+                if (stats != null) client.offer(new Frame("stats", stats));
+            }
+            clients.add(client);
+        }
+        senders.execute(client::drain);
+        return emitter;
+    }
+
+    /**
+     * 订阅时每个币种先入队价格、统计两帧全量，容量至少容得下这些首帧，再留一轮推送（同样每币种两帧）与一次心跳，
+     * 否则 client-queue-frames 较小时新客户端一连上就丢首帧或被断开
+     */
+    private int queueCapacity(Set<String> symbols) {
+        int wanted = 0;
+        for (String symbol : ExchangePriceService.SYMBOLS) {
+            if (symbols.isEmpty() || symbols.contains(symbol)) wanted++;
+        }
+        return Math.max(config.getClientQueueFrames(), 4 * wanted + 1);
+    }
+
+    private void remove(StreamClient client) {
+        clients.remove(client);
+        client.close();
+    }
+
+    private void tick() {
+        try {
+            synchronized (lock) {
+                if (clients.isEmpty()) {
+                    // 无人订阅时不计算，下一个客户端的首帧为全量
+                    lastPrices.clear();
+                    fullPrices.clear();
+                    lastStats.clear();
+                    fullStats.clear();
+                    lastStatsAt = 0;
+                    return;
+                }
+                long now = System.currentTimeMillis();
+                for (String symbol : ExchangePriceService.SYMBOLS) {
+                    broadcast(symbol, "prices", diffPrices(symbol));
+                }
+                if (now - lastStatsAt >= config.getStatsIntervalMs()) {
+                    lastStatsAt = now;
+                    Map<String, List<SpreadPairStatRow>> bySymbol = new HashMap<>();
+                    for (SpreadPairStatRow row : pairStatsService.findPairStats(null, null, PairFilter.NONE)) {
+                        bySymbol.computeIfAbsent(row.symbol(), k -> new ArrayList<>()).add(row);
+                    }
+                    for (String symbol : ExchangePriceService.SYMBOLS) {
+                        broadcast(symbol, "stats", diffStats(symbol, bySymbol.getOrDefault(symbol, List.of())));
+                    }
+                }
+                if (now - lastHeartbeatAt >= config.getHeartbeatSeconds() * 1000) {
+                    lastHeartbeatAt = now;
+                    for (StreamClient client : clients) {
+                        if (!client.offer(HEARTBEAT)) evict(client);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.warn("[DashboardStream] 推送失败: {}", e.getMessage());
+        }
+    }
+
+    private void broadcast(String symbol, String event, String json) {
+        if (json == null) return;
+        Frame frame = new Frame(event, json);
+        for (StreamClient client : clients) {
+            if (client.wants(symbol) && !client.offer(frame)) evict(client);
+        }
+    }
+
+    private void evict(StreamClient client) {
+        log.info("[DashboardStream] 客户端积压超过 {} 帧，断开", client.capacity);
+        remove(client);
+    }
+
+    /** 与上一帧比较，返回增量 JSON；无变化返回 null。首帧为全量 */
+    private String diffPrices(String symbol) throws Exception {
+        List<ExchangePriceDto> current = priceService.getPrices(symbol);
+        Map<String, ExchangePriceDto> prev = lastPrices.get(symbol);
+        Map<String, ExchangePriceDto> next = new LinkedHashMap<>();
+        ArrayNode changes = objectMapper.createArrayNode();
+        for (ExchangePriceDto dto : current) {
+            next.put(dto.exchange(), dto);
+            ExchangePriceDto old = prev != null ? prev.get(dto.exchange()) : null;
+            if (old == null) {
+                changes.add(objectMapper.valueToTree(dto));
+                continue;
+            }
+            ObjectNode node = objectMapper.createObjectNode();
+            if (!same(old.spotPrice(), dto.spotPrice())) node.put("spotPrice", dto.spotPrice());
+            if (!same(old.bid1(), dto.bid1())) node.put("bid1", dto.bid1());
+            if (!same(old.ask1(), dto.ask1())) node.put("ask1", dto.ask1());
+            if (old.takerFeePct() != dto.takerFeePct()) node.put("takerFeePct", dto.takerFeePct());
+            if (old.makerFeePct() != dto.makerFeePct()) node.put("makerFeePct", dto.makerFeePct());
+            if (!node.isEmpty()) changes.add(node.put("exchange", dto.exchange()));
+        }
+        boolean full = prev == null;
+        if (!full && changes.isEmpty()) return null;
+        lastPrices.put(symbol, next);
+        ObjectNode fullNode = objectMapper.createObjectNode().put("symbol", symbol).put("full", true);
+        fullNode.set("exchanges", objectMapper.valueToTree(current));
+        fullPrices.put(symbol, objectMapper.writeValueAsString(fullNode));
+        if (full) return fullPrices.get(symbol);
+        ObjectNode delta = objectMapper.createObjectNode().put("symbol", symbol).put("full", false);
+        delta.set("exchanges", changes);
+        return objectMapper.writeValueAsString(delta);
+    }
+
+    /** 组合统计增量：变化或新增的整行放入 rows，消失的组合放入 removed */
+    private String diffStats(String symbol, List<SpreadPairStatRow> rows) throws Exception {
+        Map<String, SpreadPairStatRow> prev = lastStats.get(symbol);
+        Map<String, SpreadPairStatRow> next = new HashMap<>();
+        ArrayNode upserts = objectMapper.createArrayNode();
+        for (SpreadPairStatRow row : rows) {
+            String key = row.exchangeBuy() + "|" + row.exchangeSell();
+            next.put(key, row);
+            if (prev == null || !row.equals(prev.get(key))) upserts.add(objectMapper.valueToTree(row));
+        }
+        ArrayNode removed = objectMapper.createArrayNode();
+        if (prev != null) {
+            for (Map.Entry<String, SpreadPairStatRow> e : prev.entrySet()) {
+                if (next.containsKey(e.getKey())) continue;
+                removed.addObject().put("exchangeBuy", e.getValue().exchangeBuy()).put("exchangeSell", e.getValue().exchangeSell());
+            }
+        }
+        boolean full = prev == null;
+        if (!full && upserts.isEmpty() && removed.isEmpty()) return null;
+        lastStats.put(symbol, next);
+        ObjectNode fullNode = objectMapper.createObjectNode().put("symbol", symbol).put("full", true);
+        fullNode.set("rows", objectMapper.valueToTree(rows));
+        fullStats.put(symbol, objectMapper.writeValueAsString(fullNode));
+        if (full) return fullStats.get(symbol);
+        ObjectNode delta = objectMapper.createObjectNode().put("symbol", symbol).put("full", false);
+        delta.set("rows", upserts);
+        delta.set("removed", removed);
+        return objectMapper.writeValueAsString(delta);
+    }
+
+    private static boolean same(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    private record Frame(String event, String data) {}
+
+    private static final class StreamClient {
+        private final SseEmitter emitter;
+        private final Set<String> symbols;
+        private final ArrayBlockingQueue<Frame> queue;
+        private final int capacity;
+        private volatile boolean closed;
+        private volatile Thread sender;
+
+        StreamClient(SseEmitter emitter, Set<String> symbols, int capacity) {
+            this.emitter = emitter;
+            this.symbols = symbols;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.capacity = capacity;
+        }
+
+        boolean wants(String symbol) {
+            return symbols.isEmpty() || symbols.contains(symbol);
+        }
+
+        boolean offer(Frame frame) {
+            return !closed && queue.offer(frame);
+        }
+
+        void drain() {
+            sender = Thread.currentThread();
+            try {
+                while (!closed) {
+                    Frame frame = queue.take();
+                    if (frame == HEARTBEAT) {
+                        emitter.send(SseEmitter.event().comment("hb"));
+                    } else {
+                        emitter.send(SseEmitter.event().name(frame.event()).data(frame.data(), MediaType.APPLICATION_JSON));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.debug("[DashboardStream] 发送失败: {}", e.getMessage());
+                close();
+            }
+        }
+
+        void close() {
+            if (closed) return;
+            closed = true;
+            try {
+                emitter.complete();
+            } catch (Exception ignored) {
+                // 连接已断开
+            }
+            Thread t = sender;
+            if (t != null) t.interrupt();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.spotspread.service;
+
+import com.spotspread.config.ExchangeFeeRates;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 各交易所现货买一/卖一、中间价与手续费率，供价格接口与推送流共用。
+ */
+@Service
+public class ExchangePriceService {
+
+    public static final List<String> SYMBOLS = List.of("BTC", "ETH", "SOL", "XRP", "HYPE", "BNB");
+    public static final List<String> EXCHANGES = List.of(
+            "binance", "bitfinex", "coinex", "okx", "bybit", "gateio", "bitget", "lbank", "whitebit",
+            "bitunix", "cryptocom"
+    );
+
+    private final OrderBookCacheService cache;
+
+    public ExchangePriceService(OrderBookCacheService cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * @param symbol 币种，如 BTC（不带 USDT）
+     */
+    public List<ExchangePriceDto> getPrices(String symbol) {
+        String sym = symbol.toUpperCase() + "USDT";
+        List<ExchangePriceDto> exchanges = new ArrayList<>();
+        for (String ex : EXCHANGES) {
+            var bidAsk = cache.getBidAsk(ex, sym);
+            BigDecimal makerPct = ExchangeFeeRates.getSpotMakerFeePct(ex);
+            BigDecimal takerPct = ExchangeFeeRates.getSpotTakerFeePct(ex);
+            if (makerPct == null || takerPct == null) continue;
+            BigDecimal bid1 = null;
+            BigDecimal ask1 = null;
+            BigDecimal spotPrice = null;
+            if (bidAsk != null && bidAsk.bid1() != null && bidAsk.ask1() != null) {
+                bid1 = bidAsk.bid1();
+                ask1 = bidAsk.ask1();
+                spotPrice = bid1.add(ask1).divide(BigDecimal.valueOf(2), 8, RoundingMode.HALF_UP);
+            }
+            exchanges.add(new ExchangePriceDto(ex, spotPrice, bid1, ask1,
+                    takerPct.doubleValue(), makerPct.doubleValue()));
+        }
+        return exchanges;
+    }
+
+    public record ExchangePriceDto(String exchange, BigDecimal spotPrice, BigDecimal bid1, BigDecimal ask1,
+                                   double takerFeePct, double makerFeePct) {}
+}
@@ -13,10 +13,11 @@ import org.springframework.stereotype.Service;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import java.time.Instant;
+import java.util.Map;
 
 /**
  * InfluxDB 时序指标写入服务。
- * 异步写入：价格延迟（price_latency）、价差与利润率（spread_profit）。
+ * 异步写入：价格延迟（price_latency）、价差与利润率（spread_profit）、连接收发统计（ws_wire）。
  */
 @Service
 public class InfluxMetricsService {
@@ -96,6 +97,23 @@ public class InfluxMetricsService {
         }
     }
 
+    /**
+     * 写入单个连接的累计收发计数。
+     */
+    public void writeWireStats(String exchange, String connection, Map<String, Object> fields) {
+        if (!isWritable()) return;
+        try {
+            Point point = Point.measurement("ws_wire")
+                    .addTag("exchange", exchange)
+                    .addTag("connection", connection)
+                    .addFields(fields)
+                    .time(Instant.now(), WritePrecision.MS);
+            writeApi.writePoint(point);
+        } catch (Exception e) {
+            log.debug("[InfluxDB] writeWireStats error: {}", e.getMessage());
+        }
+    }
+
     /**
      * 写入价差与利润率。
      */
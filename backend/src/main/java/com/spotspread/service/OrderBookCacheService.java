@@ -1,32 +1,251 @@
 package com.spotspread.service;
 
+import com.spotspread.jfr.ParseEvent;
+import com.spotspread.jfr.QuoteUpdateEvent;
+import com.spotspread.stats.StageLatencyService;
+import com.spotspread.stats.StageLatencyService.Stage;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjLongConsumer;
 
 /**
  * 订单簿买一/卖一价格缓存，供套利任务读取。
- * BidAsk.updatedAt 为接收/更新时间戳(ms)，用于判断价格是否过期（如超过 500ms 弃用）。
+ * BidAsk.updatedAt 为接收/更新时间戳(ms，取自注入的时钟，回测时为模拟时间)，用于判断价格是否过期（如超过 500ms 弃用）。
+ * version 每次写入递增，供快照构建判断是否有新行情。
+ * <p>
+ * 同一交易所可有多条冗余连接（hot-hot），各自通过 FeedWriter 写入，按先到先用仲裁：
+ * 带交易所更新序号（update ID 或时间戳）时，序号不大于已采用值的视为重复；无序号时，
+ * 其他连接在 {@value #CONTENT_DEDUPE_WINDOW_MS}ms 内送来的相同买一/卖一视为重复。
+ * 内容重复说明该价格仍是最新的：距上次写入超过 {@value #CONTENT_REFRESH_MS}ms 时用它刷新 updatedAt，
+ * 被采用的连接卡住或轮换交接期间，另一条连接送来的相同报价不会因去重而让价格过期。
  */
 @Service
 public class OrderBookCacheService {
 
+    private static final long CONTENT_DEDUPE_WINDOW_MS = 1_000;
+    /** 须明显短于 SpreadEngine.STALE_MS，同时限制重复副本刷新缓存的频率 */
+    private static final long CONTENT_REFRESH_MS = 100;
+
     private final ConcurrentHashMap<String, BidAsk> cache = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Arbitration> arbitration = new ConcurrentHashMap<>();
+    private final Map<String, FeedWriter> feeds = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final StageLatencyService latency;
+    private final Clock clock;
+
+    public OrderBookCacheService(StageLatencyService latency, Clock clock) {
+        this.latency = latency;
+        this.clock = clock;
+    }
 
     public record BidAsk(BigDecimal bid1, BigDecimal ask1, long updatedAt) {}
 
+    /** 每次写入缓存后回调（仲裁之后），回测用来把解析结果录成行情序列 */
+    @FunctionalInterface
+    public interface QuoteListener {
+        void onQuote(String exchange, String symbol, BigDecimal bid1, BigDecimal ask1, long updatedAt);
+    }
+
+    private volatile QuoteListener quoteListener;
+
+    public void setQuoteListener(QuoteListener quoteListener) {
+        this.quoteListener = quoteListener;
+    }
+
     public void updateBidAsk(String exchange, String symbol, BigDecimal bid1, BigDecimal ask1) {
         if (bid1 == null || ask1 == null || bid1.compareTo(BigDecimal.ZERO) <= 0 || ask1.compareTo(BigDecimal.ZERO) <= 0) return;
         String key = key(exchange, symbol);
-        cache.put(key, new BidAsk(bid1, ask1, System.currentTimeMillis()));
+        long now = clock.millis();
+        cache.put(key, new BidAsk(bid1, ask1, now));
+        version.incrementAndGet();
+        QuoteListener l = quoteListener;
+        if (l != null) l.onQuote(exchange, symbol, bid1, ask1, now);
+    }
+
+    public long getVersion() {
+        return version.get();
     }
 
     public BidAsk getBidAsk(String exchange, String symbol) {
         return cache.get(key(exchange, symbol));
     }
 
+    /** 一条连接的写入入口，feed 为连接名（如 binance#0/1），同名重复获取返回同一实例 */
+    public FeedWriter feed(String exchange, String feed) {
+        return feeds.computeIfAbsent(feed, f -> new FeedWriter(exchange, f));
+    }
+
+    /** 按交易所、连接名排序的各连接仲裁统计 */
+    public List<FeedStats> getFeedStats() {
+        List<FeedStats> list = new ArrayList<>();
+        for (FeedWriter f : feeds.values()) list.add(f.stats());
+        list.sort((a, b) -> a.exchange().equals(b.exchange()) ? a.feed().compareTo(b.feed()) : a.exchange().compareTo(b.exchange()));
+        return list;
+    }
+
+    /** 返回 false 表示无效价格，或被判为其他连接的重复 / 过期更新 */
+    private boolean arbitrate(FeedWriter feed, String symbol, BigDecimal bid1, BigDecimal ask1, long seq) {
+        if (bid1 == null || ask1 == null || bid1.compareTo(BigDecimal.ZERO) <= 0 || ask1.compareTo(BigDecimal.ZERO) <= 0) return false;
+        String key = key(feed.exchange, symbol);
+        Arbitration st = arbitration.computeIfAbsent(key, k -> new Arbitration());
+        long now = System.nanoTime();
+        boolean refresh = false;
+        synchronized (st) {
+            boolean sameFeed = feed == st.winner;
+            boolean sameContent = bid1.equals(st.bid) && ask1.equals(st.ask);
+            if (!sameFeed && st.winner != null) {
+                if (seq > 0 && st.seq > 0) {
+                    // 序号相同且内容相同才算同一条更新；时间戳作序号时同一毫秒可能有多次更新
+                    if (seq < st.seq) {
+                        feed.stale.increment();
+                        return false;
+                    }
+                    if (seq == st.seq && sameContent) {
+                        feed.duplicate(now - st.appliedNanos);
+                        return false;
+                    }
+                } else if (sameContent && clock.millis() - st.appliedMs < CONTENT_DEDUPE_WINDOW_MS) {
+                    feed.duplicate(now - st.appliedNanos);
+                    if (clock.millis() - st.appliedMs < CONTENT_REFRESH_MS) return false;
+                    st.appliedMs = clock.millis();
+                    refresh = true;
+                }
+            }
+            if (!refresh) {
+                st.winner = feed;
+                st.seq = Math.max(seq, sameFeed ? st.seq : 0);
+                st.bid = bid1;
+                st.ask = ask1;
+                st.appliedNanos = now;
+                st.appliedMs = clock.millis();
+            }
+        }
+        // 刷新只更新时间戳，仍计为重复，不改变被采用的连接
+        if (!refresh) feed.wins.increment();
+        updateBidAsk(feed.exchange, symbol, bid1, ask1);
+        return !refresh;
+    }
+
     private static String key(String exchange, String symbol) {
         return (exchange + ":" + symbol).toLowerCase();
     }
+
+    /** 单条连接的写入句柄 */
+    public final class FeedWriter {
+        private final String exchange;
+        private final String name;
+        private final LongAdder wins;
+        private final LongAdder duplicates;
+        private final LongAdder stale;
+        private final LongAdder lagNanos;
+        private final AtomicLong maxLagNanos;
+        /** 本实例收到的更新数（不与 fork 共享），用于判断新连接是否已在出数 */
+        private final AtomicLong received = new AtomicLong();
+        /** 本实例每收到一条更新回调 (symbol, System.nanoTime())，用于按币种学习更新节奏 */
+        private volatile ObjLongConsumer<String> observer;
+
+        private FeedWriter(String exchange, String name) {
+            this(exchange, name, new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder(), new AtomicLong());
+        }
+
+        private FeedWriter(String exchange, String name, LongAdder wins, LongAdder duplicates, LongAdder stale,
+                           LongAdder lagNanos, AtomicLong maxLagNanos) {
+            this.exchange = exchange;
+            this.name = name;
+            this.wins = wins;
+            this.duplicates = duplicates;
+            this.stale = stale;
+            this.lagNanos = lagNanos;
+            this.maxLagNanos = maxLagNanos;
+        }
+
+        public String getExchange() { return exchange; }
+        public String getName() { return name; }
+        public long getReceived() { return received.get(); }
+        public void setObserver(ObjLongConsumer<String> observer) { this.observer = observer; }
+
+        /**
+         * 同名的另一个写入句柄：统计计入同一连接名，但仲裁时视为不同来源。
+         * 用于连接轮换期间新旧两条连接并存、互相去重。
+         */
+        public FeedWriter fork() {
+            return new FeedWriter(exchange, name, wins, duplicates, stale, lagNanos, maxLagNanos);
+        }
+
+        /**
+         * @param seq 交易所更新序号（update ID 或毫秒时间戳），无则传 0，按内容去重
+         */
+        public void update(String symbol, BigDecimal bid1, BigDecimal ask1, long seq) {
+            long start = System.nanoTime();
+            received.incrementAndGet();
+            ObjLongConsumer<String> o = observer;
+            if (o != null) o.accept(symbol, start);
+            long frameStart = latency.frameStartNanos();
+            if (frameStart > 0) {
+                latency.record(Stage.PARSE, exchange, symbol, start - frameStart);
+                ParseEvent parse = new ParseEvent();
+                if (parse.shouldCommit()) {
+                    parse.exchange = exchange;
+                    parse.symbol = symbol;
+                    parse.parseTime = start - frameStart;
+                    parse.commit();
+                }
+            }
+            QuoteUpdateEvent event = new QuoteUpdateEvent();
+            event.begin();
+            boolean applied = arbitrate(this, symbol, bid1, ask1, seq);
+            latency.record(Stage.CACHE_WRITE, exchange, symbol, System.nanoTime() - start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.exchange = exchange;
+                event.feed = name;
+                event.symbol = symbol;
+                event.bid = bid1 != null ? bid1.doubleValue() : 0;
+                event.ask = ask1 != null ? ask1.doubleValue() : 0;
+                event.seq = seq;
+                event.applied = applied;
+                event.commit();
+            }
+        }
+
+        private void duplicate(long lag) {
+            duplicates.increment();
+            lagNanos.add(lag);
+            maxLagNanos.accumulateAndGet(lag, Math::max);
+        }
+
+        private FeedStats stats() {
+            long w = wins.sum();
+            long d = duplicates.sum();
+            return new FeedStats(exchange, name, w, d, stale.sum(), w + d > 0 ? (double) w / (w + d) : 0,
+                    d > 0 ? lagNanos.sum() / d / 1e6 : 0, maxLagNanos.get() / 1e6);
+        }
+    }
+
+    /**
+     * @param winRate  先于其他连接送达（被采用）的比例
+     * @param avgLagMs 作为重复到达时落后于被采用副本的平均时长
+     * @param stale    序号已落后于被采用值而被丢弃的次数
+     */
+    public record FeedStats(String exchange, String feed, long wins, long duplicates, long stale, double winRate,
+                            double avgLagMs, double maxLagMs) {}
+
+    /** 每个 (交易所, 币种) 最近一次被采用的更新 */
+    private static final class Arbitration {
+        FeedWriter winner;
+        long seq;
+        BigDecimal bid;
+        BigDecimal ask;
+        long appliedNanos;
+        /** 最近一次写入缓存（采用或重复刷新）的时刻；去重窗口按注入的时钟判断，回测加速回放时与线上一致 */
+        long appliedMs;
+    }
 }
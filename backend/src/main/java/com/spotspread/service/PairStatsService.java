@@ -0,0 +1,224 @@
+package com.spotspread.service;
+
+import com.spotspread.repository.SpreadArbitrageStatsRepository;
+import com.spotspread.repository.SpreadArbitrageStatsRepository.PairAggregateRow;
+import com.spotspread.repository.SpreadArbitrageStatsRepository.PairFilter;
+import com.spotspread.repository.SpreadArbitrageStatsRepository.SnapshotRow;
+import com.spotspread.repository.SpreadArbitrageStatsRepository.SpreadPairStatRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 交易所组合统计的内存增量聚合。
+ * 启动时从 MySQL（汇总表 + 未汇总的原始快照）读取一次 SUM/COUNT 作为初始值，之后每批快照写库成功后累加；
+ * 查询直接返回按「平均利润率降序、次数降序」排好的只读列表，不再对全表 GROUP BY。
+ */
+@Service
+public class PairStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(PairStatsService.class);
+    /** 与表字段 DECIMAL(10,4) 一致，入库时 MySQL 会四舍五入到 4 位 */
+    private static final int COLUMN_SCALE = 4;
+    /** MySQL AVG(DECIMAL(10,4)) 结果精度为 4 + div_precision_increment(4) */
+    private static final int AVG_SCALE = 8;
+
+    public static final Comparator<SpreadPairStatRow> SQL_ORDER = Comparator
+            .comparing(SpreadPairStatRow::avgProfitMarginPct, Comparator.reverseOrder())
+            .thenComparing(SpreadPairStatRow::spreadCount, Comparator.reverseOrder())
+            .thenComparing(SpreadPairStatRow::symbol)
+            .thenComparing(SpreadPairStatRow::exchangeBuy)
+            .thenComparing(SpreadPairStatRow::exchangeSell);
+
+    private final SpreadArbitrageStatsRepository repository;
+    /** 按组合 + 利润率模式累加，无模式过滤时再按组合合并 */
+    private final ConcurrentHashMap<ModeKey, PairAggregate> aggregates = new ConcurrentHashMap<>();
+    /** 写库+累加持读锁（可并发），初始化持写锁，避免同一批数据既被初始化查询读到又被重复累加 */
+    private final ReadWriteLock seedLock = new ReentrantReadWriteLock();
+    private volatile boolean seeded = false;
+    private volatile List<SpreadPairStatRow> ordered = List.of();
+
+    public PairStatsService(SpreadArbitrageStatsRepository repository) {
+        this.repository = repository;
+    }
+
+    @PostConstruct
+    public void init() {
+        seed();
+    }
+
+    /**
+     * 写入快照并累加到内存统计。未完成初始化时只写库，下次查询时重新初始化。
+     */
+    public void saveSnapshots(List<SnapshotRow> rows) {
+        if (rows.isEmpty()) return;
+        seedLock.readLock().lock();
+        try {
+            repository.saveSnapshots(rows);
+            if (!seeded) return;
+            for (SnapshotRow row : rows) {
+                aggregates.computeIfAbsent(new ModeKey(row.symbol(), row.exchangeBuy(), row.exchangeSell(),
+                        row.profitMode() != null ? row.profitMode() : ""), k -> new PairAggregate()).add(row);
+            }
+        } finally {
+            seedLock.readLock().unlock();
+        }
+        rebuildOrdered();
+    }
+
+    /**
+     * 全局聚合，按平均利润率降序、次数降序（即 ORDER BY avg_profit_margin_pct DESC, spread_count DESC）。
+     */
+    public List<SpreadPairStatRow> findAllPairStatsOrdered() {
+        if (!seeded && !seed()) {
+            return mergeOrdered(repository.findPairAggregates(null, null, PairFilter.NONE));
+        }
+        return ordered;
+    }
+
+    /**
+     * 按窗口与过滤条件统计。未指定窗口时直接读内存累加值，否则按窗口自动选择汇总层查询 MySQL。
+     */
+    public List<SpreadPairStatRow> findPairStats(LocalDateTime from, LocalDateTime to, PairFilter filter) {
+        if (from != null || to != null) {
+            return mergeOrdered(repository.findPairAggregates(from, to, filter));
+        }
+        if (filter.equals(PairFilter.NONE)) {
+            return findAllPairStatsOrdered();
+        }
+        if (!seeded && !seed()) {
+            return mergeOrdered(repository.findPairAggregates(null, null, filter));
+        }
+        Map<PairKey, PairAggregate> merged = new HashMap<>();
+        aggregates.forEach((key, agg) -> {
+            if (filter.matches(key.symbol(), key.exchangeBuy(), key.exchangeSell(), key.profitMode())) {
+                merged.computeIfAbsent(key.pair(), k -> new PairAggregate()).merge(agg);
+            }
+        });
+        return toOrdered(merged);
+    }
+
+    /**
+     * 合并各层返回的同一组合的累加值，并按 SQL_ORDER 排序。
+     */
+    public static List<SpreadPairStatRow> mergeOrdered(List<PairAggregateRow> rows) {
+        Map<PairKey, PairAggregate> merged = new HashMap<>();
+        for (PairAggregateRow row : rows) {
+            merged.computeIfAbsent(new PairKey(row.symbol(), row.exchangeBuy(), row.exchangeSell()),
+                    k -> new PairAggregate()).merge(row);
+        }
+        return toOrdered(merged);
+    }
+
+    private static List<SpreadPairStatRow> toOrdered(Map<PairKey, PairAggregate> merged) {
+        List<SpreadPairStatRow> list = new ArrayList<>(merged.size());
+        merged.forEach((key, agg) -> list.add(agg.toRow(key)));
+        list.sort(SQL_ORDER);
+        return list;
+    }
+
+    private boolean seed() {
+        seedLock.writeLock().lock();
+        try {
+            if (seeded) return true;
+            List<PairAggregateRow> rows = repository.findPairAggregates(null, null, PairFilter.NONE);
+            aggregates.clear();
+            for (PairAggregateRow row : rows) {
+                aggregates.computeIfAbsent(new ModeKey(row.symbol(), row.exchangeBuy(), row.exchangeSell(), row.profitMode()),
+                        k -> new PairAggregate()).merge(row);
+            }
+            seeded = true;
+            log.info("[PairStats] 已从 MySQL 加载 {} 个交易所组合统计", aggregates.size());
+        } catch (Exception e) {
+            log.warn("[PairStats] 初始化失败，暂时回退到 SQL 聚合: {}", e.getMessage());
+            return false;
+        } finally {
+            seedLock.writeLock().unlock();
+        }
+        rebuildOrdered();
+        return true;
+    }
+
+    private synchronized void rebuildOrdered() {
+        Map<PairKey, PairAggregate> merged = new HashMap<>();
+        aggregates.forEach((key, agg) -> merged.computeIfAbsent(key.pair(), k -> new PairAggregate()).merge(agg));
+        ordered = List.copyOf(toOrdered(merged));
+    }
+
+    private record PairKey(String symbol, String exchangeBuy, String exchangeSell) {}
+
+    private record ModeKey(String symbol, String exchangeBuy, String exchangeSell, String profitMode) {
+        PairKey pair() {
+            return new PairKey(symbol, exchangeBuy, exchangeSell);
+        }
+    }
+
+    private static final class PairAggregate {
+        private long count;
+        private BigDecimal profitSum = BigDecimal.ZERO;
+        private BigDecimal feeBuySum = BigDecimal.ZERO;
+        private long feeBuyCount;
+        private BigDecimal feeSellSum = BigDecimal.ZERO;
+        private long feeSellCount;
+
+        void merge(PairAggregateRow row) {
+            merge(row.spreadCount(), nz(row.profitSum()), nz(row.feeBuySum()), row.feeBuyCount(),
+                    nz(row.feeSellSum()), row.feeSellCount());
+        }
+
+        void merge(PairAggregate other) {
+            synchronized (other) {
+                merge(other.count, other.profitSum, other.feeBuySum, other.feeBuyCount, other.feeSellSum, other.feeSellCount);
+            }
+        }
+
+        private synchronized void merge(long count, BigDecimal profitSum, BigDecimal feeBuySum, long feeBuyCount,
+                                        BigDecimal feeSellSum, long feeSellCount) {
+            this.count += count;
+            this.profitSum = this.profitSum.add(profitSum);
+            this.feeBuySum = this.feeBuySum.add(feeBuySum);
+            this.feeBuyCount += feeBuyCount;
+            this.feeSellSum = this.feeSellSum.add(feeSellSum);
+            this.feeSellCount += feeSellCount;
+        }
+
+        synchronized void add(SnapshotRow row) {
+            count++;
+            profitSum = profitSum.add(row.profitMarginPct().setScale(COLUMN_SCALE, RoundingMode.HALF_UP));
+            if (row.spotFeeBuyPct() != null) {
+                feeBuySum = feeBuySum.add(row.spotFeeBuyPct().setScale(COLUMN_SCALE, RoundingMode.HALF_UP));
+                feeBuyCount++;
+            }
+            if (row.spotFeeSellPct() != null) {
+                feeSellSum = feeSellSum.add(row.spotFeeSellPct().setScale(COLUMN_SCALE, RoundingMode.HALF_UP));
+                feeSellCount++;
+            }
+        }
+
+        synchronized SpreadPairStatRow toRow(PairKey key) {
+            return new SpreadPairStatRow(key.symbol(), key.exchangeBuy(), key.exchangeSell(), (int) count,
+                    avg(profitSum, count), avg(feeBuySum, feeBuyCount), avg(feeSellSum, feeSellCount));
+        }
+
+        private static BigDecimal avg(BigDecimal sum, long n) {
+            return n == 0 ? null : sum.divide(BigDecimal.valueOf(n), AVG_SCALE, RoundingMode.HALF_UP);
+        }
+
+        private static BigDecimal nz(BigDecimal v) {
+            return v != null ? v : BigDecimal.ZERO;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.spotspread.service;
+
+import com.spotspread.service.ExchangePriceService.ExchangePriceDto;
+import com.spotspread.service.PriceSnapshotService.SymbolPrices;
+import org.springframework.http.MediaType;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 价格快照的定长小端二进制格式（application/x-spot-prices）：
+ * <pre>
+ * u32   magic 'SPX1'
+ * u8    币种数
+ * 每个币种：
+ *   u8  币种在 ExchangePriceService.SYMBOLS 中的下标；0xFF 表示不在列表中，后跟 u8 长度 + ASCII 名称
+ *   u8  行数
+ *   每行 41 字节：u8 交易所在 EXCHANGES 中的下标，f64 bid1，f64 ask1，f64 spotPrice，f64 takerFeePct，f64 makerFeePct
+ * </pre>
+ * 价格缺失时为 NaN。
+ */
+public final class PriceBinaryCodec {
+
+    public static final MediaType MEDIA_TYPE = new MediaType("application", "x-spot-prices");
+    public static final int MAGIC = 'S' | 'P' << 8 | 'X' << 16 | '1' << 24;
+    private static final int ROW_BYTES = 41;
+    private static final int UNKNOWN_SYMBOL = 0xFF;
+
+    private PriceBinaryCodec() {
+    }
+
+    public static byte[] encode(List<SymbolPrices> prices) {
+        int size = 5;
+        for (SymbolPrices sp : prices) {
+            size += 2 + sp.exchanges().size() * ROW_BYTES;
+            if (ExchangePriceService.SYMBOLS.indexOf(sp.symbol()) < 0) size += 1 + sp.symbol().length();
+        }
+        ByteBuffer buf = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(MAGIC);
+        buf.put((byte) prices.size());
+        for (SymbolPrices sp : prices) {
+            int idx = ExchangePriceService.SYMBOLS.indexOf(sp.symbol());
+            if (idx >= 0) {
+                buf.put((byte) idx);
+            } else {
+                byte[] name = sp.symbol().getBytes(StandardCharsets.US_ASCII);
+                buf.put((byte) UNKNOWN_SYMBOL).put((byte) name.length).put(name);
+            }
+            buf.put((byte) sp.exchanges().size());
+            for (ExchangePriceDto dto : sp.exchanges()) {
+                buf.put((byte) ExchangePriceService.EXCHANGES.indexOf(dto.exchange()));
+                buf.putDouble(toDouble(dto.bid1()));
+                buf.putDouble(toDouble(dto.ask1()));
+                buf.putDouble(toDouble(dto.spotPrice()));
+                buf.putDouble(dto.takerFeePct());
+                buf.putDouble(dto.makerFeePct());
+            }
+        }
+        return buf.array();
+    }
+
+    private static double toDouble(BigDecimal v) {
+        return v != null ? v.doubleValue() : Double.NaN;
+    }
+}
@@ -0,0 +1,187 @@
+package com.spotspread.service;
+
+import com.spotspread.config.PriceSnapshotConfig;
+import com.spotspread.service.ExchangePriceService.ExchangePriceDto;
+import com.spotspread.service.WireFormatService.WireFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 交易所价格快照：行情有变化时（按 minIntervalMs 限速）为每个币种预先序列化一份不可变 JSON，
+ * 另有一份包含全部币种的 JSON。请求直接返回这些字节数组，ETag 取 JSON 内容的 SHA-256 前 8 字节，
+ * 内容未变时 ETag 不变，客户端可得到 304；进程重启后同一 ETag 也只对应同一内容。
+ * 其它编码（CBOR / Smile / 二进制）在首次被请求时按快照编码一次并缓存在快照上。
+ */
+@Service
+public class PriceSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceSnapshotService.class);
+    private static final String ENDPOINT = "exchange-prices";
+
+    private final OrderBookCacheService cache;
+    private final ExchangePriceService priceService;
+    private final WireFormatService wireFormats;
+    private final PriceSnapshotConfig config;
+
+    private volatile Map<String, PriceSnapshot> snapshots = Map.of();
+    private volatile PriceSnapshot all;
+    /** 以下只在构建线程访问 */
+    private long builtVersion = -1;
+    private ScheduledExecutorService scheduler;
+
+    public PriceSnapshotService(OrderBookCacheService cache, ExchangePriceService priceService,
+                                WireFormatService wireFormats, PriceSnapshotConfig config) {
+        this.cache = cache;
+        this.priceService = priceService;
+        this.wireFormats = wireFormats;
+        this.config = config;
+    }
+
+    @PostConstruct
+    public void start() {
+        rebuild();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "price-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(10, config.getMinIntervalMs());
+        scheduler.scheduleWithFixedDelay(this::rebuild, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    /** 不在 SYMBOLS 中的币种返回 null */
+    public PriceSnapshot get(String symbol) {
+        return snapshots.get(symbol);
+    }
+
+    public PriceSnapshot getAll() {
+        return all;
+    }
+
+    /**
+     * 拼接若干币种已序列化的快照为 {"symbols":{...}}，不再重新序列化。
+     */
+    public PriceSnapshot compose(List<PriceSnapshot> parts) {
+        StringBuilder hash = new StringBuilder();
+        for (PriceSnapshot p : parts) hash.append('-').append(p.hash());
+        return multi(parts, "m" + hash, hash.substring(1));
+    }
+
+    private synchronized void rebuild() {
+        try {
+            long version = cache.getVersion();
+            if (version == builtVersion) return;
+            builtVersion = version;
+            Map<String, PriceSnapshot> next = new HashMap<>();
+            boolean changed = false;
+            for (String symbol : ExchangePriceService.SYMBOLS) {
+                List<ExchangePriceDto> prices = priceService.getPrices(symbol);
+                SymbolPrices body = new SymbolPrices(prices, symbol);
+                byte[] json = wireFormats.encode(ENDPOINT, WireFormat.JSON, body);
+                PriceSnapshot old = snapshots.get(symbol);
+                if (old != null && Arrays.equals(old.json(), json)) {
+                    next.put(symbol, old);
+                } else {
+                    String hash = hash(json);
+                    next.put(symbol, new PriceSnapshot(symbol, json, "\"" + symbol + "-" + hash + "\"", hash,
+                            body, List.of(body), new ConcurrentHashMap<>()));
+                    changed = true;
+                }
+            }
+            snapshots = Map.copyOf(next);
+            if (changed || all == null) {
+                List<PriceSnapshot> parts = new ArrayList<>();
+                for (String symbol : ExchangePriceService.SYMBOLS) parts.add(next.get(symbol));
+                all = multi(parts, "all", null);
+            }
+        } catch (Exception e) {
+            log.warn("[PriceSnapshot] 构建失败: {}", e.getMessage());
+        }
+    }
+
+    /** @param hash 为 null 时取拼接结果的摘要 */
+    private static PriceSnapshot multi(List<PriceSnapshot> parts, String prefix, String hash) {
+        Map<String, SymbolPrices> symbols = new LinkedHashMap<>();
+        List<SymbolPrices> prices = new ArrayList<>(parts.size());
+        for (PriceSnapshot p : parts) {
+            symbols.put(p.symbol(), p.prices().get(0));
+            prices.add(p.prices().get(0));
+        }
+        byte[] json = join(parts);
+        String tag = hash != null ? hash : hash(json);
+        return new PriceSnapshot("*", json, "\"" + prefix + "-" + tag + "\"", tag, new MultiPrices(symbols), prices,
+                new ConcurrentHashMap<>());
+    }
+
+    private static String hash(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] join(List<PriceSnapshot> parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(parts.size() * 2048);
+        out.writeBytes("{\"symbols\":{".getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < parts.size(); i++) {
+            if (i > 0) out.write(',');
+            out.writeBytes(("\"" + parts.get(i).symbol() + "\":").getBytes(StandardCharsets.UTF_8));
+            out.writeBytes(parts.get(i).json());
+        }
+        out.writeBytes("}}".getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    /** 与 /api/exchange-prices 原响应字段一致 */
+    public record SymbolPrices(List<ExchangePriceDto> exchanges, String symbol) {}
+
+    public record MultiPrices(Map<String, SymbolPrices> symbols) {}
+
+    /**
+     * json 及 encoded 中的数组为只读，调用方不得修改。
+     *
+     * @param hash   json 的内容摘要，ETag 由它生成
+     * @param body   CBOR / Smile 编码的对象，结构与 json 相同
+     * @param prices 二进制格式编码的数据
+     */
+    public record PriceSnapshot(String symbol, byte[] json, String etag, String hash,
+                                Object body, List<SymbolPrices> prices, Map<WireFormat, byte[]> encoded) {
+
+        /** 取该格式的编码结果，首次请求时编码并缓存 */
+        public byte[] bytes(WireFormat format, WireFormatService wireFormats) {
+            if (format == WireFormat.JSON) return json;
+            return encoded.computeIfAbsent(format, f -> wireFormats.encode(ENDPOINT, f, f == WireFormat.PRICE_BINARY ? prices : body));
+        }
+
+        /** 非 JSON 格式的 ETag 带格式后缀 */
+        public String etag(WireFormat format) {
+            return format == WireFormat.JSON ? etag : etag.substring(0, etag.length() - 1) + "." + format.name().toLowerCase() + "\"";
+        }
+    }
+}
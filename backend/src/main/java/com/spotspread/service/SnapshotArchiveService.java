@@ -0,0 +1,87 @@
+package com.spotspread.service;
+
+import com.spotspread.config.SnapshotStorageConfig;
+import com.spotspread.repository.SnapshotPartitionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 过期分区归档：流式读取分区并写入 gzip 压缩的 CSV，写完后原子重命名。
+ */
+@Service
+public class SnapshotArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotArchiveService.class);
+    private static final String HEADER = "id,symbol,exchange_buy,exchange_sell,spot_price_buy,spot_price_sell,spot_spread,profit_margin_pct,spot_fee_buy_pct,spot_fee_sell_pct,profit_mode,snapshot_time";
+
+    private final SnapshotPartitionRepository partitionRepository;
+    private final SnapshotStorageConfig config;
+
+    public SnapshotArchiveService(SnapshotPartitionRepository partitionRepository, SnapshotStorageConfig config) {
+        this.partitionRepository = partitionRepository;
+        this.config = config;
+    }
+
+    /**
+     * 导出分区到 {archiveDir}/spread_arbitrage_snapshots-{partition}.csv.gz，返回写出的行数。
+     */
+    public long archivePartition(String partition) throws IOException {
+        Path dir = Paths.get(config.getArchiveDir());
+        Files.createDirectories(dir);
+        Path target = dir.resolve(SnapshotPartitionRepository.TABLE + "-" + partition + ".csv.gz");
+        Path tmp = dir.resolve(target.getFileName() + ".tmp");
+        long[] rows = {0};
+        try (BufferedWriter w = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(tmp), 64 * 1024), StandardCharsets.UTF_8))) {
+            w.write(HEADER);
+            w.newLine();
+            partitionRepository.streamPartition(partition, rs -> {
+                try {
+                    w.write(Long.toString(rs.getLong(1)));
+                    for (int col = 2; col <= 4; col++) {
+                        w.write(',');
+                        w.write(rs.getString(col));
+                    }
+                    for (int col = 5; col <= 10; col++) {
+                        w.write(',');
+                        BigDecimal v = rs.getBigDecimal(col);
+                        if (v != null) w.write(v.toPlainString());
+                    }
+                    w.write(',');
+                    w.write(rs.getString(11));
+                    w.write(',');
+                    Timestamp ts = rs.getTimestamp(12);
+                    w.write(ts.toLocalDateTime().toString());
+                    w.newLine();
+                    rows[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            Files.deleteIfExists(tmp);
+            throw e.getCause();
+        } catch (Exception e) {
+            // 读分区失败（DataAccessException）或写入 / 关闭失败，都不留下半截的临时文件
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("[SnapshotArchive] 分区 {} 已归档 {} 行 -> {}", partition, rows[0], target);
+        return rows[0];
+    }
+}
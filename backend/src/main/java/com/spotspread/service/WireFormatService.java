@@ -0,0 +1,161 @@
+package com.spotspread.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.spotspread.service.PriceSnapshotService.SymbolPrices;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 响应编码：按 Accept 在 JSON / CBOR / Smile / 定长小端价格格式间选择，并统计各格式的体积与序列化耗时。
+ * CBOR、Smile 与 JSON 共用 Spring Boot 的 Jackson 配置，字段与结构完全一致。
+ */
+@Service
+public class WireFormatService {
+
+    public enum WireFormat {
+        JSON(MediaType.APPLICATION_JSON),
+        CBOR(new MediaType("application", "cbor")),
+        SMILE(new MediaType("application", "x-jackson-smile")),
+        /** 仅价格快照支持，布局见 {@link PriceBinaryCodec} */
+        PRICE_BINARY(PriceBinaryCodec.MEDIA_TYPE);
+
+        private final MediaType mediaType;
+
+        WireFormat(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public MediaType mediaType() { return mediaType; }
+    }
+
+    private final Map<WireFormat, ObjectMapper> mappers = new EnumMap<>(WireFormat.class);
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public WireFormatService(ObjectMapper objectMapper, ObjectProvider<Jackson2ObjectMapperBuilder> builders) {
+        mappers.put(WireFormat.JSON, objectMapper);
+        mappers.put(WireFormat.CBOR, builders.getObject().factory(new CBORFactory()).build());
+        mappers.put(WireFormat.SMILE, builders.getObject().factory(new SmileFactory()).build());
+    }
+
+    public ObjectMapper mapper(WireFormat format) {
+        return mappers.get(format);
+    }
+
+    /**
+     * 按 Accept（含 q 值）选择格式，未带 Accept 或 *&#47;* 时为 JSON；都不支持或 Accept 无法解析时返回 null。
+     */
+    public WireFormat negotiate(String accept, boolean allowPriceBinary) {
+        if (accept == null || accept.isBlank()) return WireFormat.JSON;
+        List<MediaType> types;
+        try {
+            types = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        types.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : types) {
+            if (type.getQualityValue() <= 0) continue;
+            for (WireFormat f : WireFormat.values()) {
+                if (f == WireFormat.PRICE_BINARY && !allowPriceBinary) continue;
+                if (type.includes(f.mediaType())) return f;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 编码并计入统计。PRICE_BINARY 需传入 List&lt;SymbolPrices&gt;。
+     */
+    @SuppressWarnings("unchecked")
+    public byte[] encode(String endpoint, WireFormat format, Object value) {
+        long start = System.nanoTime();
+        byte[] bytes;
+        try {
+            bytes = format == WireFormat.PRICE_BINARY
+                    ? PriceBinaryCodec.encode((List<SymbolPrices>) value)
+                    : mappers.get(format).writeValueAsBytes(value);
+        } catch (Exception e) {
+            throw new IllegalStateException("encode " + format + " failed: " + e.getMessage(), e);
+        }
+        record(endpoint, format, bytes.length, System.nanoTime() - start);
+        return bytes;
+    }
+
+    public JsonFactory factory(WireFormat format) {
+        return mappers.get(format).getFactory();
+    }
+
+    public void record(String endpoint, WireFormat format, long bytes, long nanos) {
+        Counter c = counters.computeIfAbsent(endpoint + "|" + format.name(), k -> new Counter(endpoint, format));
+        c.count.increment();
+        c.bytes.add(bytes);
+        c.nanos.add(nanos);
+    }
+
+    public List<FormatStats> getStats() {
+        List<FormatStats> list = new ArrayList<>();
+        for (Counter c : counters.values()) {
+            long n = c.count.sum();
+            if (n == 0) continue;
+            list.add(new FormatStats(c.endpoint, c.format.name(), n, c.bytes.sum() / n, c.nanos.sum() / n / 1000.0));
+        }
+        list.sort(Comparator.comparing(FormatStats::endpoint).thenComparing(FormatStats::format));
+        return list;
+    }
+
+    /**
+     * 对同一份数据用各格式各编码 iterations 次，返回体积与耗时中位数（不计入请求统计）。
+     */
+    public List<FormatComparison> compare(Object value, List<SymbolPrices> prices, int iterations) {
+        List<FormatComparison> list = new ArrayList<>();
+        for (WireFormat f : WireFormat.values()) {
+            if (f == WireFormat.PRICE_BINARY && prices == null) continue;
+            long[] samples = new long[iterations];
+            int size = 0;
+            try {
+                for (int i = 0; i < iterations; i++) {
+                    long start = System.nanoTime();
+                    byte[] bytes = f == WireFormat.PRICE_BINARY ? PriceBinaryCodec.encode(prices) : mappers.get(f).writeValueAsBytes(value);
+                    samples[i] = System.nanoTime() - start;
+                    size = bytes.length;
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException("encode " + f + " failed: " + e.getMessage(), e);
+            }
+            Arrays.sort(samples);
+            list.add(new FormatComparison(f.name(), f.mediaType().toString(), size, samples[iterations / 2] / 1000.0));
+        }
+        return list;
+    }
+
+    private static final class Counter {
+        final String endpoint;
+        final WireFormat format;
+        final LongAdder count = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+
+        Counter(String endpoint, WireFormat format) {
+            this.endpoint = endpoint;
+            this.format = format;
+        }
+    }
+
+    public record FormatStats(String endpoint, String format, long encodes, long avgBytes, double avgMicros) {}
+    public record FormatComparison(String format, String mediaType, int bytes, double medianMicros) {}
+}
@@ -0,0 +1,38 @@
+package com.spotspread.sink;
+
+import com.spotspread.service.InfluxMetricsService;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 所有方向评估结果（含未达阈值的）写入 InfluxDB spread_profit。
+ */
+@Component
+public class InfluxOpportunitySink implements OpportunitySink {
+
+    private final InfluxMetricsService influx;
+
+    public InfluxOpportunitySink(InfluxMetricsService influx) {
+        this.influx = influx;
+    }
+
+    @Override
+    public String name() {
+        return "influx";
+    }
+
+    @Override
+    public boolean accepts(Opportunity opportunity) {
+        return true;
+    }
+
+    @Override
+    public void publish(List<Opportunity> batch) {
+        for (Opportunity o : batch) {
+            influx.writeSpreadProfit(o.exchangeSell(), o.exchangeBuy(), o.symbol(),
+                    o.spread().doubleValue(), o.profitPct().doubleValue(),
+                    o.priceBuy().doubleValue(), o.priceSell().doubleValue());
+        }
+    }
+}
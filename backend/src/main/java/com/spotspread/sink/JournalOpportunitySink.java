@@ -0,0 +1,81 @@
+package com.spotspread.sink;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spotspread.config.OpportunitySinkConfig;
+import com.spotspread.config.OpportunitySinkConfig.JournalSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 本地文件日志：每行一个 JSON，按天切分为 {dir}/opportunities-yyyy-MM-dd.jsonl。
+ * 只在 sink 线程上读写，无需加锁。
+ */
+@Component
+public class JournalOpportunitySink implements OpportunitySink {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalOpportunitySink.class);
+
+    private final JournalSettings settings;
+    private final ObjectMapper objectMapper;
+    private BufferedWriter writer;
+    private LocalDate day;
+
+    public JournalOpportunitySink(OpportunitySinkConfig config, ObjectMapper objectMapper) {
+        this.settings = config.getJournal();
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String name() {
+        return "journal";
+    }
+
+    @Override
+    public boolean accepts(Opportunity opportunity) {
+        return settings.isIncludeBelowThreshold() || opportunity.aboveThreshold();
+    }
+
+    @Override
+    public void publish(List<Opportunity> batch) throws IOException {
+        BufferedWriter w = writerFor(LocalDate.now());
+        for (Opportunity o : batch) {
+            w.write(objectMapper.writeValueAsString(o));
+            w.newLine();
+        }
+        w.flush();
+    }
+
+    private BufferedWriter writerFor(LocalDate today) throws IOException {
+        if (writer != null && today.equals(day)) return writer;
+        close();
+        Path dir = Paths.get(settings.getDir());
+        Files.createDirectories(dir);
+        writer = Files.newBufferedWriter(dir.resolve("opportunities-" + today + ".jsonl"), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        day = today;
+        return writer;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (writer == null) return;
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.debug("[OpportunityJournal] close: {}", e.getMessage());
+        }
+        writer = null;
+    }
+}
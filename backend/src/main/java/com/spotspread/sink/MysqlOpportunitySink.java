@@ -0,0 +1,33 @@
+package com.spotspread.sink;
+
+import com.spotspread.repository.SpreadArbitrageStatsRepository.SnapshotRow;
+import com.spotspread.service.PairStatsService;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 达到阈值的机会批量写入 spread_arbitrage_snapshots，并累加内存组合统计。
+ */
+@Component
+public class MysqlOpportunitySink implements OpportunitySink {
+
+    private final PairStatsService pairStats;
+
+    public MysqlOpportunitySink(PairStatsService pairStats) {
+        this.pairStats = pairStats;
+    }
+
+    @Override
+    public String name() {
+        return "mysql";
+    }
+
+    @Override
+    public void publish(List<Opportunity> batch) {
+        List<SnapshotRow> rows = new ArrayList<>(batch.size());
+        for (Opportunity o : batch) rows.add(o.toSnapshotRow());
+        pairStats.saveSnapshots(rows);
+    }
+}
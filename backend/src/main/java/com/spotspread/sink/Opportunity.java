@@ -0,0 +1,24 @@
+package com.spotspread.sink;
+
+import com.spotspread.repository.SpreadArbitrageStatsRepository.SnapshotRow;
+
+import java.math.BigDecimal;
+
+/**
+ * 一次方向评估的结果（无论是否达到阈值），由套利任务产出后分发给各 sink。
+ *
+ * @param aboveThreshold 是否达到入库阈值（固定阈值，开启自适应阈值时还需通过自适应判断）
+ * @param detectedAt     评估时刻（epoch 毫秒），用于计算 sink 延迟
+ * @param zScore         相对该方向滚动均值的标准差倍数，样本不足时为 NaN
+ * @param percentile     在该方向最近窗口中的分位（0~1），未达固定阈值时为 NaN
+ */
+public record Opportunity(String symbol, String exchangeBuy, String exchangeSell,
+                          BigDecimal priceBuy, BigDecimal priceSell, BigDecimal spread, BigDecimal profitPct,
+                          BigDecimal feeBuyPct, BigDecimal feeSellPct, String profitMode,
+                          boolean aboveThreshold, long detectedAt, double zScore, double percentile) {
+
+    public SnapshotRow toSnapshotRow() {
+        return new SnapshotRow(symbol, exchangeBuy, exchangeSell, priceBuy, priceSell, spread, profitPct,
+                feeBuyPct, feeSellPct, profitMode);
+    }
+}
@@ -0,0 +1,64 @@
+package com.spotspread.sink;
+
+import com.spotspread.config.OpportunitySinkConfig;
+import com.spotspread.config.OpportunitySinkConfig.SinkSettings;
+import com.spotspread.stats.StageLatencyService;
+import com.spotspread.stats.StageLatencyService.Stage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 将套利任务产出的机会分发给所有启用的 {@link OpportunitySink}。
+ * 分发只做入队（各 sink 按自己的溢出策略），不会等待任何 sink 的 I/O。
+ */
+@Service
+public class OpportunityDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OpportunityDispatcher.class);
+    private static final long SHUTDOWN_TIMEOUT_MS = 5_000;
+
+    private final List<SinkWorker> workers = new ArrayList<>();
+    private final StageLatencyService latency;
+
+    public OpportunityDispatcher(List<OpportunitySink> sinks, OpportunitySinkConfig config, StageLatencyService latency) {
+        this.latency = latency;
+        for (OpportunitySink sink : sinks) {
+            SinkSettings settings = config.settingsFor(sink.name());
+            if (!settings.isEnabled()) {
+                log.info("[OpportunitySink] {} 未启用", sink.name());
+                continue;
+            }
+            SinkWorker worker = new SinkWorker(sink, settings, latency);
+            worker.start();
+            workers.add(worker);
+            log.info("[OpportunitySink] {} 已启用 queue={} batch={} linger={}ms overflow={}", sink.name(),
+                    settings.getQueueCapacity(), settings.getBatchSize(), settings.getLingerMs(), settings.getOverflow());
+        }
+    }
+
+    public void dispatch(List<Opportunity> opportunities) {
+        for (SinkWorker worker : workers) {
+            long start = System.nanoTime();
+            for (Opportunity o : opportunities) {
+                worker.offer(o);
+            }
+            latency.record(Stage.SINK_ENQUEUE, worker.name(), StageLatencyService.ALL, System.nanoTime() - start);
+        }
+    }
+
+    public List<SinkStats> getStats() {
+        List<SinkStats> list = new ArrayList<>(workers.size());
+        for (SinkWorker worker : workers) list.add(worker.stats());
+        return list;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (SinkWorker worker : workers) worker.stop(SHUTDOWN_TIMEOUT_MS);
+    }
+}
@@ -0,0 +1,24 @@
+package com.spotspread.sink;
+
+import java.util.List;
+
+/**
+ * 套利机会下游 SPI。实现为 Spring Bean 即会被 {@link OpportunityDispatcher} 自动注册，
+ * 每个 sink 拥有独立的有界队列与消费线程，慢 sink 不会拖慢检测或其它 sink。
+ */
+public interface OpportunitySink {
+
+    /** sink 名称，对应 opportunity-sinks 下的配置项 */
+    String name();
+
+    /** 是否接收该机会，默认只接收达到阈值的 */
+    default boolean accepts(Opportunity opportunity) {
+        return opportunity.aboveThreshold();
+    }
+
+    /**
+     * 处理一批机会，在该 sink 自己的线程上调用。batch 在返回后会被复用，不要持有引用。
+     * 抛出异常时本批计为失败并丢弃，不重试。
+     */
+    void publish(List<Opportunity> batch) throws Exception;
+}
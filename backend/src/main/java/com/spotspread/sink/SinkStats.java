@@ -0,0 +1,11 @@
+package com.spotspread.sink;
+
+/**
+ * 单个 sink 的运行指标。
+ *
+ * @param lastLagMs   最近一批中最早机会从检测到开始处理的延迟
+ * @param lastBatchMs 最近一批 publish 耗时
+ */
+public record SinkStats(String name, String overflow, int queueDepth, int queueCapacity,
+                        long enqueued, long dropped, long published, long failedBatches,
+                        long lastLagMs, long maxLagMs, long lastBatchMs, long lastPublishAt, String lastError) {}
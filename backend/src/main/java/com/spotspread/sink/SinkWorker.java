@@ -0,0 +1,144 @@
+package com.spotspread.sink;
+
+import com.spotspread.config.OpportunitySinkConfig.SinkSettings;
+import com.spotspread.jfr.PersistenceFlushEvent;
+import com.spotspread.stats.StageLatencyService;
+import com.spotspread.stats.StageLatencyService.Stage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个 sink 的有界队列与消费线程：按 batchSize / lingerMs 凑批后调用 sink.publish。
+ */
+final class SinkWorker implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(SinkWorker.class);
+
+    private final OpportunitySink sink;
+    private final SinkSettings settings;
+    private final StageLatencyService latency;
+    private final ArrayBlockingQueue<Opportunity> queue;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private volatile long lastLagMs;
+    private volatile long maxLagMs;
+    private volatile long lastBatchMs;
+    private volatile long lastPublishAt;
+    private volatile String lastError;
+
+    SinkWorker(OpportunitySink sink, SinkSettings settings, StageLatencyService latency) {
+        this.sink = sink;
+        this.settings = settings;
+        this.latency = latency;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, settings.getQueueCapacity()));
+        this.thread = new Thread(this, "sink-" + sink.name());
+        this.thread.setDaemon(true);
+    }
+
+    String name() {
+        return sink.name();
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /** 停止接收并在 timeoutMs 内尽量处理完队列中剩余的机会 */
+    void stop(long timeoutMs) {
+        running = false;
+        try {
+            thread.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void offer(Opportunity o) {
+        if (!running || !sink.accepts(o)) return;
+        boolean ok = switch (settings.getOverflow()) {
+            case DROP_NEWEST -> queue.offer(o);
+            case DROP_OLDEST -> {
+                while (!queue.offer(o)) {
+                    if (queue.poll() != null) dropped.increment();
+                }
+                yield true;
+            }
+        };
+        if (ok) enqueued.increment();
+        else dropped.increment();
+    }
+
+    @Override
+    public void run() {
+        int batchSize = Math.max(1, settings.getBatchSize());
+        long lingerNanos = TimeUnit.MILLISECONDS.toNanos(settings.getLingerMs());
+        List<Opportunity> batch = new ArrayList<>(batchSize);
+        List<Opportunity> view = Collections.unmodifiableList(batch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Opportunity first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) break;
+                    Opportunity next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                publish(view, batch.get(0).detectedAt());
+                batch.clear();
+            }
+        }
+    }
+
+    private void publish(List<Opportunity> batch, long oldestDetectedAt) {
+        long start = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        long lag = start - oldestDetectedAt;
+        lastLagMs = lag;
+        if (lag > maxLagMs) maxLagMs = lag;
+        PersistenceFlushEvent event = new PersistenceFlushEvent();
+        event.begin();
+        event.sink = sink.name();
+        event.batchSize = batch.size();
+        try {
+            sink.publish(batch);
+            published.add(batch.size());
+            event.success = true;
+        } catch (Exception e) {
+            failedBatches.increment();
+            lastError = e.getMessage();
+            log.warn("[OpportunitySink] {} 处理 {} 条失败: {}", sink.name(), batch.size(), e.getMessage());
+        }
+        event.commit();
+        latency.record(Stage.FLUSH, sink.name(), StageLatencyService.ALL, System.nanoTime() - startNanos);
+        lastPublishAt = System.currentTimeMillis();
+        lastBatchMs = lastPublishAt - start;
+    }
+
+    SinkStats stats() {
+        return new SinkStats(sink.name(), settings.getOverflow().name(), queue.size(), settings.getQueueCapacity(),
+                enqueued.sum(), dropped.sum(), published.sum(), failedBatches.sum(),
+                lastLagMs, maxLagMs, lastBatchMs, lastPublishAt, lastError);
+    }
+}
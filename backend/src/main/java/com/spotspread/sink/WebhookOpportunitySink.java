@@ -0,0 +1,52 @@
+package com.spotspread.sink;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spotspread.config.OpportunitySinkConfig;
+import com.spotspread.config.OpportunitySinkConfig.WebhookSettings;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 将达到阈值的机会以 JSON 数组 POST 到 webhook 地址，每批一个请求。
+ */
+@Component
+public class WebhookOpportunitySink implements OpportunitySink {
+
+    private final WebhookSettings settings;
+    private final ObjectMapper objectMapper;
+    private final HttpClient client;
+
+    public WebhookOpportunitySink(OpportunitySinkConfig config, ObjectMapper objectMapper) {
+        this.settings = config.getWebhook();
+        this.objectMapper = objectMapper;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(settings.getTimeoutMs()))
+                .build();
+    }
+
+    @Override
+    public String name() {
+        return "webhook";
+    }
+
+    @Override
+    public void publish(List<Opportunity> batch) throws IOException, InterruptedException {
+        if (settings.getUrl() == null || settings.getUrl().isBlank()) return;
+        HttpRequest request = HttpRequest.newBuilder(URI.create(settings.getUrl()))
+                .timeout(Duration.ofMillis(settings.getTimeoutMs()))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(batch)))
+                .build();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() >= 300) {
+            throw new IOException("webhook HTTP " + response.statusCode());
+        }
+    }
+}
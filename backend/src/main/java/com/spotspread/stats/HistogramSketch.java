@@ -0,0 +1,84 @@
+package com.spotspread.stats;
+
+import java.util.Arrays;
+
+/**
+ * 定宽分桶直方图，用于近似分位数：add O(1)，可与同参数草图合并（计数相加）。
+ * 区间外的样本计入首尾两个溢出桶，分位数误差不超过一个桶宽。
+ */
+public final class HistogramSketch {
+
+    private final double min;
+    private final double bucketWidth;
+    private final long[] counts;
+    private long total;
+
+    public HistogramSketch(double min, double max, double bucketWidth) {
+        this(min, bucketWidth, (int) Math.ceil((max - min) / bucketWidth) + 2);
+    }
+
+    private HistogramSketch(double min, double bucketWidth, int buckets) {
+        this.min = min;
+        this.bucketWidth = bucketWidth;
+        this.counts = new long[buckets];
+    }
+
+    /** 相同分桶的空草图，用于合并 */
+    public HistogramSketch emptyCopy() {
+        return new HistogramSketch(min, bucketWidth, counts.length);
+    }
+
+    public void add(double value) {
+        counts[bucket(value)]++;
+        total++;
+    }
+
+    public void merge(HistogramSketch other) {
+        if (other.counts.length != counts.length || other.min != min || other.bucketWidth != bucketWidth) {
+            throw new IllegalArgumentException("sketch layout mismatch");
+        }
+        for (int i = 0; i < counts.length; i++) counts[i] += other.counts[i];
+        total += other.total;
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        total = 0;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    /** q ∈ [0,1]，返回所在桶的中点；无样本返回 NaN */
+    public double quantile(double q) {
+        if (total == 0) return Double.NaN;
+        long target = (long) Math.ceil(q * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(1, target)) return midpoint(i);
+        }
+        return midpoint(counts.length - 1);
+    }
+
+    /** 严格小于 value 所在桶的样本数 + 同桶样本数的一半 */
+    public double countBelow(double value) {
+        int b = bucket(value);
+        long below = 0;
+        for (int i = 0; i < b; i++) below += counts[i];
+        return below + counts[b] / 2.0;
+    }
+
+    private int bucket(double value) {
+        if (Double.isNaN(value) || value < min) return 0;
+        int i = (int) ((value - min) / bucketWidth) + 1;
+        return Math.min(i, counts.length - 1);
+    }
+
+    private double midpoint(int bucket) {
+        if (bucket == 0) return min;
+        if (bucket == counts.length - 1) return min + (counts.length - 2) * bucketWidth;
+        return min + (bucket - 0.5) * bucketWidth;
+    }
+}
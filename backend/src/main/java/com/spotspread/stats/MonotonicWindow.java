@@ -0,0 +1,80 @@
+package com.spotspread.stats;
+
+/**
+ * 时间窗口内的最小/最大值：两条单调双端队列，每次更新均摊 O(1)。
+ * 队列用可扩容的环形数组存放 (时间, 值)，不产生装箱对象。
+ */
+final class MonotonicWindow {
+
+    private final long windowMs;
+    private final Deque minQ = new Deque();
+    private final Deque maxQ = new Deque();
+
+    MonotonicWindow(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    void add(long timeMs, double value) {
+        while (!minQ.isEmpty() && minQ.lastValue() >= value) minQ.removeLast();
+        minQ.addLast(timeMs, value);
+        while (!maxQ.isEmpty() && maxQ.lastValue() <= value) maxQ.removeLast();
+        maxQ.addLast(timeMs, value);
+        evict(timeMs);
+    }
+
+    void evict(long nowMs) {
+        long cutoff = nowMs - windowMs;
+        while (!minQ.isEmpty() && minQ.firstTime() <= cutoff) minQ.removeFirst();
+        while (!maxQ.isEmpty() && maxQ.firstTime() <= cutoff) maxQ.removeFirst();
+    }
+
+    double min() {
+        return minQ.isEmpty() ? Double.NaN : minQ.firstValue();
+    }
+
+    double max() {
+        return maxQ.isEmpty() ? Double.NaN : maxQ.firstValue();
+    }
+
+    private static final class Deque {
+        private long[] times = new long[64];
+        private double[] values = new double[64];
+        private int head;
+        private int size;
+
+        boolean isEmpty() { return size == 0; }
+        long firstTime() { return times[head]; }
+        double firstValue() { return values[head]; }
+        double lastValue() { return values[(head + size - 1) & (times.length - 1)]; }
+
+        void addLast(long t, double v) {
+            if (size == times.length) grow();
+            int i = (head + size) & (times.length - 1);
+            times[i] = t;
+            values[i] = v;
+            size++;
+        }
+
+        void removeFirst() {
+            head = (head + 1) & (times.length - 1);
+            size--;
+        }
+
+        void removeLast() {
+            size--;
+        }
+
+        private void grow() {
+            long[] t = new long[times.length * 2];
+            double[] v = new double[values.length * 2];
+            for (int i = 0; i < size; i++) {
+                int j = (head + i) & (times.length - 1);
+                t[i] = times[j];
+                v[i] = values[j];
+            }
+            times = t;
+            values = v;
+            head = 0;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.spotspread.stats;
+
+/**
+ * 单个交易方向的滚动统计，每次更新 O(1)：
+ * 时间衰减的 EWMA 均值/方差、窗口最值（单调队列）、两代轮换的直方图草图（当前窗口 + 上一窗口合并求分位数）。
+ * 由套利任务单线程更新，查询接口并发读取，方法均加实例锁。
+ */
+final class RollingStats {
+
+    private static final double LN2 = Math.log(2);
+
+    private final double halfLifeMs;
+    private final long windowMs;
+    private final MonotonicWindow minMax;
+    private HistogramSketch current;
+    private HistogramSketch previous;
+    private long generationStart;
+
+    private long samples;
+    private long lastTime;
+    private double last = Double.NaN;
+    private double mean;
+    private double variance;
+
+    RollingStats(double halfLifeSeconds, long windowSeconds, double sketchMin, double sketchMax, double bucket) {
+        this.halfLifeMs = halfLifeSeconds * 1000;
+        this.windowMs = windowSeconds * 1000;
+        this.minMax = new MonotonicWindow(windowMs);
+        this.current = new HistogramSketch(sketchMin, sketchMax, bucket);
+        this.previous = new HistogramSketch(sketchMin, sketchMax, bucket);
+    }
+
+    /** 基于加入 value 之前的均值/方差计算 z-score，样本不足或方差为 0 时为 NaN */
+    synchronized double zScore(double value) {
+        if (samples < 2 || variance <= 0) return Double.NaN;
+        return (value - mean) / Math.sqrt(variance);
+    }
+
+    /** value 在当前两代窗口内的分位（0~1），需遍历桶，只在需要时调用 */
+    synchronized double percentileRank(double value) {
+        long total = current.total() + previous.total();
+        if (total == 0) return Double.NaN;
+        return (current.countBelow(value) + previous.countBelow(value)) / total;
+    }
+
+    synchronized void add(long timeMs, double value) {
+        if (samples == 0) {
+            mean = value;
+            variance = 0;
+            generationStart = timeMs;
+        } else {
+            double dt = Math.max(0, timeMs - lastTime);
+            double alpha = 1 - Math.exp(-dt * LN2 / halfLifeMs);
+            double diff = value - mean;
+            double incr = alpha * diff;
+            mean += incr;
+            variance = (1 - alpha) * (variance + diff * incr);
+        }
+        if (timeMs - generationStart >= windowMs) {
+            HistogramSketch t = previous;
+            previous = current;
+            current = t;
+            current.clear();
+            generationStart = timeMs;
+        }
+        current.add(value);
+        minMax.add(timeMs, value);
+        samples++;
+        lastTime = timeMs;
+        last = value;
+    }
+
+    synchronized long samples() {
+        return samples;
+    }
+
+    synchronized Snapshot snapshot(long nowMs) {
+        minMax.evict(nowMs);
+        HistogramSketch merged = current.emptyCopy();
+        merged.merge(current);
+        merged.merge(previous);
+        return new Snapshot(samples, lastTime, last, mean, Math.sqrt(variance), minMax.min(), minMax.max(),
+                merged.quantile(0.5), merged.quantile(0.9), merged.quantile(0.99), zScore(last), percentileRank(last));
+    }
+
+    record Snapshot(long samples, long lastTime, double last, double ewmaMean, double ewmaStd,
+                    double windowMin, double windowMax, double p50, double p90, double p99,
+                    double zScore, double percentileRank) {}
+}
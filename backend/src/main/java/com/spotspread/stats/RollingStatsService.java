@@ -0,0 +1,81 @@
+package com.spotspread.stats;
+
+import com.spotspread.config.RollingStatsConfig;
+import com.spotspread.config.RollingStatsConfig.Adaptive;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 每个（币种, 买入所, 卖出所）方向利润率的滚动统计，向套利任务提供 z-score / 分位数与自适应阈值判断。
+ */
+@Service
+public class RollingStatsService {
+
+    private final RollingStatsConfig config;
+    private final ConcurrentHashMap<SeriesKey, RollingStats> stats = new ConcurrentHashMap<>();
+
+    public RollingStatsService(RollingStatsConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * 先用已有统计评估 value，再把 value 计入统计。
+     * 分位数需遍历草图，只在 value 达到固定阈值 floorPct 时计算。
+     */
+    public Evaluation observe(String symbol, String exchangeBuy, String exchangeSell, double value, long nowMs, double floorPct) {
+        RollingStats s = stats.computeIfAbsent(new SeriesKey(symbol, exchangeBuy, exchangeSell),
+                k -> new RollingStats(config.getHalfLifeSeconds(), config.getWindowSeconds(),
+                        config.getSketchMinPct(), config.getSketchMaxPct(), config.getSketchBucketPct()));
+        double z = s.zScore(value);
+        double percentile = value >= floorPct ? s.percentileRank(value) : Double.NaN;
+        long samples = s.samples();
+        s.add(nowMs, value);
+        return new Evaluation(z, percentile, passesAdaptive(z, percentile, samples));
+    }
+
+    private boolean passesAdaptive(double z, double percentile, long samples) {
+        Adaptive adaptive = config.getAdaptive();
+        if (!adaptive.isEnabled() || samples < adaptive.getMinSamples()) return true;
+        return z >= adaptive.getMinZScore() || percentile >= adaptive.getMinPercentile();
+    }
+
+    public List<PairRollingStats> list(String symbol, String venue) {
+        long now = System.currentTimeMillis();
+        List<PairRollingStats> list = new ArrayList<>();
+        stats.forEach((k, s) -> {
+            if (symbol != null && !symbol.equals(k.symbol())) return;
+            if (venue != null && !venue.equals(k.exchangeBuy()) && !venue.equals(k.exchangeSell())) return;
+            RollingStats.Snapshot snap = s.snapshot(now);
+            list.add(new PairRollingStats(k.symbol(), k.exchangeBuy(), k.exchangeSell(), snap.samples(), snap.lastTime(),
+                    orNull(snap.last()), orNull(snap.ewmaMean()), orNull(snap.ewmaStd()),
+                    orNull(snap.windowMin()), orNull(snap.windowMax()),
+                    orNull(snap.p50()), orNull(snap.p90()), orNull(snap.p99()),
+                    orNull(snap.zScore()), orNull(snap.percentileRank())));
+        });
+        list.sort(Comparator.comparing(PairRollingStats::symbol)
+                .thenComparing(PairRollingStats::exchangeBuy)
+                .thenComparing(PairRollingStats::exchangeSell));
+        return list;
+    }
+
+    private static Double orNull(double v) {
+        return Double.isNaN(v) || Double.isInfinite(v) ? null : v;
+    }
+
+    private record SeriesKey(String symbol, String exchangeBuy, String exchangeSell) {}
+
+    /**
+     * @param zScore     相对 EWMA 均值的标准差倍数，样本不足时为 NaN
+     * @param percentile 在最近窗口中的分位（0~1），未达固定阈值时不计算（NaN）
+     * @param adaptivePass 自适应阈值是否通过（未开启时恒为 true）
+     */
+    public record Evaluation(double zScore, double percentile, boolean adaptivePass) {}
+
+    public record PairRollingStats(String symbol, String exchangeBuy, String exchangeSell, long samples, long lastUpdateMs,
+                                   Double last, Double ewmaMean, Double ewmaStd, Double windowMin, Double windowMax,
+                                   Double p50, Double p90, Double p99, Double zScore, Double percentileRank) {}
+}
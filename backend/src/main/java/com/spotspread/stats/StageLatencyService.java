@@ -0,0 +1,166 @@
+package com.spotspread.stats;
+
+import com.spotspread.config.StageLatencyConfig;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 行情链路分阶段耗时直方图（HdrHistogram），按 (阶段, 交易所, 币种) 分别记录。
+ * 写入走 Recorder，无锁且不分配；读取侧按 stage-latency.interval-ms 周期切换区间直方图并累加到累计直方图。
+ * 不区分币种的阶段（如整帧处理、解压）币种记为 {@value #ALL}；落库阶段的"交易所"为写入目标（sink 名）。
+ */
+@Service
+public class StageLatencyService {
+
+    public static final String ALL = "*";
+    private static final long LOWEST_DISCERNIBLE_NANOS = 1_000;
+
+    /** 按链路先后排列 */
+    public enum Stage {
+        /** 一帧从传输层收到到 handler 处理完毕；一帧可能含多个币种，只按交易所记录，按币种的耗时看 PARSE / CACHE_WRITE */
+        FRAME,
+        /** 压缩帧解压 */
+        DECOMPRESS,
+        /** 收帧到解析出买一/卖一（写缓存前） */
+        PARSE,
+        /** 仲裁并写入行情缓存 */
+        CACHE_WRITE,
+        /** 单个币种全部交易所组合的价差评估 */
+        SPREAD_DETECT,
+        /** 一轮评估结果写入某个 sink 的队列 */
+        SINK_ENQUEUE,
+        /** sink 一批写出（MySQL / Influx / 日志 / webhook） */
+        FLUSH
+    }
+
+    private final StageLatencyConfig config;
+    private final long highestTrackableNanos;
+    private final Map<Stage, ConcurrentHashMap<String, ConcurrentHashMap<String, StageRecorder>>> recorders = new EnumMap<>(Stage.class);
+    /** 当前线程正在处理的帧的开始时刻，供 PARSE 计算收帧到写缓存的耗时 */
+    private final ThreadLocal<long[]> frameStart = ThreadLocal.withInitial(() -> new long[1]);
+    private volatile long intervalStartMs = System.currentTimeMillis();
+    private volatile long intervalEndMs;
+
+    public StageLatencyService(StageLatencyConfig config) {
+        this.config = config;
+        this.highestTrackableNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, config.getMaxTrackableMs()));
+        for (Stage s : Stage.values()) recorders.put(s, new ConcurrentHashMap<>());
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public void record(Stage stage, String exchange, String symbol, long nanos) {
+        if (!config.isEnabled() || nanos < 0) return;
+        recorder(stage, exchange, symbol).recorder.recordValue(Math.min(nanos, highestTrackableNanos));
+    }
+
+    /** 收帧线程在调用 handler 前后标记，帧内的 {@link #frameStartNanos()} 即本帧开始时刻 */
+    public void beginFrame(long nanos) {
+        frameStart.get()[0] = nanos;
+    }
+
+    public void endFrame() {
+        frameStart.get()[0] = 0;
+    }
+
+    /** 不在帧处理中（如非 WebSocket 来源的写入）返回 0 */
+    public long frameStartNanos() {
+        return frameStart.get()[0];
+    }
+
+    /** 切换区间：各 Recorder 的区间直方图替换为最近一个区间，并累加到累计直方图 */
+    @Scheduled(fixedRateString = "${stage-latency.interval-ms:10000}")
+    public void rollInterval() {
+        long now = System.currentTimeMillis();
+        for (Map<String, ConcurrentHashMap<String, StageRecorder>> byExchange : recorders.values()) {
+            for (Map<String, StageRecorder> bySymbol : byExchange.values()) {
+                for (StageRecorder r : bySymbol.values()) r.roll();
+            }
+        }
+        intervalStartMs = intervalEndMs > 0 ? intervalEndMs : intervalStartMs;
+        intervalEndMs = now;
+    }
+
+    /** 按阶段、交易所、币种排序；参数为 null 表示不过滤 */
+    public List<StageLatency> list(Stage stage, String exchange, String symbol) {
+        List<StageLatency> list = new ArrayList<>();
+        long start = intervalStartMs;
+        long end = intervalEndMs;
+        recorders.forEach((s, byExchange) -> {
+            if (stage != null && stage != s) return;
+            byExchange.forEach((ex, bySymbol) -> {
+                if (exchange != null && !exchange.equals(ex)) return;
+                bySymbol.forEach((sym, r) -> {
+                    if (symbol != null && !symbol.equals(sym)) return;
+                    list.add(r.snapshot(s, ex, sym, start, end));
+                });
+            });
+        });
+        list.sort(Comparator.comparing(StageLatency::stage)
+                .thenComparing(StageLatency::exchange)
+                .thenComparing(StageLatency::symbol));
+        return list;
+    }
+
+    private StageRecorder recorder(Stage stage, String exchange, String symbol) {
+        ConcurrentHashMap<String, StageRecorder> bySymbol = recorders.get(stage).get(exchange);
+        if (bySymbol == null) bySymbol = recorders.get(stage).computeIfAbsent(exchange, k -> new ConcurrentHashMap<>());
+        StageRecorder r = bySymbol.get(symbol);
+        return r != null ? r : bySymbol.computeIfAbsent(symbol, k -> new StageRecorder());
+    }
+
+    private final class StageRecorder {
+        final Recorder recorder = new Recorder(LOWEST_DISCERNIBLE_NANOS, highestTrackableNanos, config.getSignificantDigits());
+        Histogram interval;
+        Histogram spare;
+        final Histogram cumulative = new Histogram(LOWEST_DISCERNIBLE_NANOS, highestTrackableNanos, config.getSignificantDigits());
+
+        synchronized void roll() {
+            Histogram h = recorder.getIntervalHistogram(spare);
+            cumulative.add(h);
+            spare = interval;
+            interval = h;
+        }
+
+        synchronized StageLatency snapshot(Stage stage, String exchange, String symbol, long start, long end) {
+            return new StageLatency(stage, exchange, symbol, start, end, Percentiles.of(interval), Percentiles.of(cumulative));
+        }
+    }
+
+    /**
+     * 单个阶段的分位数（毫秒）。
+     */
+    public record Percentiles(long count, double p50Ms, double p90Ms, double p99Ms, double p999Ms, double maxMs) {
+
+        static final Percentiles EMPTY = new Percentiles(0, 0, 0, 0, 0, 0);
+
+        static Percentiles of(Histogram h) {
+            if (h == null || h.getTotalCount() == 0) return EMPTY;
+            return new Percentiles(h.getTotalCount(), ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(90)),
+                    ms(h.getValueAtPercentile(99)), ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue()));
+        }
+
+        private static double ms(long nanos) {
+            return nanos / 1e6;
+        }
+    }
+
+    /**
+     * @param intervalStartMs 最近一个完整区间的起止（epoch 毫秒），interval 为该区间内的分布
+     * @param cumulative      启动以来（截至最近一次切换）的分布
+     */
+    public record StageLatency(Stage stage, String exchange, String symbol, long intervalStartMs, long intervalEndMs,
+                               Percentiles interval, Percentiles cumulative) {}
+}
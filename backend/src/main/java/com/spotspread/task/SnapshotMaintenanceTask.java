@@ -0,0 +1,180 @@
+package com.spotspread.task;
+
+import com.spotspread.config.SnapshotStorageConfig;
+import com.spotspread.repository.SnapshotPartitionRepository;
+import com.spotspread.repository.SpreadRollupRepository;
+import com.spotspread.repository.SpreadRollupRepository.RollupTier;
+import com.spotspread.service.SnapshotArchiveService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 快照表维护：每分钟滚动 1m/1h 汇总；每小时预建日分区、归档并删除过期分区、清理过期 1m 汇总。
+ * 过期分区只有在 1h 汇总已覆盖后才会删除，保证历史统计不丢。
+ */
+@Component
+public class SnapshotMaintenanceTask {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotMaintenanceTask.class);
+    private static final int DELETE_BATCH = 10_000;
+    private static final int MAX_ROLLUP_CHUNKS_PER_RUN = 8;
+
+    private final SnapshotStorageConfig config;
+    private final SpreadRollupRepository rollupRepository;
+    private final SnapshotPartitionRepository partitionRepository;
+    private final SnapshotArchiveService archiveService;
+    private volatile boolean partitionWarned = false;
+
+    public SnapshotMaintenanceTask(SnapshotStorageConfig config,
+                                   SpreadRollupRepository rollupRepository,
+                                   SnapshotPartitionRepository partitionRepository,
+                                   SnapshotArchiveService archiveService) {
+        this.config = config;
+        this.rollupRepository = rollupRepository;
+        this.partitionRepository = partitionRepository;
+        this.archiveService = archiveService;
+    }
+
+    @Scheduled(cron = "5 * * * * *")
+    public void rollup() {
+        try {
+            rollupMinutes();
+            rollupHours();
+        } catch (Exception e) {
+            log.warn("[SnapshotMaintenance] 汇总失败: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelay = 3_600_000, initialDelay = 10_000)
+    public void maintainPartitions() {
+        try {
+            if (!partitionRepository.isPartitioned()) {
+                if (!partitionWarned) {
+                    log.warn("[SnapshotMaintenance] {} 不是分区表，跳过分区预建与过期删除（迁移语句见 schema.sql）", SnapshotPartitionRepository.TABLE);
+                    partitionWarned = true;
+                }
+            } else {
+                ensureFuturePartitions();
+                dropExpiredPartitions();
+            }
+            purgeMinuteRollups();
+        } catch (Exception e) {
+            log.warn("[SnapshotMaintenance] 分区维护失败: {}", e.getMessage());
+        }
+    }
+
+    private void rollupMinutes() {
+        LocalDateTime target = LocalDateTime.now().minusSeconds(config.getRollupLagSeconds()).truncatedTo(ChronoUnit.MINUTES);
+        LocalDateTime from = rollupRepository.getWatermark(RollupTier.MINUTE);
+        if (from == null) {
+            LocalDateTime earliest = rollupRepository.findEarliestRawTime();
+            from = earliest != null ? earliest.truncatedTo(ChronoUnit.MINUTES) : target;
+        } else if (!from.isBefore(target)) {
+            return;
+        }
+        int chunks = 0;
+        do {
+            LocalDateTime to = min(from.plusMinutes(config.getMaxMinutesPerRollup()), target);
+            int n = rollupRepository.rollupMinutes(from, to);
+            log.debug("[SnapshotMaintenance] 1m 汇总 [{}, {}) 写入 {} 行", from, to, n);
+            from = to;
+        } while (from.isBefore(target) && ++chunks < MAX_ROLLUP_CHUNKS_PER_RUN);
+    }
+
+    private void rollupHours() {
+        LocalDateTime minuteMark = rollupRepository.getWatermark(RollupTier.MINUTE);
+        if (minuteMark == null) return;
+        LocalDateTime target = minuteMark.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime from = rollupRepository.getWatermark(RollupTier.HOUR);
+        if (from == null) {
+            LocalDateTime earliest = rollupRepository.findEarliestMinuteBucket();
+            from = earliest != null ? min(earliest.truncatedTo(ChronoUnit.HOURS), target) : target;
+        } else if (!from.isBefore(target)) {
+            return;
+        }
+        int n = rollupRepository.rollupHours(from, target);
+        log.debug("[SnapshotMaintenance] 1h 汇总 [{}, {}) 写入 {} 行", from, target, n);
+    }
+
+    private void ensureFuturePartitions() {
+        LocalDate last = null;
+        for (String name : partitionRepository.listPartitions()) {
+            LocalDate day = SnapshotPartitionRepository.partitionDay(name);
+            if (day != null && (last == null || day.isAfter(last))) last = day;
+        }
+        LocalDate today = LocalDate.now();
+        // 停机多日后补齐中间的日分区，否则这些天的数据会全部落进拆出的第一个分区
+        LocalDate start = last == null ? today : last.plusDays(1);
+        List<LocalDate> days = new ArrayList<>();
+        for (LocalDate d = start; !d.isAfter(today.plusDays(config.getPartitionsAhead())); d = d.plusDays(1)) {
+            days.add(d);
+        }
+        if (days.isEmpty()) return;
+        partitionRepository.addDailyPartitions(days, last == null);
+        log.info("[SnapshotMaintenance] 已预建分区 {} ~ {}", SnapshotPartitionRepository.partitionName(days.get(0)),
+                SnapshotPartitionRepository.partitionName(days.get(days.size() - 1)));
+    }
+
+    private void dropExpiredPartitions() throws Exception {
+        LocalDate cutoff = LocalDate.now().minusDays(config.getRawRetentionDays());
+        LocalDateTime minuteMark = rollupRepository.getWatermark(RollupTier.MINUTE);
+        LocalDateTime hourMark = rollupRepository.getWatermark(RollupTier.HOUR);
+        List<String> partitions = partitionRepository.listPartitions();
+        for (int i = 0; i < partitions.size(); i++) {
+            String name = partitions.get(i);
+            LocalDate day = SnapshotPartitionRepository.partitionDay(name);
+            LocalDate end;
+            if (day != null) {
+                end = day.plusDays(1);
+            } else if (SnapshotPartitionRepository.HISTORY_PARTITION.equals(name) && i + 1 < partitions.size()) {
+                // p_hist 的上界即其后第一个日分区的起点
+                LocalDate next = SnapshotPartitionRepository.partitionDay(partitions.get(i + 1));
+                if (next == null) continue;
+                end = next;
+            } else {
+                continue;
+            }
+            if (end.isAfter(cutoff)) continue;
+            LocalDateTime upper = end.atStartOfDay();
+            if (minuteMark == null || hourMark == null || minuteMark.isBefore(upper) || hourMark.isBefore(upper)) {
+                log.info("[SnapshotMaintenance] 分区 {} 已过期但汇总尚未覆盖，暂不删除", name);
+                continue;
+            }
+            if (config.isArchiveEnabled()) {
+                long expected = partitionRepository.countRows(name);
+                long written = archiveService.archivePartition(name);
+                if (written != expected) {
+                    log.warn("[SnapshotMaintenance] 分区 {} 归档行数不一致 expected={} written={}，暂不删除", name, expected, written);
+                    continue;
+                }
+            }
+            partitionRepository.dropPartition(name);
+            log.info("[SnapshotMaintenance] 已删除过期分区 {}", name);
+        }
+    }
+
+    private void purgeMinuteRollups() {
+        LocalDateTime hourMark = rollupRepository.getWatermark(RollupTier.HOUR);
+        if (hourMark == null) return;
+        LocalDateTime cutoff = min(LocalDate.now().minusDays(config.getMinuteRollupRetentionDays()).atStartOfDay(), hourMark);
+        long total = 0;
+        int n;
+        do {
+            n = rollupRepository.deleteMinuteRollupsBefore(cutoff, DELETE_BATCH);
+            total += n;
+        } while (n >= DELETE_BATCH);
+        if (total > 0) log.info("[SnapshotMaintenance] 已清理 {} 之前的 1m 汇总 {} 行", cutoff, total);
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
@@ -0,0 +1,226 @@
+package com.spotspread.task;
+
+import com.spotspread.config.ArbitrageConfig.ProfitMode;
+import com.spotspread.config.ExchangeFeeRates;
+import com.spotspread.jfr.OpportunityDetectedEvent;
+import com.spotspread.service.OrderBookCacheService;
+import com.spotspread.sink.Opportunity;
+import com.spotspread.stats.RollingStatsService;
+import com.spotspread.stats.RollingStatsService.Evaluation;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.util.List;
+
+/**
+ * 价差计算：读取行情缓存中各交易所的买一/卖一，按利润率模式评估每个交易所组合的两个方向。
+ * 不持有调度与分发逻辑，线上由 {@link SpreadArbitrageStatsTask} 每秒调用，回测时每个参数组合各建一个实例，
+ * 配上自己的缓存、滚动统计与模拟时钟。
+ */
+public final class SpreadEngine {
+
+    public static final List<String> EXCHANGES = List.of(
+            "binance", "bitfinex", "coinex", "okx", "bybit", "gateio", "bitget", "lbank", "whitebit",
+            "bitunix", "cryptocom"
+    );
+    public static final BigDecimal DEFAULT_THRESHOLD_PCT = new BigDecimal("0.5");
+    /** 行情超过此时长未更新则不参与计算 */
+    public static final long STALE_MS = 500;
+
+    private final OrderBookCacheService cache;
+    private final RollingStatsService rollingStats;
+    private final Clock clock;
+    private final BigDecimal thresholdPct;
+    private final double thresholdValue;
+
+    /**
+     * @param thresholdPct 入库阈值（利润率 %），同时作为滚动统计计算分位数的下限
+     */
+    public SpreadEngine(OrderBookCacheService cache, RollingStatsService rollingStats, Clock clock, BigDecimal thresholdPct) {
+        this.cache = cache;
+        this.rollingStats = rollingStats;
+        this.clock = clock;
+        this.thresholdPct = thresholdPct;
+        this.thresholdValue = thresholdPct.doubleValue();
+    }
+
+    public BigDecimal getThresholdPct() {
+        return thresholdPct;
+    }
+
+    /**
+     * 单个方向的评估结果，所有方向都会分发（Influx 记录全部），达到阈值的才会入库。
+     * 同时更新该方向的滚动统计；开启自适应阈值时，达到固定阈值但不够异常的不入库。
+     */
+    private Opportunity evaluate(String symbol, String exBuy, String exSell,
+                                 BigDecimal priceBuy, BigDecimal priceSell, BigDecimal spread, BigDecimal profitPct,
+                                 BigDecimal feeBuy, BigDecimal feeSell, ProfitMode mode) {
+        long now = clock.millis();
+        Evaluation eval = rollingStats.observe(symbol, exBuy, exSell, profitPct.doubleValue(), now, thresholdValue);
+        boolean above = profitPct.compareTo(thresholdPct) >= 0 && eval.adaptivePass();
+        if (above) {
+            OpportunityDetectedEvent event = new OpportunityDetectedEvent();
+            if (event.shouldCommit()) {
+                event.symbol = symbol;
+                event.exchangeBuy = exBuy;
+                event.exchangeSell = exSell;
+                event.profitMode = mode.name();
+                event.profitPct = profitPct.doubleValue();
+                event.zScore = eval.zScore();
+                event.commit();
+            }
+        }
+        return new Opportunity(symbol, exBuy, exSell, priceBuy, priceSell, spread, profitPct, feeBuy, feeSell,
+                mode.name(), above, now, eval.zScore(), eval.percentile());
+    }
+
+    /** 单个币种全部交易所组合按 mode 的评估结果追加到 out */
+    public void collect(String symbol, ProfitMode mode, List<Opportunity> out) {
+        String sym = symbol + "USDT";
+        long now = clock.millis();
+
+        for (int i = 0; i < EXCHANGES.size(); i++) {
+            for (int j = i + 1; j < EXCHANGES.size(); j++) {
+                String exA = EXCHANGES.get(i);
+                String exB = EXCHANGES.get(j);
+                var bookA = cache.getBidAsk(exA, sym);
+                var bookB = cache.getBidAsk(exB, sym);
+                if (bookA == null || bookB == null) continue;
+                if (now - bookA.updatedAt() > STALE_MS || now - bookB.updatedAt() > STALE_MS) continue;
+
+                BigDecimal aBid = bookA.bid1(), aAsk = bookA.ask1();
+                BigDecimal bBid = bookB.bid1(), bAsk = bookB.ask1();
+                if (aBid == null || aAsk == null || bBid == null || bAsk == null) continue;
+                if (aBid.compareTo(BigDecimal.ZERO) <= 0 || bBid.compareTo(BigDecimal.ZERO) <= 0) continue;
+                if (aAsk.compareTo(BigDecimal.ZERO) <= 0 || bAsk.compareTo(BigDecimal.ZERO) <= 0) continue;
+
+                BigDecimal makerA = ExchangeFeeRates.getSpotMakerFeePct(exA);
+                BigDecimal takerA = ExchangeFeeRates.getSpotTakerFeePct(exA);
+                BigDecimal makerB = ExchangeFeeRates.getSpotMakerFeePct(exB);
+                BigDecimal takerB = ExchangeFeeRates.getSpotTakerFeePct(exB);
+                if (makerA == null || takerA == null || makerB == null || takerB == null) continue;
+
+                switch (mode) {
+                    case MAX_PROFIT -> collectMaxProfit(symbol, exA, exB, aBid, aAsk, bBid, bAsk, makerA, takerA, makerB, takerB, out);
+                    case TAKER_MAKER -> collectTakerMaker(symbol, exA, exB, aBid, aAsk, bBid, bAsk, makerA, takerA, makerB, takerB, out);
+                    case TAKER_TAKER -> collectTakerTaker(symbol, exA, exB, aBid, aAsk, bBid, bAsk, takerA, takerB, out);
+                }
+            }
+        }
+    }
+
+    /**
+     * 最大利润率模式：选择 maker+taker 组合中总手续费最小的。
+     */
+    private void collectMaxProfit(String symbol, String exA, String exB,
+                                  BigDecimal aBid, BigDecimal aAsk, BigDecimal bBid, BigDecimal bAsk,
+                                  BigDecimal makerA, BigDecimal takerA, BigDecimal makerB, BigDecimal takerB,
+                                  List<Opportunity> out) {
+        // 方向1：在 B 买入(bid)，在 A 卖出(ask)
+        calcMaxProfitDirection(symbol, exA, exB, aAsk, bBid, makerA, takerA, makerB, takerB, out);
+        // 方向2：在 A 买入(bid)，在 B 卖出(ask)
+        calcMaxProfitDirection(symbol, exB, exA, bAsk, aBid, makerB, takerB, makerA, takerA, out);
+    }
+
+    private void calcMaxProfitDirection(String symbol, String exSell, String exBuy,
+                                        BigDecimal sellAsk, BigDecimal buyBid,
+                                        BigDecimal makerSell, BigDecimal takerSell,
+                                        BigDecimal makerBuy, BigDecimal takerBuy,
+                                        List<Opportunity> out) {
+        BigDecimal rawPct = sellAsk.divide(buyBid, 6, RoundingMode.HALF_UP)
+                .subtract(BigDecimal.ONE).multiply(BigDecimal.valueOf(100));
+        BigDecimal totalA = makerSell.add(takerBuy);
+        BigDecimal totalB = takerSell.add(makerBuy);
+        BigDecimal feeSell, feeBuy;
+        if (totalA.compareTo(totalB) <= 0) {
+            feeSell = makerSell; feeBuy = takerBuy;
+        } else {
+            feeSell = takerSell; feeBuy = makerBuy;
+        }
+        BigDecimal profitPct = rawPct.subtract(feeSell).subtract(feeBuy);
+        BigDecimal spread = sellAsk.subtract(buyBid);
+
+        out.add(evaluate(symbol, exBuy, exSell, buyBid, sellAsk, spread, profitPct, feeBuy, feeSell, ProfitMode.MAX_PROFIT));
+    }
+
+    /**
+     * taker+maker 模式：先高卖后低买 / 先低买后高卖。
+     */
+    private void collectTakerMaker(String symbol, String exA, String exB,
+                                   BigDecimal aBid, BigDecimal aAsk, BigDecimal bBid, BigDecimal bAsk,
+                                   BigDecimal makerA, BigDecimal takerA, BigDecimal makerB, BigDecimal takerB,
+                                   List<Opportunity> out) {
+        // 方向1：先高卖后低买（基于卖1价）
+        BigDecimal profitAsk, spreadAsk, feeBuyAsk, feeSellAsk;
+        String exBuyAsk, exSellAsk;
+        BigDecimal priceBuyAsk, priceSellAsk;
+        if (aAsk.compareTo(bAsk) > 0) {
+            // A.ask1 > B.ask1：先在 A 以 ask1 卖出，后在 B 以 ask1 买入
+            profitAsk = aAsk.divide(bAsk, 6, RoundingMode.HALF_UP)
+                    .subtract(BigDecimal.ONE).multiply(BigDecimal.valueOf(100))
+                    .subtract(makerA).subtract(takerB);
+            spreadAsk = aAsk.subtract(bAsk);
+            exSellAsk = exA; exBuyAsk = exB;
+            priceSellAsk = aAsk; priceBuyAsk = bAsk;
+            feeSellAsk = makerA; feeBuyAsk = takerB;
+        } else {
+            // B.ask1 > A.ask1
+            profitAsk = bAsk.divide(aAsk, 6, RoundingMode.HALF_UP)
+                    .subtract(BigDecimal.ONE).multiply(BigDecimal.valueOf(100))
+                    .subtract(makerB).subtract(takerA);
+            spreadAsk = bAsk.subtract(aAsk);
+            exSellAsk = exB; exBuyAsk = exA;
+            priceSellAsk = bAsk; priceBuyAsk = aAsk;
+            feeSellAsk = makerB; feeBuyAsk = takerA;
+        }
+        out.add(evaluate(symbol, exBuyAsk, exSellAsk, priceBuyAsk, priceSellAsk, spreadAsk, profitAsk, feeBuyAsk, feeSellAsk, ProfitMode.TAKER_MAKER));
+
+        // 方向2：先低买后高卖（基于买1价）
+        BigDecimal profitBid, spreadBid, feeBuyBid, feeSellBid;
+        String exBuyBid, exSellBid;
+        BigDecimal priceBuyBid, priceSellBid;
+        if (aBid.compareTo(bBid) > 0) {
+            // A.bid1 > B.bid1：先在 B 以 bid1 买入，后在 A 以 bid1 卖出
+            profitBid = aBid.divide(bBid, 6, RoundingMode.HALF_UP)
+                    .subtract(BigDecimal.ONE).multiply(BigDecimal.valueOf(100))
+                    .subtract(takerA).subtract(makerB);
+            spreadBid = aBid.subtract(bBid);
+            exSellBid = exA; exBuyBid = exB;
+            priceSellBid = aBid; priceBuyBid = bBid;
+            feeSellBid = takerA; feeBuyBid = makerB;
+        } else {
+            // B.bid1 > A.bid1
+            profitBid = bBid.divide(aBid, 6, RoundingMode.HALF_UP)
+                    .subtract(BigDecimal.ONE).multiply(BigDecimal.valueOf(100))
+                    .subtract(takerB).subtract(makerA);
+            spreadBid = bBid.subtract(aBid);
+            exSellBid = exB; exBuyBid = exA;
+            priceSellBid = bBid; priceBuyBid = aBid;
+            feeSellBid = takerB; feeBuyBid = makerA;
+        }
+        out.add(evaluate(symbol, exBuyBid, exSellBid, priceBuyBid, priceSellBid, spreadBid, profitBid, feeBuyBid, feeSellBid, ProfitMode.TAKER_MAKER));
+    }
+
+    /**
+     * taker+taker 模式：在 B 所以 ask1 买入，在 A 所以 bid1 卖出。
+     */
+    private void collectTakerTaker(String symbol, String exA, String exB,
+                                   BigDecimal aBid, BigDecimal aAsk, BigDecimal bBid, BigDecimal bAsk,
+                                   BigDecimal takerA, BigDecimal takerB,
+                                   List<Opportunity> out) {
+        // 方向1：在 B 以 ask1 买入，在 A 以 bid1 卖出
+        BigDecimal profit1 = aBid.divide(bAsk, 6, RoundingMode.HALF_UP)
+                .subtract(BigDecimal.ONE).multiply(BigDecimal.valueOf(100))
+                .subtract(takerA).subtract(takerB);
+        BigDecimal spread1 = aBid.subtract(bAsk);
+        out.add(evaluate(symbol, exB, exA, bAsk, aBid, spread1, profit1, takerB, takerA, ProfitMode.TAKER_TAKER));
+
+        // 方向2：在 A 以 ask1 买入，在 B 以 bid1 卖出
+        BigDecimal profit2 = bBid.divide(aAsk, 6, RoundingMode.HALF_UP)
+                .subtract(BigDecimal.ONE).multiply(BigDecimal.valueOf(100))
+                .subtract(takerB).subtract(takerA);
+        BigDecimal spread2 = bBid.subtract(aAsk);
+        out.add(evaluate(symbol, exA, exB, aAsk, bBid, spread2, profit2, takerA, takerB, ProfitMode.TAKER_TAKER));
+    }
+}
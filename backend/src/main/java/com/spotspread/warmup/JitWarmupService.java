@@ -0,0 +1,348 @@
+package com.spotspread.warmup;
+
+import com.spotspread.config.ArbitrageConfig;
+import com.spotspread.config.JitWarmupConfig;
+import com.spotspread.config.JitWarmupConfig.Source;
+import com.spotspread.config.RollingStatsConfig;
+import com.spotspread.config.StageLatencyConfig;
+import com.spotspread.event.InfluxDbMessagePublisher;
+import com.spotspread.recorder.FrameLogReader;
+import com.spotspread.recorder.FrameRecorder;
+import com.spotspread.service.ExchangePriceService;
+import com.spotspread.service.OrderBookCacheService;
+import com.spotspread.service.OrderBookCacheService.FeedWriter;
+import com.spotspread.sink.Opportunity;
+import com.spotspread.stats.RollingStatsService;
+import com.spotspread.stats.StageLatencyService;
+import com.spotspread.task.SpreadEngine;
+import com.spotspread.websocket.ManagedWebSocket;
+import com.spotspread.websocket.VenueHandlers;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedMethod;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 启动预热：在独立的沙箱里（新建的行情缓存、阶段耗时统计与滚动统计，InfluxDB 发布为空实现）
+ * 用线上同一套 {@link VenueHandlers} 与 {@link SpreadEngine} 循环处理报文语料，让收包与价差评估的热点方法在
+ * 线上连接建立之前完成 C2 编译。由 WebSocketRunner 在 "jit-warmup" 线程上调用，结束后才打开线上连接。
+ * <p>
+ * 是否编译完成由 JFR 的 jdk.Compilation 事件判断：线上入口 {@link #REQUIRED} 都已有 C2（非 OSR）版本，
+ * 且连续 quiet-ms 没有新的本项目方法完成 C2 编译；JFR 不可用时跑满时间预算。
+ */
+@Service
+public class JitWarmupService {
+
+    private static final Logger log = LoggerFactory.getLogger(JitWarmupService.class);
+
+    /** 线上由收包线程、价差任务直接调用的入口（类名.方法名），预热须让它们各自有 C2 版本 */
+    static final Set<String> REQUIRED = Set.of("ManagedWebSocket.onMessage", "SpreadEngine.collect");
+    /** 服务端帧为 gzip 二进制的交易所，随包语料是解压后的文本 */
+    private static final Set<String> GZIP_VENUES = Set.of("coinex");
+    private static final int C2_LEVEL = 4;
+    /** 每个交易所一次连续喂的帧数，之后轮到下一个交易所 */
+    private static final int BATCH = 64;
+
+    private final JitWarmupConfig config;
+    private final ArbitrageConfig arbitrageConfig;
+    private final StageLatencyConfig latencyConfig;
+    private final RollingStatsConfig rollingStatsConfig;
+    private final FrameRecorder recorder;
+    private final Clock clock;
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder sweeps = new LongAdder();
+    private volatile String state = "PENDING";
+    private volatile String source;
+    private volatile String reason;
+    private volatile long startedAt;
+    private volatile long elapsedMs;
+    private volatile CompilationWatcher watcher;
+    private volatile boolean cancelled;
+
+    public JitWarmupService(JitWarmupConfig config, ArbitrageConfig arbitrageConfig, StageLatencyConfig latencyConfig,
+                            RollingStatsConfig rollingStatsConfig, FrameRecorder recorder, Clock clock) {
+        this.config = config;
+        this.arbitrageConfig = arbitrageConfig;
+        this.latencyConfig = latencyConfig;
+        this.rollingStatsConfig = rollingStatsConfig;
+        this.recorder = recorder;
+        this.clock = clock;
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /** 停机时让进行中的预热尽快结束 */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /** 阻塞直到预热结束；任何异常只记日志，不影响之后打开线上连接 */
+    public void run() {
+        startedAt = System.currentTimeMillis();
+        long start = System.nanoTime();
+        state = "RUNNING";
+        try {
+            StageLatencyService latency = new StageLatencyService(latencyConfig);
+            OrderBookCacheService cache = new OrderBookCacheService(latency, clock);
+            List<Replay> replays = load(cache, latency);
+            if (replays.isEmpty()) {
+                finish("SKIPPED", "no corpus", start);
+                return;
+            }
+            SpreadEngine engine = new SpreadEngine(cache, new RollingStatsService(rollingStatsConfig), clock,
+                    SpreadEngine.DEFAULT_THRESHOLD_PCT);
+            log.info("[JitWarmup] 开始预热，来源 {}，{} 路报文，预算 {}ms", source, replays.size(), config.getMaxDurationMs());
+            try (CompilationWatcher w = CompilationWatcher.start()) {
+                watcher = w;
+                finish("DONE", loop(replays, engine, start, w), start);
+            }
+        } catch (Exception e) {
+            finish("FAILED", e.getMessage(), start);
+            log.warn("[JitWarmup] 预热失败，直接打开连接: {}", e.getMessage());
+            return;
+        }
+        CompilationWatcher w = watcher;
+        log.info("[JitWarmup] 预热结束（{}），{}ms，{} 帧，{} 轮评估，C2 编译 {} 个方法{}", reason, elapsedMs, frames.sum(),
+                sweeps.sum(), w == null ? 0 : w.compiled.sum(), w == null || w.pending.isEmpty() ? "" : "，未编译 " + w.pending);
+    }
+
+    /** @return 结束原因 */
+    private String loop(List<Replay> replays, SpreadEngine engine, long start, CompilationWatcher w) {
+        long maxNanos = TimeUnit.MILLISECONDS.toNanos(config.getMaxDurationMs());
+        long minNanos = TimeUnit.MILLISECONDS.toNanos(config.getMinDurationMs());
+        long quietNanos = TimeUnit.MILLISECONDS.toNanos(config.getQuietMs());
+        int framesPerSweep = Math.max(1, config.getFramesPerSweep());
+        List<Opportunity> out = new ArrayList<>();
+        long sinceSweep = 0;
+        while (true) {
+            for (Replay r : replays) {
+                int n = r.next();
+                frames.add(n);
+                sinceSweep += n;
+            }
+            if (sinceSweep >= framesPerSweep) {
+                sweep(engine, out);
+                sinceSweep = 0;
+            }
+            long now = System.nanoTime();
+            if (cancelled) return "cancelled";
+            if (now - start >= maxNanos) return "budget";
+            if (w.available && now - start >= minNanos && w.pending.isEmpty() && now - w.lastCompiledNanos >= quietNanos) {
+                return "compiled";
+            }
+        }
+    }
+
+    /** 与 SpreadArbitrageStatsTask 相同：全部币种按线上模式评估一轮 */
+    private void sweep(SpreadEngine engine, List<Opportunity> out) {
+        for (String symbol : ExchangePriceService.SYMBOLS) {
+            out.clear();
+            engine.collect(symbol, arbitrageConfig.getProfitMode(), out);
+        }
+        sweeps.increment();
+    }
+
+    private void finish(String state, String reason, long start) {
+        this.reason = reason;
+        this.elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        this.state = state;
+    }
+
+    private List<Replay> load(OrderBookCacheService cache, StageLatencyService latency) {
+        Map<String, BiFunction<FeedWriter, List<String>, ManagedWebSocket>> factories =
+                VenueHandlers.factories(new InfluxDbMessagePublisher(event -> {}), latency);
+        List<String> symbols = ExchangePriceService.SYMBOLS.stream().map(s -> s + "USDT").toList();
+        if (config.getSource() == Source.RECORDED) {
+            List<Replay> recorded = loadRecorded(cache, latency, factories, symbols);
+            if (!recorded.isEmpty()) {
+                source = "recorded";
+                return recorded;
+            }
+            log.info("[JitWarmup] 最近 {} 分钟没有录制的帧，改用随包语料", config.getRecordedMinutes());
+        }
+        source = "bundled";
+        List<Replay> replays = new ArrayList<>();
+        for (Map.Entry<String, BiFunction<FeedWriter, List<String>, ManagedWebSocket>> e : factories.entrySet()) {
+            String exchange = e.getKey();
+            try {
+                List<Object> frames = loadBundled(exchange);
+                if (frames.isEmpty()) continue;
+                ManagedWebSocket client = e.getValue().apply(cache.feed(exchange, exchange), symbols);
+                client.setName("warmup-" + exchange);
+                client.setLatency(latency);
+                replays.add(new Replay(client, frames.toArray()));
+            } catch (IOException ex) {
+                log.warn("[JitWarmup] {} 语料读取失败: {}", exchange, ex.getMessage());
+            }
+        }
+        return replays;
+    }
+
+    /** 每条录制连接一个 handler 实例，与回测相同（Bitfinex chanId 等连接级状态互不干扰） */
+    private List<Replay> loadRecorded(OrderBookCacheService cache, StageLatencyService latency,
+                                      Map<String, BiFunction<FeedWriter, List<String>, ManagedWebSocket>> factories,
+                                      List<String> symbols) {
+        Map<String, List<Object>> byConnection = new HashMap<>();
+        Map<String, String> exchanges = new HashMap<>();
+        long toMs = System.currentTimeMillis();
+        long fromMs = toMs - TimeUnit.MINUTES.toMillis(config.getRecordedMinutes());
+        int max = config.getMaxRecordedFrames();
+        long[] count = {0};
+        try {
+            FrameLogReader.read(recorder.getDir(), fromMs, toMs, frame -> {
+                if (frame.connect() || frame.exchange() == null || frame.connection() == null
+                        || !factories.containsKey(frame.exchange())) return true;
+                exchanges.putIfAbsent(frame.connection(), frame.exchange());
+                byConnection.computeIfAbsent(frame.connection(), k -> new ArrayList<>())
+                        .add(frame.binary() ? frame.payload() : frame.text());
+                return ++count[0] < max;
+            });
+        } catch (IOException e) {
+            log.warn("[JitWarmup] 读取录制帧失败: {}", e.getMessage());
+            return List.of();
+        }
+        List<Replay> replays = new ArrayList<>();
+        for (Map.Entry<String, List<Object>> e : byConnection.entrySet()) {
+            String exchange = exchanges.get(e.getKey());
+            ManagedWebSocket client = factories.get(exchange).apply(cache.feed(exchange, e.getKey()), symbols);
+            client.setName("warmup-" + e.getKey());
+            client.setLatency(latency);
+            replays.add(new Replay(client, e.getValue().toArray()));
+        }
+        return replays;
+    }
+
+    private static List<Object> loadBundled(String exchange) throws IOException {
+        ClassPathResource resource = new ClassPathResource("corpus/" + exchange + ".txt");
+        List<Object> frames = new ArrayList<>();
+        if (!resource.exists()) return frames;
+        boolean gzip = GZIP_VENUES.contains(exchange);
+        try (InputStream in = resource.getInputStream();
+             BufferedReader r = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) continue;
+                frames.add(gzip ? gzip(line) : line);
+            }
+        }
+        return frames;
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(text.length() / 2 + 32);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    public WarmupStatus status() {
+        CompilationWatcher w = watcher;
+        long elapsed = "RUNNING".equals(state) ? System.currentTimeMillis() - startedAt : elapsedMs;
+        return new WarmupStatus(config.isEnabled(), state, source, reason, startedAt, elapsed, frames.sum(), sweeps.sum(),
+                w != null && w.available, w == null ? 0 : w.compiled.sum(), w == null ? List.of() : List.copyOf(new TreeSet<>(w.pending)));
+    }
+
+    /**
+     * @param state       PENDING / RUNNING / DONE / SKIPPED / FAILED
+     * @param reason      DONE 时为 compiled（关键方法已 C2 编译且趋于平静）/ budget / cancelled
+     * @param c2Compiled  预热期间完成 C2 编译的本项目方法数（不含 OSR）
+     * @param pending     尚未有 C2 版本的关键入口
+     */
+    public record WarmupStatus(boolean enabled, String state, String source, String reason, long startedAt, long elapsedMs,
+                               long frames, long sweeps, boolean jfrAvailable, long c2Compiled, List<String> pending) {}
+
+    /** 一路报文：一个 handler 实例与它的帧，循环播放 */
+    private static final class Replay {
+        final ManagedWebSocket client;
+        final Object[] frames;
+        int cursor;
+
+        Replay(ManagedWebSocket client, Object[] frames) {
+            this.client = client;
+            this.frames = frames;
+        }
+
+        /** 喂下一批帧，返回帧数 */
+        int next() {
+            int n = Math.min(BATCH, frames.length);
+            for (int i = 0; i < n; i++) {
+                Object f = frames[cursor];
+                if (f instanceof byte[] data) client.onBinaryMessage(data);
+                else client.onMessage((String) f);
+                if (++cursor == frames.length) cursor = 0;
+            }
+            return n;
+        }
+    }
+
+    /** 在 JFR 流线程上跟踪本项目方法的 C2 编译 */
+    private static final class CompilationWatcher implements AutoCloseable {
+        final Set<String> pending = ConcurrentHashMap.newKeySet();
+        final LongAdder compiled = new LongAdder();
+        final boolean available;
+        volatile long lastCompiledNanos = System.nanoTime();
+        private final RecordingStream stream;
+
+        private CompilationWatcher(RecordingStream stream) {
+            this.stream = stream;
+            this.available = stream != null;
+            pending.addAll(REQUIRED);
+        }
+
+        static CompilationWatcher start() {
+            RecordingStream rs = null;
+            try {
+                rs = new RecordingStream();
+                rs.enable("jdk.Compilation").withoutThreshold();
+                CompilationWatcher w = new CompilationWatcher(rs);
+                rs.onEvent("jdk.Compilation", w::onCompilation);
+                rs.startAsync();
+                return w;
+            } catch (RuntimeException e) {
+                if (rs != null) rs.close();
+                log.warn("[JitWarmup] JFR 不可用，按时间预算预热: {}", e.getMessage());
+                return new CompilationWatcher(null);
+            }
+        }
+
+        private void onCompilation(RecordedEvent e) {
+            if (e.getInt("compileLevel") != C2_LEVEL || !e.getBoolean("succeded") || e.getBoolean("isOsr")) return;
+            RecordedMethod m = e.getValue("method");
+            String type = m.getType().getName();
+            if (!type.startsWith("com.spotspread.")) return;
+            compiled.increment();
+            lastCompiledNanos = System.nanoTime();
+            pending.remove(type.substring(type.lastIndexOf('.') + 1) + "." + m.getName());
+        }
+
+        @Override
+        public void close() {
+            if (stream != null) stream.close();
+        }
+    }
+}
@@ -13,6 +13,8 @@ public interface ExchangeWebSocketHandler {
     }
 
     default void onClosed(int code, String reason, boolean remote) {}
+    /** 单个币种重新订阅（如先退订再订阅），返回 false 表示本所不支持，调用方改为轮换整条连接 */
+    default boolean resubscribe(ManagedWebSocket client, String symbol) { return false; }
     default void onError(Exception ex) {}
     /** 应用层心跳消息（如 JSON ping），null 表示不使用 */
     default String getHeartbeatMessage() { return null; }
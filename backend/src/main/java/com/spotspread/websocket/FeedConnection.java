@@ -0,0 +1,206 @@
+package com.spotspread.websocket;
+
+import com.spotspread.config.WebSocketRotationConfig;
+import com.spotspread.config.WebSocketSilenceConfig;
+import com.spotspread.recorder.FrameRecorder;
+import com.spotspread.service.OrderBookCacheService.FeedWriter;
+import com.spotspread.stats.StageLatencyService;
+import com.spotspread.websocket.FeedSilenceTracker.Silence;
+import com.spotspread.websocket.FeedSilenceTracker.SilenceStats;
+import com.spotspread.websocket.timer.WebSocketTimer;
+import com.spotspread.websocket.transport.WebSocketTransportFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * 一个连接槽位（交易所 × 分片 × 冗余副本），持有当前 ManagedWebSocket，并负责 make-before-break 轮换：
+ * 新建 handler 实例与连接、订阅，以 fork 出的 FeedWriter 写缓存（与旧连接互相去重）；
+ * 新连接收到足够的行情更新后才关闭旧连接，期间两条连接同时出数，切换无空窗。
+ * 轮换只由 check 在时钟线程上驱动。
+ * <p>
+ * 同时按币种跟踪当前连接的更新节奏（FeedSilenceTracker）：某个币种断流而连接仍在收包时，
+ * 先在当前连接上重新订阅该币种，仍无数据（或交易所不支持单币种重订）再轮换整条连接。
+ */
+public final class FeedConnection {
+
+    private static final Logger log = LoggerFactory.getLogger(FeedConnection.class);
+
+    private final String exchange;
+    private final String name;
+    private final List<String> symbols;
+    private final FeedWriter baseFeed;
+    private final URI endpoint;
+    private final BiFunction<FeedWriter, List<String>, ManagedWebSocket> factory;
+    private final WebSocketTransportFactory transportFactory;
+    private final WebSocketTimer timer;
+    private final StageLatencyService latency;
+    private final WireStats wire;
+    private final FrameRecorder.Channel recorder;
+    private final WebSocketSilenceConfig silenceConfig;
+    private final FeedSilenceTracker silence;
+
+    private volatile ManagedWebSocket current;
+    /** 当前连接的写入句柄，只有它的更新计入节奏 */
+    private volatile FeedWriter activeFeed;
+    private volatile ManagedWebSocket successor;
+    private volatile FeedWriter successorFeed;
+    private volatile String pendingReason;
+    private volatile long successorStartMs;
+    private volatile long lastRotationMs;
+    private volatile String lastReason;
+    private volatile long lastOverlapMs;
+    private volatile long rotations;
+    private volatile long aborted;
+
+    FeedConnection(String exchange, String name, List<String> symbols, FeedWriter feed, URI endpoint,
+                   BiFunction<FeedWriter, List<String>, ManagedWebSocket> factory,
+                   WebSocketTransportFactory transportFactory, WebSocketTimer timer, StageLatencyService latency,
+                   WireStats wire, FrameRecorder.Channel recorder, WebSocketSilenceConfig silenceConfig) {
+        this.exchange = exchange;
+        this.name = name;
+        this.symbols = symbols;
+        this.baseFeed = feed;
+        this.endpoint = endpoint;
+        this.factory = factory;
+        this.transportFactory = transportFactory;
+        this.timer = timer;
+        this.latency = latency;
+        this.wire = wire;
+        this.recorder = recorder;
+        this.silenceConfig = silenceConfig;
+        this.silence = new FeedSilenceTracker(symbols, silenceConfig);
+    }
+
+    String getName() { return name; }
+
+    void start() {
+        activeFeed = baseFeed;
+        current = create(baseFeed);
+        current.connect();
+    }
+
+    void stop() {
+        ManagedWebSocket s = successor;
+        if (s != null) s.disconnect();
+        ManagedWebSocket c = current;
+        if (c != null) c.disconnect();
+    }
+
+    /** 周期检查：推进进行中的轮换，或按寿命 / 收包间隔 / ping RTT / 单币种静默判断是否发起轮换 */
+    void check(WebSocketRotationConfig config, long now) {
+        ManagedWebSocket next = successor;
+        if (next != null) {
+            if (successorFeed.getReceived() >= config.getHandoverMinUpdates()) {
+                promote(now);
+            } else if (now - successorStartMs > config.getHandoverTimeoutMs()) {
+                log.warn("[{}] 轮换放弃: 新连接 {}ms 内未出数 ({})", name, config.getHandoverTimeoutMs(), pendingReason);
+                next.disconnect();
+                successor = null;
+                aborted++;
+                lastRotationMs = now;
+            }
+            return;
+        }
+        ManagedWebSocket cur = current;
+        long openedAt = cur.getConnectionOpenTimeMs();
+        if (!cur.isOpen() || openedAt == 0) return;
+        boolean coolingDown = now - lastRotationMs < config.getCooldownMs();
+        if (silenceConfig.isEnabled() && checkSilence(cur, now, openedAt, !coolingDown)) return;
+        if (!config.isEnabled() || coolingDown) return;
+        long maxLifetime = config.maxLifetimeMs(exchange);
+        long gap = now - Math.max(cur.getLastMessageTimeMs(), openedAt);
+        long rttMs = cur.getPingRttNanos() / 1_000_000;
+        if (maxLifetime > 0 && now - openedAt > maxLifetime) {
+            rotate("存活 " + (now - openedAt) / 60_000 + " 分钟，到期前轮换", now);
+        } else if (config.getDegradedGapMs() > 0 && gap > config.getDegradedGapMs()) {
+            rotate("收包间隔 " + gap + "ms", now);
+        } else if (config.getMaxPingRttMs() > 0 && rttMs > config.getMaxPingRttMs()) {
+            rotate("ping RTT " + rttMs + "ms", now);
+        }
+    }
+
+    /**
+     * 整条连接都没有收包时交给收包间隔轮换与看门狗处理，这里只看连接仍在收包、个别币种断流的情况。
+     * 轮换冷却期内照常重新订阅，但不因静默轮换，待冷却结束后再判断。返回 true 表示已发起轮换。
+     */
+    private boolean checkSilence(ManagedWebSocket cur, long now, long openedAt, boolean mayRotate) {
+        if (now - Math.max(cur.getLastMessageTimeMs(), openedAt) > silenceConfig.getMinSilenceMs()) return false;
+        long nowNanos = System.nanoTime();
+        long openedNanos = nowNanos - (now - openedAt) * 1_000_000;
+        boolean rotate = false;
+        String reason = null;
+        for (Silence s : silence.poll(nowNanos, openedNanos)) {
+            if (s.stage() == 1 && cur.resubscribe(s.symbol())) {
+                log.warn("[{}] {} 已 {}ms 无更新（阈值 {}ms），重新订阅", name, s.symbol(), s.silentMs(), s.thresholdMs());
+                silence.recordResubscribe();
+            } else if (!mayRotate) {
+                silence.deferRotation(s.symbol());
+            } else if (!rotate) {
+                rotate = true;
+                reason = s.symbol() + " 已 " + s.silentMs() + "ms 无更新（阈值 " + s.thresholdMs() + "ms）";
+            }
+        }
+        if (!rotate) return false;
+        silence.recordRotation();
+        rotate(reason, now);
+        return true;
+    }
+
+    SilenceStats getSilenceStats() {
+        return silence.stats(name, System.nanoTime());
+    }
+
+    RotationStats getStats() {
+        ManagedWebSocket cur = current;
+        return new RotationStats(name, cur != null && cur.isOpen(), successor != null, rotations, aborted,
+                lastReason, lastRotationMs, lastOverlapMs);
+    }
+
+    private void rotate(String reason, long now) {
+        log.info("[{}] 开始轮换: {}", name, reason);
+        pendingReason = reason;
+        successorFeed = baseFeed.fork();
+        successorStartMs = now;
+        ManagedWebSocket next = create(successorFeed);
+        successor = next;
+        next.connect();
+    }
+
+    private void promote(long now) {
+        ManagedWebSocket old = current;
+        activeFeed = successorFeed;
+        current = successor;
+        successor = null;
+        rotations++;
+        lastReason = pendingReason;
+        lastRotationMs = now;
+        lastOverlapMs = now - successorStartMs;
+        log.info("[{}] 轮换完成: 新连接已出数 {} 条，关闭旧连接 ({})", name, successorFeed.getReceived(), pendingReason);
+        old.disconnect();
+    }
+
+    private ManagedWebSocket create(FeedWriter feed) {
+        feed.setObserver((symbol, nanos) -> {
+            if (feed == activeFeed) silence.record(symbol, nanos);
+        });
+        ManagedWebSocket client = factory.apply(feed, symbols);
+        client.setName(name);
+        if (endpoint != null) client.setUri(endpoint);
+        client.setTransportFactory(transportFactory);
+        client.setTimer(timer);
+        client.setLatency(latency);
+        client.setWireStats(wire);
+        client.setRecorder(recorder);
+        return client;
+    }
+
+    /**
+     * @param lastOverlapMs 最近一次轮换从新连接发起到旧连接关闭的时长，期间新旧连接并存
+     */
+    public record RotationStats(String connection, boolean open, boolean rotating, long rotations, long aborted,
+                         String lastReason, long lastRotationAt, long lastOverlapMs) {}
+}
@@ -0,0 +1,132 @@
+package com.spotspread.websocket;
+
+import com.spotspread.config.WebSocketSilenceConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 一个连接槽位内各币种的更新节奏：以 EWMA 学习相邻两次更新的间隔，
+ * 当前距上次更新超过学到的阈值即为一次静默事件（incident），恢复出数时记录恢复耗时。
+ * record 在连接的收包线程上调用，poll 在时钟线程上调用，两者按币种加锁。
+ */
+public final class FeedSilenceTracker {
+
+    private static final double ALPHA = 0.02;
+
+    private final WebSocketSilenceConfig config;
+    private final Map<String, Cadence> cadences = new ConcurrentHashMap<>();
+    private long incidents;
+    private long resubscribes;
+    private long rotations;
+    private long recovered;
+    private long recoveryMsTotal;
+
+    FeedSilenceTracker(List<String> symbols, WebSocketSilenceConfig config) {
+        this.config = config;
+        for (String s : symbols) cadences.put(s, new Cadence());
+    }
+
+    /** 当前连接收到 symbol 的一条更新 */
+    void record(String symbol, long nanos) {
+        Cadence c = cadences.computeIfAbsent(symbol, k -> new Cadence());
+        synchronized (c) {
+            if (c.stage > 0) {
+                // 静默期间的间隔不计入节奏
+                c.stage = 0;
+                synchronized (this) {
+                    recovered++;
+                    recoveryMsTotal += (nanos - c.silentSinceNanos) / 1_000_000;
+                }
+            } else if (c.lastNanos > 0) {
+                double interval = Math.min((nanos - c.lastNanos) / 1e6, config.getMaxSilenceMs());
+                c.cadenceMs = c.samples == 0 ? interval : c.cadenceMs + ALPHA * (interval - c.cadenceMs);
+                c.samples++;
+            }
+            c.lastNanos = nanos;
+        }
+    }
+
+    /**
+     * 返回本轮需要处理的静默：首次超过阈值为第 1 级（重新订阅），超过两倍阈值为第 2 级（轮换连接），每级只返回一次。
+     * @param openedNanos 当前连接建立时刻，重连前的数据不算作静默起点
+     */
+    List<Silence> poll(long nowNanos, long openedNanos) {
+        List<Silence> list = new ArrayList<>();
+        for (Map.Entry<String, Cadence> e : cadences.entrySet()) {
+            Cadence c = e.getValue();
+            synchronized (c) {
+                if (c.samples < config.getMinSamples() || c.stage >= 2) continue;
+                long threshold = config.thresholdMs(c.cadenceMs);
+                long silentMs = (nowNanos - Math.max(c.lastNanos, openedNanos)) / 1_000_000;
+                int stage = silentMs > 2 * threshold ? 2 : silentMs > threshold ? 1 : 0;
+                if (stage <= c.stage) continue;
+                if (c.stage == 0) {
+                    c.silentSinceNanos = c.lastNanos;
+                    c.incidents++;
+                    synchronized (this) { incidents++; }
+                }
+                c.stage = stage;
+                list.add(new Silence(e.getKey(), stage, silentMs, threshold));
+            }
+        }
+        return list;
+    }
+
+    /** 第 2 级静默因轮换冷却未能轮换时调用，退回第 1 级，冷却结束后的 poll 会再次返回 */
+    void deferRotation(String symbol) {
+        Cadence c = cadences.get(symbol);
+        if (c == null) return;
+        synchronized (c) {
+            if (c.stage == 2) c.stage = 1;
+        }
+    }
+
+    synchronized void recordResubscribe() { resubscribes++; }
+
+    synchronized void recordRotation() { rotations++; }
+
+    SilenceStats stats(String connection, long nowNanos) {
+        List<SymbolCadence> symbols = new ArrayList<>();
+        for (Map.Entry<String, Cadence> e : cadences.entrySet()) {
+            Cadence c = e.getValue();
+            synchronized (c) {
+                long sinceMs = c.lastNanos > 0 ? (nowNanos - c.lastNanos) / 1_000_000 : -1;
+                symbols.add(new SymbolCadence(e.getKey(), c.cadenceMs, config.thresholdMs(c.cadenceMs), c.samples,
+                        sinceMs, c.stage > 0, c.incidents));
+            }
+        }
+        symbols.sort((a, b) -> a.symbol().compareTo(b.symbol()));
+        synchronized (this) {
+            return new SilenceStats(connection, incidents, resubscribes, rotations, recovered,
+                    recovered > 0 ? (double) recoveryMsTotal / recovered : 0, symbols);
+        }
+    }
+
+    private static final class Cadence {
+        long lastNanos;
+        double cadenceMs;
+        long samples;
+        /** 0 正常，1 已重新订阅，2 已轮换 */
+        int stage;
+        long silentSinceNanos;
+        long incidents;
+    }
+
+    record Silence(String symbol, int stage, long silentMs, long thresholdMs) {}
+
+    /**
+     * @param cadenceMs 学到的平均更新间隔
+     * @param sinceLastMs 距上次更新的时长，从未收到为 -1
+     */
+    public record SymbolCadence(String symbol, double cadenceMs, long thresholdMs, long samples, long sinceLastMs,
+                                boolean silent, long incidents) {}
+
+    /**
+     * @param avgRecoveryMs 静默事件从最后一条更新到恢复出数的平均时长
+     */
+    public record SilenceStats(String connection, long incidents, long resubscribes, long rotations, long recovered,
+                               double avgRecoveryMs, List<SymbolCadence> symbols) {}
+}
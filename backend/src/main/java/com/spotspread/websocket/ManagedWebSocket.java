@@ -1,53 +1,86 @@
 package com.spotspread.websocket;
 
+import com.spotspread.config.WebSocketTransportConfig.TransportType;
+import com.spotspread.jfr.FrameReceiveEvent;
+import com.spotspread.logging.ThrottledLogger;
+import com.spotspread.recorder.FrameRecorder;
+import com.spotspread.stats.StageLatencyService;
+import com.spotspread.stats.StageLatencyService.Stage;
+import com.spotspread.websocket.WireStats.Counter;
+import com.spotspread.websocket.WireStats.ParseFailure;
+import com.spotspread.websocket.transport.TransportListener;
+import com.spotspread.websocket.transport.WebSocketTransport;
+import com.spotspread.websocket.transport.WebSocketTransportFactory;
+import com.spotspread.websocket.timer.ConnectionTimers;
+import com.spotspread.websocket.timer.ConnectionTimers.Kind;
+import com.spotspread.websocket.timer.HashedWheelTimer.Timeout;
+import com.spotspread.websocket.timer.WebSocketTimer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URI;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * 单个交易所连接的生命周期管理：断线指数退避（带抖动）重连、应用层心跳、收包看门狗。
+ * 底层读写由 WebSocketTransport 实现，每次重连新建一个传输实例；所有定时任务挂在共享时间轮 WebSocketTimer 上。
+ */
 public class ManagedWebSocket {
 
     private static final Logger log = LoggerFactory.getLogger(ManagedWebSocket.class);
+    /** 逐帧异常可能每帧一条，限流输出 */
+    private static final ThrottledLogger frameLog = ThrottledLogger.of(log);
     private static final long INITIAL_RECONNECT_DELAY_MS = 1_000;
     private static final long MAX_RECONNECT_DELAY_MS = 60_000;
     private static final double RECONNECT_BACKOFF_MULTIPLIER = 2.0;
 
     private final String exchangeName;
-    private final URI uri;
+    /** 日志与统计用的连接名，分片时为 exchange#序号，冗余副本再加 /序号 */
+    private volatile String name;
+    private volatile URI uri;
     private final ExchangeWebSocketHandler handler;
-    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
-        Thread t = new Thread(r, "ws-reconnect");
-        t.setDaemon(true);
-        return t;
-    });
 
-    private volatile WebSocketConnection connection;
+    private volatile WebSocketTransportFactory transportFactory;
+    private volatile WebSocketTimer timer;
+    private volatile StageLatencyService latency;
+    private volatile WireStats wire;
+    private volatile FrameRecorder.Channel recorder;
+    /** 最近一次断开的时刻，用于统计重连前的停机时长 */
+    private volatile long lastClosedNanos;
+    private volatile ConnectionTimers timers;
+    private volatile TransportType transportType;
+    private volatile WebSocketTransport connection;
+    private volatile long connectStartNanos;
     private volatile long nextReconnectDelayMs = INITIAL_RECONNECT_DELAY_MS;
-    private volatile ScheduledFuture<?> reconnectFuture;
-    private volatile ScheduledFuture<?> heartbeatFuture;
+    private volatile Timeout reconnectFuture;
+    private volatile Timeout heartbeatFuture;
+    private volatile Timeout watchdogFuture;
     private final AtomicBoolean running = new AtomicBoolean(true);
     private final AtomicLong lastMessageTimeMs = new AtomicLong(0);
     private volatile long connectionOpenTimeMs = 0;
 
     public ManagedWebSocket(String exchangeName, URI uri, ExchangeWebSocketHandler handler) {
         this.exchangeName = exchangeName;
+        this.name = exchangeName;
         this.uri = uri;
         this.handler = handler;
+        this.wire = new WireStats(exchangeName, exchangeName);
     }
 
     public void connect() {
         if (!running.get()) return;
         try {
-            connection = new WebSocketConnection(uri, this);
+            if (transportFactory == null) transportFactory = WebSocketTransportFactory.defaultFactory();
+            if (timer == null) timer = WebSocketTimer.defaultTimer();
+            if (timers == null) timers = timer.register(name);
+            transportType = transportFactory.typeFor(exchangeName);
+            connectStartNanos = System.nanoTime();
+            connection = transportFactory.create(exchangeName, uri, new Listener(),
+                    handler.getConnectionLostTimeoutSeconds());
             connection.connect();
         } catch (Exception e) {
-            log.error("[{}] 连接失败: {}", exchangeName, e.getMessage());
+            log.error("[{}] 连接失败: {}", name, e.getMessage());
             scheduleReconnect();
         }
     }
@@ -56,47 +89,151 @@ public class ManagedWebSocket {
         running.set(false);
         cancelReconnect();
         cancelHeartbeat();
+        cancelWatchdog();
         if (connection != null) {
             connection.close();
             connection = null;
         }
+        if (timers != null) timer.unregister(timers);
     }
 
     public void send(String text) {
-        WebSocketConnection conn = connection;
-        if (conn != null && conn.isOpen()) conn.send(text);
+        WebSocketTransport conn = connection;
+        if (conn != null && conn.isOpen()) {
+            conn.send(text);
+            WireStats w = wire;
+            w.increment(Counter.FRAMES_OUT);
+            w.add(Counter.BYTES_OUT, text.length());
+        }
+    }
+
+    /** handler 解析异常时调用，按异常类型归类 */
+    public void recordParseFailure(Exception e) {
+        wire.parseFailure(ParseFailure.of(e));
+    }
+
+    public void recordParseFailure(ParseFailure reason) {
+        wire.parseFailure(reason);
+    }
+
+    /** handler 收到订阅确认时调用 */
+    public void recordSubscriptionAck() {
+        wire.increment(Counter.SUBSCRIPTION_ACKS);
+    }
+
+    /** handler 收到应用层心跳应答（pong）时调用，与最近一次发出的心跳计算往返时间 */
+    public void recordHeartbeatAck() {
+        wire.heartbeatAck(System.nanoTime());
+    }
+
+    /** handler 解压应用层压缩帧后调用 */
+    public void recordDecompressed(int compressedBytes, int decompressedBytes) {
+        WireStats w = wire;
+        w.add(Counter.COMPRESSED_BYTES, compressedBytes);
+        w.add(Counter.DECOMPRESSED_BYTES, decompressedBytes);
     }
 
     public boolean isOpen() {
-        WebSocketConnection conn = connection;
+        WebSocketTransport conn = connection;
         return conn != null && conn.isOpen();
     }
 
     public String getExchangeName() { return exchangeName; }
-    ExchangeWebSocketHandler getHandler() { return handler; }
+    public String getName() { return name; }
+    /** 在当前连接上重新订阅单个币种，未连接或 handler 不支持时返回 false */
+    public boolean resubscribe(String symbol) {
+        return isOpen() && handler.resubscribe(this, symbol);
+    }
+
+    /** 当前连接建立时刻，未连接为 0 */
+    public long getConnectionOpenTimeMs() { return connectionOpenTimeMs; }
+    public long getLastMessageTimeMs() { return lastMessageTimeMs.get(); }
+
+    public long getPingRttNanos() {
+        WebSocketTransport conn = connection;
+        return conn != null ? conn.getPingRttNanos() : -1;
+    }
+
+    /** 同一交易所有多条分片或冗余连接时设置，须在 connect 之前调用 */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /** 覆盖 handler 的默认地址（如备用端口），须在 connect 之前调用 */
+    public void setUri(URI uri) {
+        this.uri = uri;
+    }
+
+    /**
+     * 延迟 delayMs 后在当前连接上执行 task（时钟线程，须为非阻塞短任务）；届时连接已断开或已重连则跳过。
+     */
+    public void scheduleWhileOpen(Runnable task, long delayMs) {
+        WebSocketTransport conn = connection;
+        if (conn == null || timers == null) return;
+        timers.schedule(Kind.DELAYED, () -> {
+            if (connection == conn && conn.isOpen()) task.run();
+        }, delayMs);
+    }
+
+    /** 须在 connect 之前设置，未设置时使用默认时间轮 */
+    public void setTimer(WebSocketTimer timer) {
+        this.timer = timer;
+    }
+
+    /** 同一连接槽位的各次轮换共用一份统计，须在 connect 之前设置 */
+    public void setWireStats(WireStats wire) {
+        this.wire = wire;
+    }
 
-    void onConnectionOpened(WebSocketConnection conn) {
+    /** 设置后每一帧在交给 handler 之前原样录制 */
+    public void setRecorder(FrameRecorder.Channel recorder) {
+        this.recorder = recorder;
+    }
+
+    /** 设置后按帧记录处理耗时，并标记帧开始时刻供写缓存时计算解析耗时 */
+    public void setLatency(StageLatencyService latency) {
+        this.latency = latency;
+    }
+
+    /** 须在 connect 之前设置，未设置时使用默认工厂（java-websocket） */
+    public void setTransportFactory(WebSocketTransportFactory transportFactory) {
+        this.transportFactory = transportFactory;
+    }
+
+    void onConnectionOpened() {
         connectionOpenTimeMs = System.currentTimeMillis();
         nextReconnectDelayMs = INITIAL_RECONNECT_DELAY_MS;
-        int lostTimeout = handler.getConnectionLostTimeoutSeconds();
-        // 必须显式设置，否则 Java-WebSocket 默认约 60 秒 ping/pong 检测；服务端不响应 WS 层 pong 时会被误判断连
-        conn.setConnectionLostTimeout(lostTimeout);
+        WireStats w = wire;
+        w.increment(Counter.CONNECTS);
+        long closedAt = lastClosedNanos;
+        if (closedAt > 0) {
+            w.increment(Counter.RECONNECTS);
+            w.add(Counter.DOWNTIME_NANOS, System.nanoTime() - closedAt);
+            lastClosedNanos = 0;
+        }
+        transportFactory.recordConnected(transportType, System.nanoTime() - connectStartNanos);
+        FrameRecorder.Channel r = recorder;
+        if (r != null) r.connected(System.nanoTime());
         handler.onConnected(this);
         startHeartbeat();
-        log.debug("[{}] 连接已建立，connectionLostTimeout={}s, heartbeat={}ms", exchangeName,
-                lostTimeout, handler.getHeartbeatMessage() != null ? handler.getHeartbeatIntervalMs() : 0);
+        startWatchdog();
+        log.debug("[{}] 连接已建立，transport={}, connectionLostTimeout={}s, heartbeat={}ms", name, transportType,
+                handler.getConnectionLostTimeoutSeconds(), handler.getHeartbeatMessage() != null ? handler.getHeartbeatIntervalMs() : 0);
     }
 
-    void onConnectionClosed(WebSocketConnection conn, int code, String reason, boolean remote) {
+    void onConnectionClosed(int code, String reason, boolean remote) {
         connection = null;
         cancelHeartbeat();
+        cancelWatchdog();
+        if (connectionOpenTimeMs > 0) transportFactory.recordDisconnected(transportType);
+        if (running.get()) lastClosedNanos = System.nanoTime();
         long durationMs = connectionOpenTimeMs > 0 ? System.currentTimeMillis() - connectionOpenTimeMs : 0;
         long idleMs = lastMessageTimeMs.get() > 0 ? System.currentTimeMillis() - lastMessageTimeMs.get() : -1;
         connectionOpenTimeMs = 0;
         handler.onClosed(code, reason, remote);
         String codeHint = closeCodeHint(code);
-        log.warn("[{}] 连接关闭: code={} ({}) reason=\"{}\" remote={} 存活时长={}ms 距上次收包={}ms (将重连)",
-                exchangeName, code, codeHint, reason != null ? reason : "", remote, durationMs, idleMs);
+        log.warn("[{}] 连接关闭: code={} ({}) reason=\"{}\" remote={} 存活时长={}ms 距上次收包={}ms ({})",
+                name, code, codeHint, reason != null ? reason : "", remote, durationMs, idleMs, running.get() ? "将重连" : "已停止");
         if (running.get()) scheduleReconnect();
     }
 
@@ -113,30 +250,97 @@ public class ManagedWebSocket {
         };
     }
 
-    void onMessage(String message) {
+    /** 收到一帧文本；回测与预热时不经过网络直接调用 */
+    public void onMessage(String message) {
+        onMessage(message, System.nanoTime());
+    }
+
+    /** @param receivedNanos 传输层收到该帧的时刻，帧耗时与解析耗时从此起算 */
+    void onMessage(String message, long receivedNanos) {
         lastMessageTimeMs.set(System.currentTimeMillis());
+        FrameReceiveEvent event = new FrameReceiveEvent();
+        event.begin();
+        long start = receivedNanos;
+        WireStats w = wire;
+        w.increment(Counter.FRAMES_IN);
+        w.increment(Counter.TEXT_FRAMES_IN);
+        w.add(Counter.BYTES_IN, message.length());
+        FrameRecorder.Channel r = recorder;
+        if (r != null) r.text(message, start);
+        StageLatencyService l = latency;
+        if (l != null) l.beginFrame(start);
+        long handlerStart = System.nanoTime();
         handler.onMessage(message);
+        endFrame(l, start, handlerStart, event, message.length(), false);
+    }
+
+    public void onBinaryMessage(byte[] data) {
+        onBinaryMessage(data, System.nanoTime());
+    }
+
+    void onBinaryMessage(byte[] data, long receivedNanos) {
+        lastMessageTimeMs.set(System.currentTimeMillis());
+        FrameReceiveEvent event = new FrameReceiveEvent();
+        event.begin();
+        long start = receivedNanos;
+        WireStats w = wire;
+        w.increment(Counter.FRAMES_IN);
+        w.increment(Counter.BINARY_FRAMES_IN);
+        w.add(Counter.BYTES_IN, data.length);
+        FrameRecorder.Channel r = recorder;
+        if (r != null) r.binary(data, start);
+        StageLatencyService l = latency;
+        if (l != null) l.beginFrame(start);
+        long handlerStart = System.nanoTime();
+        try {
+            handler.onBinaryMessage(data);
+        } catch (Exception e) {
+            w.parseFailure(ParseFailure.of(e));
+            frameLog.warn("[{}] 二进制消息处理异常: {}", name, e.getMessage());
+        }
+        endFrame(l, start, handlerStart, event, data.length, true);
+    }
+
+    private void endFrame(StageLatencyService l, long start, long handlerStart, FrameReceiveEvent event, int size, boolean binary) {
+        long elapsed = System.nanoTime() - start;
+        event.end();
+        if (event.shouldCommit()) {
+            event.exchange = exchangeName;
+            event.connection = name;
+            event.size = size;
+            event.binary = binary;
+            event.commit();
+        }
+        // 回放时未经过 connect，没有传输层
+        WebSocketTransportFactory f = transportFactory;
+        if (f != null) f.recordFrame(transportType, handlerStart - start, elapsed);
+        if (l != null) {
+            l.endFrame();
+            l.record(Stage.FRAME, exchangeName, StageLatencyService.ALL, elapsed);
+        }
     }
 
     void onError(Exception ex) {
-        log.error("[{}] WebSocket 错误", exchangeName, ex);
+        log.error("[{}] WebSocket 错误", name, ex);
         handler.onError(ex);
         if (!isOpen() && running.get()) scheduleReconnect();
     }
 
     private void scheduleReconnect() {
         if (!running.get() || reconnectFuture != null) return;
-        log.info("[{}] {}ms 后重连", exchangeName, nextReconnectDelayMs);
-        reconnectFuture = scheduler.schedule(() -> {
+        long delay = timer.jitter(nextReconnectDelayMs);
+        log.info("[{}] {}ms 后重连", name, delay);
+        reconnectFuture = timers.schedule(Kind.RECONNECT, () -> {
             reconnectFuture = null;
             if (running.get()) connect();
-        }, nextReconnectDelayMs, TimeUnit.MILLISECONDS);
+        }, delay);
         nextReconnectDelayMs = Math.min((long) (nextReconnectDelayMs * RECONNECT_BACKOFF_MULTIPLIER), MAX_RECONNECT_DELAY_MS);
     }
 
     private void cancelReconnect() {
-        if (reconnectFuture != null) {
-            reconnectFuture.cancel(false);
+        Timeout f = reconnectFuture;
+        if (f != null) {
+            f.cancel();
             reconnectFuture = null;
         }
     }
@@ -146,52 +350,66 @@ public class ManagedWebSocket {
         if (msg == null) return;
         long interval = handler.getHeartbeatIntervalMs();
         cancelHeartbeat();
-        heartbeatFuture = scheduler.scheduleAtFixedRate(() -> {
+        heartbeatFuture = timers.scheduleAtFixedRate(Kind.HEARTBEAT, () -> {
             if (running.get() && isOpen()) {
                 send(msg);
+                wire.heartbeatSent(System.nanoTime());
                 if ("lbank".equals(exchangeName)) {
-                    log.info("[lbank] 已发送心跳 msg={}", msg);
+                    log.debug("[lbank] 已发送心跳 msg={}", msg);
                 } else {
-                    log.trace("[{}] 已发送心跳", exchangeName);
+                    log.trace("[{}] 已发送心跳", name);
                 }
             }
-        }, interval, interval, TimeUnit.MILLISECONDS);
-        log.debug("[{}] 心跳已启动 interval={}ms", exchangeName, interval);
+        }, interval, interval);
+        log.debug("[{}] 心跳已启动 interval={}ms", name, interval);
     }
 
     private void cancelHeartbeat() {
-        if (heartbeatFuture != null) {
-            heartbeatFuture.cancel(false);
+        Timeout f = heartbeatFuture;
+        if (f != null) {
+            f.cancel();
             heartbeatFuture = null;
         }
     }
 
-    static class WebSocketConnection extends org.java_websocket.client.WebSocketClient {
-        private final ManagedWebSocket manager;
+    /** 连接建立后超过 staleTimeoutMs 未收到任何消息（含订阅后一直无推送）则主动断开，由 onClose 走正常重连 */
+    private void startWatchdog() {
+        long staleMs = timer.getConfig().getStaleTimeoutMs();
+        if (staleMs <= 0) return;
+        cancelWatchdog();
+        WebSocketTransport conn = connection;
+        long interval = timer.getConfig().getWatchdogIntervalMs();
+        watchdogFuture = timers.scheduleAtFixedRate(Kind.WATCHDOG, () -> {
+            if (connection != conn || conn == null || !conn.isOpen()) return;
+            long rtt = conn.getPingRttNanos();
+            if (rtt >= 0) wire.set(Counter.LAST_PING_RTT_NANOS, rtt);
+            long idleMs = System.currentTimeMillis() - Math.max(lastMessageTimeMs.get(), connectionOpenTimeMs);
+            if (idleMs > staleMs) {
+                log.warn("[{}] {}ms 未收到消息，主动断开重连", name, idleMs);
+                timers.recordStaleClose();
+                conn.abort("no message for " + idleMs + "ms");
+            }
+        }, interval, interval);
+    }
 
-        WebSocketConnection(URI uri, ManagedWebSocket manager) {
-            super(uri);
-            this.manager = manager;
+    private void cancelWatchdog() {
+        Timeout f = watchdogFuture;
+        if (f != null) {
+            f.cancel();
+            watchdogFuture = null;
         }
+    }
 
+    private class Listener implements TransportListener {
         @Override
-        public void onOpen(org.java_websocket.handshake.ServerHandshake handshake) { manager.onConnectionOpened(this); }
+        public void onOpen() { onConnectionOpened(); }
         @Override
-        public void onMessage(String message) { manager.onMessage(message); }
+        public void onText(String message, long receivedNanos) { onMessage(message, receivedNanos); }
         @Override
-        public void onMessage(java.nio.ByteBuffer bytes) {
-            try {
-                byte[] arr = new byte[bytes.remaining()];
-                bytes.get(arr);
-                manager.getHandler().onBinaryMessage(arr);
-            } catch (Exception e) {
-                org.slf4j.LoggerFactory.getLogger(ManagedWebSocket.class)
-                        .warn("[{}] 二进制消息处理异常: {}", manager.getExchangeName(), e.getMessage());
-            }
-        }
+        public void onBinary(byte[] data, long receivedNanos) { onBinaryMessage(data, receivedNanos); }
         @Override
-        public void onClose(int code, String reason, boolean remote) { manager.onConnectionClosed(this, code, reason, remote); }
+        public void onClose(int code, String reason, boolean remote) { onConnectionClosed(code, reason, remote); }
         @Override
-        public void onError(Exception ex) { manager.onError(ex); }
+        public void onError(Exception ex) { ManagedWebSocket.this.onError(ex); }
     }
 }
@@ -0,0 +1,33 @@
+package com.spotspread.websocket;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 订阅分片：把币种列表按每连接上限切成若干组，每组一条独立连接、独立重连。
+ * 币种统一用 BTCUSDT 形式，各交易所 handler 自行转换为本所的交易对写法。
+ */
+public final class SymbolShards {
+
+    private SymbolShards() {}
+
+    /** maxPerConnection <= 0 表示不分片，全部放在一条连接上；分组尽量均匀 */
+    public static List<List<String>> partition(List<String> symbols, int maxPerConnection) {
+        if (symbols.isEmpty()) return List.of();
+        if (maxPerConnection <= 0 || symbols.size() <= maxPerConnection) return List.of(List.copyOf(symbols));
+        int shards = (symbols.size() + maxPerConnection - 1) / maxPerConnection;
+        List<List<String>> result = new ArrayList<>(shards);
+        int from = 0;
+        for (int i = 0; i < shards; i++) {
+            int size = symbols.size() / shards + (i < symbols.size() % shards ? 1 : 0);
+            result.add(List.copyOf(symbols.subList(from, from + size)));
+            from += size;
+        }
+        return result;
+    }
+
+    /** BTCUSDT -> BTC */
+    public static String base(String symbol) {
+        return symbol.endsWith("USDT") ? symbol.substring(0, symbol.length() - 4) : symbol;
+    }
+}
@@ -0,0 +1,38 @@
+package com.spotspread.websocket;
+
+import com.spotspread.event.InfluxDbMessagePublisher;
+import com.spotspread.service.OrderBookCacheService.FeedWriter;
+import com.spotspread.stats.StageLatencyService;
+import com.spotspread.websocket.handler.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * 各交易所的连接工厂：给定写入句柄与订阅币种，新建 handler 实例并返回其（尚未连接的）ManagedWebSocket。
+ * 线上连接、回测回放共用，保证回放走的是同一套解析代码。
+ */
+public final class VenueHandlers {
+
+    private VenueHandlers() {}
+
+    /** 按交易所名返回工厂，迭代顺序即启动顺序 */
+    public static Map<String, BiFunction<FeedWriter, List<String>, ManagedWebSocket>> factories(
+            InfluxDbMessagePublisher influxPublisher, StageLatencyService latency) {
+        Map<String, BiFunction<FeedWriter, List<String>, ManagedWebSocket>> m = new LinkedHashMap<>();
+        m.put("binance", (feed, syms) -> new BinanceSpotDepthHandler(feed, influxPublisher, syms).createClient());
+        m.put("bitfinex", (feed, syms) -> new BitfinexSpotDepthHandler(feed, syms).createClient());
+        m.put("coinex", (feed, syms) -> new CoinExSpotDepthHandler(feed, syms, latency).createClient());
+        m.put("okx", (feed, syms) -> new OkxSpotDepthHandler(feed, influxPublisher, syms).createClient());
+        m.put("bybit", (feed, syms) -> new BybitSpotDepthHandler(feed, influxPublisher, syms).createClient());
+        m.put("gateio", (feed, syms) -> new GateSpotDepthHandler(feed, syms).createClient());
+        m.put("bitget", (feed, syms) -> new BitgetSpotDepthHandler(feed, syms).createClient());
+        m.put("lbank", (feed, syms) -> new LBankSpotDepthHandler(feed, syms).createClient());
+        m.put("whitebit", (feed, syms) -> new WhiteBitSpotDepthHandler(feed, syms).createClient());
+        m.put("bitunix", (feed, syms) -> new BitunixSpotDepthHandler(feed, syms).createClient());
+        m.put("cryptocom", (feed, syms) -> new CryptoComSpotDepthHandler(feed, syms).createClient());
+        return m;
+    }
+}
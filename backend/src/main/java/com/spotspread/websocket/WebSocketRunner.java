@@ -1,20 +1,42 @@
 package com.spotspread.websocket;
 
+import com.spotspread.config.WebSocketEndpointConfig;
+import com.spotspread.config.WebSocketRedundancyConfig;
+import com.spotspread.config.WebSocketRotationConfig;
+import com.spotspread.config.WebSocketShardingConfig;
+import com.spotspread.config.WebSocketSilenceConfig;
 import com.spotspread.event.InfluxDbMessagePublisher;
+import com.spotspread.recorder.FrameRecorder;
+import com.spotspread.service.ExchangePriceService;
 import com.spotspread.service.OrderBookCacheService;
-import com.spotspread.websocket.handler.*;
+import com.spotspread.service.OrderBookCacheService.FeedWriter;
+import com.spotspread.stats.StageLatencyService;
+import com.spotspread.warmup.JitWarmupService;
+import com.spotspread.websocket.FeedConnection.RotationStats;
+import com.spotspread.websocket.FeedSilenceTracker.SilenceStats;
+import com.spotspread.websocket.timer.ConnectionTimers.Kind;
+import com.spotspread.websocket.timer.HashedWheelTimer.Timeout;
+import com.spotspread.websocket.timer.WebSocketTimer;
+import com.spotspread.websocket.transport.WebSocketTransportFactory;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiFunction;
 
 /**
  * 启动所有支持现货深度 WebSocket 的交易所连接。
  * 参考 experiment 项目交易所列表，不支持 spot order book WebSocket 的交易所不接入。
+ * 每个交易所按 websocket.sharding 把币种拆到一条或多条连接上，并可按 websocket.redundancy 为每个分片开冗余副本。
+ * 每条连接由 FeedConnection 管理，按 websocket.rotation 在到期或变差前先建后断地轮换，
+ * 按 websocket.silence 对断流的单个币种重新订阅或轮换。
+ * websocket.endpoints 可把全部或部分交易所改连到其它地址（如本地模拟器）。
+ * 开启 jit-warmup 时先在 "jit-warmup" 线程上预热，结束后再打开连接，不阻塞应用启动。
  */
 @Component
 public class WebSocketRunner {
@@ -22,38 +44,122 @@ public class WebSocketRunner {
     private static final Logger log = LoggerFactory.getLogger(WebSocketRunner.class);
     private final OrderBookCacheService cache;
     private final InfluxDbMessagePublisher influxPublisher;
-    private final List<ManagedWebSocket> clients = new ArrayList<>();
+    private final WebSocketTransportFactory transportFactory;
+    private final WebSocketTimer timer;
+    private final StageLatencyService latency;
+    private final WireStatsService wireStats;
+    private final FrameRecorder recorder;
+    private final WebSocketShardingConfig shardingConfig;
+    private final WebSocketRedundancyConfig redundancyConfig;
+    private final WebSocketEndpointConfig endpointConfig;
+    private final WebSocketRotationConfig rotationConfig;
+    private final WebSocketSilenceConfig silenceConfig;
+    private final JitWarmupService warmup;
+    private final List<FeedConnection> connections = new ArrayList<>();
+    private volatile Timeout connectionCheck;
+    private boolean stopped;
 
-    public WebSocketRunner(OrderBookCacheService cache, InfluxDbMessagePublisher influxPublisher) {
+    public WebSocketRunner(OrderBookCacheService cache, InfluxDbMessagePublisher influxPublisher,
+                           WebSocketTransportFactory transportFactory, WebSocketTimer timer, StageLatencyService latency,
+                           WireStatsService wireStats, FrameRecorder recorder, WebSocketShardingConfig shardingConfig, WebSocketRedundancyConfig redundancyConfig,
+                           WebSocketEndpointConfig endpointConfig, WebSocketRotationConfig rotationConfig, WebSocketSilenceConfig silenceConfig,
+                           JitWarmupService warmup) {
         this.cache = cache;
         this.influxPublisher = influxPublisher;
+        this.transportFactory = transportFactory;
+        this.timer = timer;
+        this.latency = latency;
+        this.wireStats = wireStats;
+        this.recorder = recorder;
+        this.shardingConfig = shardingConfig;
+        this.redundancyConfig = redundancyConfig;
+        this.endpointConfig = endpointConfig;
+        this.rotationConfig = rotationConfig;
+        this.silenceConfig = silenceConfig;
+        this.warmup = warmup;
     }
 
     @PostConstruct
     public void start() {
         try {
-            clients.add(new BinanceSpotDepthHandler(cache, influxPublisher).createClient());
-            clients.add(new BitfinexSpotDepthHandler(cache).createClient());
-            clients.add(new CoinExSpotDepthHandler(cache).createClient());
-            clients.add(new OkxSpotDepthHandler(cache, influxPublisher).createClient());
-            clients.add(new BybitSpotDepthHandler(cache, influxPublisher).createClient());
-            clients.add(new GateSpotDepthHandler(cache).createClient());
-            clients.add(new BitgetSpotDepthHandler(cache).createClient());
-            clients.add(new LBankSpotDepthHandler(cache).createClient());
-            clients.add(new WhiteBitSpotDepthHandler(cache).createClient());
-            clients.add(new BitunixSpotDepthHandler(cache).createClient());
-            clients.add(new CryptoComSpotDepthHandler(cache).createClient());
-            for (ManagedWebSocket client : clients) client.connect();
-            log.info("Started {} spot depth WebSocket connections", clients.size());
+            VenueHandlers.factories(influxPublisher, latency).forEach(this::addVenue);
+        } catch (Exception e) {
+            log.error("Failed to start WebSocket clients", e);
+            return;
+        }
+        if (!warmup.isEnabled()) {
+            openConnections();
+            return;
+        }
+        Thread t = new Thread(() -> {
+            warmup.run();
+            openConnections();
+        }, "jit-warmup");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private synchronized void openConnections() {
+        if (stopped) return;
+        try {
+            for (FeedConnection connection : connections) connection.start();
+            if (rotationConfig.isEnabled() || silenceConfig.isEnabled()) {
+                long interval = rotationConfig.getCheckIntervalMs();
+                connectionCheck = timer.register("rotation").scheduleAtFixedRate(Kind.WATCHDOG, () -> {
+                    long now = System.currentTimeMillis();
+                    for (FeedConnection connection : connections) connection.check(rotationConfig, now);
+                }, interval, interval);
+            }
+            log.info("Started {} spot depth WebSocket connections", connections.size());
         } catch (Exception e) {
             log.error("Failed to start WebSocket clients", e);
         }
     }
 
+    public List<RotationStats> getRotationStats() {
+        List<RotationStats> list = new ArrayList<>();
+        for (FeedConnection connection : connections) list.add(connection.getStats());
+        return list;
+    }
+
+    public List<SilenceStats> getSilenceStats() {
+        List<SilenceStats> list = new ArrayList<>();
+        for (FeedConnection connection : connections) list.add(connection.getSilenceStats());
+        return list;
+    }
+
+    /**
+     * 按分片配置把币种切组，每组再按冗余配置开若干副本；每条连接新建一个 handler 实例（连接级状态互不干扰）
+     * 并拿到自己的 FeedWriter，由缓存在副本之间仲裁。
+     */
+    private void addVenue(String exchange, BiFunction<FeedWriter, List<String>, ManagedWebSocket> factory) {
+        List<String> symbols = ExchangePriceService.SYMBOLS.stream().map(s -> s + "USDT").toList();
+        List<List<String>> shards = SymbolShards.partition(symbols, shardingConfig.symbolsPerConnection(exchange));
+        WebSocketRedundancyConfig.Venue venue = redundancyConfig.venue(exchange);
+        int copies = Math.max(1, venue.getCopies());
+        for (int i = 0; i < shards.size(); i++) {
+            String shardName = shards.size() > 1 ? exchange + "#" + i : exchange;
+            for (int c = 0; c < copies; c++) {
+                String name = copies > 1 ? shardName + "/" + c : shardName;
+                URI endpoint = venue.getEndpoints().isEmpty() ? endpointConfig.resolve(exchange)
+                        : URI.create(venue.getEndpoints().get(c % venue.getEndpoints().size()));
+                connections.add(new FeedConnection(exchange, name, shards.get(i), cache.feed(exchange, name), endpoint,
+                        factory, transportFactory, timer, latency, wireStats.forConnection(exchange, name),
+                        recorder.isEnabled() ? recorder.channel(exchange, name) : null, silenceConfig));
+            }
+        }
+    }
+
     @PreDestroy
     public void stop() {
-        for (ManagedWebSocket client : clients) {
-            try { client.disconnect(); } catch (Exception e) { log.warn("Disconnect error: {}", e.getMessage()); }
+        warmup.cancel();
+        synchronized (this) {
+            stopped = true;
+        }
+        Timeout check = connectionCheck;
+        if (check != null) check.cancel();
+        for (FeedConnection connection : connections) {
+            try { connection.stop(); } catch (Exception e) { log.warn("Disconnect error: {}", e.getMessage()); }
         }
     }
 }
@@ -0,0 +1,118 @@
+package com.spotspread.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.zip.ZipException;
+
+/**
+ * 单个连接槽位的收发统计。轮换产生的新连接沿用同一实例，计数按槽位累计。
+ * 每个计数器独占 128 字节（两条缓存行，同时避开相邻行预取），收包线程与时钟线程写不同计数器时不会伪共享；
+ * 计数用 VarHandle 原子累加，记录路径不分配对象。
+ */
+public final class WireStats {
+
+    /** 每个计数器占用的 long 个数：16 × 8 = 128 字节 */
+    private static final int STRIDE = 16;
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    public enum Counter {
+        FRAMES_IN, TEXT_FRAMES_IN, BINARY_FRAMES_IN,
+        /** 文本帧按字符数计（行情报文均为 ASCII） */
+        BYTES_IN,
+        FRAMES_OUT, BYTES_OUT,
+        /** 应用层压缩（如 CoinEx gzip）解压前后的字节数 */
+        COMPRESSED_BYTES, DECOMPRESSED_BYTES,
+        PARSE_MALFORMED, PARSE_INVALID_NUMBER, PARSE_DECOMPRESS, PARSE_OTHER,
+        SUBSCRIPTION_ACKS,
+        CONNECTS, RECONNECTS,
+        /** 断开到重新建立连接的累计时长 */
+        DOWNTIME_NANOS,
+        HEARTBEATS_SENT, HEARTBEAT_ACKS, HEARTBEAT_RTT_NANOS,
+        /** 以下为最近值而非累计值 */
+        LAST_HEARTBEAT_RTT_NANOS, LAST_PING_RTT_NANOS
+    }
+
+    /** 解析失败原因 */
+    public enum ParseFailure {
+        MALFORMED(Counter.PARSE_MALFORMED),
+        INVALID_NUMBER(Counter.PARSE_INVALID_NUMBER),
+        DECOMPRESS(Counter.PARSE_DECOMPRESS),
+        OTHER(Counter.PARSE_OTHER);
+
+        private final Counter counter;
+
+        ParseFailure(Counter counter) {
+            this.counter = counter;
+        }
+
+        Counter counter() {
+            return counter;
+        }
+
+        public static ParseFailure of(Exception e) {
+            if (e instanceof JsonProcessingException) return MALFORMED;
+            if (e instanceof NumberFormatException || e instanceof ArithmeticException) return INVALID_NUMBER;
+            if (e instanceof ZipException) return DECOMPRESS;
+            return OTHER;
+        }
+    }
+
+    static final Counter[] COUNTERS = Counter.values();
+
+    private final String exchange;
+    private final String connection;
+    /** 首尾各留一个 STRIDE，避免与数组头和相邻对象共享缓存行 */
+    private final long[] slots = new long[(COUNTERS.length + 2) * STRIDE];
+    /** 最近一次发送心跳的时刻，收到应答后清零 */
+    private volatile long heartbeatSentNanos;
+
+    public WireStats(String exchange, String connection) {
+        this.exchange = exchange;
+        this.connection = connection;
+    }
+
+    public String getExchange() { return exchange; }
+    public String getConnection() { return connection; }
+
+    public void add(Counter c, long delta) {
+        SLOTS.getAndAdd(slots, index(c), delta);
+    }
+
+    public void increment(Counter c) {
+        SLOTS.getAndAdd(slots, index(c), 1L);
+    }
+
+    public void set(Counter c, long value) {
+        SLOTS.setRelease(slots, index(c), value);
+    }
+
+    public long get(Counter c) {
+        return (long) SLOTS.getAcquire(slots, index(c));
+    }
+
+    public void parseFailure(ParseFailure reason) {
+        increment(reason.counter);
+    }
+
+    void heartbeatSent(long nanos) {
+        heartbeatSentNanos = nanos;
+        increment(Counter.HEARTBEATS_SENT);
+    }
+
+    /** 只计对应最近一次心跳的第一条应答 */
+    void heartbeatAck(long nanos) {
+        long sent = heartbeatSentNanos;
+        if (sent == 0) return;
+        heartbeatSentNanos = 0;
+        long rtt = nanos - sent;
+        increment(Counter.HEARTBEAT_ACKS);
+        add(Counter.HEARTBEAT_RTT_NANOS, rtt);
+        set(Counter.LAST_HEARTBEAT_RTT_NANOS, rtt);
+    }
+
+    private static int index(Counter c) {
+        return (c.ordinal() + 1) * STRIDE;
+    }
+}
@@ -0,0 +1,109 @@
+package com.spotspread.websocket;
+
+import com.spotspread.config.WebSocketWireStatsConfig;
+import com.spotspread.service.InfluxMetricsService;
+import com.spotspread.websocket.WireStats.Counter;
+import com.spotspread.websocket.WireStats.ParseFailure;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 各连接槽位的 WireStats 登记与汇总：按连接、按交易所两级返回，并可定时推送到 InfluxDB。
+ */
+@Service
+public class WireStatsService {
+
+    private final Map<String, WireStats> stats = new ConcurrentHashMap<>();
+    private final WebSocketWireStatsConfig config;
+    private final InfluxMetricsService influx;
+
+    public WireStatsService(WebSocketWireStatsConfig config, InfluxMetricsService influx) {
+        this.config = config;
+        this.influx = influx;
+    }
+
+    /** 同名连接返回同一实例 */
+    public WireStats forConnection(String exchange, String connection) {
+        return stats.computeIfAbsent(connection, c -> new WireStats(exchange, c));
+    }
+
+    /** 按连接名排序 */
+    public List<WireSnapshot> byConnection() {
+        List<WireSnapshot> list = new ArrayList<>();
+        for (WireStats s : stats.values()) list.add(snapshot(s.getExchange(), s.getConnection(), values(s)));
+        list.sort((a, b) -> a.connection().compareTo(b.connection()));
+        return list;
+    }
+
+    /** 同一交易所的分片 / 冗余连接合计，最近 RTT 取各连接最大值 */
+    public List<WireSnapshot> byExchange() {
+        Map<String, long[]> totals = new LinkedHashMap<>();
+        for (WireStats s : stats.values()) {
+            long[] v = values(s);
+            long[] t = totals.computeIfAbsent(s.getExchange(), k -> new long[v.length]);
+            for (Counter c : WireStats.COUNTERS) {
+                int i = c.ordinal();
+                t[i] = c == Counter.LAST_HEARTBEAT_RTT_NANOS || c == Counter.LAST_PING_RTT_NANOS ? Math.max(t[i], v[i]) : t[i] + v[i];
+            }
+        }
+        List<WireSnapshot> list = new ArrayList<>();
+        totals.forEach((exchange, v) -> list.add(snapshot(exchange, "*", v)));
+        list.sort((a, b) -> a.exchange().compareTo(b.exchange()));
+        return list;
+    }
+
+    @Scheduled(fixedRateString = "${websocket.wire-stats.influx-interval-ms:10000}")
+    public void pushToInflux() {
+        if (!config.isInfluxEnabled()) return;
+        for (WireStats s : stats.values()) {
+            Map<String, Object> fields = new LinkedHashMap<>();
+            for (Counter c : WireStats.COUNTERS) fields.put(c.name().toLowerCase(), s.get(c));
+            influx.writeWireStats(s.getExchange(), s.getConnection(), fields);
+        }
+    }
+
+    private static long[] values(WireStats s) {
+        long[] v = new long[WireStats.COUNTERS.length];
+        for (Counter c : WireStats.COUNTERS) v[c.ordinal()] = s.get(c);
+        return v;
+    }
+
+    private static WireSnapshot snapshot(String exchange, String connection, long[] v) {
+        Map<String, Long> failures = new LinkedHashMap<>();
+        for (ParseFailure f : ParseFailure.values()) {
+            failures.put(f.name().toLowerCase(), v[f.counter().ordinal()]);
+        }
+        long acks = v[Counter.HEARTBEAT_ACKS.ordinal()];
+        return new WireSnapshot(exchange, connection,
+                v[Counter.FRAMES_IN.ordinal()], v[Counter.TEXT_FRAMES_IN.ordinal()], v[Counter.BINARY_FRAMES_IN.ordinal()],
+                v[Counter.BYTES_IN.ordinal()], v[Counter.FRAMES_OUT.ordinal()], v[Counter.BYTES_OUT.ordinal()],
+                v[Counter.COMPRESSED_BYTES.ordinal()], v[Counter.DECOMPRESSED_BYTES.ordinal()], failures,
+                v[Counter.SUBSCRIPTION_ACKS.ordinal()], v[Counter.CONNECTS.ordinal()], v[Counter.RECONNECTS.ordinal()],
+                v[Counter.DOWNTIME_NANOS.ordinal()] / 1_000_000,
+                v[Counter.HEARTBEATS_SENT.ordinal()], acks,
+                acks > 0 ? v[Counter.HEARTBEAT_RTT_NANOS.ordinal()] / 1e6 / acks : 0,
+                v[Counter.LAST_HEARTBEAT_RTT_NANOS.ordinal()] / 1e6,
+                v[Counter.LAST_PING_RTT_NANOS.ordinal()] / 1e6);
+    }
+
+    /**
+     * @param connection       连接名，按交易所汇总时为 *
+     * @param bytesIn          文本帧按字符数计
+     * @param downtimeMs       断开到重连成功的累计时长
+     * @param lastHeartbeatRttMs 应用层心跳（如 ping/pong 文本）最近一次往返
+     * @param lastPingRttMs    协议层 ping 最近一次往返，仅 connectionLostTimeout>0 的交易所有值
+     */
+    public record WireSnapshot(String exchange, String connection,
+                               long framesIn, long textFramesIn, long binaryFramesIn, long bytesIn,
+                               long framesOut, long bytesOut, long compressedBytes, long decompressedBytes,
+                               Map<String, Long> parseFailures, long subscriptionAcks,
+                               long connects, long reconnects, long downtimeMs,
+                               long heartbeatsSent, long heartbeatAcks, double avgHeartbeatRttMs,
+                               double lastHeartbeatRttMs, double lastPingRttMs) {}
+}
@@ -3,7 +3,8 @@ package com.spotspread.websocket.handler;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.spotspread.event.InfluxDbMessagePublisher;
-import com.spotspread.service.OrderBookCacheService;
+import com.spotspread.logging.ThrottledLogger;
+import com.spotspread.service.OrderBookCacheService.FeedWriter;
 import com.spotspread.websocket.ExchangeWebSocketHandler;
 import com.spotspread.websocket.ManagedWebSocket;
 import org.slf4j.Logger;
@@ -11,6 +12,7 @@ import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.net.URI;
+import java.util.List;
 
 /**
  * Binance 现货买一/卖一，使用 @bookTicker 流。
@@ -20,25 +22,48 @@ public class BinanceSpotDepthHandler implements ExchangeWebSocketHandler {
 
     private static final String WS_URL = "wss://stream.binance.com:443/ws";
     private static final Logger log = LoggerFactory.getLogger(BinanceSpotDepthHandler.class);
+    /** 解析异常可能每帧一条，限流输出 */
+    private static final ThrottledLogger parseLog = ThrottledLogger.of(log);
 
-    private final OrderBookCacheService cache;
+    private final FeedWriter feed;
     private final InfluxDbMessagePublisher influxPublisher;
     private final ObjectMapper om = new ObjectMapper();
+    /** 本 handler 对应的连接，用于记录解析失败、订阅确认与心跳应答 */
+    private ManagedWebSocket client;
+    private final List<String> symbols;
 
-    public BinanceSpotDepthHandler(OrderBookCacheService cache, InfluxDbMessagePublisher influxPublisher) {
-        this.cache = cache;
+    public BinanceSpotDepthHandler(FeedWriter feed, InfluxDbMessagePublisher influxPublisher, List<String> symbols) {
+        this.feed = feed;
         this.influxPublisher = influxPublisher;
+        this.symbols = symbols;
     }
 
     public ManagedWebSocket createClient() {
-        return new ManagedWebSocket("binance", URI.create(WS_URL), this);
+        client = new ManagedWebSocket("binance", URI.create(WS_URL), this);
+        return client;
     }
 
     @Override
     public void onConnected(ManagedWebSocket client) {
         log.info("Binance spot depth WebSocket connected");
-        String sub = "{\"method\":\"SUBSCRIBE\",\"params\":[\"btcusdt@bookTicker\",\"ethusdt@bookTicker\",\"solusdt@bookTicker\",\"xrpusdt@bookTicker\",\"hypeusdt@bookTicker\",\"bnbusdt@bookTicker\"],\"id\":1}";
-        client.send(sub);
+        client.send(subscription("SUBSCRIBE", symbols, 1));
+    }
+
+    /** 静默看门狗发现单个币种断流时调用：先退订再订阅 */
+    @Override
+    public boolean resubscribe(ManagedWebSocket client, String symbol) {
+        client.send(subscription("UNSUBSCRIBE", List.of(symbol), 2));
+        client.send(subscription("SUBSCRIBE", List.of(symbol), 3));
+        return true;
+    }
+
+    private static String subscription(String method, List<String> syms, int id) {
+        StringBuilder params = new StringBuilder();
+        for (int i = 0; i < syms.size(); i++) {
+            if (i > 0) params.append(",");
+            params.append("\"").append(syms.get(i).toLowerCase()).append("@bookTicker\"");
+        }
+        return "{\"method\":\"" + method + "\",\"params\":[" + params + "],\"id\":" + id + "}";
     }
 
     /** Binance 使用 RFC 6455 协议层 ping/pong，超时 30 秒无消息则库自动发 ping */
@@ -51,8 +76,11 @@ public class BinanceSpotDepthHandler implements ExchangeWebSocketHandler {
     public void onMessage(String message) {
         try {
             JsonNode root = om.readTree(message);
-            // 忽略订阅确认 { "result": null, "id": 1 }
-            if (root.has("result")) return;
+            // 订阅确认 { "result": null, "id": 1 }
+            if (root.has("result")) {
+                client.recordSubscriptionAck();
+                return;
+            }
             // 原始流格式: { "s":"BTCUSDT", "b":"...", "a":"..." } 在根节点
             JsonNode sNode = root.path("s");
             if (sNode.isMissingNode() || sNode.isNull()) return;
@@ -65,7 +93,7 @@ public class BinanceSpotDepthHandler implements ExchangeWebSocketHandler {
             BigDecimal bid1 = parsePrice(bidNode);
             BigDecimal ask1 = parsePrice(askNode);
             if (bid1 != null && ask1 != null && bid1.compareTo(BigDecimal.ZERO) > 0 && ask1.compareTo(BigDecimal.ZERO) > 0) {
-                cache.updateBidAsk("binance", symbol, bid1, ask1);
+                feed.update(symbol, bid1, ask1, root.path("u").asLong(0));
                 long exchangeTs = parseTimestamp(root.path("E"));
                 if (exchangeTs > 0) {
                     long latencyMs = System.currentTimeMillis() - exchangeTs;
@@ -73,7 +101,8 @@ public class BinanceSpotDepthHandler implements ExchangeWebSocketHandler {
                 }
             }
         } catch (Exception e) {
-            log.warn("Binance bookTicker parse error: {}", e.getMessage());
+            client.recordParseFailure(e);
+            parseLog.warn("Binance bookTicker parse error: {}", e.getMessage());
         }
     }
 
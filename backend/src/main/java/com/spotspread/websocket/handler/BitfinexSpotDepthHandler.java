@@ -2,16 +2,20 @@ package com.spotspread.websocket.handler;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.spotspread.service.OrderBookCacheService;
+import com.spotspread.logging.ThrottledLogger;
+import com.spotspread.service.OrderBookCacheService.FeedWriter;
 import com.spotspread.websocket.ExchangeWebSocketHandler;
 import com.spotspread.websocket.ManagedWebSocket;
+import com.spotspread.websocket.SymbolShards;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.net.URI;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -21,23 +25,35 @@ public class BitfinexSpotDepthHandler implements ExchangeWebSocketHandler {
 
     private static final String WS_URL = "wss://api-pub.bitfinex.com/ws/2";
     private static final Logger log = LoggerFactory.getLogger(BitfinexSpotDepthHandler.class);
+    /** 解析异常可能每帧一条，限流输出 */
+    private static final ThrottledLogger parseLog = ThrottledLogger.of(log);
 
-    private final OrderBookCacheService cache;
+    private final FeedWriter feed;
     private final ObjectMapper om = new ObjectMapper();
-    private final Map<Integer, String> channelToSymbol = new HashMap<>();
+    /** 本 handler 对应的连接，用于记录解析失败、订阅确认与心跳应答 */
+    private ManagedWebSocket client;
+    /** chanId 由服务端按连接分配，断线后作废 */
+    private final Map<Integer, String> channelToSymbol = new ConcurrentHashMap<>();
     private final Map<String, BigDecimal[]> symbolBook = new ConcurrentHashMap<>();
-
-    private static final Map<String, String> SYMBOL_MAP = Map.of(
-            "tBTCUST", "BTCUSDT", "tETHUST", "ETHUSDT", "tSOLUST", "SOLUSDT",
-            "tXRPUST", "XRPUSDT", "tHYPE:UST", "HYPEUSDT"
-    );
-
-    public BitfinexSpotDepthHandler(OrderBookCacheService cache) {
-        this.cache = cache;
+    /** tBTCUST -> BTCUSDT */
+    private final Map<String, String> symbolMap = new LinkedHashMap<>();
+
+    /** Bitfinex 无 BNB/USDT 现货 */
+    private static final Set<String> UNSUPPORTED = Set.of("BNBUSDT");
+
+    public BitfinexSpotDepthHandler(FeedWriter feed, List<String> symbols) {
+        this.feed = feed;
+        for (String symbol : symbols) {
+            if (UNSUPPORTED.contains(symbol)) continue;
+            String base = SymbolShards.base(symbol);
+            // 超过 3 个字母的币种用冒号分隔，如 tHYPE:UST
+            symbolMap.put(base.length() > 3 ? "t" + base + ":UST" : "t" + base + "UST", symbol);
+        }
     }
 
     public ManagedWebSocket createClient() {
-        return new ManagedWebSocket("bitfinex", URI.create(WS_URL), this);
+        client = new ManagedWebSocket("bitfinex", URI.create(WS_URL), this);
+        return client;
     }
 
     private static final String PING_MSG = "{\"event\":\"ping\"}";
@@ -45,11 +61,17 @@ public class BitfinexSpotDepthHandler implements ExchangeWebSocketHandler {
     @Override
     public void onConnected(ManagedWebSocket client) {
         log.info("Bitfinex spot depth WebSocket connected");
-        for (String sym : SYMBOL_MAP.keySet()) {
+        for (String sym : symbolMap.keySet()) {
             client.send("{\"event\":\"subscribe\",\"channel\":\"book\",\"symbol\":\"" + sym + "\",\"len\":\"1\"}");
         }
     }
 
+    @Override
+    public void onClosed(int code, String reason, boolean remote) {
+        channelToSymbol.clear();
+        symbolBook.clear();
+    }
+
     @Override
     public String getHeartbeatMessage() {
         return PING_MSG;
@@ -68,13 +90,18 @@ public class BitfinexSpotDepthHandler implements ExchangeWebSocketHandler {
                 int chanId = root.path("chanId").asInt();
                 String symbol = root.path("symbol").asText();
                 channelToSymbol.put(chanId, symbol);
+                client.recordSubscriptionAck();
+                return;
+            }
+            if (root.has("event")) {
+                if ("pong".equals(root.path("event").asText())) client.recordHeartbeatAck();
                 return;
             }
             if (!root.isArray() || root.size() < 2) return;
             int chanId = root.get(0).asInt();
             String symbolKey = channelToSymbol.get(chanId);
             if (symbolKey == null) return;
-            String symbol = SYMBOL_MAP.get(symbolKey);
+            String symbol = symbolMap.get(symbolKey);
             if (symbol == null) return;
             BigDecimal[] book = symbolBook.computeIfAbsent(symbol, k -> new BigDecimal[]{null, null});
             JsonNode data = root.get(1);
@@ -101,9 +128,10 @@ public class BitfinexSpotDepthHandler implements ExchangeWebSocketHandler {
                     }
                 }
             }
-            if (book[0] != null && book[1] != null) cache.updateBidAsk("bitfinex", symbol, book[0], book[1]);
+            if (book[0] != null && book[1] != null) feed.update(symbol, book[0], book[1], 0);
         } catch (Exception e) {
-            log.warn("Bitfinex spot depth parse error: {}", e.getMessage());
+            client.recordParseFailure(e);
+            parseLog.warn("Bitfinex spot depth parse error: {}", e.getMessage());
         }
     }
 
@@ -2,7 +2,8 @@ package com.spotspread.websocket.handler;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.spotspread.service.OrderBookCacheService;
+import com.spotspread.logging.ThrottledLogger;
+import com.spotspread.service.OrderBookCacheService.FeedWriter;
 import com.spotspread.websocket.ExchangeWebSocketHandler;
 import com.spotspread.websocket.ManagedWebSocket;
 import org.slf4j.Logger;
@@ -10,6 +11,7 @@ import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.net.URI;
+import java.util.List;
 
 /**
  * Bitget 现货 books5，提取买一/卖一。
@@ -19,29 +21,46 @@ public class BitgetSpotDepthHandler implements ExchangeWebSocketHandler {
 
     private static final String WS_URL = "wss://ws.bitget.com/v2/ws/public";
     private static final Logger log = LoggerFactory.getLogger(BitgetSpotDepthHandler.class);
+    /** 解析异常可能每帧一条，限流输出 */
+    private static final ThrottledLogger parseLog = ThrottledLogger.of(log);
 
-    private static final String[] SYMBOLS = {"BTCUSDT", "ETHUSDT", "SOLUSDT", "XRPUSDT", "HYPEUSDT", "BNBUSDT"};
-
-    private final OrderBookCacheService cache;
+    private final FeedWriter feed;
     private final ObjectMapper om = new ObjectMapper();
+    /** 本 handler 对应的连接，用于记录解析失败、订阅确认与心跳应答 */
+    private ManagedWebSocket client;
+    private final List<String> symbols;
 
-    public BitgetSpotDepthHandler(OrderBookCacheService cache) {
-        this.cache = cache;
+    public BitgetSpotDepthHandler(FeedWriter feed, List<String> symbols) {
+        this.feed = feed;
+        this.symbols = symbols;
     }
 
     public ManagedWebSocket createClient() {
-        return new ManagedWebSocket("bitget", URI.create(WS_URL), this);
+        client = new ManagedWebSocket("bitget", URI.create(WS_URL), this);
+        return client;
     }
 
     @Override
     public void onConnected(ManagedWebSocket client) {
         log.info("Bitget spot depth WebSocket connected");
+        client.send(subscription("subscribe", symbols));
+    }
+
+    /** 静默看门狗发现单个币种断流时调用：先退订再订阅 */
+    @Override
+    public boolean resubscribe(ManagedWebSocket client, String symbol) {
+        client.send(subscription("unsubscribe", List.of(symbol)));
+        client.send(subscription("subscribe", List.of(symbol)));
+        return true;
+    }
+
+    private static String subscription(String op, List<String> syms) {
         StringBuilder args = new StringBuilder();
-        for (int i = 0; i < SYMBOLS.length; i++) {
+        for (int i = 0; i < syms.size(); i++) {
             if (i > 0) args.append(",");
-            args.append("{\"instType\":\"SPOT\",\"channel\":\"books5\",\"instId\":\"").append(SYMBOLS[i]).append("\"}");
+            args.append("{\"instType\":\"SPOT\",\"channel\":\"books5\",\"instId\":\"").append(syms.get(i)).append("\"}");
         }
-        client.send("{\"op\":\"subscribe\",\"args\":[" + args + "]}");
+        return "{\"op\":\"" + op + "\",\"args\":[" + args + "]}";
     }
 
     @Override
@@ -56,11 +75,17 @@ public class BitgetSpotDepthHandler implements ExchangeWebSocketHandler {
 
     @Override
     public void onMessage(String message) {
-        if (message == null || "pong".equals(message)) return;
+        if (message == null) return;
+        if ("pong".equals(message)) {
+            client.recordHeartbeatAck();
+            return;
+        }
         try {
             JsonNode root = om.readTree(message);
             if (root.has("event")) {
                 String ev = root.path("event").asText("");
+                if ("pong".equals(ev)) client.recordHeartbeatAck();
+                else if ("subscribe".equals(ev)) client.recordSubscriptionAck();
                 if ("error".equals(ev) || "pong".equals(ev)) return;
             }
             JsonNode arg = root.path("arg");
@@ -76,11 +101,12 @@ public class BitgetSpotDepthHandler implements ExchangeWebSocketHandler {
                 BigDecimal bid1 = parseBest(item.path("bids"), 0);
                 BigDecimal ask1 = parseBest(item.path("asks"), 0);
                 if (bid1 != null && ask1 != null && !instId.isEmpty()) {
-                    cache.updateBidAsk("bitget", instId, bid1, ask1);
+                    feed.update(instId, bid1, ask1, item.path("ts").asLong(0));
                 }
             }
         } catch (Exception e) {
-            log.warn("Bitget books5 parse error: {}", e.getMessage());
+            client.recordParseFailure(e);
+            parseLog.warn("Bitget books5 parse error: {}", e.getMessage());
         }
     }
 
@@ -2,7 +2,8 @@ package com.spotspread.websocket.handler;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.spotspread.service.OrderBookCacheService;
+import com.spotspread.logging.ThrottledLogger;
+import com.spotspread.service.OrderBookCacheService.FeedWriter;
 import com.spotspread.websocket.ExchangeWebSocketHandler;
 import com.spotspread.websocket.ManagedWebSocket;
 import org.slf4j.Logger;
@@ -10,6 +11,7 @@ import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.net.URI;
+import java.util.List;
 
 /**
  * Bitunix 现货深度 depth_book1，提取买一/卖一。
@@ -19,29 +21,46 @@ public class BitunixSpotDepthHandler implements ExchangeWebSocketHandler {
 
     private static final String WS_URL = "wss://fapi.bitunix.com/public/";
     private static final Logger log = LoggerFactory.getLogger(BitunixSpotDepthHandler.class);
+    /** 解析异常可能每帧一条，限流输出 */
+    private static final ThrottledLogger parseLog = ThrottledLogger.of(log);
 
-    private static final String[] SYMBOLS = {"BTCUSDT", "ETHUSDT", "SOLUSDT", "XRPUSDT", "HYPEUSDT", "BNBUSDT"};
-
-    private final OrderBookCacheService cache;
+    private final FeedWriter feed;
     private final ObjectMapper om = new ObjectMapper();
+    /** 本 handler 对应的连接，用于记录解析失败、订阅确认与心跳应答 */
+    private ManagedWebSocket client;
+    private final List<String> symbols;
 
-    public BitunixSpotDepthHandler(OrderBookCacheService cache) {
-        this.cache = cache;
+    public BitunixSpotDepthHandler(FeedWriter feed, List<String> symbols) {
+        this.feed = feed;
+        this.symbols = symbols;
     }
 
     public ManagedWebSocket createClient() {
-        return new ManagedWebSocket("bitunix", URI.create(WS_URL), this);
+        client = new ManagedWebSocket("bitunix", URI.create(WS_URL), this);
+        return client;
     }
 
     @Override
     public void onConnected(ManagedWebSocket client) {
         log.info("Bitunix spot depth WebSocket connected");
+        client.send(subscription("subscribe", symbols));
+    }
+
+    /** 静默看门狗发现单个币种断流时调用：先退订再订阅 */
+    @Override
+    public boolean resubscribe(ManagedWebSocket client, String symbol) {
+        client.send(subscription("unsubscribe", List.of(symbol)));
+        client.send(subscription("subscribe", List.of(symbol)));
+        return true;
+    }
+
+    private static String subscription(String op, List<String> syms) {
         StringBuilder args = new StringBuilder();
-        for (int i = 0; i < SYMBOLS.length; i++) {
+        for (int i = 0; i < syms.size(); i++) {
             if (i > 0) args.append(",");
-            args.append("{\"symbol\":\"").append(SYMBOLS[i]).append("\",\"ch\":\"depth_book1\"}");
+            args.append("{\"symbol\":\"").append(syms.get(i)).append("\",\"ch\":\"depth_book1\"}");
         }
-        client.send("{\"op\":\"subscribe\",\"args\":[" + args + "]}");
+        return "{\"op\":\"" + op + "\",\"args\":[" + args + "]}";
     }
 
     @Override
@@ -59,7 +78,15 @@ public class BitunixSpotDepthHandler implements ExchangeWebSocketHandler {
         try {
             JsonNode root = om.readTree(message);
             String op = root.path("op").asText("");
-            if ("ping".equals(op)) return;
+            // 服务端以 op=ping 回应客户端心跳
+            if ("ping".equals(op)) {
+                client.recordHeartbeatAck();
+                return;
+            }
+            if ("subscribe".equals(op)) {
+                client.recordSubscriptionAck();
+                return;
+            }
             if (!"depth_book1".equals(root.path("ch").asText(""))) return;
             String symbol = root.path("symbol").asText("");
             JsonNode data = root.path("data");
@@ -67,10 +94,11 @@ public class BitunixSpotDepthHandler implements ExchangeWebSocketHandler {
             BigDecimal bid1 = parseBest(data.path("b"), 0);
             BigDecimal ask1 = parseBest(data.path("a"), 0);
             if (bid1 != null && ask1 != null) {
-                cache.updateBidAsk("bitunix", symbol, bid1, ask1);
+                feed.update(symbol, bid1, ask1, root.path("ts").asLong(0));
             }
         } catch (Exception e) {
-            log.warn("Bitunix depth parse error: {}", e.getMessage());
+            client.recordParseFailure(e);
+            parseLog.warn("Bitunix depth parse error: {}", e.getMessage());
         }
     }
 
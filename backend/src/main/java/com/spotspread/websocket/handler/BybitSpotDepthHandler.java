@@ -3,7 +3,8 @@ package com.spotspread.websocket.handler;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.spotspread.event.InfluxDbMessagePublisher;
-import com.spotspread.service.OrderBookCacheService;
+import com.spotspread.logging.ThrottledLogger;
+import com.spotspread.service.OrderBookCacheService.FeedWriter;
 import com.spotspread.websocket.ExchangeWebSocketHandler;
 import com.spotspread.websocket.ManagedWebSocket;
 import org.slf4j.Logger;
@@ -11,6 +12,7 @@ import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.net.URI;
+import java.util.List;
 
 /**
  * Bybit 现货订单簿 orderbook.1，提取买一/卖一。
@@ -20,36 +22,54 @@ public class BybitSpotDepthHandler implements ExchangeWebSocketHandler {
 
     private static final String WS_URL = "wss://stream.bybit.com/v5/public/spot";
     private static final Logger log = LoggerFactory.getLogger(BybitSpotDepthHandler.class);
+    /** 解析异常可能每帧一条，限流输出 */
+    private static final ThrottledLogger parseLog = ThrottledLogger.of(log);
 
-    private static final String[] SYMBOLS = {"BTCUSDT", "ETHUSDT", "SOLUSDT", "XRPUSDT", "HYPEUSDT", "BNBUSDT"};
-
-    private final OrderBookCacheService cache;
+    private final FeedWriter feed;
     private final InfluxDbMessagePublisher influxPublisher;
     private final ObjectMapper om = new ObjectMapper();
+    /** 本 handler 对应的连接，用于记录解析失败、订阅确认与心跳应答 */
+    private ManagedWebSocket client;
+    private final List<String> symbols;
 
-    public BybitSpotDepthHandler(OrderBookCacheService cache, InfluxDbMessagePublisher influxPublisher) {
-        this.cache = cache;
+    public BybitSpotDepthHandler(FeedWriter feed, InfluxDbMessagePublisher influxPublisher, List<String> symbols) {
+        this.feed = feed;
         this.influxPublisher = influxPublisher;
+        this.symbols = symbols;
     }
 
     public ManagedWebSocket createClient() {
-        return new ManagedWebSocket("bybit", URI.create(WS_URL), this);
+        client = new ManagedWebSocket("bybit", URI.create(WS_URL), this);
+        return client;
     }
 
     @Override
     public void onConnected(ManagedWebSocket client) {
         log.info("Bybit spot depth WebSocket connected");
-        for (String sym : SYMBOLS) {
+        for (String sym : symbols) {
             client.send("{\"op\":\"subscribe\",\"args\":[\"orderbook.1." + sym + "\"]}");
         }
     }
 
+    /** 静默看门狗发现单个币种断流时调用：先退订再订阅 */
+    @Override
+    public boolean resubscribe(ManagedWebSocket client, String symbol) {
+        client.send("{\"op\":\"unsubscribe\",\"args\":[\"orderbook.1." + symbol + "\"]}");
+        client.send("{\"op\":\"subscribe\",\"args\":[\"orderbook.1." + symbol + "\"]}");
+        return true;
+    }
+
     @Override
     public void onMessage(String message) {
         try {
             JsonNode root = om.readTree(message);
             JsonNode topic = root.path("topic");
-            if (topic.isMissingNode()) return;
+            if (topic.isMissingNode()) {
+                if ("subscribe".equals(root.path("op").asText("")) && root.path("success").asBoolean(false)) {
+                    client.recordSubscriptionAck();
+                }
+                return;
+            }
             String topicStr = topic.asText("");
             if (!topicStr.startsWith("orderbook.")) return;
             JsonNode data = root.path("data");
@@ -58,7 +78,7 @@ public class BybitSpotDepthHandler implements ExchangeWebSocketHandler {
             BigDecimal bid1 = parseBest(data.path("b"), 0);
             BigDecimal ask1 = parseBest(data.path("a"), 0);
             if (bid1 != null && ask1 != null) {
-                cache.updateBidAsk("bybit", symbol, bid1, ask1);
+                feed.update(symbol, bid1, ask1, data.path("u").asLong(0));
                 long exchangeTs = parseTimestamp(root.path("ts"));
                 if (exchangeTs > 0) {
                     long latencyMs = System.currentTimeMillis() - exchangeTs;
@@ -66,7 +86,8 @@ public class BybitSpotDepthHandler implements ExchangeWebSocketHandler {
                 }
             }
         } catch (Exception e) {
-            log.warn("Bybit orderbook parse error: {}", e.getMessage());
+            client.recordParseFailure(e);
+            parseLog.warn("Bybit orderbook parse error: {}", e.getMessage());
         }
     }
 
@@ -2,9 +2,13 @@ package com.spotspread.websocket.handler;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.spotspread.service.OrderBookCacheService;
+import com.spotspread.logging.ThrottledLogger;
+import com.spotspread.service.OrderBookCacheService.FeedWriter;
+import com.spotspread.stats.StageLatencyService.Stage;
+import com.spotspread.stats.StageLatencyService;
 import com.spotspread.websocket.ExchangeWebSocketHandler;
 import com.spotspread.websocket.ManagedWebSocket;
+import com.spotspread.websocket.WireStats.ParseFailure;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,36 +29,36 @@ public class CoinExSpotDepthHandler implements ExchangeWebSocketHandler {
 
     private static final String WS_URL = "wss://socket.coinex.com/v2/spot";
     private static final Logger log = LoggerFactory.getLogger(CoinExSpotDepthHandler.class);
+    /** 解析异常可能每帧一条，限流输出 */
+    private static final ThrottledLogger parseLog = ThrottledLogger.of(log);
 
-    private final OrderBookCacheService cache;
+    private final FeedWriter feed;
+    private final StageLatencyService latency;
     private final ObjectMapper om = new ObjectMapper();
-
-    private static final String[][] MARKET_LIST = {
-            {"BTCUSDT", "10", "0", "false"},
-            {"ETHUSDT", "10", "0", "false"},
-            {"SOLUSDT", "10", "0", "false"},
-            {"XRPUSDT", "10", "0", "false"},
-            {"HYPEUSDT", "10", "0", "false"},
-            {"BNBUSDT", "10", "0", "false"}
-    };
+    /** 本 handler 对应的连接，用于记录解析失败、订阅确认与心跳应答 */
+    private ManagedWebSocket client;
+    private final List<String> symbols;
 
     private static final String PING_MSG = "{\"method\":\"server.ping\",\"params\":{},\"id\":1}";
 
-    public CoinExSpotDepthHandler(OrderBookCacheService cache) {
-        this.cache = cache;
+    public CoinExSpotDepthHandler(FeedWriter feed, List<String> symbols, StageLatencyService latency) {
+        this.feed = feed;
+        this.latency = latency;
+        this.symbols = symbols;
     }
 
     public ManagedWebSocket createClient() {
-        return new ManagedWebSocket("coinex", URI.create(WS_URL), this);
+        client = new ManagedWebSocket("coinex", URI.create(WS_URL), this);
+        return client;
     }
 
     @Override
     public void onConnected(ManagedWebSocket client) {
         log.info("CoinEx spot depth WebSocket connected");
-        // v2 API: 使用 market_list 格式，单次订阅多市场
+        // v2 API: 使用 market_list 格式，单次订阅多市场，每项为 [market, limit, interval, is_full]
         List<String> list = new ArrayList<>();
-        for (String[] m : MARKET_LIST) {
-            list.add("[\"" + m[0] + "\"," + m[1] + ",\"" + m[2] + "\"," + m[3] + "]");
+        for (String market : symbols) {
+            list.add("[\"" + market + "\",10,\"0\",false]");
         }
         String marketListJson = "[" + String.join(",", list) + "]";
         String sub = "{\"method\":\"depth.subscribe\",\"params\":{\"market_list\":" + marketListJson + "},\"id\":1}";
@@ -75,10 +79,14 @@ public class CoinExSpotDepthHandler implements ExchangeWebSocketHandler {
     public void onBinaryMessage(byte[] data) {
         if (data == null || data.length == 0) return;
         try {
-            String json = decompressGzip(data);
-            processMessage(json);
+            long start = System.nanoTime();
+            byte[] json = decompressGzip(data);
+            latency.record(Stage.DECOMPRESS, "coinex", StageLatencyService.ALL, System.nanoTime() - start);
+            client.recordDecompressed(data.length, json.length);
+            processMessage(new String(json, java.nio.charset.StandardCharsets.UTF_8));
         } catch (Exception e) {
-            log.warn("CoinEx 解压/解析失败: {}", e.getMessage());
+            client.recordParseFailure(ParseFailure.DECOMPRESS);
+            parseLog.warn("CoinEx 解压/解析失败: {}", e.getMessage());
         }
     }
 
@@ -91,6 +99,12 @@ public class CoinExSpotDepthHandler implements ExchangeWebSocketHandler {
         try {
             JsonNode root = om.readTree(message);
             String method = root.path("method").asText("");
+            if (method.isEmpty()) {
+                // 请求应答：server.ping 回 data.result=pong，订阅成功回 code=0
+                if ("pong".equals(root.path("data").path("result").asText(""))) client.recordHeartbeatAck();
+                else if (root.path("code").asInt(-1) == 0) client.recordSubscriptionAck();
+                return;
+            }
             if (!"depth.update".equals(method)) return;
             // v2 格式: data.market, data.depth.bids, data.depth.asks
             JsonNode data = root.path("data");
@@ -101,16 +115,17 @@ public class CoinExSpotDepthHandler implements ExchangeWebSocketHandler {
             BigDecimal bid1 = parseBest(depth.path("bids"), 0);
             BigDecimal ask1 = parseBest(depth.path("asks"), 0);
             if (bid1 != null && ask1 != null) {
-                cache.updateBidAsk("coinex", symbol, bid1, ask1);
+                feed.update(symbol, bid1, ask1, depth.path("updated_at").asLong(0));
             }
         } catch (Exception e) {
-            log.warn("CoinEx depth.update 解析失败: {}", e.getMessage());
+            client.recordParseFailure(e);
+            parseLog.warn("CoinEx depth.update 解析失败: {}", e.getMessage());
         }
     }
 
-    private String decompressGzip(byte[] compressed) throws IOException {
+    private byte[] decompressGzip(byte[] compressed) throws IOException {
         try (GZIPInputStream gis = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
-            return new String(gis.readAllBytes(), java.nio.charset.StandardCharsets.UTF_8);
+            return gis.readAllBytes();
         }
     }
 
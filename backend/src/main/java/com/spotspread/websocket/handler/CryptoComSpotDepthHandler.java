@@ -2,15 +2,19 @@ package com.spotspread.websocket.handler;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.spotspread.service.OrderBookCacheService;
+import com.spotspread.logging.ThrottledLogger;
+import com.spotspread.service.OrderBookCacheService.FeedWriter;
 import com.spotspread.websocket.ExchangeWebSocketHandler;
 import com.spotspread.websocket.ManagedWebSocket;
+import com.spotspread.websocket.SymbolShards;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.net.URI;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -21,21 +25,21 @@ public class CryptoComSpotDepthHandler implements ExchangeWebSocketHandler {
 
     private static final String WS_URL = "wss://stream.crypto.com/exchange/v1/market";
     private static final Logger log = LoggerFactory.getLogger(CryptoComSpotDepthHandler.class);
+    /** 解析异常可能每帧一条，限流输出 */
+    private static final ThrottledLogger parseLog = ThrottledLogger.of(log);
 
-    private static final String[] INSTRUMENTS = {"BTC_USDT", "ETH_USDT", "SOL_USDT", "XRP_USDT", "HYPE_USDT", "BNB_USDT"};
-    private static final Map<String, String> INSTRUMENT_TO_SYMBOL = new HashMap<>();
-    static {
-        for (String inst : INSTRUMENTS) {
-            INSTRUMENT_TO_SYMBOL.put(inst, inst.replace("_", ""));
-        }
-    }
-
-    private final OrderBookCacheService cache;
+    private final FeedWriter feed;
     private final ObjectMapper om = new ObjectMapper();
+    /** BTC_USDT -> BTCUSDT */
+    private final Map<String, String> instrumentToSymbol = new LinkedHashMap<>();
+    /** 当前连接，用于回复服务端心跳 */
     private volatile ManagedWebSocket clientRef;
 
-    public CryptoComSpotDepthHandler(OrderBookCacheService cache) {
-        this.cache = cache;
+    public CryptoComSpotDepthHandler(FeedWriter feed, List<String> symbols) {
+        this.feed = feed;
+        for (String symbol : symbols) {
+            instrumentToSymbol.put(SymbolShards.base(symbol) + "_USDT", symbol);
+        }
     }
 
     public ManagedWebSocket createClient() {
@@ -46,23 +50,27 @@ public class CryptoComSpotDepthHandler implements ExchangeWebSocketHandler {
     public void onConnected(ManagedWebSocket client) {
         clientRef = client;
         log.info("Crypto.com spot depth WebSocket connected");
-        new Thread(() -> {
-            try {
-                Thread.sleep(1000);
-                if (clientRef != null && clientRef.isOpen()) {
-                    // Crypto.com 只支持 depth 10 或 50，不支持 1
-                    StringBuilder channels = new StringBuilder("[");
-                    for (int i = 0; i < INSTRUMENTS.length; i++) {
-                        if (i > 0) channels.append(",");
-                        channels.append("\"book.").append(INSTRUMENTS[i]).append(".10\"");
-                    }
-                    channels.append("]");
-                    clientRef.send("{\"id\":1,\"method\":\"subscribe\",\"params\":{\"channels\":" + channels + "},\"nonce\":" + System.currentTimeMillis() + "}");
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }).start();
+        client.scheduleWhileOpen(() -> client.send(subscription("subscribe", instrumentToSymbol.keySet())), 1000);
+    }
+
+    /** 静默看门狗发现单个币种断流时调用：先退订再订阅 */
+    @Override
+    public boolean resubscribe(ManagedWebSocket client, String symbol) {
+        List<String> inst = List.of(SymbolShards.base(symbol) + "_USDT");
+        client.send(subscription("unsubscribe", inst));
+        client.send(subscription("subscribe", inst));
+        return true;
+    }
+
+    private static String subscription(String method, Collection<String> instruments) {
+        // Crypto.com 只支持 depth 10 或 50，不支持 1
+        StringBuilder channels = new StringBuilder("[");
+        for (String inst : instruments) {
+            if (channels.length() > 1) channels.append(",");
+            channels.append("\"book.").append(inst).append(".10\"");
+        }
+        channels.append("]");
+        return "{\"id\":1,\"method\":\"" + method + "\",\"params\":{\"channels\":" + channels + "},\"nonce\":" + System.currentTimeMillis() + "}";
     }
 
     @Override
@@ -81,6 +89,13 @@ public class CryptoComSpotDepthHandler implements ExchangeWebSocketHandler {
                 }
                 return;
             }
+            // 订阅确认：带请求 id、code=0 且不含行情数据
+            if ("subscribe".equals(root.path("method").asText("")) && root.path("id").asLong(-1) > 0
+                    && root.path("code").asInt(-1) == 0 && !root.path("result").path("data").isArray()) {
+                ManagedWebSocket c = clientRef;
+                if (c != null) c.recordSubscriptionAck();
+                return;
+            }
             // 订阅响应与增量更新在 result 中；部分推送可能在 params 中
             JsonNode payload = root.path("result");
             if (payload.isMissingNode()) {
@@ -90,7 +105,7 @@ public class CryptoComSpotDepthHandler implements ExchangeWebSocketHandler {
             JsonNode data = payload.path("data");
             if (!data.isArray() || data.isEmpty()) return;
             String instrumentName = payload.path("instrument_name").asText("");
-            String symbol = INSTRUMENT_TO_SYMBOL.get(instrumentName);
+            String symbol = instrumentToSymbol.get(instrumentName);
             if (symbol == null) return;
             JsonNode item = data.get(0);
             JsonNode bids = item.path("bids");
@@ -103,10 +118,12 @@ public class CryptoComSpotDepthHandler implements ExchangeWebSocketHandler {
             BigDecimal bid1 = parseBest(bids, 0);
             BigDecimal ask1 = parseBest(asks, 0);
             if (bid1 != null && ask1 != null) {
-                cache.updateBidAsk("cryptocom", symbol, bid1, ask1);
+                feed.update(symbol, bid1, ask1, item.path("u").asLong(0));
             }
         } catch (Exception e) {
-            log.warn("Crypto.com book parse error: {}", e.getMessage());
+            ManagedWebSocket c = clientRef;
+            if (c != null) c.recordParseFailure(e);
+            parseLog.warn("Crypto.com book parse error: {}", e.getMessage());
         }
     }
 
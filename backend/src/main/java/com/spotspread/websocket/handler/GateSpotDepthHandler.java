@@ -2,14 +2,17 @@ package com.spotspread.websocket.handler;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.spotspread.service.OrderBookCacheService;
+import com.spotspread.logging.ThrottledLogger;
+import com.spotspread.service.OrderBookCacheService.FeedWriter;
 import com.spotspread.websocket.ExchangeWebSocketHandler;
 import com.spotspread.websocket.ManagedWebSocket;
+import com.spotspread.websocket.SymbolShards;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.net.URI;
+import java.util.List;
 
 /**
  * Gate.io 现货 book_ticker，提取买一/卖一。
@@ -19,39 +22,57 @@ public class GateSpotDepthHandler implements ExchangeWebSocketHandler {
 
     private static final String WS_URL = "wss://api.gateio.ws/ws/v4/";
     private static final Logger log = LoggerFactory.getLogger(GateSpotDepthHandler.class);
+    /** 解析异常可能每帧一条，限流输出 */
+    private static final ThrottledLogger parseLog = ThrottledLogger.of(log);
 
-    private static final String[] PAIRS = {"BTC_USDT", "ETH_USDT", "SOL_USDT", "XRP_USDT", "HYPE_USDT", "BNB_USDT"};
-
-    private final OrderBookCacheService cache;
+    private final FeedWriter feed;
     private final ObjectMapper om = new ObjectMapper();
+    /** 本 handler 对应的连接，用于记录解析失败、订阅确认与心跳应答 */
+    private ManagedWebSocket client;
+    private final List<String> symbols;
 
-    public GateSpotDepthHandler(OrderBookCacheService cache) {
-        this.cache = cache;
+    public GateSpotDepthHandler(FeedWriter feed, List<String> symbols) {
+        this.feed = feed;
+        this.symbols = symbols;
     }
 
     public ManagedWebSocket createClient() {
-        return new ManagedWebSocket("gateio", URI.create(WS_URL), this);
+        client = new ManagedWebSocket("gateio", URI.create(WS_URL), this);
+        return client;
     }
 
     @Override
     public void onConnected(ManagedWebSocket client) {
         log.info("Gate.io spot depth WebSocket connected");
+        client.send(subscription("subscribe", symbols));
+    }
+
+    /** 静默看门狗发现单个币种断流时调用：先退订再订阅 */
+    @Override
+    public boolean resubscribe(ManagedWebSocket client, String symbol) {
+        client.send(subscription("unsubscribe", List.of(symbol)));
+        client.send(subscription("subscribe", List.of(symbol)));
+        return true;
+    }
+
+    private static String subscription(String event, List<String> syms) {
         long time = System.currentTimeMillis() / 1000;
         StringBuilder payload = new StringBuilder("[");
-        for (int i = 0; i < PAIRS.length; i++) {
+        for (int i = 0; i < syms.size(); i++) {
             if (i > 0) payload.append(",");
-            payload.append("\"").append(PAIRS[i]).append("\"");
+            payload.append("\"").append(SymbolShards.base(syms.get(i))).append("_USDT\"");
         }
         payload.append("]");
-        String msg = String.format("{\"time\":%d,\"channel\":\"spot.book_ticker\",\"event\":\"subscribe\",\"payload\":%s}", time, payload);
-        client.send(msg);
+        return String.format("{\"time\":%d,\"channel\":\"spot.book_ticker\",\"event\":\"%s\",\"payload\":%s}", time, event, payload);
     }
 
     @Override
     public void onMessage(String message) {
         try {
             JsonNode root = om.readTree(message);
-            if (!"update".equals(root.path("event").asText(""))) return;
+            String event = root.path("event").asText("");
+            if ("subscribe".equals(event)) client.recordSubscriptionAck();
+            if (!"update".equals(event)) return;
             if (!"spot.book_ticker".equals(root.path("channel").asText(""))) return;
             JsonNode result = root.path("result");
             if (result.isMissingNode()) return;
@@ -60,10 +81,11 @@ public class GateSpotDepthHandler implements ExchangeWebSocketHandler {
             BigDecimal bid1 = parseDecimal(result.path("b"));
             BigDecimal ask1 = parseDecimal(result.path("a"));
             if (bid1 != null && ask1 != null) {
-                cache.updateBidAsk("gateio", symbol, bid1, ask1);
+                feed.update(symbol, bid1, ask1, result.path("u").asLong(0));
             }
         } catch (Exception e) {
-            log.warn("Gate.io book_ticker parse error: {}", e.getMessage());
+            client.recordParseFailure(e);
+            parseLog.warn("Gate.io book_ticker parse error: {}", e.getMessage());
         }
     }
 
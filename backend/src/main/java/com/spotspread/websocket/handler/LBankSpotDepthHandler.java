@@ -2,14 +2,18 @@ package com.spotspread.websocket.handler;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.spotspread.service.OrderBookCacheService;
+import com.spotspread.logging.ThrottledLogger;
+import com.spotspread.service.OrderBookCacheService.FeedWriter;
 import com.spotspread.websocket.ExchangeWebSocketHandler;
 import com.spotspread.websocket.ManagedWebSocket;
+import com.spotspread.websocket.SymbolShards;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -20,21 +24,26 @@ public class LBankSpotDepthHandler implements ExchangeWebSocketHandler {
 
     private static final String WS_URL = "wss://www.lbkex.net/ws/V2/";
     private static final Logger log = LoggerFactory.getLogger(LBankSpotDepthHandler.class);
+    /** 解析异常可能每帧一条，限流输出 */
+    private static final ThrottledLogger parseLog = ThrottledLogger.of(log);
 
-    private static final Map<String, String> PAIR_TO_SYMBOL = Map.of(
-            "btc_usdt", "BTCUSDT", "eth_usdt", "ETHUSDT", "sol_usdt", "SOLUSDT",
-            "xrp_usdt", "XRPUSDT", "hype_usdt", "HYPEUSDT", "bnb_usdt", "BNBUSDT"
-    );
-
-    private final OrderBookCacheService cache;
+    private final FeedWriter feed;
     private final ObjectMapper om = new ObjectMapper();
+    /** 本 handler 对应的连接，用于记录解析失败、订阅确认与心跳应答 */
+    private ManagedWebSocket client;
+    /** btc_usdt -> BTCUSDT */
+    private final Map<String, String> pairToSymbol = new LinkedHashMap<>();
 
-    public LBankSpotDepthHandler(OrderBookCacheService cache) {
-        this.cache = cache;
+    public LBankSpotDepthHandler(FeedWriter feed, List<String> symbols) {
+        this.feed = feed;
+        for (String symbol : symbols) {
+            pairToSymbol.put(SymbolShards.base(symbol).toLowerCase() + "_usdt", symbol);
+        }
     }
 
     public ManagedWebSocket createClient() {
-        return new ManagedWebSocket("lbank", URI.create(WS_URL), this);
+        client = new ManagedWebSocket("lbank", URI.create(WS_URL), this);
+        return client;
     }
 
     /** LBank 服务端约 6 分钟空闲会主动断开，需定期发送 ping 保活 */
@@ -53,21 +62,36 @@ public class LBankSpotDepthHandler implements ExchangeWebSocketHandler {
     @Override
     public void onConnected(ManagedWebSocket client) {
         log.info("LBank spot depth WebSocket connected");
-        for (String pair : PAIR_TO_SYMBOL.keySet()) {
-            String sub = "{\"action\":\"subscribe\",\"subscribe\":\"depth\",\"depth\":\"5\",\"pair\":\"" + pair + "\"}";
-            client.send(sub);
+        for (String pair : pairToSymbol.keySet()) {
+            client.send(subscription("subscribe", pair));
         }
     }
 
+    /** 静默看门狗发现单个币种断流时调用：先退订再订阅 */
+    @Override
+    public boolean resubscribe(ManagedWebSocket client, String symbol) {
+        String pair = SymbolShards.base(symbol).toLowerCase() + "_usdt";
+        client.send(subscription("unsubscribe", pair));
+        client.send(subscription("subscribe", pair));
+        return true;
+    }
+
+    private static String subscription(String action, String pair) {
+        return "{\"action\":\"" + action + "\",\"subscribe\":\"depth\",\"depth\":\"5\",\"pair\":\"" + pair + "\"}";
+    }
+
     @Override
     public void onMessage(String message) {
         try {
             JsonNode root = om.readTree(message);
             String action = root.path("action").asText("");
             String pair = root.path("pair").asText("").toLowerCase();
-            String symbol = PAIR_TO_SYMBOL.get(pair);
+            String symbol = pairToSymbol.get(pair);
             if ("pong".equals(action) || "ping".equals(action)) {
-                log.info("[LBank] 收到心跳响应 action={} raw={}", action, message.length() > 100 ? message.substring(0, 100) + "..." : message);
+                if ("pong".equals(action)) client.recordHeartbeatAck();
+                if (log.isDebugEnabled()) {
+                    log.debug("[LBank] 收到心跳响应 action={} raw={}", action, message.length() > 100 ? message.substring(0, 100) + "..." : message);
+                }
                 return;
             }
             if (symbol == null) return;
@@ -76,10 +100,11 @@ public class LBankSpotDepthHandler implements ExchangeWebSocketHandler {
             BigDecimal bid1 = parseBest(depth.path("bids"), 0);
             BigDecimal ask1 = parseBest(depth.path("asks"), 0);
             if (bid1 != null && ask1 != null) {
-                cache.updateBidAsk("lbank", symbol, bid1, ask1);
+                feed.update(symbol, bid1, ask1, 0);
             }
         } catch (Exception e) {
-            log.warn("[LBank] depth 解析失败 msg={} err={}", message.length() > 150 ? message.substring(0, 150) + "..." : message, e.getMessage());
+            client.recordParseFailure(e);
+            parseLog.warn("[LBank] depth 解析失败 msg={} err={}", message.length() > 150 ? message.substring(0, 150) + "..." : message, e.getMessage());
         }
     }
 
@@ -3,14 +3,17 @@ package com.spotspread.websocket.handler;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.spotspread.event.InfluxDbMessagePublisher;
-import com.spotspread.service.OrderBookCacheService;
+import com.spotspread.logging.ThrottledLogger;
+import com.spotspread.service.OrderBookCacheService.FeedWriter;
 import com.spotspread.websocket.ExchangeWebSocketHandler;
 import com.spotspread.websocket.ManagedWebSocket;
+import com.spotspread.websocket.SymbolShards;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.net.URI;
+import java.util.List;
 
 /**
  * OKX 现货订单簿 books5，提取买一/卖一。
@@ -20,38 +23,58 @@ public class OkxSpotDepthHandler implements ExchangeWebSocketHandler {
 
     private static final String WS_URL = "wss://ws.okx.com:8443/ws/v5/public";
     private static final Logger log = LoggerFactory.getLogger(OkxSpotDepthHandler.class);
+    /** 解析异常可能每帧一条，限流输出 */
+    private static final ThrottledLogger parseLog = ThrottledLogger.of(log);
 
-    private static final String[] SPOT_INST_IDS = {"BTC-USDT", "ETH-USDT", "SOL-USDT", "XRP-USDT", "HYPE-USDT", "BNB-USDT"};
-
-    private final OrderBookCacheService cache;
+    private final FeedWriter feed;
     private final InfluxDbMessagePublisher influxPublisher;
     private final ObjectMapper om = new ObjectMapper();
+    /** 本 handler 对应的连接，用于记录解析失败、订阅确认与心跳应答 */
+    private ManagedWebSocket client;
+    private final List<String> symbols;
 
-    public OkxSpotDepthHandler(OrderBookCacheService cache, InfluxDbMessagePublisher influxPublisher) {
-        this.cache = cache;
+    public OkxSpotDepthHandler(FeedWriter feed, InfluxDbMessagePublisher influxPublisher, List<String> symbols) {
+        this.feed = feed;
         this.influxPublisher = influxPublisher;
+        this.symbols = symbols;
     }
 
     public ManagedWebSocket createClient() {
-        return new ManagedWebSocket("okx", URI.create(WS_URL), this);
+        client = new ManagedWebSocket("okx", URI.create(WS_URL), this);
+        return client;
     }
 
     @Override
     public void onConnected(ManagedWebSocket client) {
         log.info("OKX spot depth WebSocket connected");
+        client.send(subscription("subscribe", symbols));
+    }
+
+    /** 静默看门狗发现单个币种断流时调用：先退订再订阅 */
+    @Override
+    public boolean resubscribe(ManagedWebSocket client, String symbol) {
+        client.send(subscription("unsubscribe", List.of(symbol)));
+        client.send(subscription("subscribe", List.of(symbol)));
+        return true;
+    }
+
+    private static String subscription(String op, List<String> syms) {
         StringBuilder args = new StringBuilder();
-        for (int i = 0; i < SPOT_INST_IDS.length; i++) {
+        for (int i = 0; i < syms.size(); i++) {
             if (i > 0) args.append(",");
-            args.append("{\"channel\":\"books5\",\"instId\":\"").append(SPOT_INST_IDS[i]).append("\"}");
+            args.append("{\"channel\":\"books5\",\"instId\":\"").append(SymbolShards.base(syms.get(i))).append("-USDT\"}");
         }
-        client.send("{\"op\":\"subscribe\",\"args\":[" + args + "]}");
+        return "{\"op\":\"" + op + "\",\"args\":[" + args + "]}";
     }
 
     @Override
     public void onMessage(String message) {
         try {
             JsonNode root = om.readTree(message);
-            if (root.has("event") && !"subscribe".equals(root.path("event").asText(""))) return;
+            if (root.has("event")) {
+                if ("subscribe".equals(root.path("event").asText(""))) client.recordSubscriptionAck();
+                return;
+            }
             JsonNode arg = root.path("arg");
             if (arg.isMissingNode()) return;
             String channel = arg.path("channel").asText("");
@@ -64,7 +87,7 @@ public class OkxSpotDepthHandler implements ExchangeWebSocketHandler {
             BigDecimal bid1 = parseBest(item.path("bids"), 0);
             BigDecimal ask1 = parseBest(item.path("asks"), 0);
             if (bid1 != null && ask1 != null) {
-                cache.updateBidAsk("okx", symbol, bid1, ask1);
+                feed.update(symbol, bid1, ask1, item.path("ts").asLong(0));
                 long exchangeTs = parseTimestamp(root.path("ts"));
                 if (exchangeTs == 0) exchangeTs = parseTimestamp(item.path("ts"));
                 if (exchangeTs > 0) {
@@ -73,7 +96,8 @@ public class OkxSpotDepthHandler implements ExchangeWebSocketHandler {
                 }
             }
         } catch (Exception e) {
-            log.warn("OKX books5 parse error: {}", e.getMessage());
+            client.recordParseFailure(e);
+            parseLog.warn("OKX books5 parse error: {}", e.getMessage());
         }
     }
 
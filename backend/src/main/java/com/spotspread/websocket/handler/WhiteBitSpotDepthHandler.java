@@ -2,14 +2,17 @@ package com.spotspread.websocket.handler;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.spotspread.service.OrderBookCacheService;
+import com.spotspread.logging.ThrottledLogger;
+import com.spotspread.service.OrderBookCacheService.FeedWriter;
 import com.spotspread.websocket.ExchangeWebSocketHandler;
 import com.spotspread.websocket.ManagedWebSocket;
+import com.spotspread.websocket.SymbolShards;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.net.URI;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -20,24 +23,37 @@ public class WhiteBitSpotDepthHandler implements ExchangeWebSocketHandler {
 
     private static final String WS_URL = "wss://api.whitebit.com/ws";
     private static final Logger log = LoggerFactory.getLogger(WhiteBitSpotDepthHandler.class);
+    /** 解析异常可能每帧一条，限流输出 */
+    private static final ThrottledLogger parseLog = ThrottledLogger.of(log);
 
-    private static final Set<String> VALID_SYMBOLS = Set.of("BTCUSDT", "ETHUSDT", "SOLUSDT", "XRPUSDT", "HYPEUSDT", "BNBUSDT");
-
-    private final OrderBookCacheService cache;
+    private final FeedWriter feed;
     private final ObjectMapper om = new ObjectMapper();
+    /** 本 handler 对应的连接，用于记录解析失败、订阅确认与心跳应答 */
+    private ManagedWebSocket client;
+    private final List<String> symbols;
+    private final Set<String> validSymbols;
 
-    public WhiteBitSpotDepthHandler(OrderBookCacheService cache) {
-        this.cache = cache;
+    public WhiteBitSpotDepthHandler(FeedWriter feed, List<String> symbols) {
+        this.feed = feed;
+        this.symbols = symbols;
+        this.validSymbols = Set.copyOf(symbols);
     }
 
     public ManagedWebSocket createClient() {
-        return new ManagedWebSocket("whitebit", URI.create(WS_URL), this);
+        client = new ManagedWebSocket("whitebit", URI.create(WS_URL), this);
+        return client;
     }
 
     @Override
     public void onConnected(ManagedWebSocket client) {
         log.info("WhiteBIT spot depth WebSocket connected");
-        client.send("{\"id\":1,\"method\":\"bookTicker_subscribe\",\"params\":[]}");
+        // params 为空表示订阅全部市场；分片时只订阅本分片的市场
+        StringBuilder markets = new StringBuilder();
+        for (int i = 0; i < symbols.size(); i++) {
+            if (i > 0) markets.append(",");
+            markets.append("\"").append(SymbolShards.base(symbols.get(i))).append("_USDT\"");
+        }
+        client.send("{\"id\":1,\"method\":\"bookTicker_subscribe\",\"params\":[" + markets + "]}");
     }
 
     @Override
@@ -54,6 +70,12 @@ public class WhiteBitSpotDepthHandler implements ExchangeWebSocketHandler {
     public void onMessage(String message) {
         try {
             JsonNode root = om.readTree(message);
+            if (!root.has("method")) {
+                JsonNode result = root.path("result");
+                if ("pong".equals(result.asText(""))) client.recordHeartbeatAck();
+                else if ("success".equals(result.path("status").asText(""))) client.recordSubscriptionAck();
+                return;
+            }
             if (!"bookTicker_update".equals(root.path("method").asText(""))) return;
             JsonNode params = root.path("params");
             if (!params.isArray() || params.isEmpty()) return;
@@ -61,14 +83,15 @@ public class WhiteBitSpotDepthHandler implements ExchangeWebSocketHandler {
             if (!data.isArray() || data.size() < 8) return;
             String market = data.get(2).asText("");
             String symbol = market.replace("_", "");
-            if (!VALID_SYMBOLS.contains(symbol)) return;
+            if (!validSymbols.contains(symbol)) return;
             BigDecimal bid1 = parseDecimal(data.get(4));
             BigDecimal ask1 = parseDecimal(data.get(6));
             if (bid1 != null && ask1 != null) {
-                cache.updateBidAsk("whitebit", symbol, bid1, ask1);
+                feed.update(symbol, bid1, ask1, data.get(3).asLong(0));
             }
         } catch (Exception e) {
-            log.warn("WhiteBIT bookTicker parse error: {}", e.getMessage());
+            client.recordParseFailure(e);
+            parseLog.warn("WhiteBIT bookTicker parse error: {}", e.getMessage());
         }
     }
 
@@ -0,0 +1,97 @@
+package com.spotspread.websocket.timer;
+
+import com.spotspread.websocket.timer.HashedWheelTimer.Timeout;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单条连接在共享时间轮上的定时任务入口，按用途分别计数并记录到期执行的滞后。
+ */
+public final class ConnectionTimers {
+
+    /** 定时任务用途 */
+    public enum Kind { RECONNECT, HEARTBEAT, DELAYED, WATCHDOG }
+
+    private final String connection;
+    private final HashedWheelTimer timer;
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder staleCloses = new LongAdder();
+    private final Map<Kind, LongAdder> fired = new EnumMap<>(Kind.class);
+    private final LongAdder latenessNanos = new LongAdder();
+    private final AtomicLong maxLatenessNanos = new AtomicLong();
+
+    ConnectionTimers(String connection, HashedWheelTimer timer) {
+        this.connection = connection;
+        this.timer = timer;
+        for (Kind kind : Kind.values()) fired.put(kind, new LongAdder());
+    }
+
+    public String getConnection() { return connection; }
+
+    public Timeout schedule(Kind kind, Runnable task, long delayMs) {
+        scheduled.increment();
+        long[] due = {System.nanoTime() + delayMs * 1_000_000L};
+        return new Counted(timer.schedule(() -> fire(kind, task, due, 0), delayMs));
+    }
+
+    public Timeout scheduleAtFixedRate(Kind kind, Runnable task, long initialDelayMs, long periodMs) {
+        scheduled.increment();
+        long[] due = {System.nanoTime() + initialDelayMs * 1_000_000L};
+        return new Counted(timer.scheduleAtFixedRate(() -> fire(kind, task, due, periodMs * 1_000_000L), initialDelayMs, periodMs));
+    }
+
+    /** 看门狗判定断流并主动断开时计数 */
+    public void recordStaleClose() {
+        staleCloses.increment();
+    }
+
+    /** due 仅在时钟线程上读写 */
+    private void fire(Kind kind, Runnable task, long[] due, long periodNanos) {
+        long lateness = Math.max(0, System.nanoTime() - due[0]);
+        due[0] += periodNanos;
+        fired.get(kind).increment();
+        latenessNanos.add(lateness);
+        maxLatenessNanos.accumulateAndGet(lateness, Math::max);
+        task.run();
+    }
+
+    public ConnectionTimerStats getStats() {
+        long total = 0;
+        for (LongAdder a : fired.values()) total += a.sum();
+        return new ConnectionTimerStats(connection, scheduled.sum(), cancelled.sum(), total,
+                fired.get(Kind.RECONNECT).sum(), fired.get(Kind.HEARTBEAT).sum(), fired.get(Kind.DELAYED).sum(),
+                fired.get(Kind.WATCHDOG).sum(), staleCloses.sum(),
+                total > 0 ? latenessNanos.sum() / total / 1e6 : 0, maxLatenessNanos.get() / 1e6);
+    }
+
+    /**
+     * @param avgLatenessMs 实际执行时刻相对计划时刻的平均滞后，正常应在一个 tick 以内
+     */
+    public record ConnectionTimerStats(String connection, long scheduled, long cancelled, long fired,
+                                       long reconnects, long heartbeats, long delayed, long watchdogChecks, long staleCloses,
+                                       double avgLatenessMs, double maxLatenessMs) {}
+
+    private final class Counted implements Timeout {
+        private final Timeout delegate;
+
+        Counted(Timeout delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean cancel() {
+            boolean ok = delegate.cancel();
+            if (ok) cancelled.increment();
+            return ok;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return delegate.isCancelled();
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.spotspread.websocket.timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 哈希时间轮：一个线程按 tick 推进，每个槽位是一条链表，到期任务在时钟线程上执行。
+ * 新增任务先进无锁队列，由时钟线程在下一 tick 放入槽位；取消只改状态，槽位轮到时再摘除，链表始终只由时钟线程访问。
+ * 适合大量「几乎都会被取消或重排」的低精度超时（重连退避、心跳、看门狗），精度为一个 tick。
+ * 任务须为非阻塞短任务，耗时任务会推迟后续所有到期任务。
+ */
+public final class HashedWheelTimer {
+
+    private static final Logger log = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+    private static final int ST_WAITING = 0;
+    private static final int ST_CANCELLED = 1;
+    private static final int ST_EXPIRED = 2;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Task> incoming = new ConcurrentLinkedQueue<>();
+    /** 本 tick 执行后需重排的周期任务，只由时钟线程访问 */
+    private final List<Task> rearmed = new ArrayList<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final Thread worker;
+    private final long startNanos;
+    private volatile boolean running = true;
+    private long tick;
+
+    public HashedWheelTimer(String threadName, long tickMs, int wheelSize) {
+        if (tickMs <= 0) throw new IllegalArgumentException("tickMs must be > 0");
+        int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) wheel[i] = new Bucket();
+        this.mask = size - 1;
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, threadName);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /** 一次性任务 */
+    public Timeout schedule(Runnable task, long delayMs) {
+        return add(task, delayMs, 0);
+    }
+
+    /** 固定频率任务，取消前每 periodMs 执行一次（以计划时间累加，不因执行延迟漂移） */
+    public Timeout scheduleAtFixedRate(Runnable task, long initialDelayMs, long periodMs) {
+        if (periodMs <= 0) throw new IllegalArgumentException("periodMs must be > 0");
+        return add(task, initialDelayMs, TimeUnit.MILLISECONDS.toNanos(periodMs));
+    }
+
+    public long getPendingCount() {
+        return pending.get();
+    }
+
+    public long getTickMs() {
+        return TimeUnit.NANOSECONDS.toMillis(tickNanos);
+    }
+
+    public int getWheelSize() {
+        return wheel.length;
+    }
+
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private Timeout add(Runnable task, long delayMs, long periodNanos) {
+        long deadline = System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMs));
+        Task t = new Task(task, deadline, periodNanos);
+        pending.incrementAndGet();
+        incoming.add(t);
+        return t;
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = waitForNextTick();
+            if (deadline < 0) break;
+            transferIncoming();
+            wheel[(int) (tick & mask)].expire(deadline);
+            tick++;
+            rearm();
+        }
+    }
+
+    /** 返回当前 tick 的结束时刻（相对 startNanos），被中断停止时返回 -1 */
+    private long waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long now = System.nanoTime() - startNanos;
+            long sleepMs = TimeUnit.NANOSECONDS.toMillis(deadline - now + 999_999);
+            if (sleepMs <= 0) return now;
+            try {
+                Thread.sleep(sleepMs);
+            } catch (InterruptedException e) {
+                if (!running) return -1;
+            }
+        }
+    }
+
+    private void transferIncoming() {
+        // 每 tick 最多搬 10 万个，避免新增过快时饿死到期处理
+        for (int i = 0; i < 100_000; i++) {
+            Task t = incoming.poll();
+            if (t == null) return;
+            if (t.state.get() == ST_CANCELLED) {
+                pending.decrementAndGet();
+                continue;
+            }
+            place(t);
+        }
+    }
+
+    /**
+     * 在当前槽位遍历完、tick 前进之后再放回周期任务：周期为整圈的倍数时任务会落回刚处理过的槽位，
+     * 按推进后的 tick 计算剩余圈数，该槽位下一次被轮到时不会再多减一圈。
+     */
+    private void rearm() {
+        for (int i = 0; i < rearmed.size(); i++) place(rearmed.get(i));
+        rearmed.clear();
+    }
+
+    private void place(Task t) {
+        long calculated = t.deadline / tickNanos;
+        t.remainingRounds = (calculated - tick) / wheel.length;
+        long ticks = Math.max(calculated, tick);
+        wheel[(int) (ticks & mask)].add(t);
+    }
+
+    /** 任务句柄 */
+    public interface Timeout {
+        /** 尚未执行时取消成功返回 true；周期任务在任意两次执行之间均可取消 */
+        boolean cancel();
+        boolean isCancelled();
+    }
+
+    private final class Task implements Timeout {
+        final Runnable task;
+        final long periodNanos;
+        final AtomicInteger state = new AtomicInteger(ST_WAITING);
+        long deadline;
+        long remainingRounds;
+        Task next;
+        Task prev;
+
+        Task(Runnable task, long deadline, long periodNanos) {
+            this.task = task;
+            this.deadline = deadline;
+            this.periodNanos = periodNanos;
+        }
+
+        @Override
+        public boolean cancel() {
+            return state.compareAndSet(ST_WAITING, ST_CANCELLED);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state.get() == ST_CANCELLED;
+        }
+
+        void expire() {
+            if (periodNanos == 0 && !state.compareAndSet(ST_WAITING, ST_EXPIRED)) return;
+            try {
+                task.run();
+            } catch (Throwable e) {
+                log.warn("[WheelTimer] 任务执行异常: {}", e.toString());
+            }
+        }
+    }
+
+    private final class Bucket {
+        private Task head;
+        private Task tail;
+
+        void add(Task t) {
+            if (head == null) {
+                head = tail = t;
+            } else {
+                tail.next = t;
+                t.prev = tail;
+                tail = t;
+            }
+        }
+
+        void expire(long deadline) {
+            Task t = head;
+            while (t != null) {
+                Task next = t.next;
+                if (t.state.get() == ST_CANCELLED) {
+                    remove(t);
+                    pending.decrementAndGet();
+                } else if (t.remainingRounds <= 0 && t.deadline <= deadline) {
+                    remove(t);
+                    t.expire();
+                    if (t.periodNanos > 0 && t.state.get() == ST_WAITING) {
+                        t.deadline += t.periodNanos;
+                        rearmed.add(t);
+                    } else {
+                        pending.decrementAndGet();
+                    }
+                } else if (t.remainingRounds > 0) {
+                    t.remainingRounds--;
+                }
+                t = next;
+            }
+        }
+
+        private void remove(Task t) {
+            if (t.prev != null) t.prev.next = t.next;
+            else head = t.next;
+            if (t.next != null) t.next.prev = t.prev;
+            else tail = t.prev;
+            t.prev = t.next = null;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.spotspread.websocket.timer;
+
+import com.spotspread.config.WebSocketTimerConfig;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 所有 ManagedWebSocket 共用的单线程时间轮（线程名 ws-timer），取代每条连接各自的 ScheduledExecutorService。
+ */
+@Component
+public class WebSocketTimer {
+
+    private final WebSocketTimerConfig config;
+    private final HashedWheelTimer timer;
+    private final List<ConnectionTimers> connections = new CopyOnWriteArrayList<>();
+
+    public WebSocketTimer(WebSocketTimerConfig config) {
+        this.config = config;
+        this.timer = new HashedWheelTimer("ws-timer", config.getTickMs(), config.getWheelSize());
+    }
+
+    /** 未经 Spring 注入时（如单独构造 ManagedWebSocket）使用的默认实例 */
+    public static WebSocketTimer defaultTimer() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    public WebSocketTimerConfig getConfig() {
+        return config;
+    }
+
+    public ConnectionTimers register(String connection) {
+        ConnectionTimers timers = new ConnectionTimers(connection, timer);
+        connections.add(timers);
+        return timers;
+    }
+
+    public void unregister(ConnectionTimers timers) {
+        connections.remove(timers);
+    }
+
+    /** 在 [delay × (1 - jitter), delay] 内随机取值 */
+    public long jitter(long delayMs) {
+        double jitter = Math.min(1, Math.max(0, config.getReconnectJitter()));
+        long min = (long) (delayMs * (1 - jitter));
+        return min >= delayMs ? delayMs : ThreadLocalRandom.current().nextLong(min, delayMs + 1);
+    }
+
+    public TimerStats getStats() {
+        List<ConnectionTimers.ConnectionTimerStats> list = new ArrayList<>();
+        for (ConnectionTimers c : connections) list.add(c.getStats());
+        return new TimerStats(timer.getTickMs(), timer.getWheelSize(), timer.getPendingCount(), list);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.stop();
+    }
+
+    public record TimerStats(long tickMs, int wheelSize, long pending, List<ConnectionTimers.ConnectionTimerStats> connections) {}
+
+    private static final class DefaultHolder {
+        static final WebSocketTimer INSTANCE = new WebSocketTimer(new WebSocketTimerConfig());
+    }
+}
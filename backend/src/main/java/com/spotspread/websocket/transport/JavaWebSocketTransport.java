@@ -0,0 +1,111 @@
+package com.spotspread.websocket.transport;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.framing.Framedata;
+import org.java_websocket.framing.PingFrame;
+import org.java_websocket.handshake.ServerHandshake;
+
+import javax.net.ssl.SSLContext;
+import java.net.URI;
+import java.nio.ByteBuffer;
+
+/**
+ * 基于 Java-WebSocket 的传输，每条连接一个读线程、一个写线程，connectionLostTimeout>0 时另有 ping 检测线程。
+ * wss 显式设置工厂共享的 SSLContext 的 SocketFactory，与 JDK 传输共用同一会话缓存；
+ * 不设置时库每次连接都新建 SSLContext.getInstance("TLSv1.2")，既不能复用会话也用不上 TLS 1.3。
+ * 读线程解帧后立即回调，收到时刻取回调入口。
+ */
+class JavaWebSocketTransport implements WebSocketTransport {
+
+    private final Client client;
+
+    JavaWebSocketTransport(URI uri, TransportListener listener, SSLContext sslContext, int connectionLostTimeoutSeconds,
+                           int connectTimeoutMs) {
+        this.client = new Client(uri, listener, connectionLostTimeoutSeconds, connectTimeoutMs);
+        // 工厂创建的是未连接的 SSLSocket，库不会再升级一次，仍会打开主机名校验
+        if ("wss".equals(uri.getScheme())) client.setSocketFactory(sslContext.getSocketFactory());
+    }
+
+    @Override
+    public void connect() {
+        client.connect();
+    }
+
+    @Override
+    public void send(String text) {
+        if (client.isOpen()) client.send(text);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return client.isOpen();
+    }
+
+    @Override
+    public void close() {
+        client.close();
+    }
+
+    @Override
+    public void abort(String reason) {
+        client.closeConnection(1006, reason);
+    }
+
+    @Override
+    public long getPingRttNanos() {
+        return client.pingRttNanos;
+    }
+
+    private static final class Client extends WebSocketClient {
+        private final TransportListener listener;
+        private final int connectionLostTimeoutSeconds;
+        private volatile long pingSentNanos;
+        private volatile long pingRttNanos = -1;
+
+        Client(URI uri, TransportListener listener, int connectionLostTimeoutSeconds, int connectTimeoutMs) {
+            super(uri, new Draft_6455(), null, connectTimeoutMs);
+            this.listener = listener;
+            this.connectionLostTimeoutSeconds = connectionLostTimeoutSeconds;
+        }
+
+        @Override
+        public void onOpen(ServerHandshake handshake) {
+            // 必须显式设置，否则 Java-WebSocket 默认约 60 秒 ping/pong 检测；服务端不响应 WS 层 pong 时会被误判断连
+            setConnectionLostTimeout(connectionLostTimeoutSeconds);
+            listener.onOpen();
+        }
+
+        /** 库的 connectionLost 定时器发 ping 前回调，借此记录发送时刻 */
+        @Override
+        public PingFrame onPreparePing(WebSocket conn) {
+            pingSentNanos = System.nanoTime();
+            return super.onPreparePing(conn);
+        }
+
+        @Override
+        public void onWebsocketPong(WebSocket conn, Framedata f) {
+            long sent = pingSentNanos;
+            if (sent > 0) pingRttNanos = System.nanoTime() - sent;
+            super.onWebsocketPong(conn, f);
+        }
+
+        @Override
+        public void onMessage(String message) { listener.onText(message, System.nanoTime()); }
+
+        @Override
+        public void onMessage(ByteBuffer bytes) {
+            long receivedNanos = System.nanoTime();
+            byte[] arr = new byte[bytes.remaining()];
+            bytes.get(arr);
+            listener.onBinary(arr, receivedNanos);
+        }
+
+        @Override
+        public void onClose(int code, String reason, boolean remote) { listener.onClose(code, reason, remote); }
+
+        @Override
+        public void onError(Exception ex) { listener.onError(ex); }
+    }
+}
@@ -0,0 +1,215 @@
+package com.spotspread.websocket.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 基于 java.net.http.WebSocket 的传输。所有连接共用一个 HttpClient：读写由其单个选择器线程多路复用，
+ * 回调在虚拟线程上执行，不再为每条连接占用平台线程。
+ * 分片帧拼接完整后再回调，收到时刻取首个分片到达；发送串行化（JDK WebSocket 不允许上一帧未完成时再次发送）；
+ * connectionLostTimeout>0 时按 Java-WebSocket 的语义定时发 ping，1.5 倍超时未收到任何数据即判定断连。
+ */
+class JdkWebSocketTransport implements WebSocketTransport, WebSocket.Listener {
+
+    private final URI uri;
+    private final TransportListener listener;
+    private final HttpClient httpClient;
+    private final ScheduledExecutorService pingScheduler;
+    private final int connectionLostTimeoutSeconds;
+    private final Duration connectTimeout;
+
+    private final StringBuilder textBuffer = new StringBuilder();
+    private final ByteArrayOutputStream binaryBuffer = new ByteArrayOutputStream();
+    /** 正在拼接的分片消息首个分片的到达时刻，同一连接的回调串行，无需同步 */
+    private long fragmentStartNanos;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final Object sendLock = new Object();
+    private CompletableFuture<?> lastSend = CompletableFuture.completedFuture(null);
+    private volatile WebSocket webSocket;
+    private volatile long lastReceiveNanos;
+    private volatile long pingSentNanos;
+    private volatile long pingRttNanos = -1;
+    private volatile ScheduledFuture<?> pingFuture;
+
+    JdkWebSocketTransport(URI uri, TransportListener listener, HttpClient httpClient, ScheduledExecutorService pingScheduler,
+                          int connectionLostTimeoutSeconds, int connectTimeoutMs) {
+        this.uri = uri;
+        this.listener = listener;
+        this.httpClient = httpClient;
+        this.pingScheduler = pingScheduler;
+        this.connectionLostTimeoutSeconds = connectionLostTimeoutSeconds;
+        this.connectTimeout = Duration.ofMillis(connectTimeoutMs);
+    }
+
+    @Override
+    public void connect() {
+        httpClient.newWebSocketBuilder()
+                .connectTimeout(connectTimeout)
+                .buildAsync(uri, this)
+                .whenComplete((ws, ex) -> {
+                    if (ex != null && closed.compareAndSet(false, true)) {
+                        listener.onError(ex instanceof Exception e ? e : new RuntimeException(ex));
+                        listener.onClose(1006, ex.getMessage(), false);
+                    }
+                });
+    }
+
+    @Override
+    public void send(String text) {
+        WebSocket ws = webSocket;
+        if (ws == null || !isOpen()) return;
+        synchronized (sendLock) {
+            lastSend = lastSend.handle((v, ex) -> null).thenCompose(v -> ws.sendText(text, true));
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        WebSocket ws = webSocket;
+        return ws != null && !closed.get() && !ws.isOutputClosed() && !ws.isInputClosed();
+    }
+
+    @Override
+    public void close() {
+        WebSocket ws = webSocket;
+        if (ws == null) return;
+        if (closed.compareAndSet(false, true)) {
+            cancelPing();
+            ws.sendClose(WebSocket.NORMAL_CLOSURE, "").whenComplete((v, ex) -> ws.abort());
+            listener.onClose(WebSocket.NORMAL_CLOSURE, "", false);
+        }
+    }
+
+    @Override
+    public void abort(String reason) {
+        WebSocket ws = webSocket;
+        if (ws == null) return;
+        if (closed.compareAndSet(false, true)) {
+            cancelPing();
+            ws.abort();
+            listener.onClose(1006, reason, false);
+        }
+    }
+
+    @Override
+    public void onOpen(WebSocket ws) {
+        webSocket = ws;
+        lastReceiveNanos = System.nanoTime();
+        if (connectionLostTimeoutSeconds > 0) {
+            pingFuture = pingScheduler.scheduleAtFixedRate(this::checkConnectionLost,
+                    connectionLostTimeoutSeconds, connectionLostTimeoutSeconds, TimeUnit.SECONDS);
+        }
+        listener.onOpen();
+        ws.request(1);
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket ws, CharSequence data, boolean last) {
+        long now = System.nanoTime();
+        lastReceiveNanos = now;
+        if (textBuffer.isEmpty()) fragmentStartNanos = now;
+        textBuffer.append(data);
+        if (last) {
+            String message = textBuffer.toString();
+            textBuffer.setLength(0);
+            listener.onText(message, fragmentStartNanos);
+        }
+        ws.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onBinary(WebSocket ws, ByteBuffer data, boolean last) {
+        long now = System.nanoTime();
+        lastReceiveNanos = now;
+        byte[] chunk = new byte[data.remaining()];
+        data.get(chunk);
+        if (last && binaryBuffer.size() == 0) {
+            listener.onBinary(chunk, now);
+        } else {
+            if (binaryBuffer.size() == 0) fragmentStartNanos = now;
+            binaryBuffer.writeBytes(chunk);
+            if (last) {
+                byte[] message = binaryBuffer.toByteArray();
+                binaryBuffer.reset();
+                listener.onBinary(message, fragmentStartNanos);
+            }
+        }
+        ws.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onPing(WebSocket ws, ByteBuffer message) {
+        // JDK 实现会自动回 pong
+        lastReceiveNanos = System.nanoTime();
+        ws.request(1);
+        return null;
+    }
+
+    @Override
+    public long getPingRttNanos() {
+        return pingRttNanos;
+    }
+
+    @Override
+    public CompletionStage<?> onPong(WebSocket ws, ByteBuffer message) {
+        lastReceiveNanos = System.nanoTime();
+        long sent = pingSentNanos;
+        if (sent > 0) pingRttNanos = lastReceiveNanos - sent;
+        ws.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket ws, int statusCode, String reason) {
+        if (closed.compareAndSet(false, true)) {
+            cancelPing();
+            listener.onClose(statusCode, reason, true);
+        }
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket ws, Throwable error) {
+        if (closed.compareAndSet(false, true)) {
+            cancelPing();
+            listener.onError(error instanceof Exception e ? e : new RuntimeException(error));
+            listener.onClose(1006, error.getMessage(), false);
+        }
+    }
+
+    private void checkConnectionLost() {
+        WebSocket ws = webSocket;
+        if (ws == null || closed.get()) return;
+        long idleMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastReceiveNanos);
+        if (idleMs > connectionLostTimeoutSeconds * 1500L) {
+            abort("connection lost, idle " + idleMs + "ms");
+            return;
+        }
+        synchronized (sendLock) {
+            lastSend = lastSend.handle((v, ex) -> null).thenCompose(v -> {
+                pingSentNanos = System.nanoTime();
+                return ws.sendPing(ByteBuffer.allocate(0));
+            });
+        }
+    }
+
+    private void cancelPing() {
+        ScheduledFuture<?> f = pingFuture;
+        if (f != null) {
+            f.cancel(false);
+            pingFuture = null;
+        }
+    }
+}
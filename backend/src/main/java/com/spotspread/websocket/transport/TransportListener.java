@@ -0,0 +1,14 @@
+package com.spotspread.websocket.transport;
+
+/**
+ * 传输层回调，由 ManagedWebSocket 实现。同一连接的回调串行调用。
+ */
+public interface TransportListener {
+
+    void onOpen();
+    /** @param receivedNanos 传输层收到该消息的 System.nanoTime()，分片消息取首个分片 */
+    void onText(String message, long receivedNanos);
+    void onBinary(byte[] data, long receivedNanos);
+    void onClose(int code, String reason, boolean remote);
+    void onError(Exception ex);
+}
@@ -0,0 +1,17 @@
+package com.spotspread.websocket.transport;
+
+/**
+ * 单条 WebSocket 连接的底层实现，一个实例只连接一次，重连时由 ManagedWebSocket 新建。
+ */
+public interface WebSocketTransport {
+
+    /** 异步发起连接，结果通过 TransportListener 回调 */
+    void connect();
+    void send(String text);
+    boolean isOpen();
+    void close();
+    /** 不走关闭握手直接断开（用于判定连接已失活），随后以 code=1006 回调 onClose */
+    void abort(String reason);
+    /** 最近一次协议层 ping 的往返时延，未测得返回 -1 */
+    default long getPingRttNanos() { return -1; }
+}
@@ -0,0 +1,223 @@
+package com.spotspread.websocket.transport;
+
+import com.spotspread.config.WebSocketTransportConfig;
+import com.spotspread.config.WebSocketTransportConfig.TransportType;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按配置创建 WebSocket 传输，并统计各传输的建连耗时、相关线程数以及逐帧耗时（两种实现的对比项）。
+ * 两种传输共用 SSLContext.getDefault()（java-websocket 须显式设置其 SocketFactory），
+ * 其客户端会话缓存按 host:port 复用 TLS 会话（TLS 1.3 为 PSK 票据），重连时省去完整握手。
+ * JDK 传输的 HttpClient 与 ping 线程在首次使用时创建，全部使用 java-websocket 时不会多出线程。
+ */
+@Component
+public class WebSocketTransportFactory {
+
+    private static final Logger log = LoggerFactory.getLogger(WebSocketTransportFactory.class);
+
+    private final WebSocketTransportConfig config;
+    private final SSLContext sslContext;
+    private final Map<TransportType, Meter> meters = new EnumMap<>(TransportType.class);
+    private volatile HttpClient httpClient;
+    private volatile ScheduledExecutorService pingScheduler;
+
+    public WebSocketTransportFactory(WebSocketTransportConfig config) {
+        this.config = config;
+        this.sslContext = sharedSslContext(config);
+        for (TransportType type : TransportType.values()) meters.put(type, new Meter());
+    }
+
+    /** 未经 Spring 注入时（如单独构造 ManagedWebSocket）使用的默认工厂 */
+    public static WebSocketTransportFactory defaultFactory() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    public TransportType typeFor(String exchange) {
+        TransportType override = config.getExchanges().get(exchange);
+        return override != null ? override : config.getType();
+    }
+
+    public WebSocketTransport create(String exchange, URI uri, TransportListener listener, int connectionLostTimeoutSeconds) {
+        return switch (typeFor(exchange)) {
+            case JAVA_WEBSOCKET -> new JavaWebSocketTransport(uri, listener, sslContext, connectionLostTimeoutSeconds,
+                    config.getConnectTimeoutMs());
+            case JDK -> new JdkWebSocketTransport(uri, listener, httpClient(), pingScheduler(),
+                    connectionLostTimeoutSeconds, config.getConnectTimeoutMs());
+        };
+    }
+
+    public void recordConnected(TransportType type, long connectNanos) {
+        Meter m = meters.get(type);
+        m.open.increment();
+        m.connects.increment();
+        m.connectNanos.add(connectNanos);
+        m.maxConnectNanos.accumulateAndGet(connectNanos, Math::max);
+    }
+
+    public void recordDisconnected(TransportType type) {
+        meters.get(type).open.decrement();
+    }
+
+    /**
+     * @param deliveryNanos 传输层收到该帧到交给 handler
+     * @param frameNanos    传输层收到该帧到 handler 处理完毕
+     */
+    public void recordFrame(TransportType type, long deliveryNanos, long frameNanos) {
+        Meter m = meters.get(type);
+        m.frames.increment();
+        m.deliveryNanos.add(deliveryNanos);
+        m.maxDeliveryNanos.accumulateAndGet(deliveryNanos, Math::max);
+        m.frameNanos.add(frameNanos);
+        m.maxFrameNanos.accumulateAndGet(frameNanos, Math::max);
+    }
+
+    public List<TransportStats> getStats() {
+        List<TransportStats> list = new ArrayList<>();
+        for (Map.Entry<TransportType, Meter> e : meters.entrySet()) {
+            Meter m = e.getValue();
+            long connects = m.connects.sum();
+            long frames = m.frames.sum();
+            list.add(new TransportStats(e.getKey().name().toLowerCase().replace('_', '-'), m.open.sum(), connects,
+                    connects > 0 ? m.connectNanos.sum() / connects / 1e6 : 0, m.maxConnectNanos.get() / 1e6,
+                    frames, frames > 0 ? m.deliveryNanos.sum() / frames / 1e3 : 0, m.maxDeliveryNanos.get() / 1e3,
+                    frames > 0 ? m.frameNanos.sum() / frames / 1e3 : 0, m.maxFrameNanos.get() / 1e3));
+        }
+        return list;
+    }
+
+    /** 按线程名归类当前平台线程（虚拟线程不计入） */
+    public ThreadStats getThreadStats() {
+        ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+        int javaWebSocket = 0, jdkHttpClient = 0, timer = 0;
+        for (ThreadInfo info : mx.getThreadInfo(mx.getAllThreadIds(), 0)) {
+            if (info == null) continue;
+            String name = info.getThreadName();
+            if (name.startsWith("WebSocketConnectReadThread") || name.startsWith("WebSocketWriteThread")
+                    || name.startsWith("connectionLostChecker")) {
+                javaWebSocket++;
+            } else if (name.startsWith("HttpClient-") || name.startsWith("ws-jdk-ping")) {
+                jdkHttpClient++;
+            } else if (name.startsWith("ws-timer")) {
+                timer++;
+            }
+        }
+        return new ThreadStats(mx.getThreadCount(), mx.getPeakThreadCount(), javaWebSocket, jdkHttpClient, timer);
+    }
+
+    private HttpClient httpClient() {
+        HttpClient c = httpClient;
+        if (c == null) {
+            synchronized (this) {
+                if (httpClient == null) {
+                    httpClient = HttpClient.newBuilder()
+                            .executor(Executors.newVirtualThreadPerTaskExecutor())
+                            .sslContext(sslContext)
+                            .connectTimeout(Duration.ofMillis(config.getConnectTimeoutMs()))
+                            .build();
+                }
+                c = httpClient;
+            }
+        }
+        return c;
+    }
+
+    private ScheduledExecutorService pingScheduler() {
+        ScheduledExecutorService s = pingScheduler;
+        if (s == null) {
+            synchronized (this) {
+                if (pingScheduler == null) {
+                    pingScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                        Thread t = new Thread(r, "ws-jdk-ping");
+                        t.setDaemon(true);
+                        return t;
+                    });
+                }
+                s = pingScheduler;
+            }
+        }
+        return s;
+    }
+
+    private static SSLContext sharedSslContext(WebSocketTransportConfig config) {
+        try {
+            SSLContext ctx = SSLContext.getDefault();
+            SSLSessionContext sessions = ctx.getClientSessionContext();
+            sessions.setSessionCacheSize(config.getTlsSessionCacheSize());
+            sessions.setSessionTimeout(config.getTlsSessionTimeoutSeconds());
+            return ctx;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("default SSLContext unavailable", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ScheduledExecutorService s = pingScheduler;
+        if (s != null) {
+            s.shutdownNow();
+            try {
+                s.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        HttpClient c = httpClient;
+        if (c != null) {
+            try {
+                c.close();
+            } catch (Exception e) {
+                log.warn("[WsTransport] HttpClient close error: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @param avgConnectMs      从发起连接到握手完成的平均耗时（含 DNS、TCP、TLS）
+     * @param avgDeliveryMicros 传输层收到一帧完整消息（分片消息从首个分片起）到交给 handler 的平均耗时
+     * @param avgFrameMicros    传输层收到一帧到 handler 处理（解析 + 写缓存）完毕的平均耗时
+     */
+    public record TransportStats(String transport, long openConnections, long connects, double avgConnectMs, double maxConnectMs,
+                                 long frames, double avgDeliveryMicros, double maxDeliveryMicros,
+                                 double avgFrameMicros, double maxFrameMicros) {}
+
+    public record ThreadStats(int liveThreads, int peakThreads, int javaWebSocketThreads, int jdkHttpClientThreads,
+                              int timerThreads) {}
+
+    private static final class Meter {
+        final LongAdder open = new LongAdder();
+        final LongAdder connects = new LongAdder();
+        final LongAdder connectNanos = new LongAdder();
+        final AtomicLong maxConnectNanos = new AtomicLong();
+        final LongAdder frames = new LongAdder();
+        final LongAdder deliveryNanos = new LongAdder();
+        final AtomicLong maxDeliveryNanos = new AtomicLong();
+        final LongAdder frameNanos = new LongAdder();
+        final AtomicLong maxFrameNanos = new AtomicLong();
+    }
+
+    private static final class DefaultHolder {
+        static final WebSocketTransportFactory INSTANCE = new WebSocketTransportFactory(new WebSocketTransportConfig());
+    }
+}
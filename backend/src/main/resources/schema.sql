@@ -1,5 +1,11 @@
+-- 原始快照按天 RANGE 分区（分区由 SnapshotMaintenanceTask 预建/归档/删除），主键需包含分区列。
+-- profit_mode 为写入时的利润率计算模式，旧数据为空串；旧表缺该列时启动时自动补列。
+-- 旧版非分区表不会被自动迁移，可在低峰期手动执行：
+--   ALTER TABLE spread_arbitrage_snapshots DROP PRIMARY KEY, ADD PRIMARY KEY (id, snapshot_time),
+--     DROP INDEX idx_symbol_time, DROP INDEX idx_symbol_pair, ADD INDEX idx_snapshot_time (snapshot_time)
+--     PARTITION BY RANGE COLUMNS(snapshot_time) (PARTITION pmax VALUES LESS THAN (MAXVALUE));
 CREATE TABLE IF NOT EXISTS spread_arbitrage_snapshots (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT AUTO_INCREMENT,
     symbol VARCHAR(20) NOT NULL,
     exchange_buy VARCHAR(32) NOT NULL,
     exchange_sell VARCHAR(32) NOT NULL,
@@ -9,7 +15,52 @@ CREATE TABLE IF NOT EXISTS spread_arbitrage_snapshots (
     profit_margin_pct DECIMAL(10,4) NOT NULL,
     spot_fee_buy_pct DECIMAL(10,4) NULL,
     spot_fee_sell_pct DECIMAL(10,4) NULL,
+    profit_mode VARCHAR(16) NOT NULL DEFAULT '',
     snapshot_time DATETIME(3) NOT NULL,
-    INDEX idx_symbol_time (symbol, snapshot_time),
-    INDEX idx_symbol_pair (symbol, exchange_buy, exchange_sell)
+    PRIMARY KEY (id, snapshot_time),
+    INDEX idx_snapshot_time (snapshot_time)
+) PARTITION BY RANGE COLUMNS(snapshot_time) (
+    PARTITION pmax VALUES LESS THAN (MAXVALUE)
+);
+
+-- 1 分钟组合汇总，由原始快照滚动生成
+CREATE TABLE IF NOT EXISTS spread_pair_rollup_1m (
+    bucket_start DATETIME NOT NULL,
+    symbol VARCHAR(20) NOT NULL,
+    exchange_buy VARCHAR(32) NOT NULL,
+    exchange_sell VARCHAR(32) NOT NULL,
+    profit_mode VARCHAR(16) NOT NULL DEFAULT '',
+    spread_count INT NOT NULL,
+    profit_sum DECIMAL(24,4) NOT NULL,
+    profit_min DECIMAL(10,4) NOT NULL,
+    profit_max DECIMAL(10,4) NOT NULL,
+    fee_buy_sum DECIMAL(24,4) NULL,
+    fee_buy_count INT NOT NULL,
+    fee_sell_sum DECIMAL(24,4) NULL,
+    fee_sell_count INT NOT NULL,
+    PRIMARY KEY (bucket_start, symbol, exchange_buy, exchange_sell, profit_mode)
+);
+
+-- 1 小时组合汇总，由 1 分钟汇总滚动生成，永久保留
+CREATE TABLE IF NOT EXISTS spread_pair_rollup_1h (
+    bucket_start DATETIME NOT NULL,
+    symbol VARCHAR(20) NOT NULL,
+    exchange_buy VARCHAR(32) NOT NULL,
+    exchange_sell VARCHAR(32) NOT NULL,
+    profit_mode VARCHAR(16) NOT NULL DEFAULT '',
+    spread_count INT NOT NULL,
+    profit_sum DECIMAL(24,4) NOT NULL,
+    profit_min DECIMAL(10,4) NOT NULL,
+    profit_max DECIMAL(10,4) NOT NULL,
+    fee_buy_sum DECIMAL(24,4) NULL,
+    fee_buy_count INT NOT NULL,
+    fee_sell_sum DECIMAL(24,4) NULL,
+    fee_sell_count INT NOT NULL,
+    PRIMARY KEY (bucket_start, symbol, exchange_buy, exchange_sell, profit_mode)
+);
+
+-- 各汇总层已滚动到的时间点（不含），之前的数据可直接读汇总表
+CREATE TABLE IF NOT EXISTS spread_rollup_watermark (
+    tier VARCHAR(8) NOT NULL PRIMARY KEY,
+    rolled_until DATETIME NOT NULL
 );
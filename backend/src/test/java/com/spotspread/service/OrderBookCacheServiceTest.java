@@ -0,0 +1,121 @@
+package com.spotspread.service;
+
+import com.spotspread.backtest.SimulatedClock;
+import com.spotspread.config.StageLatencyConfig;
+import com.spotspread.service.OrderBookCacheService.FeedStats;
+import com.spotspread.service.OrderBookCacheService.FeedWriter;
+import com.spotspread.stats.StageLatencyService;
+import com.spotspread.task.SpreadEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 冗余连接仲裁：先到先用，另一条连接的重复更新被丢弃；无序号时按内容去重，
+ * 被采用的连接卡住后，另一条连接送来的相同报价须保持缓存不过期。
+ */
+class OrderBookCacheServiceTest {
+
+    private static final String EXCHANGE = "lbank";
+    private static final String SYMBOL = "BTCUSDT";
+    private static final BigDecimal BID = new BigDecimal("100.1");
+    private static final BigDecimal ASK = new BigDecimal("100.2");
+
+    private SimulatedClock clock;
+    private OrderBookCacheService cache;
+
+    @BeforeEach
+    void setUp() {
+        clock = new SimulatedClock(1_000_000);
+        cache = new OrderBookCacheService(new StageLatencyService(new StageLatencyConfig()), clock);
+    }
+
+    @Test
+    void contentDuplicateFromRedundantFeedKeepsQuoteFresh() {
+        FeedWriter primary = cache.feed(EXCHANGE, EXCHANGE + "/0");
+        FeedWriter backup = cache.feed(EXCHANGE, EXCHANGE + "/1");
+        primary.update(SYMBOL, BID, ASK, 0);
+
+        // 主连接此后卡住，备用连接每 50ms 送来同一报价，持续两秒
+        assertFreshWhileOnlyDuplicatesArrive(backup, 2_000);
+        FeedStats backupStats = stats(EXCHANGE + "/1");
+        assertThat(backupStats.wins()).isZero();
+        assertThat(backupStats.duplicates()).isEqualTo(40);
+    }
+
+    @Test
+    void contentDuplicateFromSuccessorDuringHandoverKeepsQuoteFresh() {
+        FeedWriter current = cache.feed(EXCHANGE, EXCHANGE);
+        FeedWriter successor = current.fork();
+        current.update(SYMBOL, BID, ASK, 0);
+
+        assertFreshWhileOnlyDuplicatesArrive(successor, 1_000);
+    }
+
+    @Test
+    void duplicatesWithinRefreshIntervalDoNotWriteCache() {
+        FeedWriter primary = cache.feed(EXCHANGE, EXCHANGE + "/0");
+        FeedWriter backup = cache.feed(EXCHANGE, EXCHANGE + "/1");
+        primary.update(SYMBOL, BID, ASK, 0);
+        long version = cache.getVersion();
+        long updatedAt = cache.getBidAsk(EXCHANGE, SYMBOL).updatedAt();
+
+        clock.advanceTo(clock.millis() + 5);
+        backup.update(SYMBOL, BID, ASK, 0);
+
+        assertThat(cache.getVersion()).isEqualTo(version);
+        assertThat(cache.getBidAsk(EXCHANGE, SYMBOL).updatedAt()).isEqualTo(updatedAt);
+        assertThat(stats(EXCHANGE + "/1").duplicates()).isEqualTo(1);
+    }
+
+    @Test
+    void newContentFromRedundantFeedIsApplied() {
+        FeedWriter primary = cache.feed(EXCHANGE, EXCHANGE + "/0");
+        FeedWriter backup = cache.feed(EXCHANGE, EXCHANGE + "/1");
+        primary.update(SYMBOL, BID, ASK, 0);
+
+        clock.advanceTo(clock.millis() + 5);
+        BigDecimal bid = new BigDecimal("100.15");
+        backup.update(SYMBOL, bid, ASK, 0);
+
+        assertThat(cache.getBidAsk(EXCHANGE, SYMBOL).bid1()).isEqualByComparingTo(bid);
+        assertThat(stats(EXCHANGE + "/1").wins()).isEqualTo(1);
+    }
+
+    @Test
+    void sequencedUpdatesDropStaleAndDuplicateCopies() {
+        FeedWriter primary = cache.feed("binance", "binance/0");
+        FeedWriter backup = cache.feed("binance", "binance/1");
+        primary.update(SYMBOL, BID, ASK, 11);
+
+        backup.update(SYMBOL, BID, ASK, 11);
+        backup.update(SYMBOL, new BigDecimal("99"), ASK, 10);
+        assertThat(cache.getBidAsk("binance", SYMBOL).bid1()).isEqualByComparingTo(BID);
+
+        BigDecimal bid = new BigDecimal("100.15");
+        backup.update(SYMBOL, bid, ASK, 12);
+        assertThat(cache.getBidAsk("binance", SYMBOL).bid1()).isEqualByComparingTo(bid);
+
+        FeedStats backupStats = stats("binance/1");
+        assertThat(backupStats.duplicates()).isEqualTo(1);
+        assertThat(backupStats.stale()).isEqualTo(1);
+        assertThat(backupStats.wins()).isEqualTo(1);
+    }
+
+    private void assertFreshWhileOnlyDuplicatesArrive(FeedWriter feed, long durationMs) {
+        long end = clock.millis() + durationMs;
+        while (clock.millis() < end) {
+            clock.advanceTo(clock.millis() + 50);
+            feed.update(SYMBOL, BID, ASK, 0);
+            long age = clock.millis() - cache.getBidAsk(EXCHANGE, SYMBOL).updatedAt();
+            assertThat(age).as("quote age at %d", clock.millis()).isLessThanOrEqualTo(SpreadEngine.STALE_MS);
+        }
+    }
+
+    private FeedStats stats(String feed) {
+        return cache.getFeedStats().stream().filter(s -> s.feed().equals(feed)).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,220 @@
+package com.spotspread.websocket;
+
+import com.spotspread.config.StageLatencyConfig;
+import com.spotspread.config.WebSocketRotationConfig;
+import com.spotspread.config.WebSocketSilenceConfig;
+import com.spotspread.service.OrderBookCacheService;
+import com.spotspread.service.OrderBookCacheService.FeedWriter;
+import com.spotspread.stats.StageLatencyService;
+import com.spotspread.websocket.FeedConnection.RotationStats;
+import org.java_websocket.WebSocket;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 连接轮换（make-before-break）：本地 WebSocket 服务按固定节奏推送带序号的报价，新连接在订阅延迟之后才开始收到推送；
+ * 驱动 FeedConnection.check 完成若干次轮换，检查切换前后写入行情缓存的更新没有空窗、没有丢号。
+ * 若旧连接在新连接出数之前关闭（如 handover-min-updates 为 0），订阅延迟内的序号会丢失。
+ */
+class FeedConnectionTest {
+
+    private static final long CADENCE_MS = 20;
+    /** 新连接建立后过这么久才开始收到推送，模拟交易所订阅生效的延迟 */
+    private static final long SUBSCRIBE_DELAY_MS = 100;
+    private static final int ROTATIONS = 3;
+    private static final String EXCHANGE = "test";
+    private static final String SYMBOL = "BTCUSDT";
+
+    private QuoteServer server;
+    private ScheduledExecutorService pusher;
+    private FeedConnection connection;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (connection != null) connection.stop();
+        if (pusher != null) pusher.shutdownNow();
+        if (server != null) server.stop(1000);
+    }
+
+    @Test
+    void rotationKeepsUpdatesContinuous() throws Exception {
+        server = new QuoteServer(freePort());
+        server.start();
+        assertThat(server.started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // 序号 → 服务端推送时刻（纳秒）
+        Map<Long, Long> pushedAt = new ConcurrentHashMap<>();
+        AtomicLong seq = new AtomicLong();
+        pusher = Executors.newSingleThreadScheduledExecutor();
+        pusher.scheduleAtFixedRate(() -> {
+            long s = seq.incrementAndGet();
+            pushedAt.put(s, System.nanoTime());
+            server.push(Long.toString(s));
+        }, CADENCE_MS, CADENCE_MS, TimeUnit.MILLISECONDS);
+
+        // 写入缓存（仲裁之后）的更新：{序号, 时刻}
+        List<long[]> applied = new ArrayList<>();
+        OrderBookCacheService cache = new OrderBookCacheService(new StageLatencyService(new StageLatencyConfig()), Clock.systemUTC());
+        cache.setQuoteListener((exchange, symbol, bid1, ask1, updatedAt) -> {
+            synchronized (applied) {
+                applied.add(new long[]{bid1.longValueExact(), System.nanoTime()});
+            }
+        });
+
+        WebSocketSilenceConfig silenceConfig = new WebSocketSilenceConfig();
+        silenceConfig.setEnabled(false);
+        WebSocketRotationConfig rotation = new WebSocketRotationConfig();
+        Map<String, Long> lifetime = new HashMap<>();
+        lifetime.put(EXCHANGE, 1L);
+        rotation.setMaxLifetimeMinutes(lifetime);
+        rotation.setDegradedGapMs(0);
+        rotation.setMaxPingRttMs(0);
+        rotation.setCooldownMs(0);
+        rotation.setHandoverMinUpdates(3);
+        rotation.setHandoverTimeoutMs(5_000);
+
+        URI uri = URI.create("ws://127.0.0.1:" + server.getPort());
+        connection = new FeedConnection(EXCHANGE, EXCHANGE, List.of(SYMBOL), cache.feed(EXCHANGE, EXCHANGE), uri,
+                (feed, symbols) -> new ManagedWebSocket(EXCHANGE, uri, new QuoteHandler(feed)),
+                null, null, null, new WireStats(EXCHANGE, EXCHANGE), null, silenceConfig);
+        connection.start();
+        awaitTrue(() -> size(applied) >= 10, "initial quotes");
+
+        // 时钟拨到连接寿命之后，每次 check 都会发起或推进一次轮换
+        long skewMs = 61_000;
+        for (int r = 1; r <= ROTATIONS; r++) {
+            int target = r;
+            awaitTrue(() -> {
+                connection.check(rotation, System.currentTimeMillis() + skewMs);
+                return connection.getStats().rotations() >= target;
+            }, "rotation " + r);
+        }
+        RotationStats stats = connection.getStats();
+        assertThat(stats.aborted()).isZero();
+
+        // 切换结束后再收一段，然后停推
+        long settled = size(applied) + 10;
+        awaitTrue(() -> size(applied) >= settled, "quotes after rotations");
+        pusher.shutdown();
+        assertThat(pusher.awaitTermination(1, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(CADENCE_MS * 5);
+        awaitTrue(() -> server.getConnections().size() == 1, "old connections closed");
+
+        List<long[]> updates;
+        synchronized (applied) {
+            updates = new ArrayList<>(applied);
+        }
+        TreeSet<Long> seen = new TreeSet<>();
+        long maxGapNanos = 0;
+        for (int i = 0; i < updates.size(); i++) {
+            assertThat(seen.add(updates.get(i)[0])).as("duplicate seq %d", updates.get(i)[0]).isTrue();
+            if (i > 0) maxGapNanos = Math.max(maxGapNanos, updates.get(i)[1] - updates.get(i - 1)[1]);
+        }
+        long first = seen.first();
+        long last = seen.last();
+        assertThat(seen).as("missing seq between %d and %d", first, last).hasSize((int) (last - first + 1));
+
+        long maxPushGapNanos = 0;
+        for (long s = first + 1; s <= last; s++) {
+            maxPushGapNanos = Math.max(maxPushGapNanos, pushedAt.get(s) - pushedAt.get(s - 1));
+        }
+        // 缓存更新间隔不超过服务端自身的推送间隔，另留一个推送周期给收包线程调度
+        assertThat(TimeUnit.NANOSECONDS.toMillis(maxGapNanos))
+                .as("max update gap, push gap %dms", TimeUnit.NANOSECONDS.toMillis(maxPushGapNanos))
+                .isLessThanOrEqualTo(TimeUnit.NANOSECONDS.toMillis(maxPushGapNanos) + CADENCE_MS);
+    }
+
+    private static int size(List<long[]> list) {
+        synchronized (list) {
+            return list.size();
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition, String what) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) throw new AssertionError("timed out waiting for " + what);
+            Thread.sleep(CADENCE_MS / 2);
+        }
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket s = new ServerSocket(0)) {
+            return s.getLocalPort();
+        }
+    }
+
+    /** 报文即序号，买一取序号、卖一取序号 + 1，序号作交易所更新序号参与新旧连接去重 */
+    private static final class QuoteHandler implements ExchangeWebSocketHandler {
+        private final FeedWriter feed;
+
+        QuoteHandler(FeedWriter feed) {
+            this.feed = feed;
+        }
+
+        @Override
+        public void onConnected(ManagedWebSocket client) {}
+
+        @Override
+        public void onMessage(String message) {
+            long seq = Long.parseLong(message);
+            BigDecimal bid = BigDecimal.valueOf(seq);
+            feed.update(SYMBOL, bid, bid.add(BigDecimal.ONE), seq);
+        }
+    }
+
+    private static final class QuoteServer extends WebSocketServer {
+        final CountDownLatch started = new CountDownLatch(1);
+        /** 连接 → 开始推送的时刻（纳秒） */
+        private final Map<WebSocket, Long> liveFrom = new ConcurrentHashMap<>();
+
+        QuoteServer(int port) {
+            super(new InetSocketAddress("127.0.0.1", port));
+            setReuseAddr(true);
+        }
+
+        @Override
+        public void onStart() { started.countDown(); }
+        @Override
+        public void onOpen(WebSocket conn, ClientHandshake handshake) {
+            liveFrom.put(conn, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SUBSCRIBE_DELAY_MS));
+        }
+        @Override
+        public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+            liveFrom.remove(conn);
+        }
+        @Override
+        public void onMessage(WebSocket conn, String message) {}
+        @Override
+        public void onError(WebSocket conn, Exception ex) {}
+
+        void push(String message) {
+            long now = System.nanoTime();
+            liveFrom.forEach((conn, from) -> {
+                if (now >= from && conn.isOpen()) conn.send(message);
+            });
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.spotspread.bench;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * benchmarks.jar 入口：参数与 JMH 命令行一致，未指定时默认
+ * 开启 GC / 分配剖析（-prof gc，含 gc.alloc.rate.norm 每次操作分配字节数），
+ * 结果以 JSON 写入 jmh-result.json，便于与历史结果对比回归。
+ * <pre>
+ *   java -jar target/benchmarks.jar                       # 全部基准
+ *   java -jar target/benchmarks.jar HandlerParse -p exchange=binance,okx
+ *   java -jar target/benchmarks.jar -rff baseline.json    # 指定结果文件
+ * </pre>
+ */
+public final class BenchmarkRunner {
+
+    private static final String DEFAULT_RESULT = "jmh-result.json";
+
+    private BenchmarkRunner() {}
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        if (cli.shouldHelp() || cli.shouldList() || cli.shouldListWithParams()
+                || cli.shouldListProfilers() || cli.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+        if (cli.getProfilers().isEmpty()) options.addProfiler(GCProfiler.class);
+        if (!cli.getResultFormat().hasValue()) options.resultFormat(ResultFormatType.JSON);
+        if (!cli.getResult().hasValue()) options.result(DEFAULT_RESULT);
+        new Runner(options.build()).run();
+    }
+}
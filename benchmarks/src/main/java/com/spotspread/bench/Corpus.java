@@ -0,0 +1,33 @@
+package com.spotspread.bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 行情报文语料：classpath 下 corpus/{exchange}.txt，每行一帧（按各交易所推送格式，
+ * 含订阅确认、心跳应答与 6 个币种的行情更新），空行与 # 开头的行忽略。
+ * 语料放在 backend/src/main/resources/corpus，由 pom 加入本模块的 classpath，与后端启动预热共用一份。
+ */
+public final class Corpus {
+
+    private Corpus() {}
+
+    public static List<String> load(String exchange) throws IOException {
+        String resource = "corpus/" + exchange + ".txt";
+        InputStream in = Corpus.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) throw new IOException("corpus not found: " + resource);
+        List<String> frames = new ArrayList<>();
+        try (BufferedReader r = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (!line.isBlank() && !line.startsWith("#")) frames.add(line);
+            }
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,97 @@
+package com.spotspread.repository;
+
+import com.spotspread.config.SnapshotStorageConfig;
+import com.spotspread.repository.SpreadArbitrageStatsRepository.SnapshotRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 快照批量写入：H2 内存库（MySQL 兼容模式）上执行 saveSnapshots，按批大小分别测量。
+ * 只反映 JDBC 批处理与参数绑定的开销，不含网络与 MySQL 分区表的写入成本。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SaveSnapshotsBenchmark {
+
+    /** 与 schema.sql 一致，去掉 H2 不支持的分区子句 */
+    private static final String DDL = """
+            CREATE TABLE spread_arbitrage_snapshots (
+                id BIGINT AUTO_INCREMENT,
+                symbol VARCHAR(20) NOT NULL,
+                exchange_buy VARCHAR(32) NOT NULL,
+                exchange_sell VARCHAR(32) NOT NULL,
+                spot_price_buy DECIMAL(20,8) NOT NULL,
+                spot_price_sell DECIMAL(20,8) NOT NULL,
+                spot_spread DECIMAL(20,8) NOT NULL,
+                profit_margin_pct DECIMAL(10,4) NOT NULL,
+                spot_fee_buy_pct DECIMAL(10,4) NULL,
+                spot_fee_sell_pct DECIMAL(10,4) NULL,
+                profit_mode VARCHAR(16) NOT NULL DEFAULT '',
+                snapshot_time DATETIME(3) NOT NULL,
+                PRIMARY KEY (id, snapshot_time)
+            )""";
+
+    /** 1 为逐条写入；500 与 opportunity-sinks.mysql.batch-size 默认值一致 */
+    @Param({"1", "50", "500"})
+    public int batchSize;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private SpreadArbitrageStatsRepository repository;
+    private List<SnapshotRow> rows;
+
+    @Setup
+    public void setup() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1", true);
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("DROP TABLE IF EXISTS spread_arbitrage_snapshots");
+        jdbc.execute(DDL);
+        repository = new SpreadArbitrageStatsRepository(jdbc, new SpreadRollupRepository(jdbc), new SnapshotStorageConfig());
+        rows = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            BigDecimal buy = BigDecimal.valueOf(67_000_00L + i, 2);
+            BigDecimal sell = buy.add(new BigDecimal("450.25"));
+            rows.add(new SnapshotRow("BTC", "binance", "okx", buy, sell, sell.subtract(buy),
+                    new BigDecimal("0.5213"), new BigDecimal("0.1000"), new BigDecimal("0.0800"), "TAKER_TAKER"));
+        }
+    }
+
+    /** 每轮清空，避免表持续增长影响后续轮次 */
+    @TearDown(Level.Iteration)
+    public void truncate() {
+        jdbc.execute("TRUNCATE TABLE spread_arbitrage_snapshots");
+    }
+
+    @TearDown
+    public void close() {
+        jdbc.execute("DROP TABLE IF EXISTS spread_arbitrage_snapshots");
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public void saveSnapshots() {
+        repository.saveSnapshots(rows);
+    }
+}
@@ -0,0 +1,110 @@
+package com.spotspread.service;
+
+import com.spotspread.config.StageLatencyConfig;
+import com.spotspread.service.OrderBookCacheService.BidAsk;
+import com.spotspread.service.OrderBookCacheService.FeedWriter;
+import com.spotspread.stats.StageLatencyService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 行情缓存写入与读取：
+ * uncontended 为单连接单线程写入；contended 组模拟同一交易所三条冗余连接（hot-hot）
+ * 各自在收包线程上送入同一条更新流（先到者被采用、其余判重），同时有一个线程按价差任务的方式读取。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderBookCacheBenchmark {
+
+    private static final String EXCHANGE = "binance";
+    private static final int REPLICAS = 3;
+    /** 每个币种预生成的更新条数 */
+    private static final int UPDATES = 1024;
+
+    @State(Scope.Group)
+    public static class Book {
+        final OrderBookCacheService cache = new OrderBookCacheService(new StageLatencyService(new StageLatencyConfig()), Clock.systemUTC());
+        final AtomicInteger replicas = new AtomicInteger();
+        final List<String> symbols = ExchangePriceService.SYMBOLS.stream().map(s -> s + "USDT").toList();
+        BigDecimal[][] bids;
+        BigDecimal[][] asks;
+
+        @Setup
+        public void setup() {
+            bids = new BigDecimal[symbols.size()][UPDATES];
+            asks = new BigDecimal[symbols.size()][UPDATES];
+            for (int s = 0; s < symbols.size(); s++) {
+                for (int i = 0; i < UPDATES; i++) {
+                    // 按固定步长游走，避免与写入条数同周期
+                    bids[s][i] = BigDecimal.valueOf(10_000 + s * 1_000 + (i * 37 % 101), 2);
+                    asks[s][i] = bids[s][i].add(BigDecimal.valueOf(1, 2));
+                }
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+        FeedWriter feed;
+        int cursor;
+
+        @Setup
+        public void setup(Book book) {
+            int replica = book.replicas.getAndIncrement() % REPLICAS;
+            feed = book.cache.feed(EXCHANGE, EXCHANGE + "/" + replica);
+        }
+
+        void next(Book book) {
+            int s = cursor % book.symbols.size();
+            int i = cursor / book.symbols.size() % UPDATES;
+            feed.update(book.symbols.get(s), book.bids[s][i], book.asks[s][i], cursor + 1L);
+            cursor++;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Reader {
+        int cursor;
+    }
+
+    @Benchmark
+    @Group("uncontended")
+    @GroupThreads(1)
+    public void uncontended(Book book, Writer writer) {
+        writer.next(book);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(REPLICAS)
+    public void write(Book book, Writer writer) {
+        writer.next(book);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public BidAsk read(Book book, Reader reader) {
+        String symbol = book.symbols.get(reader.cursor++ % book.symbols.size());
+        return book.cache.getBidAsk(EXCHANGE, symbol);
+    }
+}
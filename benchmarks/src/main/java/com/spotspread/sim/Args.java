@@ -0,0 +1,48 @@
+package com.spotspread.sim;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 模拟器与压测入口的命令行参数，形如 --rate=20000 --venues=binance,okx。
+ */
+final class Args {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    private Args() {}
+
+    static Args parse(String[] args) {
+        Args a = new Args();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) throw new IllegalArgumentException("unexpected argument: " + arg);
+            int eq = arg.indexOf('=');
+            if (eq < 0) a.values.put(arg.substring(2), "true");
+            else a.values.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return a;
+    }
+
+    String str(String key, String def) {
+        return values.getOrDefault(key, def);
+    }
+
+    int intValue(String key, int def) {
+        String v = values.get(key);
+        return v != null ? Integer.parseInt(v) : def;
+    }
+
+    long longValue(String key, long def) {
+        String v = values.get(key);
+        return v != null ? Long.parseLong(v) : def;
+    }
+
+    /** 逗号分隔；未指定或为空时返回 def */
+    List<String> list(String key, List<String> def) {
+        String v = values.get(key);
+        if (v == null || v.isBlank()) return def;
+        return Arrays.stream(v.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+    }
+}
@@ -0,0 +1,243 @@
+package com.spotspread.sim;
+
+import com.spotspread.config.ArbitrageConfig;
+import com.spotspread.config.ArbitrageConfig.ProfitMode;
+import com.spotspread.config.RollingStatsConfig;
+import com.spotspread.config.StageLatencyConfig;
+import com.spotspread.config.WebSocketTransportConfig;
+import com.spotspread.config.WebSocketTransportConfig.TransportType;
+import com.spotspread.event.InfluxDbMessagePublisher;
+import com.spotspread.service.ExchangePriceService;
+import com.spotspread.service.OrderBookCacheService;
+import com.spotspread.sink.Opportunity;
+import com.spotspread.stats.RollingStatsService;
+import com.spotspread.stats.StageLatencyService;
+import com.spotspread.stats.StageLatencyService.Percentiles;
+import com.spotspread.stats.StageLatencyService.StageLatency;
+import com.spotspread.task.SpreadEngine;
+import com.spotspread.websocket.ManagedWebSocket;
+import com.spotspread.websocket.VenueHandlers;
+import com.spotspread.websocket.WireStats;
+import com.spotspread.websocket.WireStats.Counter;
+import com.spotspread.websocket.transport.WebSocketTransportFactory;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 端到端压测：本机启动 {@link VenueSimulator}，线上同一套 handler、传输与行情缓存连到模拟器，
+ * 另起一个线程按评估间隔跑价差计算，预热后测量一段时间并输出：
+ * <ul>
+ *   <li>每个交易所的发送/跳过/接收/写缓存速率，以及模拟器发出到写入行情缓存的延迟分位数（仅合成模式）；
+ *       跳过为客户端读得比推送慢、连接发送缓冲未清空时放弃的报价，sent 只计实际写出的帧；</li>
+ *   <li>StageLatencyService 记录的整帧处理、解压等阶段耗时；</li>
+ *   <li>一轮价差评估（全部币种）的耗时。</li>
+ * </ul>
+ * 不连 MySQL / InfluxDB，落库链路由 SaveSnapshotsBenchmark 单独覆盖。
+ * <pre>
+ *   java -cp target/benchmarks.jar com.spotspread.sim.LoadTest --rate=20000 --duration=30
+ *   java -cp target/benchmarks.jar com.spotspread.sim.LoadTest --venues=coinex,bitfinex --rate=100000 --transport=jdk
+ *   java -cp target/benchmarks.jar com.spotspread.sim.LoadTest --mode=replay --warmup=10
+ * </pre>
+ */
+public final class LoadTest {
+
+    private static final long MAX_TRACKABLE_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private LoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        Args a = Args.parse(args);
+        List<String> venues = a.list("venues", VenueProtocol.EXCHANGES);
+        int rate = a.intValue("rate", 10_000);
+        long warmupSeconds = a.longValue("warmup", 5);
+        long durationSeconds = a.longValue("duration", 30);
+        long evaluateMs = a.longValue("evaluate-ms", 100);
+        boolean replay = "replay".equals(a.str("mode", "synthetic"));
+        TransportType transport = TransportType.valueOf(a.str("transport", "java-websocket").toUpperCase().replace('-', '_'));
+
+        VenueSimulator sim = new VenueSimulator(a.intValue("port", 0), venues, rate, replay, a.longValue("heartbeat-ms", 30_000));
+        sim.startAndWait();
+
+        StageLatencyService latency = new StageLatencyService(new StageLatencyConfig());
+        OrderBookCacheService cache = new OrderBookCacheService(latency, Clock.systemUTC());
+        Map<String, VenueMeter> meters = new LinkedHashMap<>();
+        for (String exchange : venues) meters.put(exchange, new VenueMeter(exchange));
+        cache.setQuoteListener((exchange, symbol, bid1, ask1, updatedAt) -> {
+            VenueMeter m = meters.get(exchange);
+            if (m == null) return;
+            m.cacheWrites.increment();
+            if (replay) return;
+            long sent = sim.takeSentNanos(exchange, bid1.movePointRight(8).longValue() % 100_000_000L);
+            if (sent > 0) m.latency.recordValue(Math.min(System.nanoTime() - sent, MAX_TRACKABLE_NANOS));
+        });
+
+        WebSocketTransportConfig transportConfig = new WebSocketTransportConfig();
+        transportConfig.setType(transport);
+        WebSocketTransportFactory transports = new WebSocketTransportFactory(transportConfig);
+        var factories = VenueHandlers.factories(new InfluxDbMessagePublisher(event -> {}), latency);
+        List<String> symbols = ExchangePriceService.SYMBOLS.stream().map(s -> s + "USDT").toList();
+        List<ManagedWebSocket> clients = new ArrayList<>();
+        for (VenueMeter m : meters.values()) {
+            ManagedWebSocket client = factories.get(m.exchange).apply(cache.feed(m.exchange, m.exchange), symbols);
+            client.setUri(URI.create(sim.baseUrl() + "/" + m.exchange));
+            client.setTransportFactory(transports);
+            client.setLatency(latency);
+            client.setWireStats(m.wire);
+            client.connect();
+            clients.add(client);
+        }
+
+        Evaluator evaluator = new Evaluator(cache, evaluateMs);
+        if (evaluateMs > 0) evaluator.start();
+
+        System.out.printf("模拟器 %s，%s 模式，每交易所 %d 帧/s，传输 %s，预热 %ds，测量 %ds%n",
+                sim.baseUrl(), replay ? "回放" : "合成", rate, transport, warmupSeconds, durationSeconds);
+        TimeUnit.SECONDS.sleep(warmupSeconds);
+        for (VenueMeter m : meters.values()) m.mark(sim);
+        evaluator.sweeps.reset();
+        latency.rollInterval();
+        long measureStart = System.nanoTime();
+        TimeUnit.SECONDS.sleep(durationSeconds);
+        double seconds = (System.nanoTime() - measureStart) / 1e9;
+        latency.rollInterval();
+        Histogram sweep = evaluator.sweeps.getIntervalHistogram();
+
+        report(meters, sim, latency, sweep, evaluator.opportunities.sum(), seconds, replay);
+
+        evaluator.interrupt();
+        for (ManagedWebSocket client : clients) client.disconnect();
+        sim.shutdown();
+        System.exit(0);
+    }
+
+    private static void report(Map<String, VenueMeter> meters, VenueSimulator sim, StageLatencyService latency,
+                               Histogram sweep, long opportunities, double seconds, boolean replay) {
+        System.out.println();
+        System.out.println("== 端到端：模拟器发出 → 写入行情缓存" + (replay ? "（回放模式不计延迟）" : "") + " ==");
+        System.out.printf("%-10s %10s %10s %10s %10s %8s %8s %8s %8s %8s %8s %8s%n",
+                "venue", "sent/s", "skip/s", "recv/s", "cache/s", "p50ms", "p90ms", "p99ms", "p999ms", "maxms", "parseErr", "reconn");
+        Histogram total = new Histogram(3);
+        double sentTotal = 0, skippedTotal = 0, recvTotal = 0, cacheTotal = 0;
+        for (VenueMeter m : meters.values()) {
+            Histogram h = m.latency.getIntervalHistogram();
+            total.add(h);
+            double sent = (sim.framesSent(m.exchange) - m.sentMark) / seconds;
+            double skipped = (sim.framesSkipped(m.exchange) - m.skippedMark) / seconds;
+            double recv = (m.wire.get(Counter.FRAMES_IN) - m.recvMark) / seconds;
+            double written = (m.cacheWrites.sum() - m.cacheMark) / seconds;
+            long parseErrors = m.wire.get(Counter.PARSE_MALFORMED) + m.wire.get(Counter.PARSE_INVALID_NUMBER)
+                    + m.wire.get(Counter.PARSE_DECOMPRESS) + m.wire.get(Counter.PARSE_OTHER);
+            sentTotal += sent;
+            skippedTotal += skipped;
+            recvTotal += recv;
+            cacheTotal += written;
+            printRow(m.exchange, sent, skipped, recv, written, h, parseErrors, m.wire.get(Counter.RECONNECTS));
+        }
+        printRow("TOTAL", sentTotal, skippedTotal, recvTotal, cacheTotal, total, -1, -1);
+
+        System.out.println();
+        System.out.println("== 分阶段耗时（测量区间，不分币种的阶段） ==");
+        System.out.printf("%-12s %-10s %10s %8s %8s %8s %8s%n", "stage", "venue", "count", "p50ms", "p99ms", "p999ms", "maxms");
+        for (StageLatency s : latency.list(null, null, StageLatencyService.ALL)) {
+            Percentiles p = s.interval();
+            if (p.count() == 0) continue;
+            System.out.printf("%-12s %-10s %10d %8.3f %8.3f %8.3f %8.3f%n", s.stage(), s.exchange(), p.count(),
+                    p.p50Ms(), p.p99Ms(), p.p999Ms(), p.maxMs());
+        }
+
+        if (sweep.getTotalCount() > 0) {
+            System.out.println();
+            System.out.println("== 价差评估：一轮全部币种 ==");
+            System.out.printf("sweeps=%d p50=%.3fms p99=%.3fms max=%.3fms opportunities=%d%n", sweep.getTotalCount(),
+                    ms(sweep.getValueAtPercentile(50)), ms(sweep.getValueAtPercentile(99)), ms(sweep.getMaxValue()), opportunities);
+        }
+    }
+
+    private static void printRow(String venue, double sent, double skipped, double recv, double written, Histogram h,
+                                 long parseErrors, long reconnects) {
+        boolean hasLatency = h.getTotalCount() > 0;
+        System.out.printf("%-10s %10.0f %10.0f %10.0f %10.0f %8s %8s %8s %8s %8s %8s %8s%n", venue, sent, skipped, recv, written,
+                hasLatency ? fmt(h.getValueAtPercentile(50)) : "-", hasLatency ? fmt(h.getValueAtPercentile(90)) : "-",
+                hasLatency ? fmt(h.getValueAtPercentile(99)) : "-", hasLatency ? fmt(h.getValueAtPercentile(99.9)) : "-",
+                hasLatency ? fmt(h.getMaxValue()) : "-", parseErrors >= 0 ? Long.toString(parseErrors) : "",
+                reconnects >= 0 ? Long.toString(reconnects) : "");
+    }
+
+    private static String fmt(long nanos) {
+        return String.format("%.3f", ms(nanos));
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /** 单个交易所的计数与延迟；mark 记下预热结束时的累计值，报告取差值 */
+    private static final class VenueMeter {
+        final String exchange;
+        final WireStats wire;
+        final Recorder latency = new Recorder(3);
+        final LongAdder cacheWrites = new LongAdder();
+        long sentMark;
+        long skippedMark;
+        long recvMark;
+        long cacheMark;
+
+        VenueMeter(String exchange) {
+            this.exchange = exchange;
+            this.wire = new WireStats(exchange, exchange);
+        }
+
+        void mark(VenueSimulator sim) {
+            sentMark = sim.framesSent(exchange);
+            skippedMark = sim.framesSkipped(exchange);
+            recvMark = wire.get(Counter.FRAMES_IN);
+            cacheMark = cacheWrites.sum();
+            latency.reset();
+        }
+    }
+
+    /** 与 SpreadArbitrageStatsTask 相同：按间隔对全部币种做一轮价差评估 */
+    private static final class Evaluator extends Thread {
+        final Recorder sweeps = new Recorder(3);
+        final LongAdder opportunities = new LongAdder();
+        private final SpreadEngine engine;
+        private final ProfitMode mode = new ArbitrageConfig().getProfitMode();
+        private final long intervalMs;
+
+        Evaluator(OrderBookCacheService cache, long intervalMs) {
+            super("load-evaluate");
+            setDaemon(true);
+            this.engine = new SpreadEngine(cache, new RollingStatsService(new RollingStatsConfig()), Clock.systemUTC(),
+                    SpreadEngine.DEFAULT_THRESHOLD_PCT);
+            this.intervalMs = intervalMs;
+        }
+
+        @Override
+        public void run() {
+            List<Opportunity> out = new ArrayList<>();
+            while (!isInterrupted()) {
+                long start = System.nanoTime();
+                for (String symbol : ExchangePriceService.SYMBOLS) {
+                    out.clear();
+                    engine.collect(symbol, mode, out);
+                    for (Opportunity o : out) if (o.aboveThreshold()) opportunities.increment();
+                }
+                sweeps.recordValue(Math.min(System.nanoTime() - start, MAX_TRACKABLE_NANOS));
+                try {
+                    Thread.sleep(intervalMs);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
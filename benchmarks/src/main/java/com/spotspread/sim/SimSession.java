@@ -0,0 +1,76 @@
+package com.spotspread.sim;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.exceptions.WebsocketNotConnectedException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 模拟器上的一条客户端连接：已订阅的币种（BTCUSDT 形式）与交易所相关的连接级状态。
+ */
+final class SimSession {
+
+    /** Bitfinex 按连接分配的首个 chanId，与基准语料一致 */
+    private static final int FIRST_CHANNEL = 17000;
+
+    final WebSocket conn;
+    final VenueProtocol protocol;
+    final String connId = Long.toHexString(ThreadLocalRandom.current().nextLong() >>> 32);
+    final List<String> symbols = new CopyOnWriteArrayList<>();
+    /** Bitfinex：币种 → chanId */
+    final Map<String, Integer> channels = new ConcurrentHashMap<>();
+    /** Crypto.com：未应答的服务端心跳数 */
+    final AtomicInteger unansweredHeartbeats = new AtomicInteger();
+    private final AtomicInteger nextChannel = new AtomicInteger(FIRST_CHANNEL);
+    /** 发布线程轮询本连接币种的位置，只在发布线程上读写 */
+    int cursor;
+
+    SimSession(WebSocket conn, VenueProtocol protocol) {
+        this.conn = conn;
+        this.protocol = protocol;
+    }
+
+    void subscribe(String symbol) {
+        if (!symbols.contains(symbol)) symbols.add(symbol);
+    }
+
+    void unsubscribe(String symbol) {
+        symbols.remove(symbol);
+        channels.remove(symbol);
+    }
+
+    int channel(String symbol) {
+        return channels.computeIfAbsent(symbol, s -> nextChannel.getAndIncrement());
+    }
+
+    /** CoinEx 的服务端帧一律 gzip 后以二进制帧发送 */
+    void send(String text) {
+        if (!conn.isOpen()) return;
+        try {
+            if (protocol.gzip()) conn.send(gzip(text));
+            else conn.send(text);
+        } catch (WebsocketNotConnectedException e) {
+            // 与关闭并发，丢弃
+        }
+    }
+
+    private static byte[] gzip(String text) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(text.length() / 2 + 32);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,505 @@
+package com.spotspread.sim;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 单个交易所的服务端协议：回应订阅、退订与心跳，并按该交易所的推送格式编码买一/卖一。
+ * 只实现 handler 实际用到的字段与交互，报文形状与 benchmarks 语料（取自线上抓包）一致。
+ * 币种在模拟器内部一律为 BTCUSDT 形式。
+ */
+abstract class VenueProtocol {
+
+    static final List<String> EXCHANGES = List.of(
+            "binance", "okx", "bybit", "gateio", "bitget", "lbank", "whitebit", "bitunix", "coinex", "bitfinex", "cryptocom");
+
+    protected static final ObjectMapper om = new ObjectMapper();
+
+    final String exchange;
+
+    VenueProtocol(String exchange) {
+        this.exchange = exchange;
+    }
+
+    static VenueProtocol of(String exchange) {
+        return switch (exchange) {
+            case "binance" -> new Binance();
+            case "okx" -> new Okx();
+            case "bybit" -> new Bybit();
+            case "gateio" -> new Gate();
+            case "bitget" -> new Bitget();
+            case "lbank" -> new LBank();
+            case "whitebit" -> new WhiteBit();
+            case "bitunix" -> new Bitunix();
+            case "coinex" -> new CoinEx();
+            case "bitfinex" -> new Bitfinex();
+            case "cryptocom" -> new CryptoCom();
+            default -> throw new IllegalArgumentException("unknown venue: " + exchange);
+        };
+    }
+
+    /** 服务端帧是否 gzip 后以二进制发送 */
+    boolean gzip() {
+        return false;
+    }
+
+    /** 连接建立后服务端主动推送的内容 */
+    void onOpen(SimSession s) {}
+
+    /** 客户端发来的文本帧 */
+    abstract void onRequest(SimSession s, String text) throws IOException;
+
+    /**
+     * 推送一条买一/卖一
+     *
+     * @return 发送的帧数
+     */
+    abstract int quote(SimSession s, String symbol, String bid, String ask, long id, long epochMs);
+
+    /** 服务端定时心跳；多数交易所由客户端发起心跳，这里为空 */
+    void heartbeat(SimSession s) {}
+
+    /** 语料中的行情帧，回放模式只回放这些 */
+    abstract boolean isQuoteFrame(String line);
+
+    static String base(String symbol) {
+        return symbol.endsWith("USDT") ? symbol.substring(0, symbol.length() - 4) : symbol;
+    }
+
+    /** BTC_USDT / btc_usdt / BTC-USDT → BTCUSDT */
+    static String symbolOf(String market) {
+        return market.replace("_", "").replace("-", "").toUpperCase();
+    }
+
+    /** { "method":"SUBSCRIBE", "params":["btcusdt@bookTicker"], "id":1 }，RFC 6455 ping 由服务端库自动应答 */
+    static final class Binance extends VenueProtocol {
+        Binance() { super("binance"); }
+
+        @Override
+        void onRequest(SimSession s, String text) throws IOException {
+            JsonNode root = om.readTree(text);
+            String method = root.path("method").asText("");
+            for (JsonNode p : root.path("params")) {
+                String stream = p.asText("");
+                int at = stream.indexOf('@');
+                String symbol = (at > 0 ? stream.substring(0, at) : stream).toUpperCase();
+                if ("SUBSCRIBE".equals(method)) s.subscribe(symbol);
+                else if ("UNSUBSCRIBE".equals(method)) s.unsubscribe(symbol);
+            }
+            s.send("{\"result\":null,\"id\":" + root.path("id").asLong() + "}");
+        }
+
+        @Override
+        int quote(SimSession s, String symbol, String bid, String ask, long id, long epochMs) {
+            s.send("{\"u\":" + id + ",\"s\":\"" + symbol + "\",\"b\":\"" + bid + "\",\"B\":\"1.0000\",\"a\":\"" + ask
+                    + "\",\"A\":\"1.0000\",\"E\":" + epochMs + "}");
+            return 1;
+        }
+
+        @Override
+        boolean isQuoteFrame(String line) {
+            return line.startsWith("{\"u\"");
+        }
+    }
+
+    /** op=subscribe，args 为 { channel, instId }，逐个 arg 确认；文本 ping 回 pong */
+    static final class Okx extends VenueProtocol {
+        Okx() { super("okx"); }
+
+        @Override
+        void onRequest(SimSession s, String text) throws IOException {
+            if ("ping".equals(text)) {
+                s.send("pong");
+                return;
+            }
+            JsonNode root = om.readTree(text);
+            String op = root.path("op").asText("");
+            for (JsonNode arg : root.path("args")) {
+                String instId = arg.path("instId").asText("");
+                if ("subscribe".equals(op)) s.subscribe(symbolOf(instId));
+                else if ("unsubscribe".equals(op)) s.unsubscribe(symbolOf(instId));
+                s.send("{\"event\":\"" + op + "\",\"arg\":{\"channel\":\"books5\",\"instId\":\"" + instId
+                        + "\"},\"connId\":\"" + s.connId + "\"}");
+            }
+        }
+
+        @Override
+        int quote(SimSession s, String symbol, String bid, String ask, long id, long epochMs) {
+            String instId = base(symbol) + "-USDT";
+            s.send("{\"arg\":{\"channel\":\"books5\",\"instId\":\"" + instId + "\"},\"data\":[{\"asks\":[[\"" + ask
+                    + "\",\"1.0000\",\"0\",\"1\"]],\"bids\":[[\"" + bid + "\",\"1.0000\",\"0\",\"1\"]],\"instId\":\"" + instId
+                    + "\",\"ts\":\"" + epochMs + "\",\"seqId\":" + id + "}]}");
+            return 1;
+        }
+
+        @Override
+        boolean isQuoteFrame(String line) {
+            return line.startsWith("{\"arg\"");
+        }
+    }
+
+    /** op=subscribe，args 为 orderbook.1.BTCUSDT；{"op":"ping"} 回 pong */
+    static final class Bybit extends VenueProtocol {
+        Bybit() { super("bybit"); }
+
+        @Override
+        void onRequest(SimSession s, String text) throws IOException {
+            JsonNode root = om.readTree(text);
+            String op = root.path("op").asText("");
+            for (JsonNode arg : root.path("args")) {
+                String topic = arg.asText("");
+                String symbol = topic.substring(topic.lastIndexOf('.') + 1);
+                if ("subscribe".equals(op)) s.subscribe(symbol);
+                else if ("unsubscribe".equals(op)) s.unsubscribe(symbol);
+            }
+            String msg = "ping".equals(op) ? "pong" : op;
+            s.send("{\"success\":true,\"ret_msg\":\"" + msg + "\",\"conn_id\":\"" + s.connId + "\",\"req_id\":\"\",\"op\":\"" + op + "\"}");
+        }
+
+        @Override
+        int quote(SimSession s, String symbol, String bid, String ask, long id, long epochMs) {
+            s.send("{\"topic\":\"orderbook.1." + symbol + "\",\"ts\":" + epochMs + ",\"type\":\"snapshot\",\"data\":{\"s\":\""
+                    + symbol + "\",\"b\":[[\"" + bid + "\",\"1.0000\"]],\"a\":[[\"" + ask + "\",\"1.0000\"]],\"u\":" + id
+                    + ",\"seq\":" + id + "},\"cts\":" + epochMs + "}");
+            return 1;
+        }
+
+        @Override
+        boolean isQuoteFrame(String line) {
+            return line.startsWith("{\"topic\"");
+        }
+    }
+
+    /** channel=spot.book_ticker，payload 为 BTC_USDT 列表；spot.ping 回 spot.pong */
+    static final class Gate extends VenueProtocol {
+        Gate() { super("gateio"); }
+
+        @Override
+        void onRequest(SimSession s, String text) throws IOException {
+            JsonNode root = om.readTree(text);
+            long ms = System.currentTimeMillis();
+            String channel = root.path("channel").asText("");
+            if ("spot.ping".equals(channel)) {
+                s.send("{\"time\":" + ms / 1000 + ",\"time_ms\":" + ms + ",\"channel\":\"spot.pong\",\"event\":\"\",\"result\":null}");
+                return;
+            }
+            String event = root.path("event").asText("");
+            for (JsonNode p : root.path("payload")) {
+                if ("subscribe".equals(event)) s.subscribe(symbolOf(p.asText("")));
+                else if ("unsubscribe".equals(event)) s.unsubscribe(symbolOf(p.asText("")));
+            }
+            s.send("{\"time\":" + ms / 1000 + ",\"time_ms\":" + ms + ",\"channel\":\"" + channel + "\",\"event\":\"" + event
+                    + "\",\"result\":{\"status\":\"success\"}}");
+        }
+
+        @Override
+        int quote(SimSession s, String symbol, String bid, String ask, long id, long epochMs) {
+            s.send("{\"time\":" + epochMs / 1000 + ",\"time_ms\":" + epochMs + ",\"channel\":\"spot.book_ticker\",\"event\":\"update\","
+                    + "\"result\":{\"t\":" + epochMs + ",\"u\":" + id + ",\"s\":\"" + base(symbol) + "_USDT\",\"b\":\"" + bid
+                    + "\",\"B\":\"1.0000\",\"a\":\"" + ask + "\",\"A\":\"1.0000\"}}");
+            return 1;
+        }
+
+        @Override
+        boolean isQuoteFrame(String line) {
+            return line.contains("\"event\":\"update\"");
+        }
+    }
+
+    /** op=subscribe，args 为 { instType, channel, instId }，逐个 arg 确认；文本 ping 回 pong */
+    static final class Bitget extends VenueProtocol {
+        Bitget() { super("bitget"); }
+
+        @Override
+        void onRequest(SimSession s, String text) throws IOException {
+            if ("ping".equals(text)) {
+                s.send("pong");
+                return;
+            }
+            JsonNode root = om.readTree(text);
+            String op = root.path("op").asText("");
+            for (JsonNode arg : root.path("args")) {
+                String instId = arg.path("instId").asText("");
+                if ("subscribe".equals(op)) s.subscribe(instId);
+                else if ("unsubscribe".equals(op)) s.unsubscribe(instId);
+                s.send("{\"event\":\"" + op + "\",\"arg\":{\"instType\":\"SPOT\",\"channel\":\"books5\",\"instId\":\"" + instId + "\"}}");
+            }
+        }
+
+        @Override
+        int quote(SimSession s, String symbol, String bid, String ask, long id, long epochMs) {
+            s.send("{\"action\":\"snapshot\",\"arg\":{\"instType\":\"SPOT\",\"channel\":\"books5\",\"instId\":\"" + symbol
+                    + "\"},\"data\":[{\"asks\":[[\"" + ask + "\",\"1.0000\"]],\"bids\":[[\"" + bid + "\",\"1.0000\"]],\"checksum\":0,\"seq\":"
+                    + id + ",\"ts\":\"" + epochMs + "\"}],\"ts\":" + epochMs + "}");
+            return 1;
+        }
+
+        @Override
+        boolean isQuoteFrame(String line) {
+            return line.startsWith("{\"action\"");
+        }
+    }
+
+    /** 每个交易对单独订阅、无订阅确认；文本 ping 与 {"action":"ping"} 都回 {"action":"pong"}，价格为 JSON 数字 */
+    static final class LBank extends VenueProtocol {
+        private static final DateTimeFormatter TS = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS");
+
+        LBank() { super("lbank"); }
+
+        @Override
+        void onRequest(SimSession s, String text) throws IOException {
+            if ("ping".equals(text)) {
+                s.send("{\"action\":\"pong\",\"pong\":\"" + s.connId + "\"}");
+                return;
+            }
+            JsonNode root = om.readTree(text);
+            String action = root.path("action").asText("");
+            String pair = root.path("pair").asText("");
+            switch (action) {
+                case "ping" -> s.send("{\"action\":\"pong\",\"pong\":\"" + root.path("ping").asText("") + "\"}");
+                case "subscribe" -> s.subscribe(symbolOf(pair));
+                case "unsubscribe" -> s.unsubscribe(symbolOf(pair));
+                default -> { }
+            }
+        }
+
+        @Override
+        int quote(SimSession s, String symbol, String bid, String ask, long id, long epochMs) {
+            String ts = LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneOffset.ofHours(8)).format(TS);
+            s.send("{\"depth\":{\"asks\":[[" + ask + ",1.0]],\"bids\":[[" + bid + ",1.0]]},\"count\":1,\"type\":\"depth\",\"pair\":\""
+                    + base(symbol).toLowerCase() + "_usdt\",\"SERVER\":\"V2\",\"TS\":\"" + ts + "\"}");
+            return 1;
+        }
+
+        @Override
+        boolean isQuoteFrame(String line) {
+            return line.startsWith("{\"depth\"");
+        }
+    }
+
+    /** JSON-RPC：bookTicker_subscribe 的 params 为 BTC_USDT 列表，ping 回 result=pong */
+    static final class WhiteBit extends VenueProtocol {
+        WhiteBit() { super("whitebit"); }
+
+        @Override
+        void onRequest(SimSession s, String text) throws IOException {
+            JsonNode root = om.readTree(text);
+            String method = root.path("method").asText("");
+            long id = root.path("id").asLong();
+            if ("ping".equals(method)) {
+                s.send("{\"id\":" + id + ",\"result\":\"pong\",\"error\":null}");
+                return;
+            }
+            for (JsonNode p : root.path("params")) {
+                if ("bookTicker_subscribe".equals(method)) s.subscribe(symbolOf(p.asText("")));
+                else if ("bookTicker_unsubscribe".equals(method)) s.unsubscribe(symbolOf(p.asText("")));
+            }
+            s.send("{\"id\":" + id + ",\"result\":{\"status\":\"success\"},\"error\":null}");
+        }
+
+        @Override
+        int quote(SimSession s, String symbol, String bid, String ask, long id, long epochMs) {
+            String ts = epochMs / 1000 + "." + epochMs % 1000;
+            s.send("{\"id\":null,\"method\":\"bookTicker_update\",\"params\":[[" + ts + "," + ts + ",\"" + base(symbol) + "_USDT\","
+                    + id + ",\"" + bid + "\",\"1.0000\",\"" + ask + "\",\"1.0000\"]]}");
+            return 1;
+        }
+
+        @Override
+        boolean isQuoteFrame(String line) {
+            return line.contains("bookTicker_update");
+        }
+    }
+
+    /** op=subscribe，args 为 { symbol, ch }，整个请求确认一次；{"op":"ping"} 以 op=ping 带 pong 回应 */
+    static final class Bitunix extends VenueProtocol {
+        Bitunix() { super("bitunix"); }
+
+        @Override
+        void onRequest(SimSession s, String text) throws IOException {
+            JsonNode root = om.readTree(text);
+            String op = root.path("op").asText("");
+            if ("ping".equals(op)) {
+                long ping = root.path("ping").asLong();
+                s.send("{\"op\":\"ping\",\"pong\":" + ping + ",\"ping\":" + ping + "}");
+                return;
+            }
+            for (JsonNode arg : root.path("args")) {
+                String symbol = arg.path("symbol").asText("");
+                if ("subscribe".equals(op)) s.subscribe(symbol);
+                else if ("unsubscribe".equals(op)) s.unsubscribe(symbol);
+            }
+            s.send("{\"op\":\"" + op + "\",\"data\":{\"result\":true}}");
+        }
+
+        @Override
+        int quote(SimSession s, String symbol, String bid, String ask, long id, long epochMs) {
+            s.send("{\"ch\":\"depth_book1\",\"symbol\":\"" + symbol + "\",\"ts\":" + epochMs + ",\"data\":{\"b\":[[\"" + bid
+                    + "\",\"1.0000\"]],\"a\":[[\"" + ask + "\",\"1.0000\"]]}}");
+            return 1;
+        }
+
+        @Override
+        boolean isQuoteFrame(String line) {
+            return line.startsWith("{\"ch\"");
+        }
+    }
+
+    /** v2：depth.subscribe 的 market_list 每项为 [market, limit, interval, is_full]；服务端帧全部 gzip，server.ping 回 pong */
+    static final class CoinEx extends VenueProtocol {
+        CoinEx() { super("coinex"); }
+
+        @Override
+        boolean gzip() {
+            return true;
+        }
+
+        @Override
+        void onRequest(SimSession s, String text) throws IOException {
+            JsonNode root = om.readTree(text);
+            String method = root.path("method").asText("");
+            long id = root.path("id").asLong();
+            if ("server.ping".equals(method)) {
+                s.send("{\"id\":" + id + ",\"code\":0,\"data\":{\"result\":\"pong\"},\"message\":\"OK\"}");
+                return;
+            }
+            for (JsonNode m : root.path("params").path("market_list")) {
+                String market = m.isArray() ? m.path(0).asText("") : m.asText("");
+                if ("depth.subscribe".equals(method)) s.subscribe(market);
+                else if ("depth.unsubscribe".equals(method)) s.unsubscribe(market);
+            }
+            s.send("{\"id\":" + id + ",\"code\":0,\"message\":\"OK\"}");
+        }
+
+        @Override
+        int quote(SimSession s, String symbol, String bid, String ask, long id, long epochMs) {
+            s.send("{\"method\":\"depth.update\",\"data\":{\"market\":\"" + symbol + "\",\"is_full\":true,\"depth\":{\"asks\":[[\"" + ask
+                    + "\",\"1.0000\"]],\"bids\":[[\"" + bid + "\",\"1.0000\"]],\"last\":\"" + bid + "\",\"updated_at\":" + epochMs
+                    + ",\"checksum\":" + id + "}},\"id\":null}");
+            return 1;
+        }
+
+        @Override
+        boolean isQuoteFrame(String line) {
+            return line.contains("depth.update");
+        }
+    }
+
+    /**
+     * 连接后先推 info；每个 book 订阅分配 chanId 并推 [chanId, [[价, 笔数, 量]...]] 快照，之后每次只推一侧
+     * [chanId, [价, 笔数, ±量]]，因此一条报价是两帧。服务端按心跳间隔对每个频道推 [chanId, "hb"]。
+     */
+    static final class Bitfinex extends VenueProtocol {
+        Bitfinex() { super("bitfinex"); }
+
+        @Override
+        void onOpen(SimSession s) {
+            s.send("{\"event\":\"info\",\"version\":2,\"serverId\":\"" + s.connId + "\",\"platform\":{\"status\":1}}");
+        }
+
+        @Override
+        void onRequest(SimSession s, String text) throws IOException {
+            JsonNode root = om.readTree(text);
+            String event = root.path("event").asText("");
+            if ("ping".equals(event)) {
+                s.send("{\"event\":\"pong\",\"ts\":" + System.currentTimeMillis() + ",\"cid\":" + root.path("cid").asLong() + "}");
+                return;
+            }
+            if ("subscribe".equals(event)) {
+                String key = root.path("symbol").asText("");
+                String symbol = symbolOf(key.substring(1).replace(":", "").replace("UST", "USDT"));
+                int chanId = s.channel(symbol);
+                s.send("{\"event\":\"subscribed\",\"channel\":\"book\",\"chanId\":" + chanId + ",\"symbol\":\"" + key
+                        + "\",\"prec\":\"P0\",\"freq\":\"F0\",\"len\":\"1\",\"pair\":\"" + key.substring(1) + "\"}");
+                s.send("[" + chanId + ",[[" + VenueSimulator.price(symbol, 0, false) + ",1,1.0],["
+                        + VenueSimulator.price(symbol, 0, true) + ",1,-1.0]]]");
+                s.subscribe(symbol);
+            } else if ("unsubscribe".equals(event)) {
+                int chanId = root.path("chanId").asInt();
+                s.channels.forEach((symbol, ch) -> {
+                    if (ch == chanId) s.unsubscribe(symbol);
+                });
+                s.send("{\"event\":\"unsubscribed\",\"status\":\"OK\",\"chanId\":" + chanId + "}");
+            }
+        }
+
+        @Override
+        int quote(SimSession s, String symbol, String bid, String ask, long id, long epochMs) {
+            Integer chanId = s.channels.get(symbol);
+            if (chanId == null) return 0;
+            s.send("[" + chanId + ",[" + bid + ",1,1.0]]");
+            s.send("[" + chanId + ",[" + ask + ",1,-1.0]]");
+            return 2;
+        }
+
+        @Override
+        void heartbeat(SimSession s) {
+            for (int chanId : s.channels.values()) s.send("[" + chanId + ",\"hb\"]");
+        }
+
+        @Override
+        boolean isQuoteFrame(String line) {
+            return line.startsWith("[");
+        }
+    }
+
+    /**
+     * subscribe 的 channels 为 book.BTC_USDT.10。服务端按心跳间隔推 public/heartbeat，
+     * 客户端须以 public/respond-heartbeat 回应，连续两次未回应即断开（与交易所行为一致）。
+     */
+    static final class CryptoCom extends VenueProtocol {
+        private static final Set<String> SUBSCRIPTION_METHODS = Set.of("subscribe", "unsubscribe");
+
+        CryptoCom() { super("cryptocom"); }
+
+        @Override
+        void onRequest(SimSession s, String text) throws IOException {
+            JsonNode root = om.readTree(text);
+            String method = root.path("method").asText("");
+            if ("public/respond-heartbeat".equals(method)) {
+                s.unansweredHeartbeats.set(0);
+                return;
+            }
+            if (!SUBSCRIPTION_METHODS.contains(method)) return;
+            for (JsonNode ch : root.path("params").path("channels")) {
+                String[] parts = ch.asText("").split("\\.");
+                if (parts.length < 2) continue;
+                if ("subscribe".equals(method)) s.subscribe(symbolOf(parts[1]));
+                else s.unsubscribe(symbolOf(parts[1]));
+            }
+            s.send("{\"id\":" + root.path("id").asLong() + ",\"method\":\"" + method + "\",\"code\":0}");
+        }
+
+        @Override
+        int quote(SimSession s, String symbol, String bid, String ask, long id, long epochMs) {
+            String inst = base(symbol) + "_USDT";
+            s.send("{\"id\":-1,\"method\":\"subscribe\",\"code\":0,\"result\":{\"instrument_name\":\"" + inst
+                    + "\",\"subscription\":\"book." + inst + ".10\",\"channel\":\"book.update\",\"depth\":10,\"data\":[{\"update\":{\"bids\":[[\""
+                    + bid + "\",\"1.0000\",\"1\"]],\"asks\":[[\"" + ask + "\",\"1.0000\",\"1\"]]},\"tt\":" + epochMs + ",\"t\":" + epochMs
+                    + ",\"u\":" + id + ",\"pu\":" + (id - 1) + "}]}}");
+            return 1;
+        }
+
+        @Override
+        void heartbeat(SimSession s) {
+            if (s.unansweredHeartbeats.incrementAndGet() > 2) {
+                s.conn.close(1000, "heartbeat not answered");
+                return;
+            }
+            s.send("{\"id\":" + System.currentTimeMillis() + ",\"method\":\"public/heartbeat\",\"code\":0}");
+        }
+
+        @Override
+        boolean isQuoteFrame(String line) {
+            return line.contains("\"result\":{\"instrument_name\"");
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.spotspread.sim;
+
+import com.spotspread.bench.Corpus;
+import org.java_websocket.WebSocket;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 本地交易所行情模拟器：一个 Java-WebSocket 服务端按路径（/binance、/okx …）模拟各交易所的订阅确认、心跳、
+ * CoinEx gzip、Bitfinex chanId 与 Crypto.com 服务端心跳，每个交易所一个发布线程按固定速率向已订阅的连接推送报价。
+ * 连接的发送缓冲还有未写出的数据（客户端读得比推送慢）时跳过该连接，计为跳过而不继续堆积，
+ * 因此已推送帧数即实际写出的帧数，不会因发送缓冲无界增长而虚高。
+ * <ul>
+ *   <li>合成模式：价格整数部分按币种固定，小数 8 位为报价编号，{@link #takeSentNanos} 按编号取回发送时刻，
+ *       接收端据此计算端到端延迟；</li>
+ *   <li>回放模式：循环发送随后端打包的语料中的行情帧，不计延迟。</li>
+ * </ul>
+ * 后端配置 websocket.endpoints.base-url=ws://127.0.0.1:{port} 即可整体改连模拟器：
+ * <pre>
+ *   java -cp target/benchmarks.jar com.spotspread.sim.VenueSimulator --port=9800 --rate=1000
+ *   WS_ENDPOINT_BASE_URL=ws://127.0.0.1:9800 java -jar backend.jar
+ * </pre>
+ */
+public final class VenueSimulator extends WebSocketServer {
+
+    private static final Logger log = LoggerFactory.getLogger(VenueSimulator.class);
+    /** 发送时刻环形表大小，须整除 10^8（报价编号取小数 8 位） */
+    private static final int RING = 1_000_000;
+    private static final long PRICE_FRACTION = 100_000_000L;
+    /** 每次最多补发的条数，避免落后时一次占住发布线程过久 */
+    private static final int MAX_BATCH = 256;
+    private static final long IDLE_PARK_NANOS = 20_000;
+    private static final Map<String, Long> BASE_PRICES = Map.of(
+            "BTC", 67_000L, "ETH", 3_500L, "SOL", 150L, "XRP", 1L, "HYPE", 30L, "BNB", 600L);
+
+    private final Map<String, Venue> venues = new LinkedHashMap<>();
+    private final long heartbeatIntervalMs;
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "sim-heartbeat");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile boolean running = true;
+
+    /**
+     * @param ratePerVenue        每个交易所每秒推送的帧数（所有连接、币种合计）
+     * @param replay              true 为回放语料，false 为合成报价
+     * @param heartbeatIntervalMs 服务端心跳间隔（Crypto.com / Bitfinex）
+     */
+    public VenueSimulator(int port, List<String> exchanges, int ratePerVenue, boolean replay, long heartbeatIntervalMs) throws IOException {
+        super(new InetSocketAddress("127.0.0.1", port));
+        setReuseAddr(true);
+        setTcpNoDelay(true);
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+        for (String exchange : exchanges) {
+            VenueProtocol protocol = VenueProtocol.of(exchange);
+            List<String> frames = replay ? Corpus.load(exchange).stream().filter(protocol::isQuoteFrame).toList() : null;
+            venues.put(exchange, new Venue(protocol, ratePerVenue, frames));
+        }
+    }
+
+    /** 启动并等待端口绑定完成 */
+    public void startAndWait() throws InterruptedException {
+        start();
+        if (!started.await(10, TimeUnit.SECONDS)) throw new IllegalStateException("simulator did not start");
+    }
+
+    /** ws://127.0.0.1:{port}，各交易所在其下的 /{交易所} 路径 */
+    public String baseUrl() {
+        return "ws://127.0.0.1:" + getPort();
+    }
+
+    public void shutdown() throws InterruptedException {
+        running = false;
+        heartbeats.shutdownNow();
+        for (Venue v : venues.values()) if (v.publisher != null) v.publisher.interrupt();
+        stop(1000);
+    }
+
+    /** 已推送的帧数 */
+    public long framesSent(String exchange) {
+        Venue v = venues.get(exchange);
+        return v != null ? v.frames.sum() : 0;
+    }
+
+    /** 因连接发送缓冲未清空而跳过的报价数 */
+    public long framesSkipped(String exchange) {
+        Venue v = venues.get(exchange);
+        return v != null ? v.skipped.sum() : 0;
+    }
+
+    /**
+     * 取回并清除某条合成报价的发送时刻（System.nanoTime），同一报价只取回一次
+     *
+     * @param priceFraction 买一价小数点后 8 位
+     * @return 0 表示未知或已取回
+     */
+    public long takeSentNanos(String exchange, long priceFraction) {
+        Venue v = venues.get(exchange);
+        return v != null ? v.sent.getAndSet((int) (priceFraction % RING), 0) : 0;
+    }
+
+    /** 合成价格：整数部分按币种固定（卖一比买一大 1），小数 8 位为报价编号 */
+    static String price(String symbol, long id, boolean ask) {
+        long integer = BASE_PRICES.getOrDefault(VenueProtocol.base(symbol), 100L) + (ask ? 1 : 0);
+        String fraction = Long.toString(id % PRICE_FRACTION);
+        return integer + "." + "00000000".substring(fraction.length()) + fraction;
+    }
+
+    @Override
+    public void onStart() {
+        for (Venue v : venues.values()) {
+            v.publisher = new Thread(() -> publish(v), "sim-" + v.protocol.exchange);
+            v.publisher.setDaemon(true);
+            v.publisher.start();
+        }
+        if (heartbeatIntervalMs > 0) {
+            heartbeats.scheduleAtFixedRate(this::heartbeat, heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        log.info("[Sim] 模拟器已启动 {}，交易所 {}", baseUrl(), venues.keySet());
+        started.countDown();
+    }
+
+    @Override
+    public void onOpen(WebSocket conn, ClientHandshake handshake) {
+        String path = handshake.getResourceDescriptor();
+        int q = path.indexOf('?');
+        if (q >= 0) path = path.substring(0, q);
+        Venue v = venues.get(path.replace("/", ""));
+        if (v == null) {
+            conn.close(1008, "unknown venue: " + path);
+            return;
+        }
+        SimSession s = new SimSession(conn, v.protocol);
+        conn.setAttachment(s);
+        v.sessions.add(s);
+        v.protocol.onOpen(s);
+    }
+
+    @Override
+    public void onMessage(WebSocket conn, String message) {
+        SimSession s = conn.getAttachment();
+        if (s == null) return;
+        try {
+            s.protocol.onRequest(s, message);
+        } catch (Exception e) {
+            log.warn("[Sim] {} 请求处理失败: {}", s.protocol.exchange, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(WebSocket conn, ByteBuffer message) {
+        // 客户端不发二进制帧
+    }
+
+    @Override
+    public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+        SimSession s = conn.getAttachment();
+        if (s != null) venues.get(s.protocol.exchange).sessions.remove(s);
+    }
+
+    @Override
+    public void onError(WebSocket conn, Exception ex) {
+        log.warn("[Sim] 连接异常: {}", ex.getMessage());
+    }
+
+    private void heartbeat() {
+        for (Venue v : venues.values()) {
+            for (SimSession s : v.sessions) v.protocol.heartbeat(s);
+        }
+    }
+
+    /**
+     * 按速率补发：应发条数 = 已过时长 × 速率，落后超过 1 秒的部分放弃，没有订阅时不积压；
+     * 全部连接的发送缓冲都未清空时本批剩余的报价计为跳过，稍后再发。
+     */
+    private void publish(Venue v) {
+        long start = System.nanoTime();
+        long emitted = 0;
+        while (running) {
+            if (!v.hasSubscriptions()) {
+                start = System.nanoTime();
+                emitted = 0;
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                continue;
+            }
+            long due = (long) ((System.nanoTime() - start) / 1e9 * v.rate) - emitted;
+            if (due <= 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            if (due > v.rate) {
+                emitted += due - v.rate;
+                due = v.rate;
+            }
+            int batch = (int) Math.min(due, MAX_BATCH);
+            for (int i = 0; i < batch; i++) {
+                int sent = v.emitNext();
+                if (sent < 0) {
+                    v.skipped.add(batch - i);
+                    emitted += batch - i;
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    break;
+                }
+                emitted += Math.max(1, sent);
+            }
+        }
+    }
+
+    /**
+     * 单独运行模拟器，供整个后端改连压测：
+     * --port=9800 --rate=1000（每交易所每秒帧数）--venues=binance,okx --mode=synthetic|replay --heartbeat-ms=30000
+     */
+    public static void main(String[] args) throws Exception {
+        Args a = Args.parse(args);
+        VenueSimulator sim = new VenueSimulator(a.intValue("port", 9800), a.list("venues", VenueProtocol.EXCHANGES),
+                a.intValue("rate", 1000), "replay".equals(a.str("mode", "synthetic")), a.longValue("heartbeat-ms", 30_000));
+        sim.startAndWait();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                sim.shutdown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "sim-shutdown"));
+        while (true) {
+            Thread.sleep(10_000);
+            StringBuilder line = new StringBuilder("[Sim] 已推送");
+            for (String exchange : sim.venues.keySet()) line.append(' ').append(exchange).append('=').append(sim.framesSent(exchange));
+            log.info(line.toString());
+        }
+    }
+
+    private static final class Venue {
+        final VenueProtocol protocol;
+        final int rate;
+        /** 回放模式的语料行情帧，合成模式为 null */
+        final List<String> corpus;
+        final List<SimSession> sessions = new CopyOnWriteArrayList<>();
+        final AtomicLongArray sent = new AtomicLongArray(RING);
+        final LongAdder frames = new LongAdder();
+        final LongAdder skipped = new LongAdder();
+        Thread publisher;
+        /** 以下只在发布线程上读写 */
+        long nextId = 1;
+        int sessionCursor;
+        int corpusCursor;
+
+        Venue(VenueProtocol protocol, int rate, List<String> corpus) {
+            this.protocol = protocol;
+            this.rate = Math.max(1, rate);
+            this.corpus = corpus;
+        }
+
+        boolean hasSubscriptions() {
+            for (SimSession s : sessions) if (!s.symbols.isEmpty()) return true;
+            return false;
+        }
+
+        /** 轮流选连接、连接内轮流选币种，推送一条报价；返回发送的帧数，已订阅的连接都在积压时返回 -1 */
+        int emitNext() {
+            List<SimSession> list = sessions;
+            int n = list.size();
+            boolean backlogged = false;
+            for (int attempt = 0; attempt < n; attempt++) {
+                SimSession s;
+                try {
+                    s = list.get(Math.floorMod(sessionCursor++, n));
+                } catch (IndexOutOfBoundsException e) {
+                    return 0;
+                }
+                List<String> symbols = s.symbols;
+                int size = symbols.size();
+                if (size == 0) continue;
+                if (s.conn.hasBufferedData()) {
+                    backlogged = true;
+                    continue;
+                }
+                String symbol;
+                try {
+                    symbol = symbols.get(Math.floorMod(s.cursor++, size));
+                } catch (IndexOutOfBoundsException e) {
+                    continue;
+                }
+                int sentFrames;
+                if (corpus != null) {
+                    s.send(corpus.get(Math.floorMod(corpusCursor++, corpus.size())));
+                    sentFrames = 1;
+                } else {
+                    long id = nextId++;
+                    sent.set((int) (id % PRICE_FRACTION % RING), System.nanoTime());
+                    sentFrames = protocol.quote(s, symbol, price(symbol, id, false), price(symbol, id, true), id,
+                            System.currentTimeMillis());
+                }
+                frames.add(sentFrames);
+                return sentFrames;
+            }
+            return backlogged ? -1 : 0;
+        }
+    }
+}
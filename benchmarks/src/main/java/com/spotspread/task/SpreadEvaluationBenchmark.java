@@ -0,0 +1,89 @@
+package com.spotspread.task;
+
+import com.spotspread.config.ArbitrageConfig;
+import com.spotspread.config.ArbitrageConfig.ProfitMode;
+import com.spotspread.config.RollingStatsConfig;
+import com.spotspread.config.StageLatencyConfig;
+import com.spotspread.service.ExchangePriceService;
+import com.spotspread.service.OrderBookCacheService;
+import com.spotspread.sink.Opportunity;
+import com.spotspread.stats.RollingStatsService;
+import com.spotspread.stats.StageLatencyService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 价差任务一轮评估（6 个币种 × 11 个交易所两两组合）的耗时，按利润率模式分别测量。
+ * 不经过分发器，只测 collectSnapshots（含滚动统计与自适应阈值判断）。
+ * 行情缓存与任务共用一个固定时钟，报价不会因超过 500ms 被丢弃；报价在每轮迭代开始前刷新，不计入耗时。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SpreadEvaluationBenchmark {
+
+    private static final List<String> EXCHANGES = List.of(
+            "binance", "bitfinex", "coinex", "okx", "bybit", "gateio", "bitget", "lbank", "whitebit",
+            "bitunix", "cryptocom");
+    private static final double[] BASE_PRICES = {67_000, 3_500, 150, 0.52, 25, 590};
+
+    @Param
+    public ProfitMode mode;
+
+    private OrderBookCacheService cache;
+    private SpreadArbitrageStatsTask task;
+    private final List<Opportunity> out = new ArrayList<>();
+    private final Random random = new Random(42);
+
+    @Setup
+    public void setup() {
+        StageLatencyService latency = new StageLatencyService(new StageLatencyConfig());
+        Clock clock = Clock.fixed(Instant.now(), ZoneOffset.UTC);
+        cache = new OrderBookCacheService(latency, clock);
+        ArbitrageConfig config = new ArbitrageConfig();
+        config.setProfitMode(mode);
+        task = new SpreadArbitrageStatsTask(cache, null, config, new RollingStatsService(new RollingStatsConfig()), latency, null, clock);
+    }
+
+    @Benchmark
+    public List<Opportunity> evaluateRound() {
+        out.clear();
+        for (String symbol : ExchangePriceService.SYMBOLS) task.collectSnapshots(symbol, out);
+        return out;
+    }
+
+    /** 各交易所报价围绕基准价 ±0.3% 随机分布，部分组合会超过入库阈值 */
+    @Setup(Level.Iteration)
+    public void refresh() {
+        for (int s = 0; s < ExchangePriceService.SYMBOLS.size(); s++) {
+            String symbol = ExchangePriceService.SYMBOLS.get(s) + "USDT";
+            for (String exchange : EXCHANGES) {
+                double bid = BASE_PRICES[s] * (1 + (random.nextDouble() - 0.5) * 0.006);
+                BigDecimal bid1 = BigDecimal.valueOf(bid).setScale(6, java.math.RoundingMode.HALF_UP);
+                cache.updateBidAsk(exchange, symbol, bid1, bid1.multiply(new BigDecimal("1.0002")));
+            }
+        }
+    }
+}
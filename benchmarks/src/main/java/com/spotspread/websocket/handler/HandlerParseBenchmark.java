@@ -0,0 +1,98 @@
+package com.spotspread.websocket.handler;
+
+import com.spotspread.bench.Corpus;
+import com.spotspread.config.StageLatencyConfig;
+import com.spotspread.event.InfluxDbMessagePublisher;
+import com.spotspread.service.ExchangePriceService;
+import com.spotspread.service.OrderBookCacheService;
+import com.spotspread.service.OrderBookCacheService.FeedWriter;
+import com.spotspread.stats.StageLatencyService;
+import com.spotspread.websocket.ExchangeWebSocketHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 各交易所 handler 处理一帧的耗时：按语料顺序循环喂入 onMessage，包含解析、写缓存仲裁与延迟埋点。
+ * CoinEx 线上为 gzip 二进制帧，语料在准备阶段压缩后走 onBinaryMessage（含解压）。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class HandlerParseBenchmark {
+
+    @Param({"binance", "bitfinex", "coinex", "okx", "bybit", "gateio", "bitget", "lbank", "whitebit", "bitunix", "cryptocom"})
+    public String exchange;
+
+    private ExchangeWebSocketHandler handler;
+    private String[] frames;
+    private byte[][] binaryFrames;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        StageLatencyService latency = new StageLatencyService(new StageLatencyConfig());
+        FeedWriter feed = new OrderBookCacheService(latency, Clock.systemUTC()).feed(exchange, exchange);
+        List<String> symbols = ExchangePriceService.SYMBOLS.stream().map(s -> s + "USDT").toList();
+        InfluxDbMessagePublisher influx = new InfluxDbMessagePublisher(event -> {});
+        handler = switch (exchange) {
+            case "binance" -> { var h = new BinanceSpotDepthHandler(feed, influx, symbols); h.createClient(); yield h; }
+            case "bitfinex" -> { var h = new BitfinexSpotDepthHandler(feed, symbols); h.createClient(); yield h; }
+            case "coinex" -> { var h = new CoinExSpotDepthHandler(feed, symbols, latency); h.createClient(); yield h; }
+            case "okx" -> { var h = new OkxSpotDepthHandler(feed, influx, symbols); h.createClient(); yield h; }
+            case "bybit" -> { var h = new BybitSpotDepthHandler(feed, influx, symbols); h.createClient(); yield h; }
+            case "gateio" -> { var h = new GateSpotDepthHandler(feed, symbols); h.createClient(); yield h; }
+            case "bitget" -> { var h = new BitgetSpotDepthHandler(feed, symbols); h.createClient(); yield h; }
+            case "lbank" -> { var h = new LBankSpotDepthHandler(feed, symbols); h.createClient(); yield h; }
+            case "whitebit" -> { var h = new WhiteBitSpotDepthHandler(feed, symbols); h.createClient(); yield h; }
+            case "bitunix" -> { var h = new BitunixSpotDepthHandler(feed, symbols); h.createClient(); yield h; }
+            case "cryptocom" -> { var h = new CryptoComSpotDepthHandler(feed, symbols); h.createClient(); yield h; }
+            default -> throw new IllegalArgumentException("unknown exchange: " + exchange);
+        };
+        frames = Corpus.load(exchange).toArray(new String[0]);
+        if ("coinex".equals(exchange)) {
+            binaryFrames = new byte[frames.length][];
+            for (int i = 0; i < frames.length; i++) binaryFrames[i] = gzip(frames[i]);
+        }
+        // 先完整过一遍语料：建立频道映射（如 Bitfinex 的 chanId）并填好缓存
+        for (int i = 0; i < frames.length; i++) onFrame(i);
+    }
+
+    @Benchmark
+    public void onMessage() {
+        onFrame(next);
+        next = next + 1 == frames.length ? 0 : next + 1;
+    }
+
+    private void onFrame(int i) {
+        if (binaryFrames != null) handler.onBinaryMessage(binaryFrames[i]);
+        else handler.onMessage(frames[i]);
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+}
@@ -1,9 +1,12 @@
-import axios from 'axios'
-
-export function getSpreadStats() {
-  return axios.get('/api/spread-stats')
-}
-
-export function getExchangePrices(symbol = 'BTC') {
-  return axios.get('/api/exchange-prices', { params: { symbol } })
+/**
+ * 订阅看板推送流（SSE），事件 prices / stats，首帧 full=true 为全量，之后为增量。
+ * 连接断开后 EventSource 会自动重连并重新收到全量。
+ */
+export function openDashboardStream(symbols, { onPrices, onStats, onError } = {}) {
+  const query = symbols?.length ? `?symbols=${encodeURIComponent(symbols.join(','))}` : ''
+  const source = new EventSource(`/api/stream${query}`)
+  if (onPrices) source.addEventListener('prices', e => onPrices(JSON.parse(e.data)))
+  if (onStats) source.addEventListener('stats', e => onStats(JSON.parse(e.data)))
+  if (onError) source.onerror = onError
+  return source
 }